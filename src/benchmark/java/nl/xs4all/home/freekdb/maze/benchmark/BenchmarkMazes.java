@@ -0,0 +1,119 @@
+package nl.xs4all.home.freekdb.maze.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import javax.imageio.ImageIO;
+
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.model.MazeParameters;
+import nl.xs4all.home.freekdb.maze.model.RandomMode;
+
+/**
+ * Helper methods to create the mazes used by the JMH benchmarks. A maze is described by its width in cells, its cell
+ * size and a shape: either "none" for a rectangular maze or the path of a shape image. A shape image is scaled to the
+ * requested maze size, keeping its aspect ratio.
+ */
+final class BenchmarkMazes {
+    /**
+     * Shape parameter value for a rectangular maze without a shape image.
+     */
+    static final String NO_SHAPE = "none";
+
+    private static final long RANDOM_SEED = 654321;
+
+    private BenchmarkMazes() {
+    }
+
+    /**
+     * Create an empty maze (only the outer borders).
+     *
+     * @param shape     the shape parameter.
+     * @param mazeWidth the number of columns of cells.
+     * @param cellSize  the width and height of a cell in pixels.
+     * @return the new maze.
+     */
+    static Maze createMaze(final String shape, final int mazeWidth, final int cellSize) {
+        return createMaze(shape, mazeWidth, cellSize, RandomMode.LEGACY);
+    }
+
+    /**
+     * Create an empty maze (only the outer borders) that uses a specific random number generator.
+     *
+     * @param shape      the shape parameter.
+     * @param mazeWidth  the number of columns of cells.
+     * @param cellSize   the width and height of a cell in pixels.
+     * @param randomMode the random number generator to use for generation.
+     * @return the new maze.
+     */
+    static Maze createMaze(final String shape, final int mazeWidth, final int cellSize, final RandomMode randomMode) {
+        final int mazeHeight;
+
+        if (NO_SHAPE.equals(shape))
+            mazeHeight = mazeWidth;
+        else {
+            final BufferedImage shapeImage = readImage(shape);
+            mazeHeight = Math.max(2, mazeWidth * shapeImage.getHeight() / shapeImage.getWidth());
+        }
+
+        return new Maze(new MazeParameters(mazeHeight, mazeWidth, cellSize, cellSize, new Point(0, 0),
+                                           new Point(mazeWidth - 1, mazeHeight - 1), RANDOM_SEED)
+                                .withRandomMode(randomMode));
+    }
+
+    /**
+     * Get the shape image scaled to the pixel size of a maze, or null for a rectangular maze.
+     *
+     * @param shape the shape parameter.
+     * @param maze  the maze.
+     * @return the scaled shape image or null.
+     */
+    static BufferedImage createShapeImage(final String shape, final Maze maze) {
+        if (NO_SHAPE.equals(shape))
+            return null;
+
+        final BufferedImage sourceImage = readImage(shape);
+        final BufferedImage shapeImage = new BufferedImage(maze.getCellWidth() * (maze.getMazeWidth() + 2),
+                                                           maze.getCellHeight() * (maze.getMazeHeight() + 2),
+                                                           BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = shapeImage.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        graphics.drawImage(sourceImage, 0, 0, shapeImage.getWidth(), shapeImage.getHeight(), null);
+        graphics.dispose();
+
+        return shapeImage;
+    }
+
+    /**
+     * Create a maze, limit it to the shape and generate the walls.
+     *
+     * @param shape     the shape parameter.
+     * @param mazeWidth the number of columns of cells.
+     * @param cellSize  the width and height of a cell in pixels.
+     * @return the generated maze.
+     */
+    static Maze createGeneratedMaze(final String shape, final int mazeWidth, final int cellSize) {
+        final Maze maze = createMaze(shape, mazeWidth, cellSize);
+        final BufferedImage shapeImage = createShapeImage(shape, maze);
+
+        if (shapeImage != null)
+            maze.limitMazeAreaToShape(shapeImage);
+
+        maze.generateMaze();
+
+        return maze;
+    }
+
+    private static BufferedImage readImage(final String path) {
+        try {
+            return ImageIO.read(new File(path));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to read shape image " + path + ".", e);
+        }
+    }
+}
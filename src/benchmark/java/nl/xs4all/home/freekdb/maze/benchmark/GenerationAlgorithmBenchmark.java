@@ -0,0 +1,64 @@
+package nl.xs4all.home.freekdb.maze.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.model.MazeAlgorithm;
+import nl.xs4all.home.freekdb.maze.model.RandomMode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark that compares the maze generation algorithms on a maze that has already been limited to its shape.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationAlgorithmBenchmark {
+    @Param({"250", "1000"})
+    private int mazeSize;
+
+    @Param({BenchmarkMazes.NO_SHAPE, "etc/unit-test.png"})
+    private String shape;
+
+    @Param({"CURLY_LINE", "RECURSIVE_BACKTRACKER", "KRUSKAL", "WILSON", "ELLER"})
+    private MazeAlgorithm algorithm;
+
+    private BufferedImage shapeImage;
+    private Maze maze;
+
+    @Setup(Level.Trial)
+    public void setUpShape() {
+        shapeImage = BenchmarkMazes.createShapeImage(shape, BenchmarkMazes.createMaze(shape, mazeSize, 2));
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpMaze() {
+        maze = BenchmarkMazes.createMaze(shape, mazeSize, 2, RandomMode.XOROSHIRO);
+
+        if (shapeImage != null)
+            maze.limitMazeAreaToShape(shapeImage);
+    }
+
+    @Benchmark
+    public Maze generateMaze() {
+        maze.generateMaze(algorithm.createGenerator());
+
+        return maze;
+    }
+}
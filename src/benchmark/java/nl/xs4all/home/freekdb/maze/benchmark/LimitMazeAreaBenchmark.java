@@ -0,0 +1,59 @@
+package nl.xs4all.home.freekdb.maze.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import nl.xs4all.home.freekdb.maze.model.Maze;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for <code>Maze.limitMazeAreaToShape</code>: sampling the shape image and tracing the shape border.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LimitMazeAreaBenchmark {
+    @Param({"250", "1000"})
+    private int mazeSize;
+
+    @Param({"2", "6"})
+    private int cellSize;
+
+    @Param({"etc/unit-test.png"})
+    private String shape;
+
+    private BufferedImage shapeImage;
+    private Maze maze;
+
+    @Setup(Level.Trial)
+    public void setUpShape() {
+        shapeImage = BenchmarkMazes.createShapeImage(shape, BenchmarkMazes.createMaze(shape, mazeSize, cellSize));
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpMaze() {
+        maze = BenchmarkMazes.createMaze(shape, mazeSize, cellSize);
+    }
+
+    @Benchmark
+    public Maze limitMazeAreaToShape() {
+        maze.limitMazeAreaToShape(shapeImage);
+
+        return maze;
+    }
+}
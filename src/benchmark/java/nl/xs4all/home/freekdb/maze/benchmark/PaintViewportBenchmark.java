@@ -0,0 +1,76 @@
+package nl.xs4all.home.freekdb.maze.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.view.MazeView;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for repainting a viewport of 800 x 600 pixels of <code>MazeView</code>, like a scroll pane does. The view
+ * is scrolled to the next viewport in each invocation, so the tile cache sees both hits and misses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaintViewportBenchmark {
+    private static final int VIEWPORT_WIDTH = 800;
+    private static final int VIEWPORT_HEIGHT = 600;
+    private static final int SCROLL_STEP = 100;
+
+    @Param({"500", "2000"})
+    private int mazeSize;
+
+    @Param({"2", "6"})
+    private int cellSize;
+
+    private MazeView mazeView;
+    private BufferedImage viewportImage;
+    private Graphics2D graphics;
+    private int viewportX;
+
+    @Setup
+    public void setUp() {
+        final Maze maze = BenchmarkMazes.createGeneratedMaze(BenchmarkMazes.NO_SHAPE, mazeSize, cellSize);
+
+        mazeView = new MazeView(maze, null);
+        mazeView.setSize(mazeView.getPreferredSize());
+        viewportImage = new BufferedImage(VIEWPORT_WIDTH, VIEWPORT_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        graphics = viewportImage.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintViewport() {
+        viewportX = (viewportX + SCROLL_STEP) % Math.max(1, mazeView.getWidth() - VIEWPORT_WIDTH);
+
+        final Graphics2D viewportGraphics = (Graphics2D) graphics.create();
+        viewportGraphics.translate(-viewportX, 0);
+        viewportGraphics.clipRect(viewportX, 0, VIEWPORT_WIDTH, VIEWPORT_HEIGHT);
+        mazeView.paint(viewportGraphics);
+        viewportGraphics.dispose();
+
+        return viewportImage;
+    }
+}
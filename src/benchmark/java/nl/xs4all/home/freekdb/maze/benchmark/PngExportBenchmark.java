@@ -0,0 +1,123 @@
+package nl.xs4all.home.freekdb.maze.benchmark;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import nl.xs4all.home.freekdb.maze.io.PngRowSink;
+import nl.xs4all.home.freekdb.maze.model.EllerMazeGenerator;
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.model.MazeParameters;
+import nl.xs4all.home.freekdb.maze.model.StreamingMazeGenerator;
+import nl.xs4all.home.freekdb.maze.view.RasterMazeRenderer;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the PNG export: rendering the complete image and writing it with <code>ImageIO</code>, writing the
+ * rows of a maze in memory to a <code>PngRowSink</code> (one band of scanlines at a time) and generating a maze row by
+ * row with the <code>StreamingMazeGenerator</code> while it is written to a <code>PngRowSink</code> (which includes
+ * the generation). Next to the images per second, the <code>megapixels</code> counter gives the megapixels per second
+ * (which JMH prints as ops/s). Run it with <code>-prof gc</code> to see that the row sinks allocate about the same per
+ * image for every maze size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PngExportBenchmark {
+    @Param({"1000", "3000"})
+    private int mazeSize;
+
+    @Param({"2", "10"})
+    private int cellSize;
+
+    private MazeParameters mazeParameters;
+    private Maze maze;
+    private double imageMegapixels;
+
+    /**
+     * Counts the megapixels of the exported images, which JMH reports per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class PixelCounter {
+        public double megapixels;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megapixels = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        mazeParameters = new MazeParameters(mazeSize, mazeSize, cellSize, cellSize, new Point(0, 0),
+                                            new Point(mazeSize - 1, mazeSize - 1), 654321);
+        maze = new Maze(mazeParameters);
+        maze.generateMaze(new EllerMazeGenerator());
+
+        imageMegapixels = (double) cellSize * (mazeSize + 2) * cellSize * (mazeSize + 2) / 1e6;
+    }
+
+    @Benchmark
+    public long imageIoWrite(final PixelCounter pixelCounter) throws IOException {
+        final ByteCountingOutputStream outputStream = new ByteCountingOutputStream();
+        ImageIO.write(RasterMazeRenderer.createImage(maze), "png", outputStream);
+        pixelCounter.megapixels += imageMegapixels;
+
+        return outputStream.byteCount;
+    }
+
+    @Benchmark
+    public long pngRowSink(final PixelCounter pixelCounter) throws IOException {
+        final ByteCountingOutputStream outputStream = new ByteCountingOutputStream();
+        maze.writeRows(new PngRowSink(outputStream));
+        pixelCounter.megapixels += imageMegapixels;
+
+        return outputStream.byteCount;
+    }
+
+    @Benchmark
+    public long streamingPngRowSink(final PixelCounter pixelCounter) throws IOException {
+        final ByteCountingOutputStream outputStream = new ByteCountingOutputStream();
+        new StreamingMazeGenerator(mazeParameters, null).generate(new PngRowSink(outputStream));
+        pixelCounter.megapixels += imageMegapixels;
+
+        return outputStream.byteCount;
+    }
+
+    /**
+     * Output stream that only counts the bytes written to it.
+     */
+    private static class ByteCountingOutputStream extends OutputStream {
+        private long byteCount;
+
+        @Override
+        public void write(final int value) {
+            byteCount++;
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) {
+            byteCount += length;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package nl.xs4all.home.freekdb.maze.benchmark;
+
+import java.awt.Image;
+import java.lang.management.ManagementFactory;
+
+import javax.swing.ImageIcon;
+
+import nl.xs4all.home.freekdb.maze.model.MazeParameters;
+
+/**
+ * Measure the time from the start of the JVM until the parameters of a preset are available, for the lazy preset
+ * registry (which only reads the header of the shape image), for the registry with the shape image decoded as well,
+ * and for decoding the shape image with Swing's <code>ImageIcon</code> (like the static preset map did). Each mode
+ * should be run in a fresh JVM. The difference only shows with a large shape image: use the
+ * <code>maze.presets</code> system property to point to a presets file with such an image.
+ * <p>
+ * This is not a JMH benchmark, since it measures the start of the JVM itself. Compile it with <code>mvn -Pbenchmark
+ * test-compile</code> and run it with: <code>java -cp target/classes:target/test-classes [-Dmaze.presets=large.properties]
+ * nl.xs4all.home.freekdb.maze.benchmark.PresetStartupBenchmark [preset|decode] [preset name]</code> or with
+ * <code>imageicon [image] [cell size]</code> (the default is the "Test" preset with etc/unit-test.png and cell size 2).
+ */
+public class PresetStartupBenchmark {
+    public static void main(final String[] arguments) {
+        final String mode = arguments.length > 0 ? arguments[0] : "preset";
+        final int mazeWidth;
+
+        switch (mode) {
+            case "imageicon":
+                final String imagePath = arguments.length > 1 ? arguments[1] : "etc/unit-test.png";
+                final int cellSize = arguments.length > 2 ? Integer.parseInt(arguments[2]) : 2;
+                final Image image = new ImageIcon(imagePath).getImage();
+                mazeWidth = (image.getWidth(null) - 6) / cellSize;
+                break;
+
+            case "decode":
+                final MazeParameters decodedParameters = getPresetParameters(arguments);
+                decodedParameters.getShapeImage();
+                mazeWidth = decodedParameters.getMazeWidth();
+                break;
+
+            default:
+                mazeWidth = getPresetParameters(arguments).getMazeWidth();
+                break;
+        }
+
+        final long elapsedMilliseconds = System.currentTimeMillis()
+                                         - ManagementFactory.getRuntimeMXBean().getStartTime();
+
+        System.out.println(mode + ": maze width " + mazeWidth + " after " + elapsedMilliseconds + " ms since JVM start"
+                           + " (loaded classes: " + ManagementFactory.getClassLoadingMXBean().getLoadedClassCount()
+                           + ")");
+    }
+
+    private static MazeParameters getPresetParameters(final String[] arguments) {
+        return MazeParameters.getPreconfiguredParameters(arguments.length > 1 ? arguments[1] : "Test");
+    }
+}
@@ -0,0 +1,78 @@
+package nl.xs4all.home.freekdb.maze.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.view.MazeRenderer;
+import nl.xs4all.home.freekdb.maze.view.RasterMazeRenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for rendering the walls of a maze into an offscreen image, with <code>Graphics.drawLine</code> per wall
+ * segment (<code>MazeRenderer</code>) and by writing into the data buffer (<code>RasterMazeRenderer</code>).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderMazeBenchmark {
+    @Param({"250", "1000"})
+    private int mazeSize;
+
+    @Param({"2", "6"})
+    private int cellSize;
+
+    @Param({BenchmarkMazes.NO_SHAPE, "etc/unit-test.png"})
+    private String shape;
+
+    @Param({"TYPE_INT_RGB", "TYPE_BYTE_BINARY"})
+    private String imageType;
+
+    private Maze maze;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        maze = BenchmarkMazes.createGeneratedMaze(shape, mazeSize, cellSize);
+
+        image = new BufferedImage(MazeRenderer.getImageWidth(maze), MazeRenderer.getImageHeight(maze),
+                                  BufferedImage.class.getField(imageType).getInt(null));
+        graphics = image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage graphicsDrawLines() {
+        MazeRenderer.drawLines(graphics, maze);
+
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage rasterDrawLines() {
+        RasterMazeRenderer.drawLines(image, maze);
+
+        return image;
+    }
+}
@@ -0,0 +1,62 @@
+package nl.xs4all.home.freekdb.maze.benchmark;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import nl.xs4all.home.freekdb.maze.model.ShapeMask;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for sampling a large shape image (10,000 x 10,000 pixels) into a shape mask, for a binary image (like a
+ * one bit palette PNG file) and an 8 bit indexed image.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ShapeMaskBenchmark {
+    private static final int IMAGE_SIZE = 10_000;
+
+    @Param({"TYPE_BYTE_BINARY", "TYPE_BYTE_INDEXED"})
+    private String imageType;
+
+    @Param({"2", "6"})
+    private int cellSize;
+
+    private BufferedImage shapeImage;
+    private int mazeSize;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        shapeImage = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.class.getField(imageType).getInt(null));
+
+        final Graphics2D graphics = shapeImage.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
+        graphics.setColor(Color.BLACK);
+        graphics.fillOval(100, 100, IMAGE_SIZE - 200, IMAGE_SIZE - 200);
+        graphics.dispose();
+
+        mazeSize = (IMAGE_SIZE - 6) / cellSize;
+    }
+
+    @Benchmark
+    public ShapeMask sampleShapeMask() {
+        return ShapeMask.sample(shapeImage, cellSize, cellSize, mazeSize, mazeSize);
+    }
+}
@@ -0,0 +1,114 @@
+package nl.xs4all.home.freekdb.maze.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import nl.xs4all.home.freekdb.maze.model.AStarSolver;
+import nl.xs4all.home.freekdb.maze.model.BreadthFirstSolver;
+import nl.xs4all.home.freekdb.maze.model.DeadEndFillingSolver;
+import nl.xs4all.home.freekdb.maze.model.DepthFirstSolver;
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.model.MazeSolver;
+
+import nl.xs4all.home.freekdb.maze.model.MazeSolverListener;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for the maze solvers, from the top left cell to the bottom right cell of a rectangular maze. The
+ * <code>solveMazeCountingCells</code> benchmark passes a listener to the solver, so the <code>enteredCells</code> and
+ * <code>deadEndCells</code> counters divided by the <code>solves</code> counter give the number of cells that a solver
+ * visits per maze (JMH sums these counters over the iterations).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveMazeBenchmark {
+    @Param({"250", "1000"})
+    private int mazeSize;
+
+    @Param({"2"})
+    private int cellSize;
+
+    @Param({"depthFirst", "breadthFirst", "aStar", "deadEndFilling"})
+    private String solverName;
+
+    private Maze maze;
+    private MazeSolver solver;
+
+    /**
+     * Counts the cells that the solvers enter and leave as dead ends.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CellCounter implements MazeSolverListener {
+        public long solves;
+        public long enteredCells;
+        public long deadEndCells;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            solves = 0;
+            enteredCells = 0;
+            deadEndCells = 0;
+        }
+
+        @Override
+        public void cellEntered(final int cellIndex) {
+            enteredCells++;
+        }
+
+        @Override
+        public void cellLeft(final int cellIndex) {
+            deadEndCells++;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        maze = BenchmarkMazes.createGeneratedMaze(BenchmarkMazes.NO_SHAPE, mazeSize, cellSize);
+        solver = createSolver(solverName);
+    }
+
+    @Benchmark
+    public int[] solveMaze() {
+        return maze.solveMaze(solver, null);
+    }
+
+    @Benchmark
+    public int[] solveMazeCountingCells(final CellCounter cellCounter) {
+        cellCounter.solves++;
+
+        return maze.solveMaze(solver, cellCounter);
+    }
+
+    private static MazeSolver createSolver(final String name) {
+        switch (name) {
+            case "breadthFirst":
+                return new BreadthFirstSolver();
+
+            case "aStar":
+                return new AStarSolver();
+
+            case "deadEndFilling":
+                return new DeadEndFillingSolver();
+
+            default:
+                return new DepthFirstSolver();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package nl.xs4all.home.freekdb.maze.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import nl.xs4all.home.freekdb.maze.model.BitGrid;
+import nl.xs4all.home.freekdb.maze.model.PackedBitGrid;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark that compares the memory needed for the three maze layers (cross points, horizontal lines and vertical
+ * lines) when they are stored as <code>boolean[][]</code> arrays and when they are stored as packed bit grids. Run it
+ * with <code>-prof gc</code> (the default of the benchmark profile): <code>gc.alloc.rate.norm</code> gives the bytes
+ * of the layers of one maze.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageMemoryBenchmark {
+    @Param({"100", "1000", "4000"})
+    private int mazeSize;
+
+    @Benchmark
+    public boolean[][][] allocateBooleanArrays() {
+        return new boolean[][][]{new boolean[mazeSize + 1][mazeSize + 1], new boolean[mazeSize + 1][mazeSize],
+                                 new boolean[mazeSize][mazeSize + 1]};
+    }
+
+    @Benchmark
+    public BitGrid[] allocatePackedGrids() {
+        return new BitGrid[]{new PackedBitGrid(mazeSize + 1, mazeSize + 1), new PackedBitGrid(mazeSize + 1, mazeSize),
+                             new PackedBitGrid(mazeSize, mazeSize + 1)};
+    }
+}
@@ -0,0 +1,70 @@
+package nl.xs4all.home.freekdb.maze.benchmark;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.model.RandomMode;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for tiled (parallel) maze generation with different numbers of threads, to measure the speedup compared
+ * to a single thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TiledGenerationBenchmark {
+    @Param({"2000"})
+    private int mazeSize;
+
+    @Param({"256"})
+    private int tileSize;
+
+    @Param({"1", "2", "4", "8"})
+    private int threadCount;
+
+    @Param({"XOROSHIRO"})
+    private RandomMode randomMode;
+
+    private ForkJoinPool pool;
+    private Maze maze;
+
+    @Setup(Level.Trial)
+    public void setUpPool() {
+        pool = new ForkJoinPool(threadCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownPool() {
+        pool.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpMaze() {
+        maze = BenchmarkMazes.createMaze(BenchmarkMazes.NO_SHAPE, mazeSize, 2, randomMode);
+    }
+
+    @Benchmark
+    public Maze generateMazeTiled() {
+        maze.generateMazeTiled(tileSize, pool);
+
+        return maze;
+    }
+}
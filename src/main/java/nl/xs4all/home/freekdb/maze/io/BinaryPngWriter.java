@@ -0,0 +1,170 @@
+package nl.xs4all.home.freekdb.maze.io;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a black and white (1 bit grayscale) PNG image one scanline at a time, so the image never has to be in memory
+ * as a whole. The scanlines are collected in a buffer of at least 64 KB, which is deflated at once, and the compressed
+ * image data is split into IDAT chunks of at most 64 KB. The memory use is proportional to the image width.
+ * <p>
+ * A scanline that is repeated is written with the "up" filter, which makes it all zeros (the difference with the
+ * scanline above), so repeated scanlines cost almost nothing to compress. The fastest compression level is used: for
+ * maze images it is several times faster than the default level, while the files are only slightly larger.
+ */
+class BinaryPngWriter {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int BIT_DEPTH = 1;
+    private static final int COLOR_TYPE_GRAYSCALE = 0;
+    private static final byte FILTER_NONE = 0;
+    private static final byte FILTER_UP = 2;
+
+    private final DataOutputStream outputStream;
+    private final int height;
+    private final int scanlineBytes;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final byte[] chunkBuffer = new byte[CHUNK_SIZE];
+
+    /**
+     * The filtered scanlines (a filter type byte followed by the scanline bytes) that have not been deflated yet.
+     */
+    private final byte[] rawBuffer;
+    private int rawLength;
+
+    private int rowCount;
+
+    /**
+     * Start writing an image by writing the PNG signature and the header.
+     *
+     * @param outputStream the stream to write to, which is not closed.
+     * @param width        the width of the image in pixels.
+     * @param height       the height of the image in pixels.
+     * @throws IOException if writing fails.
+     */
+    BinaryPngWriter(final OutputStream outputStream, final int width, final int height) throws IOException {
+        this.outputStream = new DataOutputStream(outputStream);
+        this.height = height;
+        this.scanlineBytes = (width + 7) / 8;
+        this.rawBuffer = new byte[Math.max(CHUNK_SIZE, scanlineBytes + 1)];
+
+        this.outputStream.write(SIGNATURE);
+
+        final byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = BIT_DEPTH;
+        header[9] = COLOR_TYPE_GRAYSCALE;
+        writeChunk("IHDR", header, header.length);
+    }
+
+    /**
+     * Get the number of bytes in a scanline: one bit per pixel, with the leftmost pixel in the most significant bit.
+     * A set bit is a white pixel.
+     *
+     * @return the number of bytes in a scanline.
+     */
+    int getScanlineBytes() {
+        return scanlineBytes;
+    }
+
+    /**
+     * Write the next scanline.
+     *
+     * @param scanline the pixels of the scanline (see {@link #getScanlineBytes()}).
+     * @throws IOException if writing fails.
+     */
+    void writeScanline(final byte[] scanline) throws IOException {
+        writeScanline(scanline, 1);
+    }
+
+    /**
+     * Write the next scanline a number of times.
+     *
+     * @param scanline the pixels of the scanline (see {@link #getScanlineBytes()}).
+     * @param count    the number of times to write the scanline.
+     * @throws IOException if writing fails.
+     */
+    void writeScanline(final byte[] scanline, final int count) throws IOException {
+        if (rowCount + count > height)
+            throw new IllegalStateException("Only " + (height - rowCount) + " of " + height
+                                            + " scanlines are left to write.");
+
+        for (int repeatIndex = 0; repeatIndex < count; repeatIndex++) {
+            if (rawLength + scanlineBytes + 1 > rawBuffer.length)
+                deflateRawBuffer();
+
+            if (repeatIndex == 0) {
+                rawBuffer[rawLength] = FILTER_NONE;
+                System.arraycopy(scanline, 0, rawBuffer, rawLength + 1, scanlineBytes);
+            } else {
+                rawBuffer[rawLength] = FILTER_UP;
+                Arrays.fill(rawBuffer, rawLength + 1, rawLength + 1 + scanlineBytes, (byte) 0);
+            }
+
+            rawLength += scanlineBytes + 1;
+        }
+
+        rowCount += count;
+    }
+
+    /**
+     * Write the last image data and the end of the image.
+     *
+     * @throws IOException if writing fails or if not all scanlines were written.
+     */
+    void finish() throws IOException {
+        if (rowCount != height)
+            throw new IOException("Only " + rowCount + " of " + height + " scanlines were written.");
+
+        deflateRawBuffer();
+        deflater.finish();
+        while (!deflater.finished())
+            writeCompressedData();
+
+        deflater.end();
+        writeChunk("IEND", chunkBuffer, 0);
+        outputStream.flush();
+    }
+
+    private void deflateRawBuffer() throws IOException {
+        deflater.setInput(rawBuffer, 0, rawLength);
+
+        while (!deflater.needsInput())
+            writeCompressedData();
+
+        rawLength = 0;
+    }
+
+    private void writeCompressedData() throws IOException {
+        final int compressedSize = deflater.deflate(chunkBuffer);
+
+        if (compressedSize > 0)
+            writeChunk("IDAT", chunkBuffer, compressedSize);
+    }
+
+    private void writeChunk(final String type, final byte[] data, final int length) throws IOException {
+        final byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        final CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+
+        outputStream.writeInt(length);
+        outputStream.write(typeBytes);
+        outputStream.write(data, 0, length);
+        outputStream.writeInt((int) crc.getValue());
+    }
+
+    private static void putInt(final byte[] bytes, final int offset, final int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,73 @@
+package nl.xs4all.home.freekdb.maze.io;
+
+/**
+ * Compression of the wall planes in a maze file, which is selected when the maze is written.
+ */
+public enum MazeCompression {
+    /**
+     * The wall planes are stored as they are in memory.
+     */
+    NONE(0),
+
+    /**
+     * The wall planes are run-length encoded (PackBits), which is fast and works well for mazes with large areas
+     * outside the shape.
+     */
+    RUN_LENGTH(1),
+
+    /**
+     * The wall planes are compressed with deflate, which gives the smallest files.
+     */
+    DEFLATE(2);
+
+    private final int id;
+
+    MazeCompression(final int id) {
+        this.id = id;
+    }
+
+    /**
+     * Get the identifier that is stored in the file header.
+     *
+     * @return the identifier.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get a lower bound for the size of wall planes in this compression, so a reader can reject a file that is too
+     * short for the dimensions in its header before it allocates the maze.
+     *
+     * @param plainByteCount the size of the uncompressed wall planes.
+     * @return the smallest possible size of the compressed wall planes.
+     */
+    long getMinimumEncodedSize(final long plainByteCount) {
+        switch (this) {
+            case RUN_LENGTH:
+                // A repeat packet of two bytes encodes at most 128 bytes.
+                return (plainByteCount + 127) / 128 * 2;
+
+            case DEFLATE:
+                // Deflate cannot compress better than about 1032 to 1.
+                return plainByteCount / 1032;
+
+            default:
+                return plainByteCount;
+        }
+    }
+
+    /**
+     * Get the compression for an identifier from a file header.
+     *
+     * @param id the identifier.
+     * @return the compression or null if the identifier is unknown.
+     */
+    public static MazeCompression fromId(final int id) {
+        for (final MazeCompression compression : values())
+            if (compression.id == id)
+                return compression;
+
+        return null;
+    }
+}
@@ -0,0 +1,83 @@
+package nl.xs4all.home.freekdb.maze.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import nl.xs4all.home.freekdb.maze.model.BitGrid;
+import nl.xs4all.home.freekdb.maze.model.Maze;
+
+/**
+ * Constants and shared helpers of the binary maze file format (version 1).
+ * <p>
+ * A maze file starts with a fixed-size header in big-endian byte order:
+ * <pre>
+ * offset size field
+ *      0    4 magic "MAZE"
+ *      4    2 format version
+ *      6    1 compression of the wall planes (see {@link MazeCompression})
+ *      7    1 flags: bit 0 = start point present, bit 1 = end point present
+ *      8   16 maze width, maze height, cell width and cell height (int)
+ *     24   16 start x, start y, end x and end y (int, -1 if absent)
+ *     40    8 random seed (long)
+ *     48    1 random mode (id of RandomMode)
+ *     49    3 reserved (zero)
+ * </pre>
+ * The header is followed by the (possibly compressed) wall planes: the words of the cross points, the horizontal lines
+ * and the vertical lines, each in the row-major layout of {@link BitGrid} and stored as little-endian longs. The size
+ * of the planes follows from the dimensions, so the payload has no length field.
+ */
+final class MazeFileFormat {
+    static final int MAGIC = 0x4D415A45;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 52;
+
+    static final int FLAG_START_POINT = 1;
+    static final int FLAG_END_POINT = 2;
+
+    static final ByteOrder PLANE_BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private MazeFileFormat() {
+    }
+
+    /**
+     * Get the wall planes of a maze in the order in which they are stored.
+     *
+     * @param maze the maze.
+     * @return the cross points, horizontal lines and vertical lines.
+     */
+    static BitGrid[] getPlanes(final Maze maze) {
+        return new BitGrid[]{maze.getCrossPointGrid(), maze.getHorizontalLineGrid(), maze.getVerticalLineGrid()};
+    }
+
+    /**
+     * Get the size of the uncompressed wall planes of a maze with the given dimensions.
+     *
+     * @param mazeWidth  the number of columns of cells (less than <code>Integer.MAX_VALUE</code>).
+     * @param mazeHeight the number of rows of cells.
+     * @return the number of bytes of the three planes.
+     */
+    static long getPlaneByteCount(final int mazeWidth, final int mazeHeight) {
+        final long crossPointWordCount = (mazeHeight + 1L) * BitGrid.getWordsPerRow(mazeWidth + 1);
+        final long horizontalLineWordCount = (mazeHeight + 1L) * BitGrid.getWordsPerRow(mazeWidth);
+        final long verticalLineWordCount = (long) mazeHeight * BitGrid.getWordsPerRow(mazeWidth + 1);
+
+        return (crossPointWordCount + horizontalLineWordCount + verticalLineWordCount) * Long.BYTES;
+    }
+
+    static void writeFully(final WritableByteChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    static void readFully(final ReadableByteChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            if (channel.read(buffer) < 0)
+                throw new EOFException("Unexpected end of maze file.");
+    }
+}
@@ -0,0 +1,111 @@
+package nl.xs4all.home.freekdb.maze.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import nl.xs4all.home.freekdb.maze.model.BitGrid;
+import nl.xs4all.home.freekdb.maze.model.MazeParameters;
+import nl.xs4all.home.freekdb.maze.model.MazeRowSink;
+
+/**
+ * Row sink that writes a maze in the binary maze file format (see {@link MazeFileFormat}), without compression. The
+ * size of each wall plane follows from the maze dimensions in the header, so every row can be written at its final
+ * position in the file right away; each plane has its own buffer that is written when it is full. The resulting file
+ * is the same as the one <code>MazeWriter</code> writes for the complete maze with <code>MazeCompression.NONE</code>
+ * (compressed planes cannot be written row by row, because the planes are stored one after the other).
+ */
+public class MazeFileRowSink implements MazeRowSink {
+    private static final int PLANE_COUNT = 3;
+    private static final int WORD_BYTES = BitGrid.BITS_PER_WORD / Byte.SIZE;
+
+    private final Path path;
+
+    private FileChannel channel;
+    private ByteBuffer[] planeBuffers;
+    private long[] planePositions;
+
+    /**
+     * Create a maze file row sink.
+     *
+     * @param path the file to write, which is replaced if it exists.
+     */
+    public MazeFileRowSink(final Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void startMaze(final MazeParameters mazeParameters) throws IOException {
+        final int mazeWidth = mazeParameters.getMazeWidth();
+        final int mazeHeight = mazeParameters.getMazeHeight();
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+
+        try {
+            MazeFileFormat.writeFully(channel, MazeWriter.createHeader(
+                    mazeWidth, mazeHeight, mazeParameters.getCellWidth(), mazeParameters.getCellHeight(),
+                    mazeParameters.getStartPoint(), mazeParameters.getEndPoint(), mazeParameters.getRandomSeed(),
+                    mazeParameters.getRandomMode(), MazeCompression.NONE));
+
+            // The cross points, horizontal lines and vertical lines, in the order of the file.
+            final long crossPointBytes = (long) (mazeHeight + 1) * BitGrid.getWordsPerRow(mazeWidth + 1) * WORD_BYTES;
+            final long horizontalLineBytes = (long) (mazeHeight + 1) * BitGrid.getWordsPerRow(mazeWidth) * WORD_BYTES;
+
+            planePositions = new long[]{MazeFileFormat.HEADER_SIZE, MazeFileFormat.HEADER_SIZE + crossPointBytes,
+                                        MazeFileFormat.HEADER_SIZE + crossPointBytes + horizontalLineBytes};
+            planeBuffers = new ByteBuffer[PLANE_COUNT];
+
+            for (int plane = 0; plane < PLANE_COUNT; plane++)
+                planeBuffers[plane] = ByteBuffer.allocate(MazeFileFormat.BUFFER_SIZE)
+                        .order(MazeFileFormat.PLANE_BYTE_ORDER);
+        } catch (final IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void writeRow(final int row, final long[] crossPoints, final long[] horizontalLines,
+                         final long[] verticalLines) throws IOException {
+        putWords(0, crossPoints);
+        putWords(1, horizontalLines);
+
+        if (verticalLines != null)
+            putWords(2, verticalLines);
+    }
+
+    @Override
+    public void finishMaze() throws IOException {
+        try {
+            for (int plane = 0; plane < PLANE_COUNT; plane++)
+                flushPlane(plane);
+        } finally {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void putWords(final int plane, final long[] words) throws IOException {
+        final ByteBuffer buffer = planeBuffers[plane];
+
+        for (final long word : words) {
+            if (!buffer.hasRemaining())
+                flushPlane(plane);
+
+            buffer.putLong(word);
+        }
+    }
+
+    private void flushPlane(final int plane) throws IOException {
+        final ByteBuffer buffer = planeBuffers[plane];
+        buffer.flip();
+
+        while (buffer.hasRemaining())
+            planePositions[plane] += channel.write(buffer, planePositions[plane]);
+
+        buffer.clear();
+    }
+}
@@ -0,0 +1,291 @@
+package nl.xs4all.home.freekdb.maze.io;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import nl.xs4all.home.freekdb.maze.model.BitGrid;
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.model.MazeParameters;
+import nl.xs4all.home.freekdb.maze.model.RandomMode;
+
+/**
+ * Reads mazes in the binary maze file format (see {@link MazeFileFormat}) in a single pass. The maze is restored
+ * from its wall planes, so it is not generated (or limited to a shape) again.
+ */
+public final class MazeReader {
+    private MazeReader() {
+    }
+
+    /**
+     * Read a maze from a file.
+     *
+     * @param path the file.
+     * @return the maze.
+     * @throws IOException if reading fails or the file is not a valid maze file.
+     */
+    public static Maze read(final Path path) throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel);
+        }
+    }
+
+    /**
+     * Read a maze from a channel. The channel is not closed.
+     *
+     * @param channel the channel.
+     * @return the maze.
+     * @throws IOException if reading fails or the data is not a valid maze file.
+     */
+    public static Maze read(final ReadableByteChannel channel) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(MazeFileFormat.HEADER_SIZE);
+        MazeFileFormat.readFully(channel, header);
+        header.flip();
+
+        if (header.getInt() != MazeFileFormat.MAGIC)
+            throw new IOException("Not a maze file.");
+
+        final int version = header.getShort();
+        if (version != MazeFileFormat.VERSION)
+            throw new IOException("Unsupported maze file version: " + version + ".");
+
+        final MazeCompression compression = MazeCompression.fromId(header.get());
+        final int flags = header.get();
+        final int mazeWidth = header.getInt();
+        final int mazeHeight = header.getInt();
+        final int cellWidth = header.getInt();
+        final int cellHeight = header.getInt();
+        final Point startPoint = readPoint(header, (flags & MazeFileFormat.FLAG_START_POINT) != 0);
+        final Point endPoint = readPoint(header, (flags & MazeFileFormat.FLAG_END_POINT) != 0);
+        final long randomSeed = header.getLong();
+        final RandomMode randomMode = RandomMode.fromId(header.get());
+
+        if (compression == null || mazeWidth <= 0 || mazeWidth == Integer.MAX_VALUE || mazeHeight <= 0
+            || cellWidth <= 0 || cellHeight <= 0 || randomMode == null
+            || !isInside(startPoint, mazeWidth, mazeHeight) || !isInside(endPoint, mazeWidth, mazeHeight))
+            throw new IOException("Invalid maze file header.");
+
+        checkPlaneSize(channel, compression, MazeFileFormat.getPlaneByteCount(mazeWidth, mazeHeight));
+
+        final MazeParameters mazeParameters = new MazeParameters(mazeHeight, mazeWidth, cellHeight, cellWidth,
+                                                                 startPoint, endPoint, randomSeed)
+                .withRandomMode(randomMode);
+        final Maze maze;
+
+        try {
+            maze = new Maze(mazeParameters);
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("The maze in the file is too large.", e);
+        }
+
+        readPlanes(maze, createDecoder(channel, compression));
+
+        return maze;
+    }
+
+    /**
+     * Check the size of the wall planes that the header announces before the maze is allocated, so a corrupt header
+     * cannot make the reader allocate gigabytes: the planes have to fit in the heap and, if the size of the channel is
+     * known, the rest of the data has to be long enough to hold them.
+     */
+    private static void checkPlaneSize(final ReadableByteChannel channel, final MazeCompression compression,
+                                       final long planeByteCount) throws IOException {
+        if (planeByteCount > Runtime.getRuntime().maxMemory())
+            throw new IOException("The maze in the file is too large: " + planeByteCount + " bytes of wall planes.");
+
+        if (channel instanceof SeekableByteChannel) {
+            final SeekableByteChannel seekableChannel = (SeekableByteChannel) channel;
+            final long availableByteCount = seekableChannel.size() - seekableChannel.position();
+
+            if (availableByteCount < compression.getMinimumEncodedSize(planeByteCount))
+                throw new IOException("The maze file is too short for the dimensions in its header.");
+        }
+    }
+
+    private static Point readPoint(final ByteBuffer header, final boolean present) {
+        final int x = header.getInt();
+        final int y = header.getInt();
+
+        return present ? new Point(x, y) : null;
+    }
+
+    private static boolean isInside(final Point point, final int mazeWidth, final int mazeHeight) {
+        return point == null || point.x >= 0 && point.x < mazeWidth && point.y >= 0 && point.y < mazeHeight;
+    }
+
+    private static void readPlanes(final Maze maze, final PlaneDecoder decoder) throws IOException {
+        final ByteBuffer plainBuffer = ByteBuffer.allocate(MazeFileFormat.BUFFER_SIZE)
+                .order(MazeFileFormat.PLANE_BYTE_ORDER);
+        long remainingBytes = 0;
+
+        for (final BitGrid plane : MazeFileFormat.getPlanes(maze))
+            remainingBytes += plane.getWordCount() * Long.BYTES;
+
+        plainBuffer.limit(0);
+
+        try {
+            for (final BitGrid plane : MazeFileFormat.getPlanes(maze)) {
+                final long wordCount = plane.getWordCount();
+
+                for (long wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+                    if (!plainBuffer.hasRemaining()) {
+                        final int length = (int) Math.min(plainBuffer.capacity(), remainingBytes);
+                        decoder.decode(plainBuffer.array(), length);
+                        remainingBytes -= length;
+                        plainBuffer.position(0);
+                        plainBuffer.limit(length);
+                    }
+
+                    plane.setWord(wordIndex, plainBuffer.getLong());
+                }
+            }
+        } finally {
+            decoder.release();
+        }
+    }
+
+    private static PlaneDecoder createDecoder(final ReadableByteChannel channel, final MazeCompression compression) {
+        switch (compression) {
+            case RUN_LENGTH:
+                return new RunLengthDecoder(channel);
+
+            case DEFLATE:
+                return new InflateDecoder(channel);
+
+            default:
+                return new PlaneDecoder(channel);
+        }
+    }
+
+    /**
+     * Reads uncompressed wall planes from the channel; the subclasses decompress them.
+     */
+    private static class PlaneDecoder {
+        protected final ReadableByteChannel channel;
+        protected final ByteBuffer inputBuffer = ByteBuffer.allocate(MazeFileFormat.BUFFER_SIZE);
+
+        PlaneDecoder(final ReadableByteChannel channel) {
+            this.channel = channel;
+            this.inputBuffer.limit(0);
+        }
+
+        /**
+         * Fill the start of an array with exactly the given number of plain bytes.
+         *
+         * @param target the array.
+         * @param length the number of bytes.
+         * @throws IOException if reading fails or the data is invalid.
+         */
+        void decode(final byte[] target, final int length) throws IOException {
+            MazeFileFormat.readFully(channel, ByteBuffer.wrap(target, 0, length));
+        }
+
+        /**
+         * Release the resources of the decoder, also when reading failed.
+         */
+        void release() {
+        }
+
+        protected void fillInput() throws IOException {
+            inputBuffer.compact();
+            final int count = channel.read(inputBuffer);
+            inputBuffer.flip();
+
+            if (count < 0)
+                throw new IOException("Unexpected end of maze file.");
+        }
+
+        protected byte readByte() throws IOException {
+            while (!inputBuffer.hasRemaining())
+                fillInput();
+
+            return inputBuffer.get();
+        }
+    }
+
+    /**
+     * PackBits decoder; the state of a packet is kept between calls, since packets can cross buffer boundaries.
+     */
+    private static class RunLengthDecoder extends PlaneDecoder {
+        private int literalCount;
+        private int repeatCount;
+        private byte repeatedByte;
+
+        RunLengthDecoder(final ReadableByteChannel channel) {
+            super(channel);
+        }
+
+        @Override
+        void decode(final byte[] target, final int length) throws IOException {
+            int index = 0;
+
+            while (index < length) {
+                if (literalCount > 0) {
+                    target[index++] = readByte();
+                    literalCount--;
+                } else if (repeatCount > 0) {
+                    target[index++] = repeatedByte;
+                    repeatCount--;
+                } else {
+                    final int control = readByte();
+
+                    if (control >= 0)
+                        literalCount = control + 1;
+                    else if (control != -128) {
+                        repeatCount = 1 - control;
+                        repeatedByte = readByte();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Inflate decoder (zlib format).
+     */
+    private static class InflateDecoder extends PlaneDecoder {
+        private final Inflater inflater = new Inflater();
+
+        InflateDecoder(final ReadableByteChannel channel) {
+            super(channel);
+        }
+
+        @Override
+        void decode(final byte[] target, final int length) throws IOException {
+            int offset = 0;
+
+            try {
+                while (offset < length) {
+                    final int count = inflater.inflate(target, offset, length - offset);
+                    offset += count;
+
+                    if (count == 0) {
+                        if (inflater.finished() || inflater.needsDictionary())
+                            throw new IOException("Invalid compressed data in maze file.");
+
+                        if (inflater.needsInput()) {
+                            inputBuffer.clear();
+                            inputBuffer.limit(0);
+                            fillInput();
+                            inflater.setInput(inputBuffer.array(), inputBuffer.position(), inputBuffer.remaining());
+                        }
+                    }
+                }
+            } catch (final DataFormatException e) {
+                throw new IOException("Invalid compressed data in maze file.", e);
+            }
+        }
+
+        @Override
+        void release() {
+            inflater.end();
+        }
+    }
+}
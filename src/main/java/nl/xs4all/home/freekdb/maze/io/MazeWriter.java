@@ -0,0 +1,250 @@
+package nl.xs4all.home.freekdb.maze.io;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+
+import nl.xs4all.home.freekdb.maze.model.BitGrid;
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.model.RandomMode;
+
+/**
+ * Writes mazes in the binary maze file format (see {@link MazeFileFormat}) in a single pass over the wall planes.
+ */
+public final class MazeWriter {
+    private MazeWriter() {
+    }
+
+    /**
+     * Write a maze to a file, replacing the file if it exists.
+     *
+     * @param maze        the maze.
+     * @param path        the file.
+     * @param compression the compression of the wall planes.
+     * @throws IOException if writing fails.
+     */
+    public static void write(final Maze maze, final Path path, final MazeCompression compression) throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                          StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(maze, channel, compression);
+        }
+    }
+
+    /**
+     * Write a maze to a channel. The channel is not closed.
+     *
+     * @param maze        the maze.
+     * @param channel     the channel.
+     * @param compression the compression of the wall planes.
+     * @throws IOException if writing fails.
+     */
+    public static void write(final Maze maze, final WritableByteChannel channel, final MazeCompression compression)
+            throws IOException {
+        MazeFileFormat.writeFully(channel, createHeader(maze, compression));
+
+        final PlaneEncoder encoder = createEncoder(channel, compression);
+        final ByteBuffer plainBuffer = ByteBuffer.allocate(MazeFileFormat.BUFFER_SIZE)
+                .order(MazeFileFormat.PLANE_BYTE_ORDER);
+
+        try {
+            for (final BitGrid plane : MazeFileFormat.getPlanes(maze)) {
+                final long wordCount = plane.getWordCount();
+
+                for (long wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+                    if (!plainBuffer.hasRemaining()) {
+                        encoder.encode(plainBuffer.array(), plainBuffer.position());
+                        plainBuffer.clear();
+                    }
+
+                    plainBuffer.putLong(plane.getWord(wordIndex));
+                }
+            }
+
+            encoder.encode(plainBuffer.array(), plainBuffer.position());
+            encoder.finish();
+        } finally {
+            encoder.release();
+        }
+    }
+
+    private static ByteBuffer createHeader(final Maze maze, final MazeCompression compression) {
+        return createHeader(maze.getMazeWidth(), maze.getMazeHeight(), maze.getCellWidth(), maze.getCellHeight(),
+                            maze.getStartPoint(), maze.getEndPoint(), maze.getRandomSeed(), maze.getRandomMode(),
+                            compression);
+    }
+
+    /**
+     * Create the header of a maze file.
+     *
+     * @return the header, ready to be written.
+     */
+    static ByteBuffer createHeader(final int mazeWidth, final int mazeHeight, final int cellWidth,
+                                   final int cellHeight, final Point startPoint, final Point endPoint,
+                                   final long randomSeed, final RandomMode randomMode,
+                                   final MazeCompression compression) {
+        final int flags = (startPoint != null ? MazeFileFormat.FLAG_START_POINT : 0)
+                          | (endPoint != null ? MazeFileFormat.FLAG_END_POINT : 0);
+
+        final ByteBuffer header = ByteBuffer.allocate(MazeFileFormat.HEADER_SIZE);
+        header.putInt(MazeFileFormat.MAGIC);
+        header.putShort((short) MazeFileFormat.VERSION);
+        header.put((byte) compression.getId());
+        header.put((byte) flags);
+        header.putInt(mazeWidth);
+        header.putInt(mazeHeight);
+        header.putInt(cellWidth);
+        header.putInt(cellHeight);
+        header.putInt(startPoint != null ? startPoint.x : -1);
+        header.putInt(startPoint != null ? startPoint.y : -1);
+        header.putInt(endPoint != null ? endPoint.x : -1);
+        header.putInt(endPoint != null ? endPoint.y : -1);
+        header.putLong(randomSeed);
+        header.put((byte) randomMode.getId());
+        header.position(MazeFileFormat.HEADER_SIZE);
+        header.flip();
+
+        return header;
+    }
+
+    private static PlaneEncoder createEncoder(final WritableByteChannel channel, final MazeCompression compression) {
+        switch (compression) {
+            case RUN_LENGTH:
+                return new RunLengthEncoder(channel);
+
+            case DEFLATE:
+                return new DeflateEncoder(channel);
+
+            default:
+                return new PlaneEncoder(channel);
+        }
+    }
+
+    /**
+     * Writes the wall planes to the channel without compression; the subclasses compress them.
+     */
+    private static class PlaneEncoder {
+        protected final WritableByteChannel channel;
+        protected final ByteBuffer outputBuffer = ByteBuffer.allocate(MazeFileFormat.BUFFER_SIZE);
+
+        PlaneEncoder(final WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void encode(final byte[] data, final int length) throws IOException {
+            MazeFileFormat.writeFully(channel, ByteBuffer.wrap(data, 0, length));
+        }
+
+        void finish() throws IOException {
+            flushOutput();
+        }
+
+        /**
+         * Release the resources of the encoder, also when writing failed.
+         */
+        void release() {
+        }
+
+        protected void flushOutput() throws IOException {
+            outputBuffer.flip();
+            MazeFileFormat.writeFully(channel, outputBuffer);
+            outputBuffer.clear();
+        }
+    }
+
+    /**
+     * PackBits encoder: a control byte n in 0..127 is followed by n + 1 literal bytes and a control byte n in -127..-1
+     * is followed by one byte that is repeated 1 - n times.
+     */
+    private static class RunLengthEncoder extends PlaneEncoder {
+        private static final int MAXIMUM_PACKET_LENGTH = 128;
+        private static final int MINIMUM_RUN_LENGTH = 3;
+
+        RunLengthEncoder(final WritableByteChannel channel) {
+            super(channel);
+        }
+
+        @Override
+        void encode(final byte[] data, final int length) throws IOException {
+            int index = 0;
+
+            while (index < length) {
+                if (outputBuffer.remaining() < MAXIMUM_PACKET_LENGTH + 1)
+                    flushOutput();
+
+                final int runLength = getRunLength(data, index, length);
+
+                if (runLength >= MINIMUM_RUN_LENGTH) {
+                    outputBuffer.put((byte) (1 - runLength));
+                    outputBuffer.put(data[index]);
+                    index += runLength;
+                } else {
+                    final int literalStart = index;
+
+                    while (index < length && index - literalStart < MAXIMUM_PACKET_LENGTH
+                           && getRunLength(data, index, length) < MINIMUM_RUN_LENGTH)
+                        index++;
+
+                    outputBuffer.put((byte) (index - literalStart - 1));
+                    outputBuffer.put(data, literalStart, index - literalStart);
+                }
+            }
+        }
+
+        private static int getRunLength(final byte[] data, final int start, final int length) {
+            final int end = Math.min(length, start + MAXIMUM_PACKET_LENGTH);
+            int index = start + 1;
+
+            while (index < end && data[index] == data[start])
+                index++;
+
+            return index - start;
+        }
+    }
+
+    /**
+     * Deflate encoder (zlib format).
+     */
+    private static class DeflateEncoder extends PlaneEncoder {
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+        DeflateEncoder(final WritableByteChannel channel) {
+            super(channel);
+        }
+
+        @Override
+        void encode(final byte[] data, final int length) throws IOException {
+            deflater.setInput(data, 0, length);
+
+            while (!deflater.needsInput())
+                deflate();
+        }
+
+        @Override
+        void finish() throws IOException {
+            deflater.finish();
+
+            while (!deflater.finished())
+                deflate();
+
+            super.finish();
+        }
+
+        @Override
+        void release() {
+            deflater.end();
+        }
+
+        private void deflate() throws IOException {
+            final int count = deflater.deflate(outputBuffer.array(), outputBuffer.position(), outputBuffer.remaining());
+            outputBuffer.position(outputBuffer.position() + count);
+
+            if (!outputBuffer.hasRemaining())
+                flushOutput();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package nl.xs4all.home.freekdb.maze.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Row sink that writes a maze as a single page PDF document with vector lines. Consecutive collinear walls are merged
+ * into a single line (see {@link WallRunSink}) and the lines of every row are stroked as one path. The content stream
+ * is deflated while it is written and its length is written afterwards as a separate object, so nothing but the
+ * current row is kept in memory.
+ * <p>
+ * One pixel of the rendered images is one point, unless the page would be larger than the maximum page size of
+ * 14400 points; the drawing is then scaled down to fit.
+ */
+public class PdfRowSink extends WallRunSink {
+    private static final int MAXIMUM_PAGE_SIZE = 14400;
+
+    private static final int CATALOG_OBJECT = 1;
+    private static final int PAGES_OBJECT = 2;
+    private static final int PAGE_OBJECT = 3;
+    private static final int CONTENT_OBJECT = 4;
+    private static final int CONTENT_LENGTH_OBJECT = 5;
+    private static final int OBJECT_COUNT = 5;
+
+    private static final int CONTENT_BUFFER_SIZE = 64 * 1024;
+
+    private final CountingOutputStream outputStream;
+
+    private final long[] objectOffsets = new long[OBJECT_COUNT + 1];
+
+    private Deflater deflater;
+    private DeflaterOutputStream contentStream;
+    private long contentStart;
+    private StringBuilder pathData;
+
+    /**
+     * Create a PDF row sink.
+     *
+     * @param outputStream the stream to write the document to, which is not closed.
+     */
+    public PdfRowSink(final OutputStream outputStream) {
+        this.outputStream = new CountingOutputStream(outputStream);
+    }
+
+    @Override
+    void startDrawing() throws IOException {
+        final double scale = Math.min(1.0, (double) MAXIMUM_PAGE_SIZE / Math.max(getImageWidth(), getImageHeight()));
+        final String pageWidth = formatNumber(scale * getImageWidth());
+        final String pageHeight = formatNumber(scale * getImageHeight());
+
+        write("%PDF-1.4\n");
+        startObject(CATALOG_OBJECT);
+        write("<< /Type /Catalog /Pages " + PAGES_OBJECT + " 0 R >>\nendobj\n");
+        startObject(PAGES_OBJECT);
+        write("<< /Type /Pages /Kids [" + PAGE_OBJECT + " 0 R] /Count 1 >>\nendobj\n");
+        startObject(PAGE_OBJECT);
+        write("<< /Type /Page /Parent " + PAGES_OBJECT + " 0 R /MediaBox [0 0 " + pageWidth + " " + pageHeight
+              + "] /Contents " + CONTENT_OBJECT + " 0 R >>\nendobj\n");
+        startObject(CONTENT_OBJECT);
+        write("<< /Length " + CONTENT_LENGTH_OBJECT + " 0 R /Filter /FlateDecode >>\nstream\n");
+
+        contentStart = outputStream.getByteCount();
+        deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        // The content stream is finished but never closed, so the document can be continued after it.
+        contentStream = new DeflaterOutputStream(outputStream, deflater, CONTENT_BUFFER_SIZE);
+        pathData = new StringBuilder();
+
+        // Flip the y axis so the image coordinates can be used, and draw through the centers of the pixels.
+        final String scaleText = formatNumber(scale);
+        writeContent(scaleText + " 0 0 -" + scaleText + " 0 " + pageHeight + " cm 1 0 0 1 0.5 0.5 cm\n"
+                     + "1 1 1 rg 0 0 " + getImageWidth() + " " + getImageHeight() + " re f\n"
+                     + "0 0 0 RG 1 w 2 J\n");
+    }
+
+    @Override
+    void drawHorizontalLine(final int pixelX1, final int pixelX2, final int pixelY) {
+        pathData.append(pixelX1).append(' ').append(pixelY).append(" m ")
+                .append(pixelX2).append(' ').append(pixelY).append(" l\n");
+    }
+
+    @Override
+    void drawVerticalLine(final int pixelX, final int pixelY1, final int pixelY2) {
+        pathData.append(pixelX).append(' ').append(pixelY1).append(" m ")
+                .append(pixelX).append(' ').append(pixelY2).append(" l\n");
+    }
+
+    @Override
+    void finishRow() throws IOException {
+        if (pathData.length() > 0) {
+            pathData.append("S\n");
+            writeContent(pathData);
+            pathData.setLength(0);
+        }
+    }
+
+    @Override
+    public void finishMaze() throws IOException {
+        contentStream.finish();
+        deflater.end();
+
+        final long contentLength = outputStream.getByteCount() - contentStart;
+        write("\nendstream\nendobj\n");
+        startObject(CONTENT_LENGTH_OBJECT);
+        write(contentLength + "\nendobj\n");
+
+        final long crossReferenceOffset = outputStream.getByteCount();
+        final StringBuilder crossReference = new StringBuilder("xref\n0 " + (OBJECT_COUNT + 1) + "\n");
+        crossReference.append("0000000000 65535 f \n");
+        for (int objectNumber = 1; objectNumber <= OBJECT_COUNT; objectNumber++)
+            crossReference.append(String.format(Locale.ROOT, "%010d 00000 n \n", objectOffsets[objectNumber]));
+
+        write(crossReference);
+        write("trailer\n<< /Size " + (OBJECT_COUNT + 1) + " /Root " + CATALOG_OBJECT + " 0 R >>\nstartxref\n"
+              + crossReferenceOffset + "\n%%EOF\n");
+        outputStream.flush();
+
+        contentStream = null;
+        deflater = null;
+    }
+
+    private void startObject(final int objectNumber) throws IOException {
+        objectOffsets[objectNumber] = outputStream.getByteCount();
+        write(objectNumber + " 0 obj\n");
+    }
+
+    private void write(final CharSequence text) throws IOException {
+        outputStream.write(text.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void writeContent(final CharSequence text) throws IOException {
+        contentStream.write(text.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String formatNumber(final double number) {
+        final String text = String.format(Locale.ROOT, "%.4f", number);
+
+        return text.replaceAll("\\.?0+$", "");
+    }
+
+    /**
+     * Output stream that counts the bytes written, for the cross-reference table.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long byteCount;
+
+        CountingOutputStream(final OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        long getByteCount() {
+            return byteCount;
+        }
+
+        @Override
+        public void write(final int value) throws IOException {
+            out.write(value);
+            byteCount++;
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+            out.write(bytes, offset, length);
+            byteCount += length;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package nl.xs4all.home.freekdb.maze.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Row sink that writes a maze as a black and white PNG image, one band of scanlines per row of cells. The image is the
+ * same as the one <code>RasterMazeRenderer.createImage</code> creates for the complete maze, but only one scanline is
+ * kept in memory (besides the buffers of the PNG writer), so it also works for images of many gigapixels. Each band
+ * consists of the scanline through the cross points and one scanline with the vertical walls, which is repeated.
+ */
+public class PngRowSink extends WallRowSink {
+    private final OutputStream outputStream;
+
+    private BinaryPngWriter pngWriter;
+    private byte[] scanline;
+
+    /**
+     * The vertical lines of the previous row (after making the gaps), which end in the current row.
+     */
+    private long[] previousVerticalLines;
+
+    /**
+     * Create a PNG row sink.
+     *
+     * @param outputStream the stream to write the image to, which is not closed.
+     */
+    public PngRowSink(final OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    void startImage() throws IOException {
+        pngWriter = new BinaryPngWriter(outputStream, getImageWidth(), getImageHeight());
+        scanline = new byte[pngWriter.getScanlineBytes()];
+        previousVerticalLines = null;
+    }
+
+    @Override
+    void writeWalls(final int row, final long[] horizontalLines, final long[] verticalLines) throws IOException {
+        // The margin above the maze.
+        if (row == 0)
+            writeBlankScanlines(cellHeight);
+
+        // The scanline through the cross points of this row has the horizontal walls and the end and start points of
+        // the vertical walls.
+        Arrays.fill(scanline, (byte) 0xFF);
+
+        for (int wordIndex = 0; wordIndex < horizontalLines.length; wordIndex++)
+            for (long word = horizontalLines[wordIndex]; word != 0; ) {
+                // Fill a run of consecutive walls in this word at once.
+                final int runStart = Long.numberOfTrailingZeros(word);
+                final int runEnd = runStart + Long.numberOfTrailingZeros(~(word >>> runStart));
+                final int x = (wordIndex << 6) + runStart;
+
+                fillPixels(cellWidth * (x + 1), cellWidth * (x + 1 + runEnd - runStart));
+                word = runEnd < 64 ? word & (-1L << runEnd) : 0;
+            }
+
+        if (previousVerticalLines != null)
+            drawVerticalLines(previousVerticalLines);
+        if (verticalLines != null)
+            drawVerticalLines(verticalLines);
+
+        pngWriter.writeScanline(scanline);
+
+        if (verticalLines != null) {
+            Arrays.fill(scanline, (byte) 0xFF);
+            drawVerticalLines(verticalLines);
+
+            pngWriter.writeScanline(scanline, cellHeight - 1);
+
+            if (previousVerticalLines == null)
+                previousVerticalLines = new long[verticalLines.length];
+            System.arraycopy(verticalLines, 0, previousVerticalLines, 0, verticalLines.length);
+        } else {
+            // The margin below the maze.
+            writeBlankScanlines(cellHeight - 1);
+        }
+    }
+
+    @Override
+    public void finishMaze() throws IOException {
+        pngWriter.finish();
+        pngWriter = null;
+    }
+
+    private void writeBlankScanlines(final int count) throws IOException {
+        Arrays.fill(scanline, (byte) 0xFF);
+        pngWriter.writeScanline(scanline, count);
+    }
+
+    private void drawVerticalLines(final long[] verticalLines) {
+        for (int wordIndex = 0; wordIndex < verticalLines.length; wordIndex++)
+            for (long word = verticalLines[wordIndex]; word != 0; word &= word - 1) {
+                final int x = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                fillPixels(cellWidth * (x + 1), cellWidth * (x + 1));
+            }
+    }
+
+    /**
+     * Make the pixels from the first column to the last column (inclusive) black.
+     */
+    private void fillPixels(final int firstX, final int lastX) {
+        final int firstByte = firstX >> 3;
+        final int lastByte = lastX >> 3;
+        // The bits from the first pixel to the end of its byte and from the start of its byte to the last pixel.
+        final int firstMask = 0xFF >>> (firstX & 7);
+        final int lastMask = (0xFF << (7 - (lastX & 7))) & 0xFF;
+
+        if (firstByte == lastByte)
+            scanline[firstByte] &= (byte) ~(firstMask & lastMask);
+        else {
+            scanline[firstByte] &= (byte) ~firstMask;
+            Arrays.fill(scanline, firstByte + 1, lastByte, (byte) 0);
+            scanline[lastByte] &= (byte) ~lastMask;
+        }
+    }
+}
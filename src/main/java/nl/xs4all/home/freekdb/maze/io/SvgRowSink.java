@@ -0,0 +1,70 @@
+package nl.xs4all.home.freekdb.maze.io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Row sink that writes a maze as an SVG image with one path per row, without building a document in memory.
+ * Consecutive collinear walls are merged into a single line (see {@link WallRunSink}).
+ */
+public class SvgRowSink extends WallRunSink {
+    private final OutputStream outputStream;
+
+    private Writer writer;
+    private StringBuilder pathData;
+
+    /**
+     * Create an SVG row sink.
+     *
+     * @param outputStream the stream to write the image to, which is not closed.
+     */
+    public SvgRowSink(final OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    void startDrawing() throws IOException {
+        writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        pathData = new StringBuilder();
+
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + getImageWidth() + "\" height=\""
+                     + getImageHeight() + "\" viewBox=\"0 0 " + getImageWidth() + " " + getImageHeight() + "\">\n");
+        writer.write("<rect width=\"100%\" height=\"100%\" fill=\"white\"/>\n");
+        // Lines are drawn through the centers of the pixels, like in the rendered images.
+        writer.write("<g transform=\"translate(0.5 0.5)\" stroke=\"black\" stroke-width=\"1\" stroke-linecap=\"square\" "
+                     + "fill=\"none\">\n");
+    }
+
+    @Override
+    void drawHorizontalLine(final int pixelX1, final int pixelX2, final int pixelY) {
+        pathData.append('M').append(pixelX1).append(' ').append(pixelY).append('H').append(pixelX2);
+    }
+
+    @Override
+    void drawVerticalLine(final int pixelX, final int pixelY1, final int pixelY2) {
+        pathData.append('M').append(pixelX).append(' ').append(pixelY1).append('V').append(pixelY2);
+    }
+
+    @Override
+    void finishRow() throws IOException {
+        if (pathData.length() > 0) {
+            writer.write("<path d=\"");
+            writer.append(pathData);
+            writer.write("\"/>\n");
+            pathData.setLength(0);
+        }
+    }
+
+    @Override
+    public void finishMaze() throws IOException {
+        writer.write("</g>\n");
+        writer.write("</svg>\n");
+        writer.flush();
+        writer = null;
+    }
+}
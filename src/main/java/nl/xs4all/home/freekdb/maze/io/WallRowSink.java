@@ -0,0 +1,100 @@
+package nl.xs4all.home.freekdb.maze.io;
+
+import java.awt.Point;
+import java.io.IOException;
+
+import nl.xs4all.home.freekdb.maze.model.BitGrid;
+import nl.xs4all.home.freekdb.maze.model.MazeParameters;
+import nl.xs4all.home.freekdb.maze.model.MazeRowSink;
+
+/**
+ * Base class for row sinks that draw the walls of a maze, like the renderers do: with a margin of one cell, and with
+ * the walls at the start point and at the cross point to the right of the end point left open.
+ */
+abstract class WallRowSink implements MazeRowSink {
+    int mazeWidth;
+    int mazeHeight;
+    int cellWidth;
+    int cellHeight;
+
+    private Point startPoint;
+    private Point endPoint;
+
+    private long[] horizontalLines;
+    private long[] verticalLines;
+
+    @Override
+    public void startMaze(final MazeParameters mazeParameters) throws IOException {
+        this.mazeWidth = mazeParameters.getMazeWidth();
+        this.mazeHeight = mazeParameters.getMazeHeight();
+        this.cellWidth = mazeParameters.getCellWidth();
+        this.cellHeight = mazeParameters.getCellHeight();
+        this.startPoint = mazeParameters.getStartPoint();
+        this.endPoint = mazeParameters.getEndPoint();
+        this.horizontalLines = new long[BitGrid.getWordsPerRow(mazeWidth)];
+        this.verticalLines = new long[BitGrid.getWordsPerRow(mazeWidth + 1)];
+
+        startImage();
+    }
+
+    @Override
+    public void writeRow(final int row, final long[] crossPoints, final long[] horizontalLines,
+                         final long[] verticalLines) throws IOException {
+        copyWithGaps(row, horizontalLines, this.horizontalLines);
+
+        if (verticalLines != null)
+            copyWithGaps(row, verticalLines, this.verticalLines);
+
+        writeWalls(row, this.horizontalLines, verticalLines != null ? this.verticalLines : null);
+    }
+
+    /**
+     * Get the width of the image in pixels.
+     *
+     * @return the width in pixels.
+     */
+    int getImageWidth() {
+        return cellWidth * (mazeWidth + 2);
+    }
+
+    /**
+     * Get the height of the image in pixels.
+     *
+     * @return the height in pixels.
+     */
+    int getImageHeight() {
+        return cellHeight * (mazeHeight + 2);
+    }
+
+    /**
+     * Start the image, after the dimensions have been set.
+     *
+     * @throws IOException if writing fails.
+     */
+    abstract void startImage() throws IOException;
+
+    /**
+     * Draw the walls of a row, in which the gaps for the start point and the end point have been made.
+     *
+     * @param row             the row of cross points.
+     * @param horizontalLines the horizontal lines starting at the cross points of the row.
+     * @param verticalLines   the vertical lines starting at the cross points of the row or null for the last row.
+     * @throws IOException if writing fails.
+     */
+    abstract void writeWalls(int row, long[] horizontalLines, long[] verticalLines) throws IOException;
+
+    private void copyWithGaps(final int row, final long[] source, final long[] target) {
+        System.arraycopy(source, 0, target, 0, target.length);
+
+        if (startPoint != null && startPoint.y == row)
+            clearBit(target, startPoint.x);
+
+        if (endPoint != null && endPoint.y == row)
+            clearBit(target, endPoint.x + 1);
+    }
+
+    private static void clearBit(final long[] words, final int column) {
+        if (column >> 6 < words.length)
+            words[column >> 6] &= ~(1L << column);
+    }
+}
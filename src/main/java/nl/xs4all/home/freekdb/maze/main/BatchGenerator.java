@@ -0,0 +1,575 @@
+package nl.xs4all.home.freekdb.maze.main;
+
+import java.awt.Point;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nl.xs4all.home.freekdb.maze.io.MazeCompression;
+import nl.xs4all.home.freekdb.maze.io.MazeFileRowSink;
+import nl.xs4all.home.freekdb.maze.io.MazeWriter;
+import nl.xs4all.home.freekdb.maze.io.PdfRowSink;
+import nl.xs4all.home.freekdb.maze.io.PngRowSink;
+import nl.xs4all.home.freekdb.maze.io.SvgRowSink;
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.model.MazeAnalyzer;
+import nl.xs4all.home.freekdb.maze.model.MazeAlgorithm;
+import nl.xs4all.home.freekdb.maze.model.MazeParameters;
+import nl.xs4all.home.freekdb.maze.model.MazeRowSink;
+import nl.xs4all.home.freekdb.maze.model.MazeStatistics;
+import nl.xs4all.home.freekdb.maze.model.MazeVerification;
+import nl.xs4all.home.freekdb.maze.model.MazeVerifier;
+import nl.xs4all.home.freekdb.maze.model.RandomMode;
+import nl.xs4all.home.freekdb.maze.model.ShapeTemplate;
+import nl.xs4all.home.freekdb.maze.model.ShapeTemplateCache;
+import nl.xs4all.home.freekdb.maze.model.StreamingMazeGenerator;
+
+/**
+ * Headless command-line tool that generates a range of mazes (one per random seed) concurrently and writes each maze
+ * to the output directory. It reports the throughput per maze and for the whole batch.
+ * <p>
+ * Usage: <code>java -cp MazeGenerator.jar nl.xs4all.home.freekdb.maze.main.BatchGenerator --shape etc/unit-test.png
+ * --cell-size 2 --start 6,18 --end 230,45 --seeds 1-100 --output mazes [--threads 4] [--random-mode XOROSHIRO] [--algorithm KRUSKAL]</code>
+ * <p>
+ * Instead of a shape image, a rectangular maze can be generated with <code>--size WIDTHxHEIGHT</code> (in cells). With
+ * <code>--compression NONE|RUN_LENGTH|DEFLATE</code>, the mazes are written in the binary maze file format instead of
+ * as PNG images. With <code>--format SVG|PDF</code>, they are written as vector images, in which consecutive walls are
+ * merged into single lines.
+ * <p>
+ * With <code>--stream PNG|SVG|PDF|MAZE</code>, every maze is generated row by row with Eller's algorithm and written while
+ * it is generated, so the memory use does not depend on the maze height (for very long mazes).
+ * <p>
+ * With <code>--max-dead-end-ratio</code>, <code>--min-river-factor</code> and <code>--min-solution-length</code>, only
+ * the mazes that meet these quality criteria (see {@link MazeStatistics}) are written. When streaming, a maze is first
+ * generated to analyze it and generated again (with the same seed) to write it, so it is never kept in memory; the
+ * solution length can only be determined for mazes in memory.
+ * <p>
+ * With <code>--verify FULL|FAIL_FAST</code>, every maze is checked to be perfect (see {@link MazeVerifier}); streamed
+ * mazes are verified while they are written. The mazes that are not perfect are reported.
+ */
+public class BatchGenerator {
+    private static final String USAGE = "Usage: BatchGenerator (--shape <image> | --size <width>x<height>) "
+                                        + "[--cell-size <pixels>] [--start <x>,<y>] [--end <x>,<y>] "
+                                        + "[--seeds <first>-<last>] [--output <directory>] [--threads <count>] "
+                                        + "[--random-mode LEGACY|SPLITTABLE|XOROSHIRO] "
+                                        + "[--algorithm CURLY_LINE|RECURSIVE_BACKTRACKER|KRUSKAL|WILSON|ELLER] "
+                                        + "[--compression NONE|RUN_LENGTH|DEFLATE] [--format PNG|SVG|PDF] "
+                                        + "[--stream PNG|SVG|PDF|MAZE] [--max-dead-end-ratio <ratio>] "
+                                        + "[--min-river-factor <ratio>] [--min-solution-length <cells>] "
+                                        + "[--verify FULL|FAIL_FAST]";
+
+    private static final int QUEUE_SIZE_PER_THREAD = 4;
+
+    private String shapePath;
+    private int mazeWidth;
+    private int mazeHeight;
+    private int cellSize = 2;
+    private Point startPoint;
+    private Point endPoint;
+    private long firstSeed = 1;
+    private long lastSeed = 1;
+    private File outputDirectory = new File(".");
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private RandomMode randomMode = RandomMode.LEGACY;
+    private MazeAlgorithm algorithm = MazeAlgorithm.CURLY_LINE;
+    private MazeCompression compression;
+    private OutputFormat outputFormat = OutputFormat.PNG;
+    private OutputFormat streamFormat;
+    private double maximumDeadEndRatio = 1;
+    private double minimumRiverFactor;
+    private int minimumSolutionLength;
+    private VerificationMode verificationMode;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong imperfectCount = new AtomicLong();
+
+    /**
+     * The output formats for the mazes.
+     */
+    private enum OutputFormat {
+        PNG, SVG, PDF, MAZE
+    }
+
+    /**
+     * The ways to verify that the mazes are perfect.
+     */
+    private enum VerificationMode {
+        FULL, FAIL_FAST
+    }
+
+    private static final long SHAPE_TEMPLATE_CACHE_BYTES = 256L * 1024 * 1024;
+
+    private final ShapeTemplateCache shapeTemplateCache = new ShapeTemplateCache(SHAPE_TEMPLATE_CACHE_BYTES);
+
+    private ShapeTemplate shapeTemplate;
+
+    /**
+     * Generate a batch of mazes.
+     *
+     * @param arguments the command-line arguments (see the class documentation).
+     */
+    public static void main(final String[] arguments) {
+        System.setProperty("java.awt.headless", "true");
+
+        final BatchGenerator batchGenerator = new BatchGenerator();
+
+        try {
+            batchGenerator.parseArguments(arguments);
+        } catch (final IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        try {
+            batchGenerator.generateMazes();
+        } catch (final IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (final IOException | InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Parse the command-line arguments.
+     *
+     * @param arguments the command-line arguments.
+     */
+    void parseArguments(final String[] arguments) {
+        for (int argumentIndex = 0; argumentIndex < arguments.length; argumentIndex += 2) {
+            final String option = arguments[argumentIndex];
+
+            if (argumentIndex + 1 >= arguments.length)
+                throw new IllegalArgumentException("Missing value for option " + option + ".");
+
+            final String value = arguments[argumentIndex + 1];
+
+            switch (option) {
+                case "--shape":
+                    shapePath = value;
+                    break;
+
+                case "--size":
+                    final String[] dimensions = value.toLowerCase(Locale.ROOT).split("x");
+                    mazeWidth = parsePositive(dimensions[0], option);
+                    mazeHeight = parsePositive(dimensions.length > 1 ? dimensions[1] : "", option);
+                    break;
+
+                case "--cell-size":
+                    cellSize = parsePositive(value, option);
+                    break;
+
+                case "--start":
+                    startPoint = parsePoint(value, option);
+                    break;
+
+                case "--end":
+                    endPoint = parsePoint(value, option);
+                    break;
+
+                case "--seeds":
+                    final int separatorIndex = value.indexOf('-', 1);
+                    firstSeed = parseLong(separatorIndex > 0 ? value.substring(0, separatorIndex) : value, option);
+                    lastSeed = separatorIndex > 0 ? parseLong(value.substring(separatorIndex + 1), option) : firstSeed;
+                    break;
+
+                case "--output":
+                    outputDirectory = new File(value);
+                    break;
+
+                case "--threads":
+                    threadCount = parsePositive(value, option);
+                    break;
+
+                case "--random-mode":
+                    randomMode = RandomMode.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+
+                case "--algorithm":
+                    algorithm = MazeAlgorithm.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+                    break;
+
+                case "--compression":
+                    compression = MazeCompression.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+
+                case "--format":
+                    outputFormat = OutputFormat.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+
+                case "--stream":
+                    streamFormat = OutputFormat.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+
+                case "--max-dead-end-ratio":
+                    maximumDeadEndRatio = parseRatio(value, option);
+                    break;
+
+                case "--min-river-factor":
+                    minimumRiverFactor = parseRatio(value, option);
+                    break;
+
+                case "--min-solution-length":
+                    minimumSolutionLength = parsePositive(value, option);
+                    break;
+
+                case "--verify":
+                    verificationMode = VerificationMode.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+                    break;
+
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option + ".");
+            }
+        }
+
+        if (shapePath == null && mazeWidth == 0)
+            throw new IllegalArgumentException("Either a shape image or a maze size is required.");
+
+        if (outputFormat == OutputFormat.MAZE)
+            throw new IllegalArgumentException("Use the option --compression to write maze files.");
+
+        if (minimumSolutionLength > 0 && (startPoint == null || endPoint == null))
+            throw new IllegalArgumentException("The option --min-solution-length requires a start and an end point.");
+
+        if (minimumSolutionLength > 0 && streamFormat != null)
+            throw new IllegalArgumentException("The solution length cannot be determined for streamed mazes.");
+
+        // Seed zero would make the random generator use the current time, so it cannot be in the range.
+        if (lastSeed < firstSeed || firstSeed <= 0 && lastSeed >= 0)
+            throw new IllegalArgumentException("Invalid seed range: " + firstSeed + "-" + lastSeed + ".");
+
+        // With a shape, the points are checked when the size of the shape is known.
+        if (shapePath == null)
+            checkPoints(mazeWidth, mazeHeight);
+    }
+
+    /**
+     * Generate all mazes on a bounded thread pool and print the throughput. The results are collected as the mazes are
+     * finished, so the first failure stops the batch.
+     *
+     * @throws IOException              if the shape cannot be read or the output directory cannot be created.
+     * @throws InterruptedException     if the batch is interrupted.
+     * @throws ExecutionException       if generating or writing a maze fails.
+     * @throws IllegalArgumentException if the start or end point lies outside the maze.
+     */
+    void generateMazes() throws IOException, InterruptedException, ExecutionException {
+        if (shapePath != null)
+            shapeTemplate = shapeTemplateCache.getTemplate(new File(shapePath).toPath(), cellSize, cellSize);
+
+        final MazeParameters baseParameters = createBaseParameters();
+        checkPoints(baseParameters.getMazeWidth(), baseParameters.getMazeHeight());
+
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs())
+            throw new IOException("Unable to create output directory " + outputDirectory + ".");
+
+        // The bounded queue (with the caller running tasks when it is full) limits the number of pending mazes.
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threadCount * QUEUE_SIZE_PER_THREAD), new ThreadPoolExecutor.CallerRunsPolicy());
+        final CompletionService<Long> completionService = new ExecutorCompletionService<>(executor);
+        final long batchStart = System.nanoTime();
+
+        try {
+            // The range does not contain zero, so the number of mazes fits in a long.
+            final long mazeCount = lastSeed - firstSeed + 1;
+            long submittedCount = 0;
+            long finishedCount = 0;
+            long totalCellCount = 0;
+
+            for (long mazeIndex = 0; mazeIndex < mazeCount; mazeIndex++) {
+                final MazeParameters mazeParameters = baseParameters.withRandomSeed(firstSeed + mazeIndex);
+                completionService.submit(() -> generateMaze(mazeParameters));
+                submittedCount++;
+
+                for (Future<Long> result = completionService.poll(); result != null;
+                     result = completionService.poll()) {
+                    totalCellCount += result.get();
+                    finishedCount++;
+                }
+            }
+
+            for (; finishedCount < submittedCount; finishedCount++)
+                totalCellCount += completionService.take().get();
+
+            final double seconds = (System.nanoTime() - batchStart) / 1e9;
+            System.out.println(String.format(Locale.ROOT, "Generated %d mazes (%d cells) in %.3f s with %d threads: "
+                                                          + "%.1f mazes/s, %.0f cells/s",
+                                             finishedCount, totalCellCount, seconds, threadCount,
+                                             finishedCount / seconds, totalCellCount / seconds));
+
+            if (hasQualityCriteria())
+                System.out.println("Rejected " + rejectedCount.get() + " mazes that did not meet the quality "
+                                   + "criteria.");
+
+            if (verificationMode != null)
+                System.out.println("Found " + imperfectCount.get() + " mazes that are not perfect.");
+        } finally {
+            // All mazes are finished, unless one of them failed: then the pending mazes are dropped.
+            executor.shutdownNow();
+        }
+    }
+
+    private MazeParameters createBaseParameters() {
+        // With a shape, the maze size comes from the shape template, so the image is only decoded once.
+        final int rowCount = shapeTemplate != null ? shapeTemplate.getMazeHeight() : mazeHeight;
+        final int columnCount = shapeTemplate != null ? shapeTemplate.getMazeWidth() : mazeWidth;
+
+        return new MazeParameters(rowCount, columnCount, cellSize, cellSize, startPoint, endPoint, firstSeed)
+                .withRandomMode(randomMode);
+    }
+
+    /**
+     * Generate a single maze, write it to the output directory and print its throughput.
+     *
+     * @param mazeParameters the parameters of the maze.
+     * @return the number of cells in the maze.
+     * @throws IOException if writing the maze fails.
+     */
+    private long generateMaze(final MazeParameters mazeParameters) throws IOException {
+        if (streamFormat != null)
+            return streamMaze(mazeParameters);
+
+        final long start = System.nanoTime();
+        final Maze maze = new Maze(mazeParameters);
+
+        if (shapeTemplate != null)
+            maze.applyShapeTemplate(shapeTemplate);
+
+        maze.generateMaze(algorithm.createGenerator());
+
+        if (hasQualityCriteria()) {
+            final MazeStatistics statistics;
+            if (minimumSolutionLength > 0)
+                statistics = MazeAnalyzer.analyze(maze, shapeTemplate);
+            else {
+                final MazeAnalyzer analyzer = new MazeAnalyzer(shapeTemplate);
+                maze.writeRows(analyzer);
+                statistics = analyzer.getStatistics();
+            }
+
+            if (isRejected(mazeParameters, statistics))
+                return (long) maze.getMazeWidth() * maze.getMazeHeight();
+        }
+
+        if (verificationMode != null)
+            reportImperfectMaze(mazeParameters, MazeVerifier.verify(maze, shapeTemplate,
+                                                                    verificationMode == VerificationMode.FAIL_FAST));
+
+        final long generated = System.nanoTime();
+        final OutputFormat format = compression != null ? OutputFormat.MAZE : outputFormat;
+        final File outputFile = new File(outputDirectory, getFileName(mazeParameters, format));
+
+        if (format == OutputFormat.MAZE)
+            MazeWriter.write(maze, outputFile.toPath(), compression);
+        else
+            try (final OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+                maze.writeRows(createImageSink(format, outputStream));
+            }
+
+        final long finished = System.nanoTime();
+        final long cellCount = (long) maze.getMazeWidth() * maze.getMazeHeight();
+        System.out.println(String.format(Locale.ROOT, "Seed %d: %d cells, generated in %.1f ms (%.0f cells/s), "
+                                                      + "written in %.1f ms",
+                                         mazeParameters.getRandomSeed(), cellCount, (generated - start) / 1e6,
+                                         cellCount / ((generated - start) / 1e9), (finished - generated) / 1e6));
+
+        return cellCount;
+    }
+
+    /**
+     * Generate a single maze row by row, write it to the output directory while it is generated and print its
+     * throughput.
+     *
+     * @param mazeParameters the parameters of the maze.
+     * @return the number of cells in the maze.
+     * @throws IOException if writing the maze fails.
+     */
+    private long streamMaze(final MazeParameters mazeParameters) throws IOException {
+        final long start = System.nanoTime();
+        final long cellCount = (long) mazeParameters.getMazeWidth() * mazeParameters.getMazeHeight();
+        final File outputFile = new File(outputDirectory, getFileName(mazeParameters, streamFormat));
+        final StreamingMazeGenerator generator = new StreamingMazeGenerator(mazeParameters, shapeTemplate);
+
+        if (hasQualityCriteria()) {
+            final MazeAnalyzer analyzer = new MazeAnalyzer(shapeTemplate);
+            generator.generate(analyzer);
+
+            if (isRejected(mazeParameters, analyzer.getStatistics()))
+                return cellCount;
+        }
+
+        final MazeVerifier verifier = verificationMode != null
+                                      ? new MazeVerifier(shapeTemplate, verificationMode == VerificationMode.FAIL_FAST)
+                                      : null;
+
+        if (streamFormat == OutputFormat.MAZE)
+            generator.generate(addVerifier(new MazeFileRowSink(outputFile.toPath()), verifier));
+        else
+            try (final OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+                generator.generate(addVerifier(createImageSink(streamFormat, outputStream), verifier));
+            }
+
+        if (verifier != null)
+            reportImperfectMaze(mazeParameters, verifier.getVerification());
+
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format(Locale.ROOT, "Seed %d: %d cells, generated and written in %.1f ms "
+                                                      + "(%.0f cells/s)",
+                                         mazeParameters.getRandomSeed(), cellCount, seconds * 1e3,
+                                         cellCount / seconds));
+
+        return cellCount;
+    }
+
+    private void checkPoints(final int columnCount, final int rowCount) {
+        checkPoint(startPoint, "--start", columnCount, rowCount);
+        checkPoint(endPoint, "--end", columnCount, rowCount);
+    }
+
+    private static void checkPoint(final Point point, final String option, final int columnCount,
+                                   final int rowCount) {
+        if (point != null && (point.x >= columnCount || point.y >= rowCount))
+            throw new IllegalArgumentException("The point for option " + option + " (" + point.x + "," + point.y
+                                               + ") lies outside the maze of " + columnCount + "x" + rowCount
+                                               + " cells.");
+    }
+
+    private boolean hasQualityCriteria() {
+        return maximumDeadEndRatio < 1 || minimumRiverFactor > 0 || minimumSolutionLength > 0;
+    }
+
+    /**
+     * Check whether a maze does not meet the quality criteria, and if so, print and count it.
+     *
+     * @param mazeParameters the parameters of the maze.
+     * @param statistics     the statistics of the maze.
+     * @return whether the maze is rejected.
+     */
+    private boolean isRejected(final MazeParameters mazeParameters, final MazeStatistics statistics) {
+        final boolean tooShort = minimumSolutionLength > 0 && statistics.getSolutionLength() < minimumSolutionLength;
+        final boolean rejected = statistics.getDeadEndRatio() > maximumDeadEndRatio
+                                 || statistics.getRiverFactor() < minimumRiverFactor || tooShort;
+
+        if (rejected) {
+            rejectedCount.incrementAndGet();
+            System.out.println("Seed " + mazeParameters.getRandomSeed() + ": rejected (" + statistics + ")");
+        }
+
+        return rejected;
+    }
+
+    private void reportImperfectMaze(final MazeParameters mazeParameters, final MazeVerification verification) {
+        if (!verification.isPerfect()) {
+            imperfectCount.incrementAndGet();
+            System.out.println("Seed " + mazeParameters.getRandomSeed() + ": not a perfect maze (" + verification
+                               + ")");
+        }
+    }
+
+    /**
+     * Let a verifier receive the rows of a maze as well, while they are written to a sink.
+     *
+     * @param sink     the sink to write the rows to.
+     * @param verifier the verifier or null.
+     * @return the sink that passes the rows to both.
+     */
+    private static MazeRowSink addVerifier(final MazeRowSink sink, final MazeVerifier verifier) {
+        if (verifier == null)
+            return sink;
+
+        return new MazeRowSink() {
+            @Override
+            public void startMaze(final MazeParameters mazeParameters) throws IOException {
+                verifier.startMaze(mazeParameters);
+                sink.startMaze(mazeParameters);
+            }
+
+            @Override
+            public void writeRow(final int row, final long[] crossPoints, final long[] horizontalLines,
+                                 final long[] verticalLines) throws IOException {
+                verifier.writeRow(row, crossPoints, horizontalLines, verticalLines);
+                sink.writeRow(row, crossPoints, horizontalLines, verticalLines);
+            }
+
+            @Override
+            public void finishMaze() throws IOException {
+                verifier.finishMaze();
+                sink.finishMaze();
+            }
+        };
+    }
+
+    private static String getFileName(final MazeParameters mazeParameters, final OutputFormat format) {
+        return "maze-" + mazeParameters.getRandomSeed() + "." + format.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static MazeRowSink createImageSink(final OutputFormat format, final OutputStream outputStream) {
+        switch (format) {
+            case PNG:
+                return new PngRowSink(outputStream);
+
+            case SVG:
+                return new SvgRowSink(outputStream);
+
+            default:
+                return new PdfRowSink(outputStream);
+        }
+    }
+
+    private static int parsePositive(final String value, final String option) {
+        final long number = parseLong(value, option);
+
+        if (number <= 0 || number > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid value for option " + option + ": " + value + ".");
+
+        return (int) number;
+    }
+
+    private static long parseLong(final String value, final String option) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for option " + option + ": " + value + ".", e);
+        }
+    }
+
+    private static double parseRatio(final String value, final String option) {
+        try {
+            final double ratio = Double.parseDouble(value.trim());
+
+            if (ratio < 0 || ratio > 1)
+                throw new IllegalArgumentException("Invalid value for option " + option + ": " + value + ".");
+
+            return ratio;
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for option " + option + ": " + value + ".", e);
+        }
+    }
+
+    private static Point parsePoint(final String value, final String option) {
+        final String[] coordinates = value.split(",");
+
+        if (coordinates.length != 2)
+            throw new IllegalArgumentException("Invalid point for option " + option + ": " + value + ".");
+
+        return new Point(parsePositiveOrZero(coordinates[0], option), parsePositiveOrZero(coordinates[1], option));
+    }
+
+    private static int parsePositiveOrZero(final String value, final String option) {
+        return value.trim().equals("0") ? 0 : parsePositive(value, option);
+    }
+}
@@ -6,9 +6,11 @@ import javax.swing.JFrame;
 import javax.swing.JScrollPane;
 import javax.swing.WindowConstants;
 
+import nl.xs4all.home.freekdb.maze.model.DepthFirstSolver;
 import nl.xs4all.home.freekdb.maze.model.Maze;
 import nl.xs4all.home.freekdb.maze.model.MazeParameters;
 import nl.xs4all.home.freekdb.maze.view.MazeView;
+import nl.xs4all.home.freekdb.maze.view.SolverAnimation;
 import nl.xs4all.home.freekdb.maze.utilities.Utilities;
 
 /**
@@ -18,6 +20,11 @@ import nl.xs4all.home.freekdb.maze.utilities.Utilities;
  * @version 0.2 (September 2015)
  */
 public class Main {
+    /**
+     * The delay after each step of the solver, which makes the search visible (use 0 to solve at full speed).
+     */
+    private static final long SOLVER_STEP_DELAY_MILLISECONDS = 1;
+
     /**
      * Main function to generate and solve a maze.
      *
@@ -51,7 +58,11 @@ public class Main {
         Utilities.positionFrame(frame, mazeView.getPreferredSize(), 40, 70);
         frame.setVisible(true);
 
-        if (solveMaze)
-            maze.solveMazeRecursive(mazeView, maze.getStartPoint());
+        if (solveMaze) {
+            final SolverAnimation solverAnimation = new SolverAnimation(maze, mazeView, SOLVER_STEP_DELAY_MILLISECONDS);
+            mazeView.setSolverAnimation(solverAnimation);
+
+            solverAnimation.start(new DepthFirstSolver());
+        }
     }
 }
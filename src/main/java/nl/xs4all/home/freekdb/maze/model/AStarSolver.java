@@ -0,0 +1,65 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * A* solver with a Manhattan distance heuristic toward the end cell, which finds a shortest path while usually
+ * expanding fewer cells than a breadth-first search. The open set is a binary heap of <code>long</code> values that
+ * combine the estimated total cost (high 32 bits) and the cell index (low 32 bits).
+ */
+public class AStarSolver implements MazeSolver {
+    private static final long CELL_MASK = 0xFFFFFFFFL;
+
+    @Override
+    public int[] solve(final Maze maze, final int startCell, final int endCell, final MazeSolverListener listener) {
+        final int endX = maze.getCellX(endCell);
+        final int endY = maze.getCellY(endCell);
+        final byte[] cameFrom = new byte[maze.getCellCount()];
+        // Cost from the start cell plus one, so zero means the cell has not been reached yet.
+        final int[] costs = new int[maze.getCellCount()];
+        final BitGrid closedCells = maze.createWorkGrid(maze.getMazeHeight(), maze.getMazeWidth());
+        final LongMinHeap openCells = new LongMinHeap();
+
+        cameFrom[startCell] = SolverPaths.START;
+        costs[startCell] = 1;
+        openCells.push(getEntry(getDistance(maze, startCell, endX, endY), startCell));
+
+        while (!openCells.isEmpty()) {
+            final int cell = (int) (openCells.pop() & CELL_MASK);
+            final int cellX = maze.getCellX(cell);
+            final int cellY = maze.getCellY(cell);
+
+            if (closedCells.get(cellY, cellX))
+                continue;
+
+            closedCells.set(cellY, cellX);
+            if (listener != null)
+                listener.cellEntered(cell);
+
+            if (cell == endCell)
+                return SolverPaths.buildPath(maze, cameFrom, endCell);
+
+            final int passages = maze.getPassages(cell);
+            for (int direction = 0; direction < 4; direction++)
+                if ((passages & (1 << direction)) != 0) {
+                    final int neighbour = maze.getNeighbour(cell, direction);
+                    final int neighbourCost = costs[cell] + 1;
+
+                    if (costs[neighbour] == 0 || neighbourCost < costs[neighbour]) {
+                        costs[neighbour] = neighbourCost;
+                        cameFrom[neighbour] = (byte) (1 + direction);
+                        openCells.push(getEntry(neighbourCost - 1 + getDistance(maze, neighbour, endX, endY),
+                                                neighbour));
+                    }
+                }
+        }
+
+        return null;
+    }
+
+    private static long getEntry(final int estimatedCost, final int cell) {
+        return ((long) estimatedCost << 32) | cell;
+    }
+
+    private static int getDistance(final Maze maze, final int cell, final int endX, final int endY) {
+        return Math.abs(maze.getCellX(cell) - endX) + Math.abs(maze.getCellY(cell) - endY);
+    }
+}
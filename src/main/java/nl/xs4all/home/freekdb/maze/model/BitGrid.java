@@ -0,0 +1,206 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Two-dimensional grid of bits, stored row-major in 64-bit words. Every row starts at a word boundary, so row based
+ * operations can work on whole words instead of on single bits.
+ */
+public abstract class BitGrid {
+    /**
+     * The number of bits in a word.
+     */
+    public static final int BITS_PER_WORD = 64;
+
+    /**
+     * The shift to convert a column into a word offset within a row.
+     */
+    protected static final int WORD_SHIFT = 6;
+
+    /**
+     * The number of rows in this grid.
+     */
+    protected final int rowCount;
+
+    /**
+     * The number of columns in this grid.
+     */
+    protected final int columnCount;
+
+    /**
+     * The number of words used to store a single row.
+     */
+    protected final int wordsPerRow;
+
+    /**
+     * Create a bit grid.
+     *
+     * @param rowCount    the number of rows.
+     * @param columnCount the number of columns.
+     */
+    protected BitGrid(final int rowCount, final int columnCount) {
+        if (rowCount < 0 || columnCount < 0)
+            throw new IllegalArgumentException("Invalid grid size: " + rowCount + " x " + columnCount + ".");
+
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.wordsPerRow = getWordsPerRow(columnCount);
+    }
+
+    /**
+     * Determine the number of words that are needed to store a row.
+     *
+     * @param columnCount the number of columns.
+     * @return the number of words per row.
+     */
+    public static int getWordsPerRow(final int columnCount) {
+        return (columnCount + BITS_PER_WORD - 1) >>> WORD_SHIFT;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * Get the total number of words in this grid.
+     *
+     * @return the total number of words.
+     */
+    public long getWordCount() {
+        return (long) rowCount * wordsPerRow;
+    }
+
+    /**
+     * Get the index of the word that contains a specific bit.
+     *
+     * @param row    the row of the bit.
+     * @param column the column of the bit.
+     * @return the word index.
+     */
+    protected long getWordIndex(final int row, final int column) {
+        return (long) row * wordsPerRow + (column >>> WORD_SHIFT);
+    }
+
+    /**
+     * Get a bit.
+     *
+     * @param row    the row of the bit.
+     * @param column the column of the bit.
+     * @return whether the bit is set.
+     */
+    public boolean get(final int row, final int column) {
+        return (getWord(getWordIndex(row, column)) & (1L << column)) != 0;
+    }
+
+    /**
+     * Set a bit to true.
+     *
+     * @param row    the row of the bit.
+     * @param column the column of the bit.
+     */
+    public void set(final int row, final int column) {
+        final long wordIndex = getWordIndex(row, column);
+        setWord(wordIndex, getWord(wordIndex) | (1L << column));
+    }
+
+    /**
+     * Set a bit to a specific value.
+     *
+     * @param row    the row of the bit.
+     * @param column the column of the bit.
+     * @param value  the new value.
+     */
+    public void set(final int row, final int column, final boolean value) {
+        final long wordIndex = getWordIndex(row, column);
+        final long word = getWord(wordIndex);
+        setWord(wordIndex, value ? word | (1L << column) : word & ~(1L << column));
+    }
+
+    /**
+     * Copy the words of a row into an array.
+     *
+     * @param row   the row.
+     * @param words the array to copy the words into, with at least {@link #getWordsPerRow()} elements.
+     */
+    public void getRowWords(final int row, final long[] words) {
+        final long firstWordIndex = (long) row * wordsPerRow;
+
+        for (int wordOffset = 0; wordOffset < wordsPerRow; wordOffset++)
+            words[wordOffset] = getWord(firstWordIndex + wordOffset);
+    }
+
+    /**
+     * Replace the words of a row with the words in an array.
+     *
+     * @param row   the row.
+     * @param words the new words, with at least {@link #getWordsPerRow()} elements.
+     */
+    public void setRowWords(final int row, final long[] words) {
+        final long firstWordIndex = (long) row * wordsPerRow;
+
+        for (int wordOffset = 0; wordOffset < wordsPerRow; wordOffset++)
+            setWord(firstWordIndex + wordOffset, words[wordOffset]);
+    }
+
+    /**
+     * Set all bits in a row to true.
+     *
+     * @param row the row.
+     */
+    public void fillRow(final int row) {
+        final long firstWordIndex = (long) row * wordsPerRow;
+        final int lastWordBitCount = columnCount - (wordsPerRow - 1) * BITS_PER_WORD;
+
+        for (int wordOffset = 0; wordOffset < wordsPerRow - 1; wordOffset++)
+            setWord(firstWordIndex + wordOffset, -1L);
+
+        if (wordsPerRow > 0)
+            setWord(firstWordIndex + wordsPerRow - 1, -1L >>> (BITS_PER_WORD - lastWordBitCount));
+    }
+
+    /**
+     * Get a word from the backing storage.
+     *
+     * @param wordIndex the index of the word.
+     * @return the word.
+     */
+    public abstract long getWord(final long wordIndex);
+
+    /**
+     * Replace a word in the backing storage.
+     *
+     * @param wordIndex the index of the word.
+     * @param word      the new word.
+     */
+    public abstract void setWord(final long wordIndex, final long word);
+
+    /**
+     * Get the number of bytes used to store the bits of this grid.
+     *
+     * @return the size of the backing storage in bytes.
+     */
+    public long getSizeInBytes() {
+        return getWordCount() * (BITS_PER_WORD / Byte.SIZE);
+    }
+
+    /**
+     * Copy the contents of this grid into a new two-dimensional boolean array.
+     *
+     * @return the new array, indexed by row and then column.
+     */
+    public boolean[][] toArray() {
+        final boolean[][] array = new boolean[rowCount][columnCount];
+
+        for (int row = 0; row < rowCount; row++)
+            for (int column = 0; column < columnCount; column++)
+                array[row][column] = get(row, column);
+
+        return array;
+    }
+}
@@ -0,0 +1,42 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Breadth-first solver, which always finds a shortest path. It uses a primitive queue of cell indices and records for
+ * each reached cell the direction in which it was entered (one byte per cell).
+ */
+public class BreadthFirstSolver implements MazeSolver {
+    @Override
+    public int[] solve(final Maze maze, final int startCell, final int endCell, final MazeSolverListener listener) {
+        final byte[] cameFrom = new byte[maze.getCellCount()];
+        // Every cell is added at most once, so the queue never wraps around.
+        final int[] queue = new int[maze.getCellCount()];
+        int head = 0;
+        int tail = 0;
+
+        cameFrom[startCell] = SolverPaths.START;
+        queue[tail++] = startCell;
+
+        while (head < tail) {
+            final int cell = queue[head++];
+
+            if (listener != null)
+                listener.cellEntered(cell);
+
+            if (cell == endCell)
+                return SolverPaths.buildPath(maze, cameFrom, endCell);
+
+            final int passages = maze.getPassages(cell);
+            for (int direction = 0; direction < 4; direction++)
+                if ((passages & (1 << direction)) != 0) {
+                    final int neighbour = maze.getNeighbour(cell, direction);
+
+                    if (cameFrom[neighbour] == 0) {
+                        cameFrom[neighbour] = (byte) (1 + direction);
+                        queue[tail++] = neighbour;
+                    }
+                }
+        }
+
+        return null;
+    }
+}
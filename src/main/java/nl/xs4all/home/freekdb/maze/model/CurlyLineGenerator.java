@@ -0,0 +1,296 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Generates a maze (or a rectangular region of a maze) with curly lines: walls are grown from random empty cross points
+ * until they hit an existing wall, until (almost) all cross points are used. The remaining holes are then connected to
+ * a neighbouring wall. The border of the region must already be filled (as must the parts outside the maze shape).
+ * <p>
+ * Points are passed around as primitive coordinates (a start point is packed into a <code>long</code>), so growing
+ * the curly lines does not allocate any objects.
+ */
+class CurlyLineGenerator {
+    // Four directions.
+    private static final int LEFT = Maze.LEFT;
+    private static final int RIGHT = Maze.RIGHT;
+    private static final int UP = Maze.UP;
+    private static final int DOWN = Maze.DOWN;
+
+    /**
+     * Returned by {@link #getStartPointCurlyLine()} when no curly line can be started.
+     */
+    private static final long NO_POINT = -1;
+
+    /**
+     * For each mask of allowed directions (bit <code>1 &lt;&lt; direction</code> per direction), the allowed
+     * directions in increasing order.
+     */
+    private static final int[][] DIRECTIONS_BY_MASK = createDirectionsByMask();
+
+    private final BitGrid crossPoints;
+    private final BitGrid horizontalLines;
+    private final BitGrid verticalLines;
+
+    private final RandomSource randomGenerator;
+    private final boolean directionMask;
+
+    // The region (in cross point coordinates) that is being generated.
+    private int left;
+    private int top;
+    private int right;
+    private int bottom;
+
+    /**
+     * Create a curly line generator.
+     *
+     * @param maze            the maze to generate the walls for.
+     * @param randomGenerator the random number generator to use.
+     * @param directionMask   whether to draw directions once from the allowed directions (instead of drawing until an
+     *                        allowed direction comes up).
+     */
+    CurlyLineGenerator(final Maze maze, final RandomSource randomGenerator, final boolean directionMask) {
+        this.crossPoints = maze.getCrossPointGrid();
+        this.horizontalLines = maze.getHorizontalLineGrid();
+        this.verticalLines = maze.getVerticalLineGrid();
+        this.randomGenerator = randomGenerator;
+        this.directionMask = directionMask;
+    }
+
+    /**
+     * Generate the walls in a rectangular region, whose border cross points and lines are already filled. The
+     * generator only writes cross points and lines strictly inside the region (and the horizontal lines that connect
+     * to its left and right border).
+     *
+     * @param regionLeft   the left border (cross point column) of the region.
+     * @param regionTop    the top border (cross point row) of the region.
+     * @param regionRight  the right border (cross point column) of the region.
+     * @param regionBottom the bottom border (cross point row) of the region.
+     */
+    void generateRegion(final int regionLeft, final int regionTop, final int regionRight, final int regionBottom) {
+        this.left = regionLeft;
+        this.top = regionTop;
+        this.right = regionRight;
+        this.bottom = regionBottom;
+
+        final long curlyLineCount = (long) (bottom - top) * (right - left);
+        for (long curlyLineIndex = 0; curlyLineIndex < curlyLineCount; curlyLineIndex++) {
+            final long startPointCurlyLine = getStartPointCurlyLine();
+
+            if (startPointCurlyLine != NO_POINT)
+                createCurlyLine(getPointX(startPointCurlyLine), getPointY(startPointCurlyLine));
+        }
+
+        fillRemainingHoles();
+    }
+
+    /**
+     * Try to find a new starting point for a curly line.
+     *
+     * @return the start point of the curly line (packed with {@link #getPoint(int, int)}) or <code>NO_POINT</code> if
+     *         the initial point was not empty.
+     */
+    private long getStartPointCurlyLine() {
+        final long startPoint;
+
+        // Find an empty point to start searching.
+        int x = left + 1 + randomGenerator.nextInt(right - left - 1);
+        int y = top + 1 + randomGenerator.nextInt(bottom - top - 1);
+
+        if (crossPoints.get(y, x))
+            startPoint = NO_POINT;
+        else {
+            final int direction = randomGenerator.nextInt(4);
+            int xStep = (direction == LEFT) ? -1 : ((direction == RIGHT) ? 1 : 0);
+            int yStep = (direction == UP) ? -1 : ((direction == DOWN) ? 1 : 0);
+
+            // Find a point to connect to.
+            while (!crossPoints.get(y, x)) {
+                x += xStep;
+                y += yStep;
+            }
+
+            x -= xStep;
+            y -= yStep;
+
+            switch (direction) {
+                case LEFT:
+                    horizontalLines.set(y, x - 1);
+                    break;
+
+                case RIGHT:
+                    horizontalLines.set(y, x);
+                    break;
+
+                case UP:
+                    verticalLines.set(y - 1, x);
+                    break;
+
+                case DOWN:
+                    verticalLines.set(y, x);
+                    break;
+            }
+
+            crossPoints.set(y, x);
+
+            startPoint = getPoint(x, y);
+        }
+
+        return startPoint;
+    }
+
+    private static long getPoint(final int x, final int y) {
+        return ((long) y << 32) | x;
+    }
+
+    private static int getPointX(final long point) {
+        return (int) point;
+    }
+
+    private static int getPointY(final long point) {
+        return (int) (point >>> 32);
+    }
+
+    /**
+     * Create a curly line.
+     *
+     * @param startX the x coordinate of the start point for this curly line.
+     * @param startY the y coordinate of the start point for this curly line.
+     */
+    private void createCurlyLine(final int startX, final int startY) {
+        int x = startX;
+        int y = startY;
+
+        boolean leftPossible = x > left && !crossPoints.get(y, x - 1);
+        boolean rightPossible = x < right && !crossPoints.get(y, x + 1);
+        boolean upPossible = y > top && !crossPoints.get(y - 1, x);
+        boolean downPossible = y < bottom && !crossPoints.get(y + 1, x);
+
+        while (leftPossible || rightPossible || upPossible || downPossible) {
+            final int direction = addCurlyLineSegment(x, y, leftPossible, rightPossible, upPossible, downPossible);
+
+            x += (direction == LEFT) ? -1 : ((direction == RIGHT) ? 1 : 0);
+            y += (direction == UP) ? -1 : ((direction == DOWN) ? 1 : 0);
+
+            leftPossible = x > left && !crossPoints.get(y, x - 1);
+            rightPossible = x < right && !crossPoints.get(y, x + 1);
+            upPossible = y > top && !crossPoints.get(y - 1, x);
+            downPossible = y < bottom && !crossPoints.get(y + 1, x);
+        }
+    }
+
+    /**
+     * Add a curly line segment.
+     *
+     * @param x               the current x coordinate: start of this segment.
+     * @param y               the current y coordinate: start of this segment.
+     * @param leftPossible    whether moving left is possible.
+     * @param rightPossible   whether moving right is possible.
+     * @param upPossible      whether moving up is possible.
+     * @param downPossible    whether moving down is possible.
+     * @return the direction of this segment, which points to the next point in the curly line (end of this segment).
+     */
+    private int addCurlyLineSegment(final int x, final int y, final boolean leftPossible, final boolean rightPossible,
+                                    final boolean upPossible, final boolean downPossible) {
+        final int direction = getNextDirection(leftPossible, rightPossible, upPossible, downPossible);
+
+        switch (direction) {
+            case LEFT:
+                horizontalLines.set(y, x - 1);
+                crossPoints.set(y, x - 1);
+                break;
+
+            case RIGHT:
+                horizontalLines.set(y, x);
+                crossPoints.set(y, x + 1);
+                break;
+
+            case UP:
+                verticalLines.set(y - 1, x);
+                crossPoints.set(y - 1, x);
+                break;
+
+            case DOWN:
+                verticalLines.set(y, x);
+                crossPoints.set(y + 1, x);
+                break;
+        }
+
+        return direction;
+    }
+
+    /**
+     * Find the direction for the next segment of the curly line.
+     *
+     * @param leftPossible    whether moving left is possible.
+     * @param rightPossible   whether moving right is possible.
+     * @param upPossible      whether moving up is possible.
+     * @param downPossible    whether moving down is possible.
+     * @return the direction.
+     */
+    private int getNextDirection(final boolean leftPossible, final boolean rightPossible, final boolean upPossible,
+                                 final boolean downPossible) {
+        if (directionMask) {
+            final int[] directions = DIRECTIONS_BY_MASK[(leftPossible ? 1 << LEFT : 0) | (rightPossible ? 1 << RIGHT : 0)
+                                                        | (upPossible ? 1 << UP : 0) | (downPossible ? 1 << DOWN : 0)];
+
+            return directions.length == 1 ? directions[0] : directions[randomGenerator.nextInt(directions.length)];
+        }
+
+        boolean directionFound = false;
+        int direction = -1;
+
+        while (!directionFound) {
+            direction = randomGenerator.nextInt(4);
+
+            switch (direction) {
+                case LEFT:
+                    directionFound = leftPossible;
+                    break;
+
+                case RIGHT:
+                    directionFound = rightPossible;
+                    break;
+
+                case UP:
+                    directionFound = upPossible;
+                    break;
+
+                case DOWN:
+                    directionFound = downPossible;
+                    break;
+            }
+        }
+
+        return direction;
+    }
+
+    private static int[][] createDirectionsByMask() {
+        final int[][] directionsByMask = new int[16][];
+
+        for (int mask = 0; mask < directionsByMask.length; mask++) {
+            directionsByMask[mask] = new int[Integer.bitCount(mask)];
+
+            int directionIndex = 0;
+            for (int direction = 0; direction < 4; direction++)
+                if ((mask & (1 << direction)) != 0)
+                    directionsByMask[mask][directionIndex++] = direction;
+        }
+
+        return directionsByMask;
+    }
+
+    /**
+     * Fill the remaining holes in the region.
+     */
+    private void fillRemainingHoles() {
+        for (int y = top + 1; y < (bottom + 1); y++)
+            for (int x = left + 1; x < (right + 1); x++)
+                if (!crossPoints.get(y, x)) {
+                    crossPoints.set(y, x);
+
+                    if (randomGenerator.nextBoolean())
+                        horizontalLines.set(y, x - 1);
+                    else
+                        verticalLines.set(y - 1, x);
+                }
+    }
+}
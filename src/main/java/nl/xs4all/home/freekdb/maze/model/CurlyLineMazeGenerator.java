@@ -0,0 +1,14 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * The original generator, which grows curly walls from random empty cross points until they hit an existing wall (see
+ * <code>CurlyLineGenerator</code>). The mazes it generates do not have loops, but the number of random start attempts
+ * is proportional to the number of cells.
+ */
+public class CurlyLineMazeGenerator implements MazeGenerator {
+    @Override
+    public void generate(final Maze maze, final RandomSource randomGenerator) {
+        new CurlyLineGenerator(maze, randomGenerator, maze.getRandomMode().usesDirectionMask())
+                .generateRegion(0, 0, maze.getMazeWidth(), maze.getMazeHeight());
+    }
+}
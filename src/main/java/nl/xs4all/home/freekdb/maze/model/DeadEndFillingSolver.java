@@ -0,0 +1,51 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Dead-end filling solver. A single linear scan over all cells finds the dead ends (cells with only one open, unfilled
+ * neighbour) and fills each corridor from its dead end up to the next junction, so no search frontier is needed. In a
+ * perfect maze only the solution remains, which is then walked from the start cell to the end cell. Filled cells are
+ * reported to the listener as dead ends.
+ */
+public class DeadEndFillingSolver implements MazeSolver {
+    @Override
+    public int[] solve(final Maze maze, final int startCell, final int endCell, final MazeSolverListener listener) {
+        final BitGrid filledCells = maze.createWorkGrid(maze.getMazeHeight(), maze.getMazeWidth());
+
+        for (int scanCell = 0; scanCell < maze.getCellCount(); scanCell++) {
+            int cell = scanCell;
+
+            while (cell >= 0 && cell != startCell && cell != endCell
+                   && !filledCells.get(maze.getCellY(cell), maze.getCellX(cell))) {
+                final int openNeighbours = getOpenNeighbours(maze, cell, filledCells);
+
+                if (Integer.bitCount(openNeighbours) > 1)
+                    break;
+
+                filledCells.set(maze.getCellY(cell), maze.getCellX(cell));
+                if (listener != null)
+                    listener.cellLeft(cell);
+
+                // Continue filling the corridor toward the next junction.
+                cell = openNeighbours != 0 ? maze.getNeighbour(cell, Integer.numberOfTrailingZeros(openNeighbours)) : -1;
+            }
+        }
+
+        // Whatever is left (in a maze with loops, more than only the solution) is searched depth-first.
+        return new DepthFirstSolver().solve(maze, startCell, endCell, listener, filledCells);
+    }
+
+    private static int getOpenNeighbours(final Maze maze, final int cell, final BitGrid filledCells) {
+        final int passages = maze.getPassages(cell);
+        int openNeighbours = 0;
+
+        for (int direction = 0; direction < 4; direction++)
+            if ((passages & (1 << direction)) != 0) {
+                final int neighbour = maze.getNeighbour(cell, direction);
+
+                if (!filledCells.get(maze.getCellY(neighbour), maze.getCellX(neighbour)))
+                    openNeighbours |= 1 << direction;
+            }
+
+        return openNeighbours;
+    }
+}
@@ -0,0 +1,89 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.util.Arrays;
+
+/**
+ * Depth-first solver that tries the directions in the order left, right, up and down. It keeps the current path on an
+ * explicit stack of cell indices, so it works for paths of any length. The path it finds is not necessarily the
+ * shortest one.
+ */
+public class DepthFirstSolver implements MazeSolver {
+    private static final int[] DIRECTION_ORDER = {Maze.LEFT, Maze.RIGHT, Maze.UP, Maze.DOWN};
+    private static final int INITIAL_STACK_SIZE = 64;
+
+    @Override
+    public int[] solve(final Maze maze, final int startCell, final int endCell, final MazeSolverListener listener) {
+        return solve(maze, startCell, endCell, listener, maze.createWorkGrid(maze.getMazeHeight(), maze.getMazeWidth()));
+    }
+
+    /**
+     * Find a path between two cells, skipping cells that are already marked as visited.
+     *
+     * @param maze         the maze to solve.
+     * @param startCell    the index of the start cell.
+     * @param endCell      the index of the end cell.
+     * @param listener     the listener to notify about the progress or null.
+     * @param visitedCells the cells that may not be entered; the search marks the cells it enters.
+     * @return the cell indices of the path from the start cell to the end cell or null if there is no path.
+     */
+    int[] solve(final Maze maze, final int startCell, final int endCell, final MazeSolverListener listener,
+                final BitGrid visitedCells) {
+        // Cells on the current path and dead ends are both marked, which is all the search needs to know: neither may
+        // be entered again.
+        int[] path = new int[INITIAL_STACK_SIZE];
+        int pathLength = 0;
+
+        path[pathLength++] = startCell;
+        visitedCells.set(maze.getCellY(startCell), maze.getCellX(startCell));
+        if (listener != null)
+            listener.cellEntered(startCell);
+
+        while (pathLength > 0) {
+            final int cell = path[pathLength - 1];
+
+            if (cell == endCell)
+                return Arrays.copyOf(path, pathLength);
+
+            final int nextCell = getUnvisitedNeighbour(maze, cell, visitedCells);
+
+            if (nextCell >= 0) {
+                if (pathLength == path.length)
+                    path = Arrays.copyOf(path, path.length * 2);
+
+                path[pathLength++] = nextCell;
+                visitedCells.set(maze.getCellY(nextCell), maze.getCellX(nextCell));
+                if (listener != null)
+                    listener.cellEntered(nextCell);
+            } else {
+                pathLength--;
+                if (listener != null)
+                    listener.cellLeft(cell);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Find the first neighbour (in the order left, right, up, down) that can be reached from a cell and has not been
+     * visited yet.
+     *
+     * @param maze         the maze.
+     * @param cell         the index of the current cell.
+     * @param visitedCells the cells that have been visited.
+     * @return the index of the neighbour or -1 if there is none.
+     */
+    private static int getUnvisitedNeighbour(final Maze maze, final int cell, final BitGrid visitedCells) {
+        final int passages = maze.getPassages(cell);
+
+        for (final int direction : DIRECTION_ORDER)
+            if ((passages & (1 << direction)) != 0) {
+                final int neighbour = maze.getNeighbour(cell, direction);
+
+                if (!visitedCells.get(maze.getCellY(neighbour), maze.getCellX(neighbour)))
+                    return neighbour;
+            }
+
+        return -1;
+    }
+}
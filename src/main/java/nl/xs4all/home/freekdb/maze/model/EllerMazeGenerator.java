@@ -0,0 +1,425 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.util.Arrays;
+
+import nl.xs4all.home.freekdb.maze.utilities.IntUnionFind;
+
+/**
+ * Generator based on Eller's algorithm, which generates the maze one row at a time. Every cell in the current row
+ * belongs to a set of cells that are connected (through this row or the rows above). Neighbouring cells of different
+ * sets are joined at random, then every set continues downwards at least once (at random positions). In the last
+ * row all different sets are joined. The shape is honoured in the same way as by the other generators (see
+ * <code>SpanningTreeMazeGenerator</code>); a set that cannot continue downwards is always joined with its neighbours.
+ * <p>
+ * Memory: for a rectangular maze only a few arrays with one element per column, so every row can be written out as
+ * soon as it has been generated (see {@link StreamingMazeGenerator}). When the maze has a shape, a set can get cut off
+ * from the rest of its part of the shape (for example when a part ends below a set that was not joined with its
+ * neighbour). The carvable walls are then recorded (two bits per cell) and afterwards cut-off parts are joined with a
+ * union-find structure (five bytes per cell). When the connectivity of the shape below each row is known (see
+ * {@link ShapeConnectivity}), such sets are joined in their own row instead.
+ */
+public class EllerMazeGenerator implements MazeGenerator {
+    private static final int NO_SET = -1;
+
+    private int mazeWidth;
+    private int mazeHeight;
+
+    private BitGrid crossPoints;
+    private BitGrid horizontalLines;
+    private BitGrid verticalLines;
+
+    private RandomSource randomGenerator;
+
+    /**
+     * The set of each cell in the current row, or <code>NO_SET</code> for cells outside the shape (and in between
+     * rows, for cells that are not connected to the row above).
+     */
+    private int[] cellSets;
+
+    /**
+     * Union-find parents of the sets in the current row; sets are numbered from zero to the maze width.
+     */
+    private int[] setParents;
+
+    /**
+     * Whether each set in the current row can continue downwards.
+     */
+    private boolean[] setHasExit;
+
+    private boolean[] setUsed;
+
+    /**
+     * The number of cells of each set in the current row that can continue downwards.
+     */
+    private int[] setExitCounts;
+
+    /**
+     * For each set that did not continue downwards at random, the index of the exit that is opened (among the cells
+     * of the set that can continue downwards), or -1.
+     */
+    private int[] setForcedExits;
+
+    private boolean[] setConnected;
+
+    /**
+     * Whether each cell in the current row can continue downwards and whether it does.
+     */
+    private boolean[] cellCanExit;
+    private boolean[] cellExits;
+
+    /**
+     * Whether the wall between each cell in the current row and its right neighbour is carvable.
+     */
+    private boolean[] cellCanJoinRight;
+
+    /**
+     * The connectivity of the shape below each row, or null if cut-off parts are joined after generation.
+     */
+    private ShapeConnectivity shapeConnectivity;
+
+    /**
+     * The component of the shape below the current row of each cell in the next row (see
+     * <code>ShapeConnectivity</code>) and the union-find parents of the sets in the current row (zero until the maze
+     * width) linked with these components (component plus maze width) by the exits.
+     */
+    private int[] componentsBelow;
+    private int[] linkParents;
+
+    /**
+     * The carvable walls between a cell and its right neighbour and between a cell and the neighbour below it, which
+     * are only recorded for a maze with a shape.
+     */
+    private BitGrid carvableRight;
+    private BitGrid carvableDown;
+
+    @Override
+    public void generate(final Maze maze, final RandomSource randomGenerator) {
+        start(maze.getMazeWidth(), maze.getMazeHeight(), maze.getCrossPointGrid(), maze.getHorizontalLineGrid(),
+              maze.getVerticalLineGrid(), randomGenerator, null);
+
+        final boolean shaped = hasShape();
+        this.carvableRight = shaped ? maze.createWorkGrid(mazeHeight, mazeWidth) : null;
+        this.carvableDown = shaped ? maze.createWorkGrid(mazeHeight, mazeWidth) : null;
+
+        try {
+            for (int y = 0; y < mazeHeight; y++)
+                generateRow(y);
+
+            crossPoints.fillRow(mazeHeight);
+
+            if (shaped)
+                joinCutOffParts(maze);
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Prepare for generating a maze row by row with {@link #generateRow(int)}.
+     *
+     * @param mazeWidth       the number of columns of cells.
+     * @param mazeHeight      the number of rows of cells.
+     * @param crossPoints     the cross points, of which the rows of the current row of cells and the two rows below it
+     *                        are used.
+     * @param horizontalLines the horizontal lines, of which the rows above and below the current row of cells are
+     *                        used.
+     * @param verticalLines     the vertical lines, of which the row of the current row of cells is used.
+     * @param randomGenerator   the random number generator to use.
+     * @param shapeConnectivity the connectivity of the shape below each row, to join sets that would get cut off in
+     *                          their own row, or null for a rectangular maze (or when the cut-off parts are joined
+     *                          afterwards).
+     */
+    void start(final int mazeWidth, final int mazeHeight, final BitGrid crossPoints, final BitGrid horizontalLines,
+               final BitGrid verticalLines, final RandomSource randomGenerator,
+               final ShapeConnectivity shapeConnectivity) {
+        this.mazeWidth = mazeWidth;
+        this.mazeHeight = mazeHeight;
+        this.crossPoints = crossPoints;
+        this.horizontalLines = horizontalLines;
+        this.verticalLines = verticalLines;
+        this.randomGenerator = randomGenerator;
+        this.shapeConnectivity = shapeConnectivity;
+
+        this.cellSets = new int[mazeWidth];
+        this.setParents = new int[mazeWidth];
+        this.setHasExit = new boolean[mazeWidth];
+        this.setUsed = new boolean[mazeWidth];
+        this.setExitCounts = new int[mazeWidth];
+        this.setForcedExits = new int[mazeWidth];
+        this.setConnected = new boolean[mazeWidth];
+        this.cellCanExit = new boolean[mazeWidth];
+        this.cellExits = new boolean[mazeWidth];
+        this.cellCanJoinRight = new boolean[mazeWidth];
+        this.componentsBelow = shapeConnectivity != null ? new int[mazeWidth] : null;
+        this.linkParents = shapeConnectivity != null ? new int[2 * mazeWidth] : null;
+
+        Arrays.fill(cellSets, NO_SET);
+    }
+
+    /**
+     * Generate the walls of the next row of cells and fill the cross points above it. The walls of the row that were
+     * drawn before (the border and the circumference of the shape) must already be present, as must the walls below
+     * the row and the cross points of the row and of the two rows below it.
+     *
+     * @param y the row, which starts at zero and increases by one for every call.
+     */
+    void generateRow(final int y) {
+        assignSets(y);
+        joinCellsInRow(y);
+
+        if (y + 1 < mazeHeight)
+            connectDownwards(y);
+
+        // The cross points above this row are not needed anymore to determine which cells are inside.
+        crossPoints.fillRow(y);
+    }
+
+    /**
+     * Release the references to the maze after generation.
+     */
+    void finish() {
+        this.crossPoints = null;
+        this.horizontalLines = null;
+        this.verticalLines = null;
+        this.randomGenerator = null;
+        this.shapeConnectivity = null;
+        this.carvableRight = null;
+        this.carvableDown = null;
+    }
+
+    /**
+     * Give every cell in a row that is inside the shape and not connected to the row above a set of its own.
+     *
+     * @param y the row.
+     */
+    private void assignSets(final int y) {
+        Arrays.fill(setUsed, false);
+
+        for (int x = 0; x < mazeWidth; x++)
+            if (cellSets[x] != NO_SET)
+                setUsed[cellSets[x]] = true;
+
+        int freeSet = 0;
+        for (int x = 0; x < mazeWidth; x++)
+            if (cellSets[x] == NO_SET && SpanningTreeMazeGenerator.isInside(crossPoints, x, y)) {
+                while (setUsed[freeSet])
+                    freeSet++;
+
+                cellSets[x] = freeSet;
+                setUsed[freeSet] = true;
+            }
+
+        Arrays.fill(setHasExit, false);
+        for (int set = 0; set < mazeWidth; set++)
+            setParents[set] = set;
+
+        if (y + 1 < mazeHeight)
+            for (int x = 0; x < mazeWidth; x++)
+                if (cellSets[x] != NO_SET && canConnectDownwards(x, y))
+                    setHasExit[cellSets[x]] = true;
+    }
+
+    /**
+     * Join neighbouring cells of different sets at random and close the other carvable walls in a row. Sets that
+     * cannot continue downwards (which includes all sets in the last row) are always joined.
+     *
+     * @param y the row.
+     */
+    private void joinCellsInRow(final int y) {
+        for (int x = 0; x < mazeWidth; x++) {
+            cellCanJoinRight[x] = x + 1 < mazeWidth && cellSets[x] != NO_SET && cellSets[x + 1] != NO_SET
+                                  && !verticalLines.get(y, x + 1);
+
+            if (cellCanJoinRight[x]) {
+                final int set1 = findSet(cellSets[x]);
+                final int set2 = findSet(cellSets[x + 1]);
+
+                if (carvableRight != null)
+                    carvableRight.set(y, x);
+
+                if (set1 != set2 && (!setHasExit[set1] || !setHasExit[set2] || randomGenerator.nextBoolean())) {
+                    setParents[set2] = set1;
+                    setHasExit[set1] |= setHasExit[set2];
+                } else
+                    verticalLines.set(y, x + 1);
+            }
+        }
+
+        for (int x = 0; x < mazeWidth; x++)
+            if (cellSets[x] != NO_SET)
+                cellSets[x] = findSet(cellSets[x]);
+    }
+
+    /**
+     * Let every set continue downwards at one or more random positions and close the other carvable walls below the
+     * row. Each possible exit is opened with a probability of one half; a set that gets no exit that way gets one of
+     * its possible exits.
+     *
+     * @param y the row.
+     */
+    private void connectDownwards(final int y) {
+        Arrays.fill(setExitCounts, 0);
+        Arrays.fill(setForcedExits, -1);
+        Arrays.fill(setConnected, false);
+
+        for (int x = 0; x < mazeWidth; x++) {
+            final int set = cellSets[x];
+            cellCanExit[x] = set != NO_SET && canConnectDownwards(x, y);
+            cellExits[x] = false;
+
+            if (cellCanExit[x]) {
+                setExitCounts[set]++;
+
+                if (randomGenerator.nextBoolean()) {
+                    cellExits[x] = true;
+                    setConnected[set] = true;
+                }
+            }
+        }
+
+        for (int x = 0; x < mazeWidth; x++) {
+            final int set = cellSets[x];
+
+            if (set != NO_SET && !setConnected[set] && setExitCounts[set] > 0) {
+                setForcedExits[set] = randomGenerator.nextInt(setExitCounts[set]);
+                setConnected[set] = true;
+            }
+        }
+
+        // Count down to the forced exit of each set (a set without a forced exit stays below zero).
+        for (int x = 0; x < mazeWidth; x++)
+            if (cellCanExit[x] && setForcedExits[cellSets[x]]-- == 0)
+                cellExits[x] = true;
+
+        if (shapeConnectivity != null)
+            joinCutOffSets(y);
+
+        for (int x = 0; x < mazeWidth; x++) {
+            final int set = cellSets[x];
+
+            if (cellCanExit[x]) {
+                if (carvableDown != null)
+                    carvableDown.set(y, x);
+
+                if (!cellExits[x])
+                    horizontalLines.set(y + 1, x);
+            }
+
+            cellSets[x] = cellExits[x] ? set : NO_SET;
+        }
+    }
+
+    /**
+     * Join the sets in a row that would otherwise get cut off from the rest of their part of the shape. The sets are
+     * linked by their exits with the components of the shape below the row, in which they will be joined later on.
+     * Then the closed carvable walls and possible exits of the row are opened (in row order) if they link sets and
+     * components that are not linked yet, so everything that can still be connected through the rows below is either
+     * joined or linked. This also gives every component below the row that can be reached from it an exit.
+     *
+     * @param y the row.
+     */
+    private void joinCutOffSets(final int y) {
+        shapeConnectivity.getComponents(y + 1, componentsBelow);
+
+        for (int element = 0; element < linkParents.length; element++)
+            linkParents[element] = element;
+
+        for (int x = 0; x < mazeWidth; x++)
+            if (cellExits[x])
+                link(cellSets[x], mazeWidth + componentsBelow[x]);
+
+        for (int x = 0; x < mazeWidth; x++) {
+            if (cellCanExit[x] && !cellExits[x] && link(cellSets[x], mazeWidth + componentsBelow[x]))
+                cellExits[x] = true;
+
+            if (cellCanJoinRight[x] && verticalLines.get(y, x + 1) && link(cellSets[x], cellSets[x + 1])) {
+                verticalLines.set(y, x + 1, false);
+                setParents[findSet(cellSets[x + 1])] = findSet(cellSets[x]);
+            }
+        }
+
+        for (int x = 0; x < mazeWidth; x++)
+            if (cellSets[x] != NO_SET)
+                cellSets[x] = findSet(cellSets[x]);
+    }
+
+    /**
+     * Link a set with another set or with a component below the row.
+     *
+     * @return whether they were not linked before.
+     */
+    private boolean link(final int element1, final int element2) {
+        final int root1 = findLink(element1);
+        final int root2 = findLink(element2);
+
+        linkParents[root2] = root1;
+
+        return root1 != root2;
+    }
+
+    private int findLink(final int element) {
+        int current = element;
+
+        while (linkParents[current] != current) {
+            linkParents[current] = linkParents[linkParents[current]];
+            current = linkParents[current];
+        }
+
+        return current;
+    }
+
+    private boolean canConnectDownwards(final int x, final int y) {
+        return !horizontalLines.get(y + 1, x) && SpanningTreeMazeGenerator.isInside(crossPoints, x, y + 1);
+    }
+
+    private int findSet(final int set) {
+        int current = set;
+
+        while (setParents[current] != current) {
+            setParents[current] = setParents[setParents[current]];
+            current = setParents[current];
+        }
+
+        return current;
+    }
+
+    /**
+     * Determine whether the maze has a shape, which is the case if any cross point other than the outer border is
+     * filled.
+     *
+     * @return whether the maze has a shape.
+     */
+    private boolean hasShape() {
+        long filledCount = 0;
+
+        for (long wordIndex = 0; wordIndex < crossPoints.getWordCount(); wordIndex++)
+            filledCount += Long.bitCount(crossPoints.getWord(wordIndex));
+
+        return filledCount != 2L * (mazeWidth + 1) + 2L * (mazeHeight - 1);
+    }
+
+    /**
+     * Join the parts of the maze that got cut off from the rest of their part of the shape, by opening closed carvable
+     * walls (in row order) between cells that are not connected.
+     *
+     * @param maze the maze.
+     */
+    private void joinCutOffParts(final Maze maze) {
+        final IntUnionFind connectedCells = new IntUnionFind(maze.getCellCount());
+
+        for (int pass = 0; pass < 2; pass++)
+            for (int y = 0; y < mazeHeight; y++)
+                for (int x = 0; x < mazeWidth; x++) {
+                    final int cell = maze.getCellIndex(x, y);
+
+                    // The first pass adds the passages, the second pass opens the walls that join different parts.
+                    if (carvableRight.get(y, x) && verticalLines.get(y, x + 1) == (pass == 1)
+                        && connectedCells.union(cell, cell + 1))
+                        verticalLines.set(y, x + 1, false);
+
+                    if (carvableDown.get(y, x) && horizontalLines.get(y + 1, x) == (pass == 1)
+                        && connectedCells.union(cell, cell + mazeWidth))
+                        horizontalLines.set(y + 1, x, false);
+                }
+    }
+}
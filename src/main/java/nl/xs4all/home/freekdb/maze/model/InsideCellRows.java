@@ -0,0 +1,85 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.util.Arrays;
+
+/**
+ * Determines row by row which cells are inside the shape of a maze, for the row sinks that need to know this. Since a
+ * generated maze has all its cross points filled, this is derived from the shape itself, like the generators do: the
+ * border and the cross points outside the shape are filled (see {@link StreamingMazeGenerator}), and a cell is outside
+ * if all four of its corners are filled.
+ */
+class InsideCellRows {
+    private final ShapeRowSource shapeRowSource;
+    private final int mazeWidth;
+    private final int mazeHeight;
+
+    private long[] outsidePointsAbove;
+    private long[] outsidePointsBelow;
+    private int nextOutsidePointRow;
+
+    /**
+     * Create the inside cell rows for a maze.
+     *
+     * @param shapeRowSource the shape of the maze or null for a rectangular maze.
+     * @param mazeWidth      the number of columns of cells.
+     * @param mazeHeight     the number of rows of cells.
+     */
+    InsideCellRows(final ShapeRowSource shapeRowSource, final int mazeWidth, final int mazeHeight) {
+        this.shapeRowSource = shapeRowSource;
+        this.mazeWidth = mazeWidth;
+        this.mazeHeight = mazeHeight;
+
+        final int pointWordCount = BitGrid.getWordsPerRow(mazeWidth + 1);
+        this.outsidePointsAbove = new long[pointWordCount];
+        this.outsidePointsBelow = new long[pointWordCount];
+
+        loadNextOutsidePoints();
+    }
+
+    /**
+     * Get the cells inside the shape in the next row.
+     *
+     * @param cells the array to fill, with the layout of a {@link BitGrid} row of cells; a row below the maze has no
+     *              cells inside.
+     */
+    void getNextRow(final long[] cells) {
+        if (nextOutsidePointRow > mazeHeight) {
+            Arrays.fill(cells, 0);
+            return;
+        }
+
+        loadNextOutsidePoints();
+
+        for (int wordOffset = 0; wordOffset < cells.length; wordOffset++) {
+            final boolean hasNextWord = wordOffset + 1 < outsidePointsAbove.length;
+            final long rightAbove = (outsidePointsAbove[wordOffset] >>> 1)
+                                    | (hasNextWord ? outsidePointsAbove[wordOffset + 1] << 63 : 0);
+            final long rightBelow = (outsidePointsBelow[wordOffset] >>> 1)
+                                    | (hasNextWord ? outsidePointsBelow[wordOffset + 1] << 63 : 0);
+            final int remainingColumns = mazeWidth - (wordOffset << 6);
+            final long columnMask = remainingColumns >= BitGrid.BITS_PER_WORD ? -1L : (1L << remainingColumns) - 1;
+
+            cells[wordOffset] = ~(outsidePointsAbove[wordOffset] & rightAbove & outsidePointsBelow[wordOffset]
+                                  & rightBelow) & columnMask;
+        }
+    }
+
+    private void loadNextOutsidePoints() {
+        final long[] words = outsidePointsAbove;
+        outsidePointsAbove = outsidePointsBelow;
+        outsidePointsBelow = words;
+
+        final int row = nextOutsidePointRow++;
+        if (row == 0 || row == mazeHeight)
+            Arrays.fill(words, -1L);
+        else {
+            if (shapeRowSource != null)
+                shapeRowSource.getOutsidePoints(row, words);
+            else
+                Arrays.fill(words, 0);
+
+            words[0] |= 1;
+            words[mazeWidth >> 6] |= 1L << mazeWidth;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import nl.xs4all.home.freekdb.maze.utilities.IntUnionFind;
+
+/**
+ * Generator based on Kruskal's algorithm: all carvable walls are visited in a random order and a wall is removed when
+ * the cells on both sides are not connected yet. The mazes it generates have many short dead ends.
+ * <p>
+ * Memory: one int per carvable wall (up to two per cell) and a union-find structure of five bytes per cell.
+ */
+public class KruskalMazeGenerator extends SpanningTreeMazeGenerator {
+    @Override
+    void carvePassages(final Maze maze, final RandomSource randomGenerator) {
+        // A wall is identified by the cell on its left or top side and a direction bit (0 is right and 1 is down).
+        final int[] walls = new int[2 * maze.getCellCount()];
+        int wallCount = 0;
+
+        for (int cell = 0; cell < maze.getCellCount(); cell++) {
+            final int directions = getCarvableDirections(cell);
+
+            if ((directions & (1 << Maze.RIGHT)) != 0)
+                walls[wallCount++] = cell << 1;
+            if ((directions & (1 << Maze.DOWN)) != 0)
+                walls[wallCount++] = (cell << 1) | 1;
+        }
+
+        final IntUnionFind connectedCells = new IntUnionFind(maze.getCellCount());
+
+        // Shuffle the walls lazily (Fisher-Yates from the front), so every wall is handled when it has been drawn.
+        for (int wallIndex = 0; wallIndex < wallCount; wallIndex++) {
+            final int otherIndex = wallIndex + randomGenerator.nextInt(wallCount - wallIndex);
+            final int wall = walls[otherIndex];
+            walls[otherIndex] = walls[wallIndex];
+
+            final int cell = wall >>> 1;
+            final int direction = (wall & 1) == 0 ? Maze.RIGHT : Maze.DOWN;
+
+            if (connectedCells.union(cell, maze.getNeighbour(cell, direction)))
+                carve(cell, direction);
+        }
+    }
+}
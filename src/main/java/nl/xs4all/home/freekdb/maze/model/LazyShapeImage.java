@@ -0,0 +1,93 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Shape image file whose dimensions are read from the image header right away, while the pixels are only decoded
+ * (once) when the image is needed. It is shared by copies of maze parameters.
+ */
+class LazyShapeImage {
+    private final File imageFile;
+    private final int width;
+    private final int height;
+
+    private volatile BufferedImage image;
+
+    private LazyShapeImage(final File imageFile, final int width, final int height) {
+        this.imageFile = imageFile;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Read the dimensions of a shape image without decoding it.
+     *
+     * @param imageFile the image file.
+     * @return the lazy shape image.
+     * @throws IOException if the file cannot be read or is not a supported image.
+     */
+    static LazyShapeImage open(final File imageFile) throws IOException {
+        try (final ImageInputStream inputStream = ImageIO.createImageInputStream(imageFile)) {
+            final Iterator<ImageReader> imageReaders = inputStream != null
+                                                       ? ImageIO.getImageReaders(inputStream)
+                                                       : null;
+
+            if (imageReaders == null || !imageReaders.hasNext())
+                throw new IOException("Unsupported shape image format: " + imageFile + ".");
+
+            final ImageReader imageReader = imageReaders.next();
+
+            try {
+                imageReader.setInput(inputStream, true, true);
+
+                return new LazyShapeImage(imageFile, imageReader.getWidth(0), imageReader.getHeight(0));
+            } finally {
+                imageReader.dispose();
+            }
+        }
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the image, decoding it the first time.
+     *
+     * @return the image.
+     * @throws UncheckedIOException if the image cannot be decoded.
+     */
+    BufferedImage getImage() {
+        BufferedImage result = image;
+
+        if (result == null) {
+            synchronized (this) {
+                result = image;
+
+                if (result == null) {
+                    try {
+                        result = ShapeMask.readImage(imageFile);
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException("Unable to read shape image " + imageFile + ".", e);
+                    }
+
+                    image = result;
+                }
+            }
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,25 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.util.Random;
+
+/**
+ * Random source based on <code>java.util.Random</code>, which generates the same mazes as earlier versions for the
+ * same random seed.
+ */
+public class LegacyRandomSource implements RandomSource {
+    private final Random random;
+
+    public LegacyRandomSource(final long randomSeed) {
+        this.random = new Random(randomSeed);
+    }
+
+    @Override
+    public int nextInt(final int bound) {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return random.nextBoolean();
+    }
+}
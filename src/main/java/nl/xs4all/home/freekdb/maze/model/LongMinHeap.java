@@ -0,0 +1,62 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of primitive <code>long</code> values, used as a priority queue without boxing.
+ */
+final class LongMinHeap {
+    private static final int INITIAL_SIZE = 256;
+
+    private long[] values = new long[INITIAL_SIZE];
+    private int size;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void push(final long value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, values.length * 2);
+
+        int index = size++;
+
+        while (index > 0) {
+            final int parentIndex = (index - 1) >>> 1;
+
+            if (values[parentIndex] <= value)
+                break;
+
+            values[index] = values[parentIndex];
+            index = parentIndex;
+        }
+
+        values[index] = value;
+    }
+
+    long pop() {
+        final long top = values[0];
+        final long last = values[--size];
+        int index = 0;
+
+        while (true) {
+            int childIndex = 2 * index + 1;
+
+            if (childIndex >= size)
+                break;
+
+            if (childIndex + 1 < size && values[childIndex + 1] < values[childIndex])
+                childIndex++;
+
+            if (last <= values[childIndex])
+                break;
+
+            values[index] = values[childIndex];
+            index = childIndex;
+        }
+
+        values[index] = last;
+
+        return top;
+    }
+}
@@ -0,0 +1,72 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Bit grid that stores its rows in a region of a memory-mapped file. Because a single mapping is limited to 2 GB, the
+ * region is split into chunks of at most 1 GB.
+ */
+public class MappedBitGrid extends BitGrid {
+    /**
+     * The number of bits to shift a byte offset to get the chunk index.
+     */
+    private static final int CHUNK_SHIFT = 30;
+
+    /**
+     * The number of bytes in a (full) chunk.
+     */
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+
+    /**
+     * The mask to get the offset within a chunk from a byte offset.
+     */
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * The mapped chunks of the file region.
+     */
+    private final MappedByteBuffer[] chunks;
+
+    /**
+     * Create a memory-mapped bit grid. The mapping stays valid after the file channel has been closed.
+     *
+     * @param fileChannel the channel of the file to map (opened for reading and writing).
+     * @param fileOffset  the start of the region in the file.
+     * @param rowCount    the number of rows.
+     * @param columnCount the number of columns.
+     * @throws IOException if mapping the file fails.
+     */
+    public MappedBitGrid(final FileChannel fileChannel, final long fileOffset, final int rowCount,
+                         final int columnCount) throws IOException {
+        super(rowCount, columnCount);
+
+        final long size = getSizeInBytes();
+        final int chunkCount = (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        this.chunks = new MappedByteBuffer[chunkCount];
+
+        for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+            final long chunkOffset = (long) chunkIndex << CHUNK_SHIFT;
+            final long chunkSize = Math.min(CHUNK_SIZE, size - chunkOffset);
+
+            chunks[chunkIndex] = fileChannel.map(FileChannel.MapMode.READ_WRITE, fileOffset + chunkOffset, chunkSize);
+            chunks[chunkIndex].order(ByteOrder.nativeOrder());
+        }
+    }
+
+    @Override
+    public long getWord(final long wordIndex) {
+        final long byteOffset = wordIndex << 3;
+
+        return chunks[(int) (byteOffset >>> CHUNK_SHIFT)].getLong((int) (byteOffset & CHUNK_MASK));
+    }
+
+    @Override
+    public void setWord(final long wordIndex, final long word) {
+        final long byteOffset = wordIndex << 3;
+
+        chunks[(int) (byteOffset >>> CHUNK_SHIFT)].putLong((int) (byteOffset & CHUNK_MASK), word);
+    }
+}
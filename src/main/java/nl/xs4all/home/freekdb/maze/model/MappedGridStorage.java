@@ -0,0 +1,77 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+/**
+ * Allocates memory-mapped bit grids one after another in a single file. When no file is specified, a temporary file is
+ * used, which is deleted when the storage is closed (the mappings themselves remain valid).
+ */
+public class MappedGridStorage implements Closeable {
+    /**
+     * The file that contains the grids.
+     */
+    private final File file;
+
+    /**
+     * Whether the file is a temporary file that should be deleted when the storage is closed.
+     */
+    private final boolean temporaryFile;
+
+    /**
+     * The random access file used to map the grids.
+     */
+    private final RandomAccessFile randomAccessFile;
+
+    /**
+     * The offset in the file where the next grid will be mapped.
+     */
+    private long nextOffset;
+
+    /**
+     * Create a memory-mapped grid storage.
+     *
+     * @param file the file to use or null to use a temporary file.
+     * @throws IOException if the file cannot be created or opened.
+     */
+    public MappedGridStorage(final File file) throws IOException {
+        this.temporaryFile = file == null;
+        this.file = temporaryFile ? File.createTempFile("maze-", ".grid") : file;
+        this.randomAccessFile = new RandomAccessFile(this.file, "rw");
+
+        // Remove any previous contents, so the grids start with all bits cleared.
+        this.randomAccessFile.setLength(0);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Create a new grid in the next free region of the file.
+     *
+     * @param rowCount    the number of rows.
+     * @param columnCount the number of columns.
+     * @return the new grid with all bits cleared.
+     * @throws IOException if mapping the file fails.
+     */
+    public BitGrid createGrid(final int rowCount, final int columnCount) throws IOException {
+        final FileChannel fileChannel = randomAccessFile.getChannel();
+        final MappedBitGrid grid = new MappedBitGrid(fileChannel, nextOffset, rowCount, columnCount);
+
+        nextOffset += grid.getSizeInBytes();
+
+        return grid;
+    }
+
+    @Override
+    public void close() throws IOException {
+        randomAccessFile.close();
+
+        if (temporaryFile && !file.delete())
+            file.deleteOnExit();
+    }
+}
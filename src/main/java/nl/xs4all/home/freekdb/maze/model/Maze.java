@@ -1,24 +1,19 @@
 package nl.xs4all.home.freekdb.maze.model;
 
-import java.awt.Color;
 import java.awt.Point;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Random;
-import java.util.Set;
-
-import nl.xs4all.home.freekdb.maze.view.MazeView;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  */
 public class Maze {
     // Four directions.
-    private static final int LEFT = 0;
-    private static final int RIGHT = 2;
-    private static final int UP = 1;
-    private static final int DOWN = 3;
+    static final int LEFT = 0;
+    static final int RIGHT = 2;
+    static final int UP = 1;
+    static final int DOWN = 3;
 
     private static final boolean LOG_CROSS_POINTS = false;
 
@@ -32,13 +27,13 @@ public class Maze {
     private final Point endPoint;
 
     private long randomSeed;
+    private final RandomMode randomMode;
 
-    private final boolean[][] crossPoints;
-    private final boolean[][] horizontalLines;
-    private final boolean[][] verticalLines;
+    private final StorageMode storageMode;
 
-    private List<Point> visitedPoints;
-    private Set<Point> deadEndPoints;
+    private final BitGrid crossPoints;
+    private final BitGrid horizontalLines;
+    private final BitGrid verticalLines;
 
     public Maze(final MazeParameters mazeParameters) {
         this.cellHeight = mazeParameters.getCellHeight();
@@ -51,10 +46,23 @@ public class Maze {
         this.endPoint = mazeParameters.getEndPoint();
 
         this.randomSeed = mazeParameters.getRandomSeed();
+        this.randomMode = mazeParameters.getRandomMode();
 
-        this.crossPoints = new boolean[mazeHeight + 1][mazeWidth + 1];
-        this.horizontalLines = new boolean[mazeHeight + 1][mazeWidth];
-        this.verticalLines = new boolean[mazeHeight][mazeWidth + 1];
+        this.storageMode = mazeParameters.getStorageMode();
+
+        if (storageMode == StorageMode.MEMORY_MAPPED) {
+            try (final MappedGridStorage storage = new MappedGridStorage(mazeParameters.getStorageFile())) {
+                this.crossPoints = storage.createGrid(mazeHeight + 1, mazeWidth + 1);
+                this.horizontalLines = storage.createGrid(mazeHeight + 1, mazeWidth);
+                this.verticalLines = storage.createGrid(mazeHeight, mazeWidth + 1);
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Unable to create memory-mapped maze storage.", e);
+            }
+        } else {
+            this.crossPoints = new PackedBitGrid(mazeHeight + 1, mazeWidth + 1);
+            this.horizontalLines = new PackedBitGrid(mazeHeight + 1, mazeWidth);
+            this.verticalLines = new PackedBitGrid(mazeHeight, mazeWidth + 1);
+        }
 
         makeBorders();
 
@@ -63,22 +71,22 @@ public class Maze {
 
     public void makeBorders() {
         for (int x = 0; x < (mazeWidth + 1); x++) {
-            crossPoints[0][x] = true;
-            crossPoints[mazeHeight][x] = true;
+            crossPoints.set(0, x);
+            crossPoints.set(mazeHeight, x);
 
             if (x < mazeWidth) {
-                horizontalLines[0][x] = true;
-                horizontalLines[mazeHeight][x] = true;
+                horizontalLines.set(0, x);
+                horizontalLines.set(mazeHeight, x);
             }
         }
 
         for (int y = 0; y < (mazeHeight + 1); y++) {
-            crossPoints[y][0] = true;
-            crossPoints[y][mazeWidth] = true;
+            crossPoints.set(y, 0);
+            crossPoints.set(y, mazeWidth);
 
             if (y < mazeHeight) {
-                verticalLines[y][0] = true;
-                verticalLines[y][mazeWidth] = true;
+                verticalLines.set(y, 0);
+                verticalLines.set(y, mazeWidth);
             }
         }
     }
@@ -99,18 +107,57 @@ public class Maze {
         return mazeWidth;
     }
 
+    /**
+     * Get a copy of the cross points as a two-dimensional array (compatibility view of the bit grid).
+     *
+     * @return the cross points, indexed by row and then column.
+     */
     public boolean[][] getCrossPoints() {
-        return crossPoints;
+        return crossPoints.toArray();
     }
 
+    /**
+     * Get a copy of the horizontal lines as a two-dimensional array (compatibility view of the bit grid).
+     *
+     * @return the horizontal lines, indexed by row and then column.
+     */
     public boolean[][] getHorizontalLines() {
-        return horizontalLines;
+        return horizontalLines.toArray();
     }
 
+    /**
+     * Get a copy of the vertical lines as a two-dimensional array (compatibility view of the bit grid).
+     *
+     * @return the vertical lines, indexed by row and then column.
+     */
     public boolean[][] getVerticalLines() {
+        return verticalLines.toArray();
+    }
+
+    public BitGrid getCrossPointGrid() {
+        return crossPoints;
+    }
+
+    public BitGrid getHorizontalLineGrid() {
+        return horizontalLines;
+    }
+
+    public BitGrid getVerticalLineGrid() {
         return verticalLines;
     }
 
+    public boolean hasCrossPoint(final int y, final int x) {
+        return crossPoints.get(y, x);
+    }
+
+    public boolean hasHorizontalLine(final int y, final int x) {
+        return horizontalLines.get(y, x);
+    }
+
+    public boolean hasVerticalLine(final int y, final int x) {
+        return verticalLines.get(y, x);
+    }
+
     public Point getStartPoint() {
         return startPoint;
     }
@@ -119,348 +166,348 @@ public class Maze {
         return endPoint;
     }
 
-    public List<Point> getVisitedPoints() {
-        return visitedPoints;
+    /**
+     * Get the index of the start cell, for use with the primitive cell methods.
+     *
+     * @return the index of the start cell or -1 if the maze has no start point.
+     */
+    public int getStartCell() {
+        return startPoint != null ? getCellIndex(startPoint.x, startPoint.y) : -1;
     }
 
-    public Set<Point> getDeadEndPoints() {
-        return deadEndPoints;
+    /**
+     * Get the index of the end cell, for use with the primitive cell methods.
+     *
+     * @return the index of the end cell or -1 if the maze has no end point.
+     */
+    public int getEndCell() {
+        return endPoint != null ? getCellIndex(endPoint.x, endPoint.y) : -1;
     }
 
     /**
-     * Fill all areas that are not black in the shape, so the maze will be generated in the black areas of the shape.
+     * Get the random seed, which is initialized with the current time when the maze is generated without a seed.
      *
-     * @param shapeImage the shape image to determine which areas will be used for maze generation.
+     * @return the random seed.
      */
-    public void limitMazeAreaToShape(final BufferedImage shapeImage) {
-        try {
-            final int blackRGB = Color.BLACK.getRGB();
-
-            for (int y = 0; y < (mazeHeight + 1); y++) {
-                for (int x = 0; x < (mazeWidth + 1); x++) {
-                    final int captureRGB = shapeImage.getRGB(cellWidth * (x + 1), cellHeight * (y + 1));
-                    crossPoints[y][x] |= blackRGB != captureRGB;
-                }
-            }
-        } catch (final Exception e) {
-            e.printStackTrace();
-        }
-
-        printCrossPoints();
-
-        // Draw the circumference of the shape with horizontal and vertical lines.
-        for (int x = 0; x < mazeWidth; x++) {
-            boolean previousLineOutsideShape = true;
+    public long getRandomSeed() {
+        return randomSeed;
+    }
 
-            for (int y = 1; y < (mazeHeight + 1); y++) {
-                boolean lineOutsideShape = crossPoints[y][x] && crossPoints[y][x + 1];
+    public RandomMode getRandomMode() {
+        return randomMode;
+    }
 
-                if (previousLineOutsideShape && !lineOutsideShape)
-                    horizontalLines[y - 1][x] = true;
-                else if (!previousLineOutsideShape && lineOutsideShape)
-                    horizontalLines[y][x] = true;
+    /**
+     * Get the index of a cell, which is used by the solvers to identify cells. The cell indices are only valid if the
+     * maze has at most <code>Integer.MAX_VALUE</code> cells (see {@link #getCellCount()}).
+     *
+     * @param x the column of the cell.
+     * @param y the row of the cell.
+     * @return the cell index.
+     */
+    public int getCellIndex(final int x, final int y) {
+        return y * mazeWidth + x;
+    }
 
-                previousLineOutsideShape = lineOutsideShape;
-            }
-        }
+    /**
+     * Get the number of cells, which is also the number of cell indices that the solvers and most generators use.
+     *
+     * @return the number of cells.
+     * @throws IllegalArgumentException if the maze has more than <code>Integer.MAX_VALUE</code> cells.
+     */
+    public int getCellCount() {
+        checkCellIndices(mazeWidth, mazeHeight);
 
-        for (int y = 0; y < mazeHeight; y++) {
-            boolean previousLineOutsideShape = true;
+        return mazeHeight * mazeWidth;
+    }
 
-            for (int x = 1; x < (mazeWidth + 1); x++) {
-                boolean lineOutsideShape = crossPoints[y][x] && crossPoints[y + 1][x];
+    /**
+     * Check that the cells of a maze can be identified by an int index. Mazes with more cells (which can be stored
+     * with memory-mapped storage) can be generated with the curly line generator or streamed with the Eller generator,
+     * but they cannot be solved and the other generators do not support them.
+     *
+     * @param mazeWidth  the number of columns of cells.
+     * @param mazeHeight the number of rows of cells.
+     * @throws IllegalArgumentException if the maze has more than <code>Integer.MAX_VALUE</code> cells.
+     */
+    static void checkCellIndices(final int mazeWidth, final int mazeHeight) {
+        final long cellCount = (long) mazeWidth * mazeHeight;
 
-                if (previousLineOutsideShape && !lineOutsideShape)
-                    verticalLines[y][x - 1] = true;
-                else if (!previousLineOutsideShape && lineOutsideShape)
-                    verticalLines[y][x] = true;
+        if (cellCount > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The maze has " + cellCount + " cells (" + mazeWidth + " x "
+                                               + mazeHeight + "), which is more than the maximum of "
+                                               + Integer.MAX_VALUE + " cells that have an index.");
+    }
 
-                previousLineOutsideShape = lineOutsideShape;
-            }
-        }
+    public int getCellX(final int cellIndex) {
+        return cellIndex % mazeWidth;
     }
 
-    public void printCrossPoints() {
-        if (LOG_CROSS_POINTS) {
-            System.out.println();
-            System.out.println("Row count: " + crossPoints.length + "; column count: " + crossPoints[0].length);
-            System.out.println();
-            for (boolean[] crossPointRow : crossPoints) {
-                for (boolean crossPoint : crossPointRow)
-                    System.out.print(crossPoint ? '*' : ' ');
-                System.out.println();
-            }
-            System.out.println();
-            System.out.println();
-        }
+    public int getCellY(final int cellIndex) {
+        return cellIndex / mazeWidth;
     }
 
     /**
-     * Generate a random maze.
+     * Get the directions in which there is no wall between a cell and its neighbour.
+     *
+     * @param cellIndex the index of the cell.
+     * @return a bit mask with bit <code>1 &lt;&lt; direction</code> set for each open direction.
      */
-    public void generateMaze() {
-        if (randomSeed == 0) {
-            randomSeed = System.currentTimeMillis();
+    int getPassages(final int cellIndex) {
+        final int x = getCellX(cellIndex);
+        final int y = getCellY(cellIndex);
+        int passages = 0;
+
+        if (x > 0 && !verticalLines.get(y, x))
+            passages |= 1 << LEFT;
+        if (x < mazeWidth - 1 && !verticalLines.get(y, x + 1))
+            passages |= 1 << RIGHT;
+        if (y > 0 && !horizontalLines.get(y, x))
+            passages |= 1 << UP;
+        if (y < mazeHeight - 1 && !horizontalLines.get(y + 1, x))
+            passages |= 1 << DOWN;
+
+        return passages;
+    }
 
-            System.out.println("Maze.generateMaze - randomSeed: " + randomSeed);
-        }
+    /**
+     * Get the index of the neighbour of a cell.
+     *
+     * @param cellIndex the index of the cell.
+     * @param direction the direction of the neighbour.
+     * @return the index of the neighbour.
+     */
+    int getNeighbour(final int cellIndex, final int direction) {
+        switch (direction) {
+            case LEFT:
+                return cellIndex - 1;
 
-        final Random randomGenerator = new Random(randomSeed);
+            case RIGHT:
+                return cellIndex + 1;
 
-        for (int curlyLineIndex = 0; curlyLineIndex < (mazeHeight * mazeWidth); curlyLineIndex++) {
-            final Point startPointCurlyLine = getStartPointCurlyLine(randomGenerator);
+            case UP:
+                return cellIndex - mazeWidth;
 
-            if (startPointCurlyLine != null)
-                createCurlyLine(randomGenerator, startPointCurlyLine);
+            default:
+                return cellIndex + mazeWidth;
         }
+    }
 
-        fillRemainingHoles(randomGenerator);
+    /**
+     * Create a bit grid for temporary use (like the administration of a solver), using the storage mode of this maze.
+     *
+     * @param rowCount    the number of rows.
+     * @param columnCount the number of columns.
+     * @return the new grid with all bits cleared.
+     */
+    BitGrid createWorkGrid(final int rowCount, final int columnCount) {
+        return createWorkGrid(storageMode, rowCount, columnCount);
     }
 
     /**
-     * Try to find a new starting point for a curly line.
+     * Create a bit grid for temporary use.
      *
-     * @param randomGenerator the random number generator to use.
-     * @return the start point of the curly line or null if the initial point was not empty.
+     * @param storageMode the storage mode for the grid.
+     * @param rowCount    the number of rows.
+     * @param columnCount the number of columns.
+     * @return the new grid with all bits cleared.
      */
-    private Point getStartPointCurlyLine(final Random randomGenerator) {
-        final Point startPoint;
-
-        // Find an empty point to start searching.
-        int x = 1 + randomGenerator.nextInt(mazeWidth - 1);
-        int y = 1 + randomGenerator.nextInt(mazeHeight - 1);
-
-        if (crossPoints[y][x])
-            startPoint = null;
-        else {
-            final int direction = randomGenerator.nextInt(4);
-            int xStep = (direction == LEFT) ? -1 : ((direction == RIGHT) ? 1 : 0);
-            int yStep = (direction == UP) ? -1 : ((direction == DOWN) ? 1 : 0);
-
-            // Find a point to connect to.
-            while (!crossPoints[y][x]) {
-                x += xStep;
-                y += yStep;
+    static BitGrid createWorkGrid(final StorageMode storageMode, final int rowCount, final int columnCount) {
+        if (storageMode == StorageMode.MEMORY_MAPPED) {
+            try (final MappedGridStorage storage = new MappedGridStorage(null)) {
+                return storage.createGrid(rowCount, columnCount);
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Unable to create memory-mapped work storage.", e);
             }
+        } else
+            return new PackedBitGrid(rowCount, columnCount);
+    }
 
-            x -= xStep;
-            y -= yStep;
+    /**
+     * Fill all areas that are not black in the shape, so the maze will be generated in the black areas of the shape.
+     *
+     * @param shapeImage the shape image to determine which areas will be used for maze generation.
+     */
+    public void limitMazeAreaToShape(final BufferedImage shapeImage) {
+        limitMazeAreaToShape(ShapeMask.sample(shapeImage, cellWidth, cellHeight, mazeWidth, mazeHeight));
+    }
 
-            switch (direction) {
-                case LEFT:
-                    horizontalLines[y][x - 1] = true;
-                    break;
+    /**
+     * Fill all cross points outside the shape and draw the circumference of the shape.
+     *
+     * @param shapeMask the shape mask, which must have the same dimensions as this maze.
+     */
+    public void limitMazeAreaToShape(final ShapeMask shapeMask) {
+        if (shapeMask.getMazeWidth() != mazeWidth || shapeMask.getMazeHeight() != mazeHeight
+            || shapeMask.getCellWidth() != cellWidth || shapeMask.getCellHeight() != cellHeight)
+            throw new IllegalArgumentException("The shape mask does not match the dimensions of the maze.");
 
-                case RIGHT:
-                    horizontalLines[y][x] = true;
-                    break;
+        final BitGrid outsidePoints = shapeMask.getOutsidePoints();
+        for (long wordIndex = 0; wordIndex < crossPoints.getWordCount(); wordIndex++)
+            crossPoints.setWord(wordIndex, crossPoints.getWord(wordIndex) | outsidePoints.getWord(wordIndex));
 
-                case UP:
-                    verticalLines[y - 1][x] = true;
-                    break;
+        printCrossPoints();
 
-                case DOWN:
-                    verticalLines[y][x] = true;
-                    break;
-            }
+        // Draw the circumference of the shape with horizontal and vertical lines.
+        new ShapeBorderTracer(mazeWidth).traceBorder(crossPoints, horizontalLines, verticalLines);
+    }
 
-            crossPoints[y][x] = true;
+    /**
+     * Copy the wall layers of a shape template into this maze, which has the same result as limiting the maze to the
+     * shape the template was created for.
+     *
+     * @param shapeTemplate the shape template, which must have the same dimensions as this maze.
+     */
+    public void applyShapeTemplate(final ShapeTemplate shapeTemplate) {
+        if (shapeTemplate.getMazeWidth() != mazeWidth || shapeTemplate.getMazeHeight() != mazeHeight
+            || shapeTemplate.getCellWidth() != cellWidth || shapeTemplate.getCellHeight() != cellHeight)
+            throw new IllegalArgumentException("The shape template does not match the dimensions of the maze.");
+
+        copyWords(shapeTemplate.getCrossPoints(), crossPoints);
+        copyWords(shapeTemplate.getHorizontalLines(), horizontalLines);
+        copyWords(shapeTemplate.getVerticalLines(), verticalLines);
+    }
 
-            startPoint = new Point(x, y);
-        }
+    private static void copyWords(final BitGrid source, final BitGrid target) {
+        for (long wordIndex = 0; wordIndex < source.getWordCount(); wordIndex++)
+            target.setWord(wordIndex, source.getWord(wordIndex));
+    }
 
-        return startPoint;
+    public void printCrossPoints() {
+        if (LOG_CROSS_POINTS) {
+            System.out.println();
+            System.out.println("Row count: " + crossPoints.getRowCount() + "; column count: "
+                               + crossPoints.getColumnCount());
+            System.out.println();
+            for (int y = 0; y < crossPoints.getRowCount(); y++) {
+                for (int x = 0; x < crossPoints.getColumnCount(); x++)
+                    System.out.print(crossPoints.get(y, x) ? '*' : ' ');
+                System.out.println();
+            }
+            System.out.println();
+            System.out.println();
+        }
     }
 
     /**
-     * Create a curly line.
-     *
-     * @param randomGenerator     the random number generator to use.
-     * @param startPointCurlyLine the start point for this curly line.
+     * Generate a random maze with curly lines.
      */
-    private void createCurlyLine(final Random randomGenerator, final Point startPointCurlyLine) {
-        int x = startPointCurlyLine.x;
-        int y = startPointCurlyLine.y;
-
-        boolean leftPossible = x > 0 && !crossPoints[y][x - 1];
-        boolean rightPossible = x < mazeWidth && !crossPoints[y][x + 1];
-        boolean upPossible = y > 0 && !crossPoints[y - 1][x];
-        boolean downPossible = y < mazeHeight && !crossPoints[y + 1][x];
-
-        while (leftPossible || rightPossible || upPossible || downPossible) {
-            final Point nextPoint = addCurlyLineSegment(randomGenerator, x, y, leftPossible, rightPossible, upPossible,
-                                                        downPossible);
-
-            x = nextPoint.x;
-            y = nextPoint.y;
-
-            leftPossible = x > 0 && !crossPoints[y][x - 1];
-            rightPossible = x < mazeWidth && !crossPoints[y][x + 1];
-            upPossible = y > 0 && !crossPoints[y - 1][x];
-            downPossible = y < mazeHeight && !crossPoints[y + 1][x];
-        }
+    public void generateMaze() {
+        generateMaze(new CurlyLineMazeGenerator());
     }
 
     /**
-     * Add a curly line segment.
+     * Generate a random maze with a specific generator.
      *
-     * @param randomGenerator the random number generator to use.
-     * @param x               the current x coordinate: start of this segment.
-     * @param y               the current y coordinate: start of this segment.
-     * @param leftPossible    whether moving left is possible.
-     * @param rightPossible   whether moving right is possible.
-     * @param upPossible      whether moving up is possible.
-     * @param downPossible    whether moving down is possible.
-     * @return the next point in the curly line (end of this segment).
+     * @param generator the generator to use.
+     * @throws IllegalArgumentException if the generator identifies cells by their index and the maze has more than
+     *                                  <code>Integer.MAX_VALUE</code> cells.
      */
-    private Point addCurlyLineSegment(final Random randomGenerator, int x, int y, final boolean leftPossible,
-                                      final boolean rightPossible, final boolean upPossible,
-                                      final boolean downPossible) {
-        switch (getNextDirection(randomGenerator, leftPossible, rightPossible, upPossible, downPossible)) {
-            case LEFT:
-                horizontalLines[y][x - 1] = true;
-                x--;
-                break;
-
-            case RIGHT:
-                horizontalLines[y][x] = true;
-                x++;
-                break;
+    public void generateMaze(final MazeGenerator generator) {
+        initializeRandomSeed();
 
-            case UP:
-                verticalLines[y - 1][x] = true;
-                y--;
-                break;
-
-            case DOWN:
-                verticalLines[y][x] = true;
-                y++;
-                break;
-        }
-
-        crossPoints[y][x] = true;
-
-        return new Point(x, y);
+        generator.generate(this, randomMode.createRandomSource(randomSeed));
     }
 
     /**
-     * Find the direction for the next segment of the curly line.
+     * Generate a random maze in parallel on the common fork-join pool, by generating tiles independently and stitching
+     * them together.
      *
-     * @param randomGenerator the random number generator to use.
-     * @param leftPossible    whether moving left is possible.
-     * @param rightPossible   whether moving right is possible.
-     * @param upPossible      whether moving up is possible.
-     * @param downPossible    whether moving down is possible.
-     * @return the direction.
+     * @param tileSize the tile height in cells; the tile width is rounded up to a multiple of 64 cells.
      */
-    private int getNextDirection(final Random randomGenerator, final boolean leftPossible, final boolean rightPossible,
-                                 final boolean upPossible, final boolean downPossible) {
-        boolean directionFound = false;
-        int direction = -1;
-
-        while (!directionFound) {
-            direction = randomGenerator.nextInt(4);
-
-            switch (direction) {
-                case LEFT:
-                    directionFound = leftPossible;
-                    break;
-
-                case RIGHT:
-                    directionFound = rightPossible;
-                    break;
-
-                case UP:
-                    directionFound = upPossible;
-                    break;
-
-                case DOWN:
-                    directionFound = downPossible;
-                    break;
-            }
-        }
-
-        return direction;
+    public void generateMazeTiled(final int tileSize) {
+        generateMazeTiled(tileSize, ForkJoinPool.commonPool());
     }
 
     /**
-     * Fill the remaining holes in the maze.
+     * Generate a random maze in parallel, by generating tiles independently and stitching them together. The result
+     * only depends on the random seed and the tile size, not on the number of threads in the pool.
      *
-     * @param randomGenerator the random number generator to use.
+     * @param tileSize the tile height in cells; the tile width is rounded up to a multiple of 64 cells.
+     * @param pool     the fork-join pool to generate the tiles in.
+     * @throws IllegalArgumentException if the maze has more than <code>Integer.MAX_VALUE</code> cells.
      */
-    private void fillRemainingHoles(final Random randomGenerator) {
-        for (int y = 1; y < (mazeHeight + 1); y++)
-            for (int x = 1; x < (mazeWidth + 1); x++)
-                if (!crossPoints[y][x]) {
-                    crossPoints[y][x] = true;
-
-                    if (randomGenerator.nextBoolean())
-                        horizontalLines[y][x - 1] = true;
-                    else
-                        verticalLines[y - 1][x] = true;
-                }
-    }
-
-    public boolean solveMazeRecursive(final MazeView mazeView, final Point currentPoint) {
-        if (visitedPoints == null) {
-            visitedPoints = new ArrayList<>();
-            deadEndPoints = new HashSet<>();
+    public void generateMazeTiled(final int tileSize, final ForkJoinPool pool) {
+        initializeRandomSeed();
+
+        new TiledMazeGenerator(this, randomSeed, randomMode, tileSize).generate(pool);
+    }
+
+    private void initializeRandomSeed() {
+        if (randomSeed == 0) {
+            randomSeed = System.currentTimeMillis();
+
+            System.out.println("Maze.generateMaze - randomSeed: " + randomSeed);
         }
+    }
 
-        final int MAXIMUM_STEP_COUNT = 6420;
+    /**
+     * Pass the rows of this maze to a row sink, in the same way as the {@link StreamingMazeGenerator} does, so the
+     * exporters for streamed mazes can write a maze in memory as well.
+     *
+     * @param sink the sink to write the rows to.
+     * @throws IOException if the sink fails to write a row.
+     */
+    public void writeRows(final MazeRowSink sink) throws IOException {
+        final long[] crossPointWords = new long[crossPoints.getWordsPerRow()];
+        final long[] horizontalLineWords = new long[horizontalLines.getWordsPerRow()];
+        final long[] verticalLineWords = new long[verticalLines.getWordsPerRow()];
 
-        final int x = currentPoint.x;
-        final int y = currentPoint.y;
+        sink.startMaze(new MazeParameters(mazeHeight, mazeWidth, cellHeight, cellWidth, startPoint, endPoint,
+                                          randomSeed).withRandomMode(randomMode));
 
-        visitedPoints.add(currentPoint);
+        for (int row = 0; row <= mazeHeight; row++) {
+            crossPoints.getRowWords(row, crossPointWords);
+            horizontalLines.getRowWords(row, horizontalLineWords);
 
-        if (visitedPoints.size() % 50 == 0)
-            mazeView.repaint();
+            if (row < mazeHeight)
+                verticalLines.getRowWords(row, verticalLineWords);
 
-        try {
-            Thread.sleep(1);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
+            sink.writeRow(row, crossPointWords, horizontalLineWords, row < mazeHeight ? verticalLineWords : null);
         }
 
-        if (currentPoint.equals(getEndPoint())) {
-            mazeView.repaint();
-
-            return true;
-        } else if (visitedPoints.size() < MAXIMUM_STEP_COUNT) {
-            boolean leftPossible = !verticalLines[y][x];
-            boolean leftPossibleNew = leftPossible && !visitedPoints.contains(new Point(x - 1, y))
-                                         && !deadEndPoints.contains(new Point(x - 1, y));
-            boolean rightPossible = !verticalLines[y][x + 1];
-            boolean rightPossibleNew = rightPossible && !visitedPoints.contains(new Point(x + 1, y))
-                                          && !deadEndPoints.contains(new Point(x + 1, y));
-            boolean upPossible = !horizontalLines[y][x];
-            boolean upPossibleNew = upPossible && !visitedPoints.contains(new Point(x, y - 1))
-                                         && !deadEndPoints.contains(new Point(x, y - 1));
-            boolean downPossible = !horizontalLines[y + 1][x];
-            boolean downPossibleNew = downPossible && !visitedPoints.contains(new Point(x, y + 1))
-                                         && !deadEndPoints.contains(new Point(x, y + 1));
-
-            if (leftPossibleNew && solveMazeRecursive(mazeView, new Point(x - 1, y)))
-                return true;
-
-            if (rightPossibleNew && solveMazeRecursive(mazeView, new Point(x + 1, y)))
-                return true;
-
-            if (upPossibleNew && solveMazeRecursive(mazeView, new Point(x, y - 1)))
-                return true;
-
-            if (downPossibleNew && solveMazeRecursive(mazeView, new Point(x, y + 1)))
-                return true;
-        }
+        sink.finishMaze();
+    }
 
-        deadEndPoints.add(currentPoint);
+    /**
+     * Solve the maze from the start point to the end point with a depth-first search. The search tries the directions
+     * in the order left, right, up and down and uses an explicit stack, so it works for paths of any length.
+     *
+     * @param listener the listener to notify about the progress (for example to visualize the search) or null.
+     * @return the cell indices of the path from the start point to the end point or null if there is no path.
+     * @throws IllegalStateException    if the maze has no start or end point.
+     * @throws IllegalArgumentException if the start or end point lies outside the maze.
+     */
+    public int[] solveMaze(final MazeSolverListener listener) {
+        return solveMaze(new DepthFirstSolver(), listener);
+    }
+
+    /**
+     * Solve the maze from the start point to the end point with a specific solver.
+     *
+     * @param solver   the solver to use.
+     * @param listener the listener to notify about the progress or null.
+     * @return the cell indices of the path from the start point to the end point or null if there is no path.
+     * @throws IllegalStateException    if the maze has no start or end point.
+     * @throws IllegalArgumentException if the start or end point lies outside the maze or the maze has more than
+     *                                  <code>Integer.MAX_VALUE</code> cells.
+     */
+    public int[] solveMaze(final MazeSolver solver, final MazeSolverListener listener) {
+        checkCellIndices(mazeWidth, mazeHeight);
+        checkSolverPoint(startPoint, "start");
+        checkSolverPoint(endPoint, "end");
+
+        return solver.solve(this, getStartCell(), getEndCell(), listener);
+    }
 
-        // Remove the last visited point.
-        if (visitedPoints.size() > 0)
-            visitedPoints.remove(visitedPoints.size() - 1);
+    private void checkSolverPoint(final Point point, final String name) {
+        if (point == null)
+            throw new IllegalStateException("The maze has no " + name + " point to solve it.");
 
-        return false;
+        if (point.x < 0 || point.x >= mazeWidth || point.y < 0 || point.y >= mazeHeight)
+            throw new IllegalArgumentException("The " + name + " point (" + point.x + "," + point.y
+                                               + ") lies outside the maze of " + mazeWidth + "x" + mazeHeight
+                                               + " cells.");
     }
 }
 
@@ -486,10 +533,10 @@ public class Maze {
 //        stepIndex++;
 //
 //        while (stepIndex < MAXIMUM_STEP_COUNT) {
-//            boolean leftPossible = !verticalLines[y][x];
-//            boolean rightPossible = !verticalLines[y][x + 1];
-//            boolean upPossible = !horizontalLines[y][x];
-//            boolean downPossible = !horizontalLines[y + 1][x];
+//            boolean leftPossible = !verticalLines.get(y, x);
+//            boolean rightPossible = !verticalLines.get(y, x + 1);
+//            boolean upPossible = !horizontalLines.get(y, x);
+//            boolean downPossible = !horizontalLines.get(y + 1, x);
 //
 //            switch (getNextDirection(randomGenerator, leftPossible, rightPossible, upPossible, downPossible)) {
 //                case LEFT:
@@ -0,0 +1,55 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * The algorithms that can be used for maze generation.
+ */
+public enum MazeAlgorithm {
+    /**
+     * Grow curly walls from random empty cross points (the original algorithm).
+     */
+    CURLY_LINE,
+
+    /**
+     * Carve passages with a randomized depth-first search.
+     */
+    RECURSIVE_BACKTRACKER,
+
+    /**
+     * Remove walls in a random order when they separate cells that are not connected yet.
+     */
+    KRUSKAL,
+
+    /**
+     * Add loop-erased random walks to a tree, which gives a uniform spanning tree.
+     */
+    WILSON,
+
+    /**
+     * Generate the maze one row at a time.
+     */
+    ELLER;
+
+    /**
+     * Create a generator for this algorithm.
+     *
+     * @return the new generator.
+     */
+    public MazeGenerator createGenerator() {
+        switch (this) {
+            case RECURSIVE_BACKTRACKER:
+                return new RecursiveBacktrackerMazeGenerator();
+
+            case KRUSKAL:
+                return new KruskalMazeGenerator();
+
+            case WILSON:
+                return new WilsonMazeGenerator();
+
+            case ELLER:
+                return new EllerMazeGenerator();
+
+            default:
+                return new CurlyLineMazeGenerator();
+        }
+    }
+}
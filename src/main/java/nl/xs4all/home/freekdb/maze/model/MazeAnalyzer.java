@@ -0,0 +1,257 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Row sink that determines the quality statistics of a maze (see {@link MazeStatistics}) in a single pass over its
+ * rows, so it works for mazes in memory (with {@link #analyze(Maze, ShapeRowSource)}) as well as for mazes that are
+ * generated row by row by the {@link StreamingMazeGenerator}. The passages of a row of cells are determined 64 cells
+ * at a time from the wall words, and the degree of every cell is counted with bitwise addition of the four passage
+ * masks; only a few arrays with one bit (or, for the running vertical straight runs, one int) per column are used.
+ * <p>
+ * Since a generated maze has all its cross points filled, the cells outside the shape are determined from the shape
+ * itself (see {@link InsideCellRows}).
+ */
+public class MazeAnalyzer implements MazeRowSink {
+    private final ShapeRowSource shapeRowSource;
+
+    private int mazeWidth;
+    private int mazeHeight;
+
+    private InsideCellRows insideCellRows;
+
+    private long[] insideAbove;
+    private long[] inside;
+    private long[] insideBelow;
+
+    /**
+     * The horizontal lines above and the vertical lines in the row of cells that is analyzed next.
+     */
+    private long[] topLines;
+    private long[] sideLines;
+
+    /**
+     * The columns with a vertical straight run that continues downwards, and the row in which each of them started.
+     */
+    private long[] runningVerticalRuns;
+    private int[] verticalRunStarts;
+
+    private long cellCount;
+    private long passageCount;
+    private final long[] degreeCounts = new long[5];
+    private long turnCount;
+    private final long[] straightRunCounts = new long[MazeStatistics.MAXIMUM_STRAIGHT_RUN_LENGTH + 1];
+    private int longestStraightRun;
+
+    /**
+     * Create a maze analyzer.
+     *
+     * @param shapeRowSource the shape of the mazes or null for rectangular mazes.
+     */
+    public MazeAnalyzer(final ShapeRowSource shapeRowSource) {
+        this.shapeRowSource = shapeRowSource;
+    }
+
+    /**
+     * Analyze a maze in memory, including the length of the solution (which is determined with the
+     * {@link BreadthFirstSolver}).
+     *
+     * @param maze           the maze to analyze.
+     * @param shapeRowSource the shape of the maze or null for a rectangular maze.
+     * @return the statistics of the maze.
+     */
+    public static MazeStatistics analyze(final Maze maze, final ShapeRowSource shapeRowSource) {
+        final MazeAnalyzer analyzer = new MazeAnalyzer(shapeRowSource);
+
+        try {
+            maze.writeRows(analyzer);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("The maze analyzer does not write anything.", e);
+        }
+
+        final int[] solution = maze.getStartCell() != -1 && maze.getEndCell() != -1
+                               ? maze.solveMaze(new BreadthFirstSolver(), null)
+                               : null;
+
+        return analyzer.getStatistics().withSolutionLength(solution != null ? solution.length : -1);
+    }
+
+    /**
+     * Get the statistics of the last maze that was analyzed. The solution length is not determined by the row sink.
+     *
+     * @return the statistics.
+     */
+    public MazeStatistics getStatistics() {
+        return new MazeStatistics(cellCount, passageCount, degreeCounts, turnCount, straightRunCounts,
+                                  longestStraightRun, -1);
+    }
+
+    @Override
+    public void startMaze(final MazeParameters mazeParameters) {
+        this.mazeWidth = mazeParameters.getMazeWidth();
+        this.mazeHeight = mazeParameters.getMazeHeight();
+
+        final int cellWordCount = BitGrid.getWordsPerRow(mazeWidth);
+        this.insideCellRows = new InsideCellRows(shapeRowSource, mazeWidth, mazeHeight);
+        this.insideAbove = new long[cellWordCount];
+        this.inside = new long[cellWordCount];
+        this.insideBelow = new long[cellWordCount];
+        this.topLines = new long[cellWordCount];
+        this.sideLines = new long[BitGrid.getWordsPerRow(mazeWidth + 1)];
+        this.runningVerticalRuns = new long[cellWordCount];
+        this.verticalRunStarts = new int[mazeWidth];
+
+        cellCount = 0;
+        passageCount = 0;
+        Arrays.fill(degreeCounts, 0);
+        turnCount = 0;
+        Arrays.fill(straightRunCounts, 0);
+        longestStraightRun = 0;
+
+        insideCellRows.getNextRow(inside);
+    }
+
+    @Override
+    public void writeRow(final int row, final long[] crossPoints, final long[] horizontalLines,
+                         final long[] verticalLines) {
+        // The cells of the previous row are complete now that the lines below them are known.
+        if (row > 0)
+            analyzeCellRow(row - 1, horizontalLines);
+
+        if (verticalLines != null) {
+            System.arraycopy(horizontalLines, 0, topLines, 0, topLines.length);
+            System.arraycopy(verticalLines, 0, sideLines, 0, sideLines.length);
+        }
+    }
+
+    @Override
+    public void finishMaze() {
+        insideCellRows = null;
+        insideAbove = null;
+        inside = null;
+        insideBelow = null;
+        topLines = null;
+        sideLines = null;
+        runningVerticalRuns = null;
+        verticalRunStarts = null;
+    }
+
+    /**
+     * Analyze a row of cells.
+     *
+     * @param y           the row of cells.
+     * @param bottomLines the horizontal lines below the row.
+     */
+    private void analyzeCellRow(final int y, final long[] bottomLines) {
+        insideCellRows.getNextRow(insideBelow);
+
+        int horizontalRunLength = 0;
+
+        for (int wordOffset = 0; wordOffset < inside.length; wordOffset++) {
+            final long cells = inside[wordOffset];
+            final boolean hasNextWord = wordOffset + 1 < inside.length;
+            final long insideLeft = (cells << 1) | (wordOffset > 0 ? inside[wordOffset - 1] >>> 63 : 0);
+            final long insideRight = (cells >>> 1) | (hasNextWord ? inside[wordOffset + 1] << 63 : 0);
+            final long linesRight = (sideLines[wordOffset] >>> 1)
+                                    | (wordOffset + 1 < sideLines.length ? sideLines[wordOffset + 1] << 63 : 0);
+
+            final long left = cells & insideLeft & ~sideLines[wordOffset];
+            final long right = cells & insideRight & ~linesRight;
+            final long up = cells & insideAbove[wordOffset] & ~topLines[wordOffset];
+            final long down = cells & insideBelow[wordOffset] & ~bottomLines[wordOffset];
+
+            countDegrees(cells, left, right, up, down);
+            passageCount += Long.bitCount(right) + Long.bitCount(down);
+
+            horizontalRunLength = countHorizontalRuns(right, horizontalRunLength);
+            countVerticalRuns(wordOffset, down, y);
+        }
+
+        if (horizontalRunLength > 0)
+            addStraightRun(horizontalRunLength);
+
+        final long[] previousInside = insideAbove;
+        insideAbove = inside;
+        inside = insideBelow;
+        insideBelow = previousInside;
+    }
+
+    /**
+     * Count the degrees of 64 cells by adding the four passage masks bitwise.
+     */
+    private void countDegrees(final long cells, final long left, final long right, final long up, final long down) {
+        final long leftRightSum = left ^ right;
+        final long leftRightCarry = left & right;
+        final long upDownSum = up ^ down;
+        final long upDownCarry = up & down;
+
+        final long bit0 = leftRightSum ^ upDownSum;
+        final long carry = leftRightSum & upDownSum;
+        final long bit1 = leftRightCarry ^ upDownCarry ^ carry;
+        final long bit2 = leftRightCarry & upDownCarry;
+
+        final long degree2 = cells & ~bit2 & bit1 & ~bit0;
+
+        cellCount += Long.bitCount(cells);
+        degreeCounts[0] += Long.bitCount(cells & ~bit2 & ~bit1 & ~bit0);
+        degreeCounts[1] += Long.bitCount(cells & ~bit2 & ~bit1 & bit0);
+        degreeCounts[2] += Long.bitCount(degree2);
+        degreeCounts[3] += Long.bitCount(cells & ~bit2 & bit1 & bit0);
+        degreeCounts[4] += Long.bitCount(bit2);
+        turnCount += Long.bitCount(degree2 & ~leftRightCarry & ~upDownCarry);
+    }
+
+    /**
+     * Count the horizontal straight runs in a word of passages to the right.
+     *
+     * @param right     the cells with a passage to the right.
+     * @param runLength the length of the run that continues from the previous word.
+     * @return the length of the run that continues in the next word.
+     */
+    private int countHorizontalRuns(final long right, final int runLength) {
+        int continuingRunLength = runLength;
+
+        if (continuingRunLength > 0 && (right & 1) == 0) {
+            addStraightRun(continuingRunLength);
+            continuingRunLength = 0;
+        }
+
+        for (long word = right; word != 0; ) {
+            final int runStart = Long.numberOfTrailingZeros(word);
+            final int runEnd = runStart + Long.numberOfTrailingZeros(~(word >>> runStart));
+            final int length = runEnd - runStart + (runStart == 0 ? continuingRunLength : 0);
+
+            continuingRunLength = 0;
+            if (runEnd < 64) {
+                addStraightRun(length);
+                word &= -1L << runEnd;
+            } else {
+                continuingRunLength = length;
+                word = 0;
+            }
+        }
+
+        return continuingRunLength;
+    }
+
+    /**
+     * Count the vertical straight runs that end in a word of a row, and start the runs that begin in it.
+     */
+    private void countVerticalRuns(final int wordOffset, final long down, final int y) {
+        for (long endedRuns = runningVerticalRuns[wordOffset] & ~down; endedRuns != 0; endedRuns &= endedRuns - 1)
+            addStraightRun(y - verticalRunStarts[(wordOffset << 6) + Long.numberOfTrailingZeros(endedRuns)]);
+
+        for (long startedRuns = down & ~runningVerticalRuns[wordOffset]; startedRuns != 0;
+             startedRuns &= startedRuns - 1)
+            verticalRunStarts[(wordOffset << 6) + Long.numberOfTrailingZeros(startedRuns)] = y;
+
+        runningVerticalRuns[wordOffset] = down;
+    }
+
+    private void addStraightRun(final int length) {
+        straightRunCounts[Math.min(length, MazeStatistics.MAXIMUM_STRAIGHT_RUN_LENGTH)]++;
+        longestStraightRun = Math.max(longestStraightRun, length);
+    }
+}
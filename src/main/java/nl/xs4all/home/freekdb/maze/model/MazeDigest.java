@@ -0,0 +1,97 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Row sink that computes a 64-bit digest of the wall layers of a maze (the cross points, the horizontal lines and the
+ * vertical lines), for checking that an optimized generator or another storage mode produces exactly the same maze.
+ * The digest is streamed over the row words, so it works for mazes in memory (with {@link #digest(Maze)}) as well as
+ * for mazes that are generated row by row by the {@link StreamingMazeGenerator}. Each word is mixed in with the round
+ * of xxHash64 and the result gets its final avalanche; the bits beyond the last column of a row are ignored, so the
+ * digest only depends on the walls and the dimensions.
+ * <p>
+ * The digest is not cryptographic: it detects accidental differences, not deliberate ones.
+ */
+public class MazeDigest implements MazeRowSink {
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+
+    private int mazeWidth;
+    private long hash;
+
+    /**
+     * Compute the digest of a maze in memory.
+     *
+     * @param maze the maze.
+     * @return the digest as 16 hexadecimal digits.
+     */
+    public static String digest(final Maze maze) {
+        final MazeDigest mazeDigest = new MazeDigest();
+
+        try {
+            maze.writeRows(mazeDigest);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("The maze digest does not write anything.", e);
+        }
+
+        return mazeDigest.getDigest();
+    }
+
+    /**
+     * Get the digest of the last maze.
+     *
+     * @return the digest as 16 hexadecimal digits.
+     */
+    public String getDigest() {
+        long result = hash;
+
+        result ^= result >>> 33;
+        result *= PRIME_2;
+        result ^= result >>> 29;
+        result *= PRIME_3;
+        result ^= result >>> 32;
+
+        return String.format("%016x", result);
+    }
+
+    @Override
+    public void startMaze(final MazeParameters mazeParameters) {
+        mazeWidth = mazeParameters.getMazeWidth();
+        hash = PRIME_3;
+
+        mix(mazeParameters.getMazeWidth());
+        mix(mazeParameters.getMazeHeight());
+    }
+
+    @Override
+    public void writeRow(final int row, final long[] crossPoints, final long[] horizontalLines,
+                         final long[] verticalLines) {
+        mixRow(crossPoints, mazeWidth + 1);
+        mixRow(horizontalLines, mazeWidth);
+
+        if (verticalLines != null)
+            mixRow(verticalLines, mazeWidth + 1);
+    }
+
+    @Override
+    public void finishMaze() {
+        // The digest is available until the next maze is started.
+    }
+
+    private void mixRow(final long[] words, final int columnCount) {
+        final int wordCount = BitGrid.getWordsPerRow(columnCount);
+        final int lastWordBitCount = columnCount - (wordCount - 1) * BitGrid.BITS_PER_WORD;
+
+        for (int wordOffset = 0; wordOffset < wordCount - 1; wordOffset++)
+            mix(words[wordOffset]);
+
+        if (wordCount > 0)
+            mix(words[wordCount - 1] & (-1L >>> (BitGrid.BITS_PER_WORD - lastWordBitCount)));
+    }
+
+    private void mix(final long word) {
+        hash = Long.rotateLeft(hash + word * PRIME_2, 31) * PRIME_1;
+    }
+}
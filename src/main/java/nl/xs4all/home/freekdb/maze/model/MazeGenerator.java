@@ -0,0 +1,19 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Strategy for generating the walls of a maze. A generator works on the wall layers of the maze (see
+ * {@link Maze#getCrossPointGrid()}, {@link Maze#getHorizontalLineGrid()} and {@link Maze#getVerticalLineGrid()}),
+ * whose outer border and the parts outside the maze shape have already been filled. Afterwards all cross points are
+ * filled.
+ * <p>
+ * Generators may keep state while they run, so an instance should not be used by multiple threads at the same time.
+ */
+public interface MazeGenerator {
+    /**
+     * Generate the walls of a maze.
+     *
+     * @param maze            the maze to generate the walls for.
+     * @param randomGenerator the random number generator to use.
+     */
+    void generate(Maze maze, RandomSource randomGenerator);
+}
@@ -2,18 +2,14 @@ package nl.xs4all.home.freekdb.maze.model;
 
 import java.awt.Image;
 import java.awt.Point;
-import java.util.HashMap;
-import java.util.Map;
-
-import javax.swing.ImageIcon;
+import java.io.File;
+import java.io.IOException;
 
 /**
  * Class with all parameters to generate a maze.
  */
 public class MazeParameters {
-    private static final Map<String, MazeParameters> PRECONFIGURED_PARAMETERS = getPreconfiguredParametersMap();
-
-    private final Image shapeImage;
+    private final LazyShapeImage shapeImage;
     private final int cellHeight;
     private final int cellWidth;
     private final int mazeHeight;
@@ -21,21 +17,124 @@ public class MazeParameters {
     private final Point startPoint;
     private final Point endPoint;
     private final long randomSeed;
-
+    private final RandomMode randomMode;
+    private final StorageMode storageMode;
+    private final File storageFile;
+
+    /**
+     * Create maze parameters for a shape image. Only the header of the image is read here; the image itself is read
+     * (with its own raster format, see {@link ShapeMask#readImage(File)}) when it is requested for the first time.
+     *
+     * @param imagePath  the path of the shape image.
+     * @param cellHeight the height of a cell in pixels.
+     * @param cellWidth  the width of a cell in pixels.
+     * @param startPoint the start point (cell coordinates) or null.
+     * @param endPoint   the end point (cell coordinates) or null.
+     * @param randomSeed the random seed (0 to use the current time).
+     * @throws IllegalArgumentException if the shape image cannot be read.
+     */
     public MazeParameters(final String imagePath, final int cellHeight, final int cellWidth, final Point startPoint,
                           final Point endPoint, final long randomSeed) {
-        this.shapeImage = new ImageIcon(imagePath).getImage();
+        this.shapeImage = openShapeImage(imagePath);
+        this.cellHeight = cellHeight;
+        this.cellWidth = cellWidth;
+        this.mazeHeight = getMazeSize(this.shapeImage.getHeight(), cellHeight);
+        this.mazeWidth = getMazeSize(this.shapeImage.getWidth(), cellWidth);
+        this.startPoint = startPoint;
+        this.endPoint = endPoint;
+        this.randomSeed = randomSeed;
+        this.randomMode = RandomMode.LEGACY;
+        this.storageMode = StorageMode.HEAP;
+        this.storageFile = null;
+    }
+
+    /**
+     * Create maze parameters with explicit dimensions and without a shape image.
+     *
+     * @param mazeHeight the number of rows of cells.
+     * @param mazeWidth  the number of columns of cells.
+     * @param cellHeight the height of a cell in pixels.
+     * @param cellWidth  the width of a cell in pixels.
+     * @param startPoint the start point (cell coordinates) or null.
+     * @param endPoint   the end point (cell coordinates) or null.
+     * @param randomSeed the random seed (0 to use the current time).
+     */
+    public MazeParameters(final int mazeHeight, final int mazeWidth, final int cellHeight, final int cellWidth,
+                          final Point startPoint, final Point endPoint, final long randomSeed) {
+        this(null, cellHeight, cellWidth, mazeHeight, mazeWidth, startPoint, endPoint, randomSeed, RandomMode.LEGACY,
+             StorageMode.HEAP, null);
+    }
+
+    private MazeParameters(final LazyShapeImage shapeImage, final int cellHeight, final int cellWidth, final int mazeHeight,
+                           final int mazeWidth, final Point startPoint, final Point endPoint, final long randomSeed,
+                           final RandomMode randomMode, final StorageMode storageMode, final File storageFile) {
+        this.shapeImage = shapeImage;
         this.cellHeight = cellHeight;
         this.cellWidth = cellWidth;
-        this.mazeHeight = (this.shapeImage.getHeight(null) - 6) / cellHeight;
-        this.mazeWidth = (this.shapeImage.getWidth(null) - 6) / cellWidth;
+        this.mazeHeight = mazeHeight;
+        this.mazeWidth = mazeWidth;
         this.startPoint = startPoint;
         this.endPoint = endPoint;
         this.randomSeed = randomSeed;
+        this.randomMode = randomMode;
+        this.storageMode = storageMode;
+        this.storageFile = storageFile;
     }
 
+    /**
+     * Create a copy of these parameters with a different storage mode for the maze layers.
+     *
+     * @param storageMode the storage mode.
+     * @param storageFile the file to use for memory-mapped storage or null to use a temporary file.
+     * @return the new maze parameters.
+     */
+    public MazeParameters withStorage(final StorageMode storageMode, final File storageFile) {
+        return new MazeParameters(shapeImage, cellHeight, cellWidth, mazeHeight, mazeWidth, startPoint, endPoint,
+                                  randomSeed, randomMode, storageMode, storageFile);
+    }
+
+    /**
+     * Create a copy of these parameters with a different random seed.
+     *
+     * @param randomSeed the random seed (0 to use the current time).
+     * @return the new maze parameters.
+     */
+    public MazeParameters withRandomSeed(final long randomSeed) {
+        return new MazeParameters(shapeImage, cellHeight, cellWidth, mazeHeight, mazeWidth, startPoint, endPoint,
+                                  randomSeed, randomMode, storageMode, storageFile);
+    }
+
+    /**
+     * Create a copy of these parameters with a different start point and end point.
+     *
+     * @param startPoint the start point (cell coordinates) or null.
+     * @param endPoint   the end point (cell coordinates) or null.
+     * @return the new maze parameters.
+     */
+    public MazeParameters withStartAndEndPoint(final Point startPoint, final Point endPoint) {
+        return new MazeParameters(shapeImage, cellHeight, cellWidth, mazeHeight, mazeWidth, startPoint, endPoint,
+                                  randomSeed, randomMode, storageMode, storageFile);
+    }
+
+    /**
+     * Create a copy of these parameters with a different random number generator for maze generation.
+     *
+     * @param randomMode the random mode.
+     * @return the new maze parameters.
+     */
+    public MazeParameters withRandomMode(final RandomMode randomMode) {
+        return new MazeParameters(shapeImage, cellHeight, cellWidth, mazeHeight, mazeWidth, startPoint, endPoint,
+                                  randomSeed, randomMode, storageMode, storageFile);
+    }
+
+    /**
+     * Get the shape image, which is read the first time it is requested.
+     *
+     * @return the shape image or null if these parameters have no shape.
+     * @throws java.io.UncheckedIOException if the shape image cannot be read.
+     */
     public Image getShapeImage() {
-        return shapeImage;
+        return shapeImage != null ? shapeImage.getImage() : null;
     }
 
     public int getCellHeight() {
@@ -66,21 +165,44 @@ public class MazeParameters {
         return randomSeed;
     }
 
-    private static Map<String, MazeParameters> getPreconfiguredParametersMap() {
-        final Map<String, MazeParameters> map = new HashMap<>();
+    public RandomMode getRandomMode() {
+        return randomMode;
+    }
+
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
 
-        add(map, "Test", "etc/unit-test.png", 2, 2, new Point(6, 18), new Point(230, 45), 654321);
+    public File getStorageFile() {
+        return storageFile;
+    }
 
-        return map;
+    /**
+     * Get the number of cells that fit in a shape image in one direction.
+     *
+     * @param imageSize the width or height of the shape image in pixels.
+     * @param cellSize  the width or height of a cell in pixels.
+     * @return the number of cells.
+     */
+    static int getMazeSize(final int imageSize, final int cellSize) {
+        return (imageSize - 6) / cellSize;
     }
 
-    private static void add(final Map<String, MazeParameters> parametersMap, final String key, final String imagePath,
-                            final int cellHeight, final int cellWidth, final Point startPoint, final Point endPoint,
-                            final int randomSeed) {
-        parametersMap.put(key, new MazeParameters(imagePath, cellHeight, cellWidth, startPoint, endPoint, randomSeed));
+    private static LazyShapeImage openShapeImage(final String imagePath) {
+        try {
+            return LazyShapeImage.open(new File(imagePath));
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Unable to read shape image " + imagePath + ".", e);
+        }
     }
 
+    /**
+     * Get preconfigured parameters from the default preset registry.
+     *
+     * @param key the name of the preset.
+     * @return the parameters or null if there is no preset with this name.
+     */
     public static MazeParameters getPreconfiguredParameters(final String key) {
-        return PRECONFIGURED_PARAMETERS.get(key);
+        return PresetRegistry.getDefault().getParameters(key);
     }
 }
@@ -0,0 +1,39 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.io.IOException;
+
+/**
+ * Receives the rows of a maze while it is generated by the {@link StreamingMazeGenerator}, so the maze can be written
+ * out without keeping it in memory. The words of a row use the layout of a {@link BitGrid} row: bit
+ * <code>x % 64</code> of word <code>x / 64</code> holds column x.
+ */
+public interface MazeRowSink {
+    /**
+     * Start a new maze.
+     *
+     * @param mazeParameters the parameters of the maze, with the random seed that is actually used.
+     * @throws IOException if writing fails.
+     */
+    void startMaze(MazeParameters mazeParameters) throws IOException;
+
+    /**
+     * Receive the next row of the maze. The rows are passed in increasing order, from zero to the maze height
+     * (inclusive); the last row is the bottom border, which has no vertical lines. The arrays are reused for the next
+     * row, so a sink that needs them later should copy them.
+     *
+     * @param row             the row, which is the row of the cross points and horizontal lines above the cells of
+     *                        this row.
+     * @param crossPoints     the cross points in this row.
+     * @param horizontalLines the horizontal lines in this row.
+     * @param verticalLines   the vertical lines between the cells in this row or null for the last row.
+     * @throws IOException if writing fails.
+     */
+    void writeRow(int row, long[] crossPoints, long[] horizontalLines, long[] verticalLines) throws IOException;
+
+    /**
+     * Finish the maze after the last row.
+     *
+     * @throws IOException if writing fails.
+     */
+    void finishMaze() throws IOException;
+}
@@ -0,0 +1,18 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Strategy for finding a path through a maze. Solvers only look at the horizontal and vertical lines of the maze and
+ * identify cells by their cell index (see {@link Maze#getCellIndex(int, int)}).
+ */
+public interface MazeSolver {
+    /**
+     * Find a path between two cells.
+     *
+     * @param maze      the maze to solve.
+     * @param startCell the index of the start cell.
+     * @param endCell   the index of the end cell.
+     * @param listener  the listener to notify about the progress or null.
+     * @return the cell indices of the path from the start cell to the end cell or null if there is no path.
+     */
+    int[] solve(Maze maze, int startCell, int endCell, MazeSolverListener listener);
+}
@@ -0,0 +1,22 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Listener that is notified about the progress of a maze solver, for example to visualize the search. Cells are
+ * identified by their cell index (see {@link Maze#getCellIndex(int, int)}).
+ */
+public interface MazeSolverListener {
+    /**
+     * A cell has been added to the end of the current path.
+     *
+     * @param cellIndex the index of the cell.
+     */
+    void cellEntered(int cellIndex);
+
+    /**
+     * A cell turned out to be a dead end. For solvers that build a path, the cell has been removed from the end of the
+     * current path.
+     *
+     * @param cellIndex the index of the cell.
+     */
+    void cellLeft(int cellIndex);
+}
@@ -0,0 +1,167 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.util.Locale;
+
+/**
+ * Quality statistics of a maze, as determined by the {@link MazeAnalyzer}. Only the cells inside the shape are counted.
+ * The degree of a cell is the number of passages to its neighbours: a cell with degree one is a dead end and a cell
+ * with degree three or four is a junction. A straight run is a maximal sequence of passages in the same direction
+ * (horizontal or vertical); its length is the number of passages.
+ */
+public class MazeStatistics {
+    /**
+     * Straight runs of this length or longer are counted together in the histogram.
+     */
+    public static final int MAXIMUM_STRAIGHT_RUN_LENGTH = 64;
+
+    private final long cellCount;
+    private final long passageCount;
+    private final long[] degreeCounts;
+    private final long turnCount;
+    private final long[] straightRunCounts;
+    private final int longestStraightRun;
+    private final int solutionLength;
+
+    /**
+     * Create maze statistics.
+     *
+     * @param cellCount          the number of cells inside the shape.
+     * @param passageCount       the number of passages between cells.
+     * @param degreeCounts       the number of cells for each degree (zero to four).
+     * @param turnCount          the number of cells with degree two in which the path turns.
+     * @param straightRunCounts  the number of straight runs for each length (see
+     *                           {@link #getStraightRunCount(int)}).
+     * @param longestStraightRun the length of the longest straight run.
+     * @param solutionLength     the number of cells on the path from the start point to the end point or -1.
+     */
+    MazeStatistics(final long cellCount, final long passageCount, final long[] degreeCounts, final long turnCount,
+                   final long[] straightRunCounts, final int longestStraightRun, final int solutionLength) {
+        this.cellCount = cellCount;
+        this.passageCount = passageCount;
+        this.degreeCounts = degreeCounts.clone();
+        this.turnCount = turnCount;
+        this.straightRunCounts = straightRunCounts.clone();
+        this.longestStraightRun = longestStraightRun;
+        this.solutionLength = solutionLength;
+    }
+
+    /**
+     * Create a copy of these statistics with a solution length.
+     *
+     * @param solutionLength the number of cells on the path from the start point to the end point or -1.
+     * @return the new statistics.
+     */
+    MazeStatistics withSolutionLength(final int solutionLength) {
+        return new MazeStatistics(cellCount, passageCount, degreeCounts, turnCount, straightRunCounts,
+                                  longestStraightRun, solutionLength);
+    }
+
+    public long getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Get the number of passages between cells. For a perfect maze with a single part this is the cell count minus
+     * one.
+     *
+     * @return the number of passages.
+     */
+    public long getPassageCount() {
+        return passageCount;
+    }
+
+    /**
+     * Get the number of cells with a specific degree.
+     *
+     * @param degree the degree (zero to four).
+     * @return the number of cells with the degree.
+     */
+    public long getDegreeCount(final int degree) {
+        return degreeCounts[degree];
+    }
+
+    public long getDeadEndCount() {
+        return degreeCounts[1];
+    }
+
+    public long getJunctionCount() {
+        return degreeCounts[3] + degreeCounts[4];
+    }
+
+    /**
+     * Get the number of cells with degree two in which the path turns (the other cells with degree two are straight).
+     *
+     * @return the number of turns.
+     */
+    public long getTurnCount() {
+        return turnCount;
+    }
+
+    /**
+     * Get the share of the cells that are dead ends.
+     *
+     * @return the dead end ratio (between zero and one).
+     */
+    public double getDeadEndRatio() {
+        return cellCount > 0 ? (double) getDeadEndCount() / cellCount : 0;
+    }
+
+    /**
+     * Get the river factor: the share of the cells in a passage without branches (degree two). A maze with a high
+     * river factor has long winding passages and few dead ends; a maze with a low river factor has many short dead
+     * ends.
+     *
+     * @return the river factor (between zero and one).
+     */
+    public double getRiverFactor() {
+        return cellCount > 0 ? (double) degreeCounts[2] / cellCount : 0;
+    }
+
+    /**
+     * Get the number of straight runs with a specific length.
+     *
+     * @param length the length in passages (one to {@link #MAXIMUM_STRAIGHT_RUN_LENGTH}, which includes all longer
+     *               runs).
+     * @return the number of straight runs with the length.
+     */
+    public long getStraightRunCount(final int length) {
+        return straightRunCounts[length];
+    }
+
+    public int getLongestStraightRun() {
+        return longestStraightRun;
+    }
+
+    /**
+     * Get the average length of the straight runs.
+     *
+     * @return the average length in passages.
+     */
+    public double getAverageStraightRun() {
+        long runCount = 0;
+        for (final long count : straightRunCounts)
+            runCount += count;
+
+        // Every passage is part of exactly one horizontal or vertical straight run.
+        return runCount > 0 ? (double) passageCount / runCount : 0;
+    }
+
+    /**
+     * Get the length of the solution.
+     *
+     * @return the number of cells on the path from the start point to the end point, or -1 if there is no path or if
+     * it was not determined.
+     */
+    public int getSolutionLength() {
+        return solutionLength;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d cells, %d dead ends (%.1f%%), %d junctions, %d turns, "
+                                          + "river factor %.3f, straight runs %.2f on average (longest %d), "
+                                          + "solution length %d",
+                             cellCount, getDeadEndCount(), 100 * getDeadEndRatio(), getJunctionCount(), turnCount,
+                             getRiverFactor(), getAverageStraightRun(), longestStraightRun, solutionLength);
+    }
+}
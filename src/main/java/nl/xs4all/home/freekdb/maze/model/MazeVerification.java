@@ -0,0 +1,96 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.util.Locale;
+
+/**
+ * The result of verifying a maze with the {@link MazeVerifier}: the number of connected components of the cells inside
+ * the shape, the number of cycles (independent loops) and whether the start point and the end point are connected. A
+ * perfect maze has one component and no cycles; a shape that consists of several separate parts has a component for
+ * each part.
+ */
+public class MazeVerification {
+    private final long cellCount;
+    private final long passageCount;
+    private final long componentCount;
+    private final long cycleCount;
+    private final boolean startConnectedToEnd;
+    private final boolean complete;
+
+    /**
+     * Create a maze verification.
+     *
+     * @param cellCount           the number of cells inside the shape that were verified.
+     * @param passageCount        the number of passages between these cells.
+     * @param componentCount      the number of connected components.
+     * @param cycleCount          the number of cycles.
+     * @param startConnectedToEnd whether the start point and the end point are connected.
+     * @param complete            whether the complete maze was verified (the fail-fast mode stops at the first
+     *                            defect).
+     */
+    MazeVerification(final long cellCount, final long passageCount, final long componentCount, final long cycleCount,
+                     final boolean startConnectedToEnd, final boolean complete) {
+        this.cellCount = cellCount;
+        this.passageCount = passageCount;
+        this.componentCount = componentCount;
+        this.cycleCount = cycleCount;
+        this.startConnectedToEnd = startConnectedToEnd;
+        this.complete = complete;
+    }
+
+    public long getCellCount() {
+        return cellCount;
+    }
+
+    public long getPassageCount() {
+        return passageCount;
+    }
+
+    /**
+     * Get the number of connected components. When the verification is not complete, this is the number of components
+     * that were found so far.
+     *
+     * @return the number of components.
+     */
+    public long getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * Get the number of cycles: the number of passages that connect cells which were already connected.
+     *
+     * @return the number of cycles.
+     */
+    public long getCycleCount() {
+        return cycleCount;
+    }
+
+    /**
+     * Determine whether there is a path between the start point and the end point.
+     *
+     * @return whether the start point and the end point are connected (false if the maze has no start or end point).
+     */
+    public boolean isStartConnectedToEnd() {
+        return startConnectedToEnd;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Determine whether the maze is perfect: there is exactly one path between every two cells.
+     *
+     * @return whether the maze is perfect.
+     */
+    public boolean isPerfect() {
+        return complete && componentCount == 1 && cycleCount == 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d cells, %d passages, %d components, %d cycles, start %s end%s",
+                             cellCount, passageCount, componentCount, cycleCount,
+                             startConnectedToEnd ? "connected to" : "not connected to",
+                             complete ? "" : " (stopped at the first defect)");
+    }
+}
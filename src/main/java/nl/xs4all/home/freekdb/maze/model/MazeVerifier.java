@@ -0,0 +1,323 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * Row sink that verifies that a maze is perfect (see {@link MazeVerification}), for mazes in memory (with
+ * {@link #verify(Maze, ShapeRowSource, boolean)}) as well as for mazes that are generated row by row by the
+ * {@link StreamingMazeGenerator}. The cells inside the shape are joined through their passages with a union-find
+ * structure in primitive arrays that only holds the previous and the current row of cells, like Eller's algorithm; it
+ * is relabeled for every row, so path halving keeps its trees flat. A component is complete as soon as none of its
+ * cells continues in the next row, and a passage between cells that are already connected closes a cycle. The memory
+ * use is a few ints per column, so mazes of any height (like 100 million cells or more) can be verified in linear time.
+ * <p>
+ * In fail-fast mode, the verification stops at the first cycle or at the first cell after a component was completed
+ * (which means there is more than one component).
+ */
+public class MazeVerifier implements MazeRowSink {
+    private static final int NOT_FOUND = -1;
+    private static final int COMPLETED = -2;
+
+    private final ShapeRowSource shapeRowSource;
+    private final boolean failFast;
+
+    private int mazeWidth;
+    private Point startPoint;
+    private Point endPoint;
+
+    private InsideCellRows insideCellRows;
+    private long[] insideAbove;
+    private long[] inside;
+
+    /**
+     * The union-find parents of the cells in the previous row (the labels zero until the maze width, see
+     * <code>previousLabels</code>) and of the cells in the current row (column plus maze width).
+     */
+    private int[] parents;
+
+    /**
+     * The label of each cell in the previous row (the column of the first cell of its set) or -1 if it is outside.
+     */
+    private int[] previousLabels;
+    private int[] currentLabels;
+
+    /**
+     * The new label of each root of the current row (valid if the root has the stamp of the current row) and the roots
+     * of the previous row that have been counted as completed components.
+     */
+    private int[] rootLabels;
+    private int[] rootLabelStamps;
+    private int[] completedStamps;
+
+    /**
+     * The union-find elements of the start cell and the end cell, <code>NOT_FOUND</code> before their row and
+     * <code>COMPLETED</code> after their component was completed.
+     */
+    private int startElement;
+    private int endElement;
+
+    private long cellCount;
+    private long passageCount;
+    private long componentCount;
+    private long cycleCount;
+    private boolean startConnectedToEnd;
+    private boolean stopped;
+
+    /**
+     * Create a maze verifier.
+     *
+     * @param shapeRowSource the shape of the mazes or null for rectangular mazes.
+     * @param failFast       whether to stop at the first defect.
+     */
+    public MazeVerifier(final ShapeRowSource shapeRowSource, final boolean failFast) {
+        this.shapeRowSource = shapeRowSource;
+        this.failFast = failFast;
+    }
+
+    /**
+     * Verify a maze in memory.
+     *
+     * @param maze           the maze to verify.
+     * @param shapeRowSource the shape of the maze or null for a rectangular maze.
+     * @param failFast       whether to stop at the first defect.
+     * @return the result of the verification.
+     */
+    public static MazeVerification verify(final Maze maze, final ShapeRowSource shapeRowSource,
+                                          final boolean failFast) {
+        final MazeVerifier verifier = new MazeVerifier(shapeRowSource, failFast);
+        final BitGrid horizontalLines = maze.getHorizontalLineGrid();
+        final BitGrid verticalLines = maze.getVerticalLineGrid();
+        final long[] horizontalLineWords = new long[horizontalLines.getWordsPerRow()];
+        final long[] verticalLineWords = new long[verticalLines.getWordsPerRow()];
+
+        verifier.start(maze.getMazeWidth(), maze.getMazeHeight(), maze.getStartPoint(), maze.getEndPoint());
+
+        // Like Maze.writeRows, but the cross points are not needed and the rows after a defect are skipped.
+        for (int row = 0; row < maze.getMazeHeight() && !verifier.stopped; row++) {
+            horizontalLines.getRowWords(row, horizontalLineWords);
+            verticalLines.getRowWords(row, verticalLineWords);
+
+            verifier.verifyCellRow(row, horizontalLineWords, verticalLineWords);
+        }
+
+        final MazeVerification verification = verifier.getVerification();
+        verifier.finishMaze();
+
+        return verification;
+    }
+
+    /**
+     * Get the result of the verification of the last maze. When the maze is finished, the components that continue to
+     * the last row are counted as well.
+     *
+     * @return the result.
+     */
+    public MazeVerification getVerification() {
+        long openComponentCount = 0;
+
+        if (previousLabels != null && !stopped)
+            for (int x = 0; x < mazeWidth; x++)
+                openComponentCount += previousLabels[x] == x ? 1 : 0;
+
+        return new MazeVerification(cellCount, passageCount, componentCount + openComponentCount, cycleCount,
+                                    startConnectedToEnd, !stopped);
+    }
+
+    @Override
+    public void startMaze(final MazeParameters mazeParameters) {
+        start(mazeParameters.getMazeWidth(), mazeParameters.getMazeHeight(), mazeParameters.getStartPoint(),
+              mazeParameters.getEndPoint());
+    }
+
+    @Override
+    public void writeRow(final int row, final long[] crossPoints, final long[] horizontalLines,
+                         final long[] verticalLines) {
+        // All passages of a cell to the cells above it and to its left are known in its own row.
+        if (verticalLines != null && !stopped)
+            verifyCellRow(row, horizontalLines, verticalLines);
+    }
+
+    @Override
+    public void finishMaze() {
+        // The open components are counted in getVerification, so the result stays available after the maze.
+        insideCellRows = null;
+        insideAbove = null;
+        inside = null;
+        parents = null;
+        currentLabels = null;
+        rootLabels = null;
+        rootLabelStamps = null;
+        completedStamps = null;
+    }
+
+    private void start(final int mazeWidth, final int mazeHeight, final Point startPoint, final Point endPoint) {
+        this.mazeWidth = mazeWidth;
+        this.startPoint = startPoint;
+        this.endPoint = endPoint;
+
+        final int cellWordCount = BitGrid.getWordsPerRow(mazeWidth);
+        this.insideCellRows = new InsideCellRows(shapeRowSource, mazeWidth, mazeHeight);
+        this.insideAbove = new long[cellWordCount];
+        this.inside = new long[cellWordCount];
+        this.parents = new int[2 * mazeWidth];
+        this.previousLabels = new int[mazeWidth];
+        this.currentLabels = new int[mazeWidth];
+        this.rootLabels = new int[2 * mazeWidth];
+        this.rootLabelStamps = new int[2 * mazeWidth];
+        this.completedStamps = new int[2 * mazeWidth];
+
+        Arrays.fill(previousLabels, -1);
+        startElement = NOT_FOUND;
+        endElement = NOT_FOUND;
+        cellCount = 0;
+        passageCount = 0;
+        componentCount = 0;
+        cycleCount = 0;
+        startConnectedToEnd = false;
+        stopped = false;
+    }
+
+    /**
+     * Join the cells of a row with the cells above them and with each other, and count the components of the
+     * previous row that are completed.
+     *
+     * @param y               the row of cells.
+     * @param horizontalLines the horizontal lines above the row.
+     * @param verticalLines   the vertical lines in the row.
+     */
+    private void verifyCellRow(final int y, final long[] horizontalLines, final long[] verticalLines) {
+        insideCellRows.getNextRow(inside);
+
+        long rowCellCount = 0;
+        for (int wordOffset = 0; wordOffset < inside.length; wordOffset++) {
+            rowCellCount += Long.bitCount(inside[wordOffset]);
+
+            for (long cells = inside[wordOffset]; cells != 0; cells &= cells - 1) {
+                final int element = mazeWidth + (wordOffset << 6) + Long.numberOfTrailingZeros(cells);
+                parents[element] = element;
+            }
+        }
+
+        for (int wordOffset = 0; wordOffset < inside.length; wordOffset++) {
+            final long cells = inside[wordOffset];
+            final boolean hasNextWord = wordOffset + 1 < inside.length;
+            final long insideRight = (cells >>> 1) | (hasNextWord ? inside[wordOffset + 1] << 63 : 0);
+            final long linesRight = (verticalLines[wordOffset] >>> 1)
+                                    | (wordOffset + 1 < verticalLines.length ? verticalLines[wordOffset + 1] << 63 : 0);
+            final int firstColumn = wordOffset << 6;
+
+            for (long up = cells & insideAbove[wordOffset] & ~horizontalLines[wordOffset]; up != 0; up &= up - 1) {
+                final int x = firstColumn + Long.numberOfTrailingZeros(up);
+                join(previousLabels[x], mazeWidth + x);
+            }
+
+            for (long right = cells & insideRight & ~linesRight; right != 0; right &= right - 1) {
+                final int x = firstColumn + Long.numberOfTrailingZeros(right);
+                join(mazeWidth + x, mazeWidth + x + 1);
+            }
+        }
+
+        cellCount += rowCellCount;
+        startElement = findCell(startPoint, y, startElement);
+        endElement = findCell(endPoint, y, endElement);
+        if (startElement >= 0 && endElement >= 0 && find(startElement) == find(endElement))
+            startConnectedToEnd = true;
+
+        relabel(y + 1);
+
+        final long[] previousInside = insideAbove;
+        insideAbove = inside;
+        inside = previousInside;
+
+        // A second component (or a cycle) means that the maze is not perfect.
+        if (failFast && (cycleCount > 0 || (componentCount > 0 && rowCellCount > 0)))
+            stopped = true;
+    }
+
+    /**
+     * Determine the new labels of the cells in the current row, count the sets of the previous row that did not
+     * continue in it as completed components, and make the current row the previous row.
+     *
+     * @param stamp a number that is unique for the row (and not zero).
+     */
+    private void relabel(final int stamp) {
+        for (int x = 0; x < mazeWidth; x++)
+            if (isInside(inside, x)) {
+                final int root = find(mazeWidth + x);
+
+                if (rootLabelStamps[root] != stamp) {
+                    rootLabelStamps[root] = stamp;
+                    rootLabels[root] = x;
+                }
+
+                currentLabels[x] = rootLabels[root];
+            } else
+                currentLabels[x] = -1;
+
+        for (int x = 0; x < mazeWidth; x++)
+            if (previousLabels[x] == x) {
+                final int root = find(x);
+
+                if (rootLabelStamps[root] != stamp && completedStamps[root] != stamp) {
+                    completedStamps[root] = stamp;
+                    componentCount++;
+                }
+            }
+
+        startElement = getNewElement(startElement, stamp);
+        endElement = getNewElement(endElement, stamp);
+
+        for (int x = 0; x < mazeWidth; x++) {
+            previousLabels[x] = currentLabels[x];
+
+            if (currentLabels[x] == x)
+                parents[x] = x;
+        }
+    }
+
+    private int getNewElement(final int element, final int stamp) {
+        if (element < 0)
+            return element;
+
+        final int root = find(element);
+
+        return rootLabelStamps[root] == stamp ? rootLabels[root] : COMPLETED;
+    }
+
+    private int findCell(final Point point, final int y, final int element) {
+        return point != null && point.y == y && element == NOT_FOUND && point.x < mazeWidth && isInside(inside, point.x)
+               ? mazeWidth + point.x
+               : element;
+    }
+
+    private void join(final int element1, final int element2) {
+        final int root1 = find(element1);
+        final int root2 = find(element2);
+
+        passageCount++;
+
+        if (root1 == root2)
+            cycleCount++;
+        else if (root1 < root2)
+            parents[root2] = root1;
+        else
+            parents[root1] = root2;
+    }
+
+    private int find(final int element) {
+        int current = element;
+
+        while (parents[current] != current) {
+            // Path halving: let every other node on the path point to its grandparent.
+            parents[current] = parents[parents[current]];
+            current = parents[current];
+        }
+
+        return current;
+    }
+
+    private static boolean isInside(final long[] cells, final int x) {
+        return (cells[x >> 6] & (1L << x)) != 0;
+    }
+}
@@ -0,0 +1,48 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Bit grid that stores all its rows in one contiguous <code>long</code> array on the heap.
+ */
+public class PackedBitGrid extends BitGrid {
+    /**
+     * The words containing the bits, row by row.
+     */
+    private final long[] words;
+
+    /**
+     * Create a packed bit grid with all bits cleared.
+     *
+     * @param rowCount    the number of rows.
+     * @param columnCount the number of columns.
+     */
+    public PackedBitGrid(final int rowCount, final int columnCount) {
+        super(rowCount, columnCount);
+
+        final long wordCount = getWordCount();
+        if (wordCount > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Grid of " + rowCount + " x " + columnCount
+                                               + " bits is too large for heap storage.");
+
+        this.words = new long[(int) wordCount];
+    }
+
+    @Override
+    public boolean get(final int row, final int column) {
+        return (words[row * wordsPerRow + (column >>> WORD_SHIFT)] & (1L << column)) != 0;
+    }
+
+    @Override
+    public void set(final int row, final int column) {
+        words[row * wordsPerRow + (column >>> WORD_SHIFT)] |= 1L << column;
+    }
+
+    @Override
+    public long getWord(final long wordIndex) {
+        return words[(int) wordIndex];
+    }
+
+    @Override
+    public void setWord(final long wordIndex, final long word) {
+        words[(int) wordIndex] = word;
+    }
+}
@@ -0,0 +1,112 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Append-only buffer of the path events of a solver, which can be written by one thread (the solver) and read without
+ * locking by other threads (like the Swing event dispatch thread). An entered cell is stored as its index and a cell
+ * that is left as the complement of its index.
+ * <p>
+ * The events are stored in fixed-size chunks of a primitive array that are never moved or changed after an event is
+ * written, and the number of events is published through a volatile field. The number of events is the version of
+ * the buffer: a reader that sees a length can read all events before it, and these stay the same forever.
+ */
+public class PathEventBuffer implements MazeSolverListener {
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /**
+     * The chunks with events; a larger array (with the same chunks) is published when it is full.
+     */
+    private volatile int[][] chunks = new int[16][];
+
+    /**
+     * The number of published events.
+     */
+    private volatile int length;
+
+    /**
+     * Whether the solver has finished (no more events will be added).
+     */
+    private volatile boolean finished;
+
+    /**
+     * Check whether an event is for an entered cell (as opposed to a cell that is left).
+     *
+     * @param event the event.
+     * @return whether the cell was entered.
+     */
+    public static boolean isCellEntered(final int event) {
+        return event >= 0;
+    }
+
+    /**
+     * Get the cell index of an event.
+     *
+     * @param event the event.
+     * @return the cell index.
+     */
+    public static int getCellIndex(final int event) {
+        return event >= 0 ? event : ~event;
+    }
+
+    @Override
+    public void cellEntered(final int cellIndex) {
+        append(cellIndex);
+    }
+
+    @Override
+    public void cellLeft(final int cellIndex) {
+        append(~cellIndex);
+    }
+
+    /**
+     * Mark the buffer as finished, after the last event has been added.
+     */
+    public void finish() {
+        finished = true;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Get the number of events that can be read, which only grows.
+     *
+     * @return the number of events.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Get an event.
+     *
+     * @param index the index of the event, which must be less than a length returned by {@link #getLength()}.
+     * @return the event.
+     */
+    public int get(final int index) {
+        return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    private void append(final int event) {
+        final int index = length;
+        final int chunkIndex = index >>> CHUNK_SHIFT;
+        int[][] currentChunks = chunks;
+
+        if (chunkIndex == currentChunks.length) {
+            final int[][] newChunks = new int[currentChunks.length * 2][];
+            System.arraycopy(currentChunks, 0, newChunks, 0, currentChunks.length);
+            chunks = newChunks;
+            currentChunks = newChunks;
+        }
+
+        if (currentChunks[chunkIndex] == null)
+            currentChunks[chunkIndex] = new int[CHUNK_SIZE];
+
+        currentChunks[chunkIndex][index & CHUNK_MASK] = event;
+
+        // The volatile write publishes the event (and a new chunk) to readers that read the length.
+        length = index + 1;
+    }
+}
@@ -0,0 +1,172 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.awt.Point;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of preconfigured maze parameters, which are read from a properties file. For each preset, the file has the
+ * properties <code>preset.NAME.image</code>, <code>preset.NAME.cellSize</code> (or <code>cellWidth</code> and
+ * <code>cellHeight</code>), <code>preset.NAME.start</code> and <code>preset.NAME.end</code> (as <code>x,y</code>,
+ * optional) and <code>preset.NAME.seed</code> (optional).
+ * <p>
+ * The default registry reads the presets.properties resource, or the file in the <code>maze.presets</code> system
+ * property if it is set, when it is used for the first time. The parameters of a preset are created when the preset is
+ * requested, and only the header of the shape image is read until the image itself is needed.
+ */
+public class PresetRegistry {
+    /**
+     * The system property with the path of a presets file that replaces the default presets.
+     */
+    public static final String PRESETS_FILE_PROPERTY = "maze.presets";
+
+    private static final String DEFAULT_PRESETS_RESOURCE = "presets.properties";
+    private static final String PRESET_PREFIX = "preset.";
+
+    private final Properties properties;
+    private final Map<String, MazeParameters> parametersByName = new ConcurrentHashMap<>();
+
+    /**
+     * Create a registry for the presets in a set of properties.
+     *
+     * @param properties the properties.
+     */
+    public PresetRegistry(final Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Get the default registry, which is loaded the first time this method is called.
+     *
+     * @return the default registry.
+     */
+    public static PresetRegistry getDefault() {
+        return DefaultRegistryHolder.DEFAULT_REGISTRY;
+    }
+
+    /**
+     * Load a registry from a properties stream.
+     *
+     * @param inputStream the properties stream.
+     * @return the registry.
+     * @throws IOException if reading fails.
+     */
+    public static PresetRegistry load(final InputStream inputStream) throws IOException {
+        final Properties properties = new Properties();
+        properties.load(inputStream);
+
+        return new PresetRegistry(properties);
+    }
+
+    /**
+     * Get the names of the presets.
+     *
+     * @return the sorted names.
+     */
+    public Set<String> getPresetNames() {
+        final Set<String> presetNames = new TreeSet<>();
+
+        for (final String propertyName : properties.stringPropertyNames())
+            if (propertyName.startsWith(PRESET_PREFIX) && propertyName.indexOf('.', PRESET_PREFIX.length()) > 0)
+                presetNames.add(propertyName.substring(PRESET_PREFIX.length(),
+                                                       propertyName.indexOf('.', PRESET_PREFIX.length())));
+
+        return presetNames;
+    }
+
+    /**
+     * Get the parameters of a preset.
+     *
+     * @param name the name of the preset.
+     * @return the parameters or null if there is no preset with this name.
+     * @throws IllegalArgumentException if the preset is invalid or its shape image cannot be read.
+     */
+    public MazeParameters getParameters(final String name) {
+        if (getProperty(name, "image") == null)
+            return null;
+
+        return parametersByName.computeIfAbsent(name, this::createParameters);
+    }
+
+    private MazeParameters createParameters(final String name) {
+        final String cellSize = getProperty(name, "cellSize");
+        final int cellWidth = parseInt(name, "cellWidth", cellSize);
+        final int cellHeight = parseInt(name, "cellHeight", cellSize);
+
+        return new MazeParameters(getProperty(name, "image"), cellHeight, cellWidth, parsePoint(name, "start"),
+                                  parsePoint(name, "end"), parseLong(name, "seed"));
+    }
+
+    private String getProperty(final String name, final String key) {
+        final String value = properties.getProperty(PRESET_PREFIX + name + "." + key);
+
+        return value != null ? value.trim() : null;
+    }
+
+    private int parseInt(final String name, final String key, final String defaultValue) {
+        final String value = getProperty(name, key);
+
+        try {
+            return Integer.parseInt(value != null ? value : defaultValue);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid or missing " + key + " in preset " + name + ".", e);
+        }
+    }
+
+    private long parseLong(final String name, final String key) {
+        final String value = getProperty(name, key);
+
+        try {
+            return value != null ? Long.parseLong(value) : 0;
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + key + " in preset " + name + ": " + value + ".", e);
+        }
+    }
+
+    private Point parsePoint(final String name, final String key) {
+        final String value = getProperty(name, key);
+
+        if (value == null)
+            return null;
+
+        final String[] coordinates = value.split(",");
+
+        try {
+            if (coordinates.length == 2)
+                return new Point(Integer.parseInt(coordinates[0].trim()), Integer.parseInt(coordinates[1].trim()));
+        } catch (final NumberFormatException e) {
+            // Handled below.
+        }
+
+        throw new IllegalArgumentException("Invalid " + key + " in preset " + name + ": " + value + ".");
+    }
+
+    /**
+     * Holder of the default registry, which is initialized when it is used for the first time.
+     */
+    private static class DefaultRegistryHolder {
+        private static final PresetRegistry DEFAULT_REGISTRY = loadDefaultRegistry();
+
+        private static PresetRegistry loadDefaultRegistry() {
+            final String presetsFile = System.getProperty(PRESETS_FILE_PROPERTY);
+
+            try (final InputStream inputStream = presetsFile != null
+                                                 ? new FileInputStream(presetsFile)
+                                                 : PresetRegistry.class.getResourceAsStream(DEFAULT_PRESETS_RESOURCE)) {
+                if (inputStream == null)
+                    throw new IOException("Presets resource " + DEFAULT_PRESETS_RESOURCE + " is missing.");
+
+                return load(inputStream);
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Unable to load the maze presets.", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * The random number generators that can be used for maze generation.
+ */
+public enum RandomMode {
+    /**
+     * Use <code>java.util.Random</code> and pick directions by drawing until an allowed direction comes up. This
+     * generates the same mazes as earlier versions for the same random seed.
+     */
+    LEGACY(0, false),
+
+    /**
+     * Use <code>java.util.SplittableRandom</code> and draw each direction once from the allowed directions.
+     */
+    SPLITTABLE(1, true),
+
+    /**
+     * Use the xoroshiro128++ generator and draw each direction once from the allowed directions.
+     */
+    XOROSHIRO(2, true);
+
+    /**
+     * The identifier that is stored in maze files, which does not depend on the order of the constants.
+     */
+    private final int id;
+
+    /**
+     * Whether directions are drawn from a mask of the allowed directions (one draw per step) instead of drawing until
+     * an allowed direction comes up.
+     */
+    private final boolean directionMask;
+
+    RandomMode(final int id, final boolean directionMask) {
+        this.id = id;
+        this.directionMask = directionMask;
+    }
+
+    /**
+     * Get the identifier that is stored in the maze file header.
+     *
+     * @return the identifier.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Get the random mode for an identifier from a maze file header.
+     *
+     * @param id the identifier.
+     * @return the random mode or null if the identifier is unknown.
+     */
+    public static RandomMode fromId(final int id) {
+        for (final RandomMode randomMode : values())
+            if (randomMode.id == id)
+                return randomMode;
+
+        return null;
+    }
+
+    public boolean usesDirectionMask() {
+        return directionMask;
+    }
+
+    /**
+     * Create a random source for this mode.
+     *
+     * @param randomSeed the random seed.
+     * @return the new random source.
+     */
+    public RandomSource createRandomSource(final long randomSeed) {
+        switch (this) {
+            case SPLITTABLE:
+                return new SplittableRandomSource(randomSeed);
+
+            case XOROSHIRO:
+                return new XoroshiroRandomSource(randomSeed);
+
+            default:
+                return new LegacyRandomSource(randomSeed);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Source of random numbers for maze generation.
+ */
+public interface RandomSource {
+    /**
+     * Get a random number between zero (inclusive) and a bound (exclusive).
+     *
+     * @param bound the upper bound (exclusive), which must be positive.
+     * @return the random number.
+     */
+    int nextInt(int bound);
+
+    /**
+     * Get a random boolean.
+     *
+     * @return the random boolean.
+     */
+    boolean nextBoolean();
+}
@@ -0,0 +1,62 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.util.Arrays;
+
+/**
+ * Generator that carves passages with a randomized depth-first search (the "recursive backtracker"): from the current
+ * cell it moves to a random unvisited neighbour and backtracks when there is none. The search keeps its path on an
+ * explicit stack of cell indices, so it works for mazes of any size. The mazes it generates have long, winding
+ * corridors with few dead ends.
+ * <p>
+ * Memory: a visited bit per cell and a stack of up to one index per cell.
+ */
+public class RecursiveBacktrackerMazeGenerator extends SpanningTreeMazeGenerator {
+    private static final int INITIAL_STACK_SIZE = 64;
+
+    @Override
+    void carvePassages(final Maze maze, final RandomSource randomGenerator) {
+        final BitGrid visitedCells = maze.createWorkGrid(maze.getMazeHeight(), maze.getMazeWidth());
+        int[] stack = new int[INITIAL_STACK_SIZE];
+
+        // Every part of the shape gets its own search, starting from its first cell.
+        for (int firstCell = 0; firstCell < maze.getCellCount(); firstCell++)
+            if (!visitedCells.get(maze.getCellY(firstCell), maze.getCellX(firstCell))
+                && getCarvableDirections(firstCell) != 0) {
+                int stackSize = 0;
+
+                stack[stackSize++] = firstCell;
+                visitedCells.set(maze.getCellY(firstCell), maze.getCellX(firstCell));
+
+                while (stackSize > 0) {
+                    final int cell = stack[stackSize - 1];
+                    final int directions = getUnvisitedDirections(maze, cell, visitedCells);
+
+                    if (directions != 0) {
+                        final int nextCell = carve(cell, pickDirection(directions, randomGenerator));
+
+                        if (stackSize == stack.length)
+                            stack = Arrays.copyOf(stack, stack.length * 2);
+
+                        stack[stackSize++] = nextCell;
+                        visitedCells.set(maze.getCellY(nextCell), maze.getCellX(nextCell));
+                    } else
+                        stackSize--;
+                }
+            }
+    }
+
+    private int getUnvisitedDirections(final Maze maze, final int cell, final BitGrid visitedCells) {
+        final int carvableDirections = getCarvableDirections(cell);
+        int directions = 0;
+
+        for (int direction = 0; direction < 4; direction++)
+            if ((carvableDirections & (1 << direction)) != 0) {
+                final int neighbour = maze.getNeighbour(cell, direction);
+
+                if (!visitedCells.get(maze.getCellY(neighbour), maze.getCellX(neighbour)))
+                    directions |= 1 << direction;
+            }
+
+        return directions;
+    }
+}
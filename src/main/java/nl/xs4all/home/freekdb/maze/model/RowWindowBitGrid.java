@@ -0,0 +1,68 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Bit grid that only stores a sliding window of its rows: row r is stored in slot <code>r % windowSize</code>, so
+ * writing a row overwrites the row that was <code>windowSize</code> rows above it. This lets the row-based code that
+ * works on a complete maze also work on a maze whose rows are generated and written out one at a time.
+ */
+class RowWindowBitGrid extends BitGrid {
+    private final int windowSize;
+    private final long[] words;
+
+    /**
+     * Create a row window bit grid with all bits cleared.
+     *
+     * @param rowCount    the (logical) number of rows.
+     * @param columnCount the number of columns.
+     * @param windowSize  the number of rows that are stored.
+     */
+    RowWindowBitGrid(final int rowCount, final int columnCount, final int windowSize) {
+        super(rowCount, columnCount);
+
+        this.windowSize = windowSize;
+        this.words = new long[windowSize * wordsPerRow];
+    }
+
+    /**
+     * Clear a row, so its slot can be reused.
+     *
+     * @param row the row.
+     */
+    void clearRow(final int row) {
+        final int firstWordIndex = (row % windowSize) * wordsPerRow;
+
+        for (int wordOffset = 0; wordOffset < wordsPerRow; wordOffset++)
+            words[firstWordIndex + wordOffset] = 0;
+    }
+
+    @Override
+    public boolean get(final int row, final int column) {
+        return (words[(row % windowSize) * wordsPerRow + (column >>> WORD_SHIFT)] & (1L << column)) != 0;
+    }
+
+    @Override
+    public void set(final int row, final int column) {
+        words[(row % windowSize) * wordsPerRow + (column >>> WORD_SHIFT)] |= 1L << column;
+    }
+
+    @Override
+    public long getWord(final long wordIndex) {
+        return words[getSlotIndex(wordIndex)];
+    }
+
+    @Override
+    public void setWord(final long wordIndex, final long word) {
+        words[getSlotIndex(wordIndex)] = word;
+    }
+
+    @Override
+    public long getSizeInBytes() {
+        return (long) words.length * (BITS_PER_WORD / Byte.SIZE);
+    }
+
+    private int getSlotIndex(final long wordIndex) {
+        final long row = wordIndex / wordsPerRow;
+
+        return (int) ((row % windowSize) * wordsPerRow + (wordIndex - row * wordsPerRow));
+    }
+}
@@ -0,0 +1,140 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Draws the circumference of a maze shape, working on 64 lines at a time. A line is outside the shape if both its end
+ * points are filled; it is on the circumference if it is outside the shape and a neighbouring parallel line (the line
+ * above or below it for a horizontal line, the line to its left or right for a vertical line) is not. The lines beyond
+ * the edges of the maze count as outside. With whole words this is a shift, an AND and an OR per word instead of a
+ * branch per line.
+ * <p>
+ * The tracer only adds lines; the lines that were drawn before (like the border of the maze) are kept.
+ */
+class ShapeBorderTracer {
+    private final int mazeWidth;
+
+    private final long[] crossPointWords;
+    private final long[] crossPointWordsBelow;
+    private final long[] previousOutside;
+    private final long[] outside;
+    private final long[] nextOutside;
+    private final long[] lineWords;
+
+    /**
+     * Create a shape border tracer.
+     *
+     * @param mazeWidth the number of columns of cells.
+     */
+    ShapeBorderTracer(final int mazeWidth) {
+        this.mazeWidth = mazeWidth;
+
+        final int crossPointWordCount = BitGrid.getWordsPerRow(mazeWidth + 1);
+        this.crossPointWords = new long[crossPointWordCount];
+        this.crossPointWordsBelow = new long[crossPointWordCount];
+        this.previousOutside = new long[crossPointWordCount];
+        this.outside = new long[crossPointWordCount];
+        this.nextOutside = new long[crossPointWordCount];
+        this.lineWords = new long[crossPointWordCount];
+    }
+
+    /**
+     * Draw the circumference of the shape in a complete maze.
+     *
+     * @param crossPoints     the cross points, with the points outside the shape filled.
+     * @param horizontalLines the horizontal lines to draw the circumference in.
+     * @param verticalLines   the vertical lines to draw the circumference in.
+     */
+    void traceBorder(final BitGrid crossPoints, final BitGrid horizontalLines, final BitGrid verticalLines) {
+        for (int row = 0; row < horizontalLines.getRowCount(); row++)
+            traceHorizontalLines(crossPoints, horizontalLines, row);
+
+        for (int row = 0; row < verticalLines.getRowCount(); row++)
+            traceVerticalLines(crossPoints, verticalLines, row);
+    }
+
+    /**
+     * Draw the horizontal lines in a row that are on the circumference of the shape. The rows of cross points above
+     * and below the row are used as well (if they exist).
+     *
+     * @param crossPoints     the cross points, with the points outside the shape filled.
+     * @param horizontalLines the horizontal lines to draw the circumference in.
+     * @param row             the row of horizontal lines.
+     */
+    void traceHorizontalLines(final BitGrid crossPoints, final BitGrid horizontalLines, final int row) {
+        final boolean hasPreviousRow = row > 0;
+        final boolean hasNextRow = row + 1 < crossPoints.getRowCount();
+
+        getHorizontalLinesOutside(crossPoints, row, outside);
+        if (hasPreviousRow)
+            getHorizontalLinesOutside(crossPoints, row - 1, previousOutside);
+        if (hasNextRow)
+            getHorizontalLinesOutside(crossPoints, row + 1, nextOutside);
+
+        horizontalLines.getRowWords(row, lineWords);
+
+        final int wordCount = horizontalLines.getWordsPerRow();
+        for (int wordOffset = 0; wordOffset < wordCount; wordOffset++) {
+            final long neighbourInside = (hasPreviousRow ? ~previousOutside[wordOffset] : 0)
+                                         | (hasNextRow ? ~nextOutside[wordOffset] : 0);
+
+            lineWords[wordOffset] |= outside[wordOffset] & neighbourInside & getColumnMask(wordOffset, mazeWidth);
+        }
+
+        horizontalLines.setRowWords(row, lineWords);
+    }
+
+    /**
+     * Draw the vertical lines in a row that are on the circumference of the shape.
+     *
+     * @param crossPoints   the cross points, with the points outside the shape filled.
+     * @param verticalLines the vertical lines to draw the circumference in.
+     * @param row           the row of vertical lines (which is between the cross point rows <code>row</code> and
+     *                      <code>row + 1</code>).
+     */
+    void traceVerticalLines(final BitGrid crossPoints, final BitGrid verticalLines, final int row) {
+        crossPoints.getRowWords(row, crossPointWords);
+        crossPoints.getRowWords(row + 1, crossPointWordsBelow);
+        verticalLines.getRowWords(row, lineWords);
+
+        final int columnCount = mazeWidth + 1;
+        final int wordCount = verticalLines.getWordsPerRow();
+        for (int wordOffset = 0; wordOffset < wordCount; wordOffset++)
+            outside[wordOffset] = crossPointWords[wordOffset] & crossPointWordsBelow[wordOffset];
+
+        for (int wordOffset = 0; wordOffset < wordCount; wordOffset++) {
+            final long word = outside[wordOffset];
+            // The lines to the left and to the right of each line; the lines beyond the edges count as outside.
+            final long leftOutside = (word << 1) | (wordOffset > 0 ? outside[wordOffset - 1] >>> 63 : 1);
+            long rightOutside = (word >>> 1) | (wordOffset + 1 < wordCount ? outside[wordOffset + 1] << 63 : 0);
+            if (wordOffset == wordCount - 1)
+                rightOutside |= 1L << (columnCount - 1);
+
+            lineWords[wordOffset] |= word & (~leftOutside | ~rightOutside) & getColumnMask(wordOffset, columnCount);
+        }
+
+        verticalLines.setRowWords(row, lineWords);
+    }
+
+    /**
+     * Determine which horizontal lines in a row are outside the shape: both their end points are filled.
+     */
+    private void getHorizontalLinesOutside(final BitGrid crossPoints, final int row, final long[] linesOutside) {
+        crossPoints.getRowWords(row, crossPointWords);
+
+        final int wordCount = crossPointWords.length;
+        for (int wordOffset = 0; wordOffset < wordCount; wordOffset++) {
+            final long rightEndPoints = (crossPointWords[wordOffset] >>> 1)
+                                        | (wordOffset + 1 < wordCount ? crossPointWords[wordOffset + 1] << 63 : 0);
+
+            linesOutside[wordOffset] = crossPointWords[wordOffset] & rightEndPoints;
+        }
+    }
+
+    /**
+     * Get the mask of the valid columns in a word of a row.
+     */
+    private static long getColumnMask(final int wordOffset, final int columnCount) {
+        final int remainingColumns = columnCount - (wordOffset << 6);
+
+        return remainingColumns >= BitGrid.BITS_PER_WORD ? -1L : (1L << remainingColumns) - 1;
+    }
+}
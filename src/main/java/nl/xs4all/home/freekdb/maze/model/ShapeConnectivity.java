@@ -0,0 +1,190 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.util.Arrays;
+
+/**
+ * The connectivity of a maze shape below each row of cells, within a window of rows, which lets the
+ * {@link StreamingMazeGenerator} join sets that would get cut off while their row is still being generated. For every
+ * row, the cells inside the shape are grouped into the components they belong to when only the carvable walls of that
+ * row and the rows below it (down to the bottom of the current pass) are used.
+ * <p>
+ * All cells of a row are on the top edge of the region below it, so these components never cross: when cells a &lt; b
+ * &lt; c &lt; d are in a row and a is connected to c and b to d, then all four are connected. Like nested parentheses,
+ * such a grouping is stored with two bits per cell: whether the cell is connected to a cell on its left and whether it
+ * is connected to a cell on its right.
+ * <p>
+ * The rows of a pass are added from the bottom to the top. A union-find structure in primitive arrays holds the
+ * current row of cells and the components of the row below it (like the {@link MazeVerifier}, but in the other
+ * direction). Only the rows of the last pass are stored.
+ */
+class ShapeConnectivity {
+    private static final int NO_LABEL = -1;
+
+    private final int mazeWidth;
+
+    private final RowWindowBitGrid connectedLeft;
+    private final RowWindowBitGrid connectedRight;
+
+    /**
+     * The union-find parents of the components of the row below (the labels zero until the maze width) and of the
+     * cells in the current row (column plus maze width).
+     */
+    private final int[] parents;
+
+    /**
+     * The label of each cell in the row below (the column of the first cell of its component) or -1 if it is outside.
+     */
+    private final int[] belowLabels;
+
+    private final boolean[] inside;
+    private final int[] firstColumns;
+    private final int[] firstColumnStamps;
+    private final int[] lastColumnStamps;
+
+    /**
+     * The first columns of the components that continue to the right, while a row is read.
+     */
+    private final int[] openColumns;
+
+    /**
+     * Create an empty shape connectivity.
+     *
+     * @param mazeWidth  the number of columns of cells.
+     * @param mazeHeight the number of rows of cells.
+     * @param windowSize the number of rows that are stored, which has to be at least the number of rows of a pass
+     *                   that are used.
+     */
+    ShapeConnectivity(final int mazeWidth, final int mazeHeight, final int windowSize) {
+        this.mazeWidth = mazeWidth;
+        this.connectedLeft = new RowWindowBitGrid(mazeHeight, mazeWidth, windowSize);
+        this.connectedRight = new RowWindowBitGrid(mazeHeight, mazeWidth, windowSize);
+
+        this.parents = new int[2 * mazeWidth];
+        this.belowLabels = new int[mazeWidth];
+        this.inside = new boolean[mazeWidth];
+        this.firstColumns = new int[2 * mazeWidth];
+        this.firstColumnStamps = new int[2 * mazeWidth];
+        this.lastColumnStamps = new int[2 * mazeWidth];
+        this.openColumns = new int[mazeWidth];
+
+        startPass();
+    }
+
+    /**
+     * Start a new pass, of which the first row that is added has no rows below it.
+     */
+    void startPass() {
+        Arrays.fill(belowLabels, NO_LABEL);
+        Arrays.fill(firstColumnStamps, 0);
+        Arrays.fill(lastColumnStamps, 0);
+    }
+
+    /**
+     * Add the next row of cells of the current pass, going up from its bottom row.
+     *
+     * @param y               the row of cells.
+     * @param crossPoints     the cross points, with the points outside the shape filled, of which the rows of the
+     *                        row of cells and the two rows below it are used.
+     * @param horizontalLines the horizontal lines that were drawn before generation, of which the row below the row
+     *                        of cells is used.
+     * @param verticalLines   the vertical lines that were drawn before generation, of which the row of the row of
+     *                        cells is used.
+     */
+    void addRow(final int y, final BitGrid crossPoints, final BitGrid horizontalLines, final BitGrid verticalLines) {
+        connectedLeft.clearRow(y);
+        connectedRight.clearRow(y);
+
+        for (int x = 0; x < mazeWidth; x++) {
+            inside[x] = SpanningTreeMazeGenerator.isInside(crossPoints, x, y);
+            parents[mazeWidth + x] = mazeWidth + x;
+        }
+
+        for (int x = 0; x < mazeWidth; x++)
+            if (inside[x]) {
+                if (x + 1 < mazeWidth && inside[x + 1] && !verticalLines.get(y, x + 1))
+                    union(mazeWidth + x, mazeWidth + x + 1);
+
+                // The labels below are only set for cells inside the shape.
+                if (belowLabels[x] != NO_LABEL && !horizontalLines.get(y + 1, x))
+                    union(mazeWidth + x, belowLabels[x]);
+            }
+
+        // The stamps are unique for each row of a pass and not zero.
+        final int stamp = y + 1;
+
+        for (int x = 0; x < mazeWidth; x++)
+            if (inside[x]) {
+                final int root = find(mazeWidth + x);
+
+                if (firstColumnStamps[root] != stamp) {
+                    firstColumnStamps[root] = stamp;
+                    firstColumns[root] = x;
+                } else
+                    connectedLeft.set(y, x);
+            }
+
+        for (int x = mazeWidth - 1; x >= 0; x--)
+            if (inside[x]) {
+                final int root = find(mazeWidth + x);
+
+                if (lastColumnStamps[root] != stamp)
+                    lastColumnStamps[root] = stamp;
+                else
+                    connectedRight.set(y, x);
+            }
+
+        for (int x = 0; x < mazeWidth; x++)
+            belowLabels[x] = inside[x] ? firstColumns[find(mazeWidth + x)] : NO_LABEL;
+
+        for (int x = 0; x < mazeWidth; x++)
+            if (belowLabels[x] == x)
+                parents[x] = x;
+    }
+
+    /**
+     * Get the components of the cells in a row: two cells inside the shape have the same component if they are
+     * connected through the carvable walls of the row and the rows below it, down to the bottom of the pass that
+     * added the row.
+     *
+     * @param y          the row of cells.
+     * @param components the array to fill with the component of each cell (the column of the first cell of the
+     *                   component); cells outside the shape get their own column.
+     */
+    void getComponents(final int y, final int[] components) {
+        // As the components never cross, a cell that is connected to the left belongs to the last open component.
+        int openCount = 0;
+
+        for (int x = 0; x < mazeWidth; x++) {
+            final boolean left = connectedLeft.get(y, x);
+            final boolean right = connectedRight.get(y, x);
+
+            components[x] = left ? openColumns[openCount - 1] : x;
+
+            if (left && !right)
+                openCount--;
+            else if (!left && right)
+                openColumns[openCount++] = x;
+        }
+    }
+
+    private void union(final int element1, final int element2) {
+        final int root1 = find(element1);
+        final int root2 = find(element2);
+
+        if (root1 < root2)
+            parents[root2] = root1;
+        else if (root2 < root1)
+            parents[root1] = root2;
+    }
+
+    private int find(final int element) {
+        int current = element;
+
+        while (parents[current] != current) {
+            parents[current] = parents[parents[current]];
+            current = parents[current];
+        }
+
+        return current;
+    }
+}
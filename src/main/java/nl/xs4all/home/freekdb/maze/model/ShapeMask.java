@@ -0,0 +1,345 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Packed bit mask with the cross points of a maze that are outside the shape. The shape image is sampled once per
+ * cross point, at the same pixels as before: cross point (x, y) is sampled at pixel (cellWidth * (x + 1), cellHeight
+ * * (y + 1)) and is inside the shape if that pixel is black. Samples that fall outside the image are outside the
+ * shape.
+ * <p>
+ * The samples are read directly from the backing array of the image raster for images with one integer per pixel
+ * (<code>TYPE_INT_RGB</code> and <code>TYPE_INT_ARGB</code>), indexed and binary images (including the 1, 2 and 4 bit
+ * per pixel images that are read from palette PNG files) and 8 bit gray images. Other images are sampled with
+ * <code>BufferedImage.getRGB</code>.
+ */
+public class ShapeMask implements ShapeRowSource {
+    private static final int BLACK_RGB = Color.BLACK.getRGB();
+
+    private final int cellWidth;
+    private final int cellHeight;
+
+    /**
+     * The cross points outside the shape, with (mazeHeight + 1) rows and (mazeWidth + 1) columns.
+     */
+    private final BitGrid outsidePoints;
+
+    private ShapeMask(final int cellWidth, final int cellHeight, final BitGrid outsidePoints) {
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.outsidePoints = outsidePoints;
+    }
+
+    /**
+     * Read a shape image from a file, keeping the raster format of the file (so a palette PNG stays indexed).
+     *
+     * @param imageFile the image file.
+     * @return the shape image.
+     * @throws IOException if the file cannot be read or is not a supported image.
+     */
+    public static BufferedImage readImage(final File imageFile) throws IOException {
+        final BufferedImage image = ImageIO.read(imageFile);
+
+        if (image == null)
+            throw new IOException("Unsupported shape image format: " + imageFile + ".");
+
+        return image;
+    }
+
+    /**
+     * Sample a shape image for a maze.
+     *
+     * @param shapeImage the shape image, in which the black pixels form the shape.
+     * @param cellWidth  the width of a cell in pixels.
+     * @param cellHeight the height of a cell in pixels.
+     * @param mazeWidth  the width of the maze in cells.
+     * @param mazeHeight the height of the maze in cells.
+     * @return the shape mask.
+     */
+    public static ShapeMask sample(final BufferedImage shapeImage, final int cellWidth, final int cellHeight,
+                                   final int mazeWidth, final int mazeHeight) {
+        if (shapeImage == null)
+            throw new IllegalArgumentException("The shape image is missing.");
+
+        if (cellWidth <= 0 || cellHeight <= 0 || mazeWidth <= 0 || mazeHeight <= 0)
+            throw new IllegalArgumentException("Invalid maze dimensions: " + mazeWidth + "x" + mazeHeight
+                                               + " cells of " + cellWidth + "x" + cellHeight + " pixels.");
+
+        final BitGrid outsidePoints = new PackedBitGrid(mazeHeight + 1, mazeWidth + 1);
+        final RowSampler rowSampler = createRowSampler(shapeImage);
+        final int sampleCount = mazeWidth + 1;
+        final int insideSampleCount = Math.min(sampleCount, (shapeImage.getWidth() - 1) / cellWidth);
+        final long[] rowWords = new long[outsidePoints.getWordsPerRow()];
+
+        for (int y = 0; y < (mazeHeight + 1); y++) {
+            final int pixelY = cellHeight * (y + 1);
+
+            Arrays.fill(rowWords, 0);
+
+            if (pixelY < shapeImage.getHeight())
+                rowSampler.sampleRow(pixelY, cellWidth, insideSampleCount, rowWords);
+            else
+                setBits(rowWords, 0, insideSampleCount);
+
+            setBits(rowWords, insideSampleCount, sampleCount);
+
+            final long rowStart = (long) y * outsidePoints.getWordsPerRow();
+            for (int wordIndex = 0; wordIndex < rowWords.length; wordIndex++)
+                outsidePoints.setWord(rowStart + wordIndex, rowWords[wordIndex]);
+        }
+
+        return new ShapeMask(cellWidth, cellHeight, outsidePoints);
+    }
+
+    public int getCellWidth() {
+        return cellWidth;
+    }
+
+    public int getCellHeight() {
+        return cellHeight;
+    }
+
+    public int getMazeWidth() {
+        return outsidePoints.getColumnCount() - 1;
+    }
+
+    public int getMazeHeight() {
+        return outsidePoints.getRowCount() - 1;
+    }
+
+    /**
+     * Get the cross points outside the shape.
+     *
+     * @return the bit grid with (mazeHeight + 1) rows and (mazeWidth + 1) columns.
+     */
+    public BitGrid getOutsidePoints() {
+        return outsidePoints;
+    }
+
+    public boolean isOutside(final int y, final int x) {
+        return outsidePoints.get(y, x);
+    }
+
+    @Override
+    public void getOutsidePoints(final int row, final long[] words) {
+        outsidePoints.getRowWords(row, words);
+    }
+
+    private static void setBits(final long[] words, final int fromIndex, final int toIndex) {
+        for (int index = fromIndex; index < toIndex; index++)
+            words[index >> 6] |= 1L << index;
+    }
+
+    private static RowSampler createRowSampler(final BufferedImage image) {
+        final Raster raster = image.getRaster();
+        final SampleModel sampleModel = raster.getSampleModel();
+        final DataBuffer dataBuffer = raster.getDataBuffer();
+        final ColorModel colorModel = image.getColorModel();
+
+        if (raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0
+            || dataBuffer.getNumBanks() != 1)
+            return new RgbRowSampler(image);
+
+        if (dataBuffer instanceof DataBufferInt && sampleModel instanceof SinglePixelPackedSampleModel
+            && (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_INT_ARGB))
+            return new IntRowSampler(((DataBufferInt) dataBuffer).getData(), dataBuffer.getOffset(),
+                                     ((SinglePixelPackedSampleModel) sampleModel).getScanlineStride(),
+                                     image.getType() == BufferedImage.TYPE_INT_RGB ? 0xFFFFFF : 0xFFFFFFFF,
+                                     image.getType() == BufferedImage.TYPE_INT_RGB ? 0 : BLACK_RGB);
+
+        if (dataBuffer instanceof DataBufferByte && colorModel instanceof IndexColorModel) {
+            final int[] outsideBits = getOutsideBits((IndexColorModel) colorModel);
+
+            if (sampleModel instanceof MultiPixelPackedSampleModel)
+                return new PackedIndexRowSampler(((DataBufferByte) dataBuffer).getData(), dataBuffer.getOffset(),
+                                                 (MultiPixelPackedSampleModel) sampleModel, outsideBits);
+
+            if (sampleModel instanceof PixelInterleavedSampleModel && sampleModel.getNumBands() == 1)
+                return new ByteRowSampler(((DataBufferByte) dataBuffer).getData(), dataBuffer.getOffset(),
+                                          (PixelInterleavedSampleModel) sampleModel, outsideBits);
+        }
+
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY && dataBuffer instanceof DataBufferByte
+            && sampleModel instanceof PixelInterleavedSampleModel) {
+            // Only gray level 0 is black.
+            final int[] outsideBits = new int[256];
+            Arrays.fill(outsideBits, 1, outsideBits.length, 1);
+
+            return new ByteRowSampler(((DataBufferByte) dataBuffer).getData(), dataBuffer.getOffset(),
+                                      (PixelInterleavedSampleModel) sampleModel, outsideBits);
+        }
+
+        return new RgbRowSampler(image);
+    }
+
+    /**
+     * Get a table with for each index of a color model 0 if the color is black and 1 if it is not (outside the shape).
+     */
+    private static int[] getOutsideBits(final IndexColorModel colorModel) {
+        final int[] outsideBits = new int[1 << colorModel.getPixelSize()];
+
+        for (int index = 0; index < outsideBits.length; index++)
+            outsideBits[index] = index < colorModel.getMapSize() && colorModel.getRGB(index) == BLACK_RGB ? 0 : 1;
+
+        return outsideBits;
+    }
+
+    /**
+     * Samples a row of the shape image: sample x is at pixel cellWidth * (x + 1).
+     */
+    private interface RowSampler {
+        /**
+         * Set the bits of the samples in a row that are not black.
+         *
+         * @param pixelY      the pixel row.
+         * @param cellWidth   the distance between the samples.
+         * @param sampleCount the number of samples, which all fall inside the image.
+         * @param rowWords    the words in which the bits are set.
+         */
+        void sampleRow(int pixelY, int cellWidth, int sampleCount, long[] rowWords);
+    }
+
+    private static class RgbRowSampler implements RowSampler {
+        private final BufferedImage image;
+
+        RgbRowSampler(final BufferedImage image) {
+            this.image = image;
+        }
+
+        @Override
+        public void sampleRow(final int pixelY, final int cellWidth, final int sampleCount, final long[] rowWords) {
+            for (int x = 0; x < sampleCount; x++)
+                if (image.getRGB(cellWidth * (x + 1), pixelY) != BLACK_RGB)
+                    rowWords[x >> 6] |= 1L << x;
+        }
+    }
+
+    private static class IntRowSampler implements RowSampler {
+        private final int[] data;
+        private final int offset;
+        private final int stride;
+        private final int mask;
+        private final int black;
+
+        IntRowSampler(final int[] data, final int offset, final int stride, final int mask, final int black) {
+            this.data = data;
+            this.offset = offset;
+            this.stride = stride;
+            this.mask = mask;
+            this.black = black;
+        }
+
+        @Override
+        public void sampleRow(final int pixelY, final int cellWidth, final int sampleCount, final long[] rowWords) {
+            int index = offset + pixelY * stride + cellWidth;
+
+            for (int firstX = 0; firstX < sampleCount; firstX += 64) {
+                final int lastX = Math.min(firstX + 64, sampleCount);
+                long word = 0;
+
+                for (int x = firstX; x < lastX; x++, index += cellWidth)
+                    if ((data[index] & mask) != black)
+                        word |= 1L << x;
+
+                rowWords[firstX >> 6] = word;
+            }
+        }
+    }
+
+    /**
+     * Samples indexed images with one byte per pixel (or gray images, with the gray levels as indices).
+     */
+    private static class ByteRowSampler implements RowSampler {
+        private final byte[] data;
+        private final int offset;
+        private final int stride;
+        private final int pixelStride;
+        private final int[] outsideBits;
+
+        ByteRowSampler(final byte[] data, final int offset, final PixelInterleavedSampleModel sampleModel,
+                       final int[] outsideBits) {
+            this.data = data;
+            this.offset = offset + sampleModel.getBandOffsets()[0];
+            this.stride = sampleModel.getScanlineStride();
+            this.pixelStride = sampleModel.getPixelStride();
+            this.outsideBits = outsideBits;
+        }
+
+        @Override
+        public void sampleRow(final int pixelY, final int cellWidth, final int sampleCount, final long[] rowWords) {
+            final int step = cellWidth * pixelStride;
+            int index = offset + pixelY * stride + step;
+
+            for (int firstX = 0; firstX < sampleCount; firstX += 64) {
+                final int lastX = Math.min(firstX + 64, sampleCount);
+                long word = 0;
+
+                for (int x = firstX; x < lastX; x++, index += step)
+                    word |= (long) outsideBits[data[index] & 0xFF] << x;
+
+                rowWords[firstX >> 6] = word;
+            }
+        }
+    }
+
+    /**
+     * Samples indexed images with 1, 2 or 4 bits per pixel, in which the leftmost pixel is in the most significant bits
+     * of a byte.
+     */
+    private static class PackedIndexRowSampler implements RowSampler {
+        private final byte[] data;
+        private final int offset;
+        private final int stride;
+        private final int bitOffset;
+        private final int bitsPerPixel;
+        private final int pixelMask;
+        private final int[] outsideBits;
+
+        PackedIndexRowSampler(final byte[] data, final int offset, final MultiPixelPackedSampleModel sampleModel,
+                              final int[] outsideBits) {
+            this.data = data;
+            this.offset = offset;
+            this.stride = sampleModel.getScanlineStride();
+            this.bitOffset = sampleModel.getDataBitOffset();
+            this.bitsPerPixel = sampleModel.getPixelBitStride();
+            this.pixelMask = (1 << bitsPerPixel) - 1;
+            this.outsideBits = outsideBits;
+        }
+
+        @Override
+        public void sampleRow(final int pixelY, final int cellWidth, final int sampleCount, final long[] rowWords) {
+            final int rowOffset = offset + pixelY * stride;
+            final int bitStep = cellWidth * bitsPerPixel;
+            final int shiftBase = 8 - bitsPerPixel;
+            int bitIndex = bitOffset + bitStep;
+
+            for (int firstX = 0; firstX < sampleCount; firstX += 64) {
+                final int lastX = Math.min(firstX + 64, sampleCount);
+                long word = 0;
+
+                for (int x = firstX; x < lastX; x++, bitIndex += bitStep) {
+                    final int pixel = (data[rowOffset + (bitIndex >> 3)] >> (shiftBase - (bitIndex & 7))) & pixelMask;
+                    word |= (long) outsideBits[pixel] << x;
+                }
+
+                rowWords[firstX >> 6] = word;
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Source of the shape of a maze one row of cross points at a time, for generating mazes that do not fit in memory (see
+ * {@link StreamingMazeGenerator}). The streaming generator and the row sinks request the rows from the top to the
+ * bottom, each row once (the streaming generator reads up to 258 rows ahead of the row it generates), so a source does
+ * not have to keep the shape in memory. A source for a continuous roll could, for example, repeat the rows of a shape
+ * mask.
+ */
+public interface ShapeRowSource {
+    /**
+     * Get the cross points in a row that are outside the shape.
+     *
+     * @param row   the row of cross points, from zero to the maze height (inclusive).
+     * @param words the array to fill, with bit <code>x % 64</code> of word <code>x / 64</code> set if cross point x is
+     *              outside the shape (the layout of a {@link BitGrid} row).
+     */
+    void getOutsidePoints(int row, long[] words);
+}
@@ -0,0 +1,97 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * The wall layers of an empty maze that is limited to a shape: the borders, the cross points outside the shape and
+ * the circumference of the shape. A new maze for the same shape and cell size can copy these layers (see
+ * {@link Maze#applyShapeTemplate(ShapeTemplate)}) instead of decoding and sampling the shape image and tracing the
+ * border again. A template is immutable.
+ */
+public class ShapeTemplate implements ShapeRowSource {
+    private final int cellWidth;
+    private final int cellHeight;
+    private final int mazeWidth;
+    private final int mazeHeight;
+
+    private final BitGrid crossPoints;
+    private final BitGrid horizontalLines;
+    private final BitGrid verticalLines;
+
+    private ShapeTemplate(final Maze maze) {
+        this.cellWidth = maze.getCellWidth();
+        this.cellHeight = maze.getCellHeight();
+        this.mazeWidth = maze.getMazeWidth();
+        this.mazeHeight = maze.getMazeHeight();
+
+        this.crossPoints = maze.getCrossPointGrid();
+        this.horizontalLines = maze.getHorizontalLineGrid();
+        this.verticalLines = maze.getVerticalLineGrid();
+    }
+
+    /**
+     * Create a template for a shape image. The size of the maze is derived from the size of the image, like in
+     * {@link MazeParameters}.
+     *
+     * @param shapeImage the shape image, in which the black pixels form the shape.
+     * @param cellWidth  the width of a cell in pixels.
+     * @param cellHeight the height of a cell in pixels.
+     * @return the template.
+     */
+    public static ShapeTemplate create(final BufferedImage shapeImage, final int cellWidth, final int cellHeight) {
+        if (shapeImage == null)
+            throw new IllegalArgumentException("The shape image is missing.");
+
+        final int mazeWidth = MazeParameters.getMazeSize(shapeImage.getWidth(), cellWidth);
+        final int mazeHeight = MazeParameters.getMazeSize(shapeImage.getHeight(), cellHeight);
+        final ShapeMask shapeMask = ShapeMask.sample(shapeImage, cellWidth, cellHeight, mazeWidth, mazeHeight);
+
+        // The template keeps the layers of this (heap) maze, which is not used for anything else.
+        final Maze maze = new Maze(new MazeParameters(mazeHeight, mazeWidth, cellHeight, cellWidth, null, null, 0));
+        maze.limitMazeAreaToShape(shapeMask);
+
+        return new ShapeTemplate(maze);
+    }
+
+    public int getCellWidth() {
+        return cellWidth;
+    }
+
+    public int getCellHeight() {
+        return cellHeight;
+    }
+
+    public int getMazeWidth() {
+        return mazeWidth;
+    }
+
+    public int getMazeHeight() {
+        return mazeHeight;
+    }
+
+    /**
+     * Get the memory that is used by the wall layers.
+     *
+     * @return the size in bytes.
+     */
+    public long getSizeInBytes() {
+        return crossPoints.getSizeInBytes() + horizontalLines.getSizeInBytes() + verticalLines.getSizeInBytes();
+    }
+
+    @Override
+    public void getOutsidePoints(final int row, final long[] words) {
+        crossPoints.getRowWords(row, words);
+    }
+
+    BitGrid getCrossPoints() {
+        return crossPoints;
+    }
+
+    BitGrid getHorizontalLines() {
+        return horizontalLines;
+    }
+
+    BitGrid getVerticalLines() {
+        return verticalLines;
+    }
+}
@@ -0,0 +1,160 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Bounded cache of shape templates, keyed by the content hash (SHA-256) of the shape image file and the cell size. On
+ * a hit, the image is not decoded or sampled again; only the file is read to compute its hash. The least recently used
+ * templates are evicted when the templates use more memory than the configured maximum (a template that is larger
+ * than the maximum is returned but not kept). This class is thread-safe.
+ */
+public class ShapeTemplateCache {
+    private final long maximumBytes;
+
+    /**
+     * The templates in access order.
+     */
+    private final LinkedHashMap<TemplateKey, ShapeTemplate> templates = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long cachedBytes;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Create a shape template cache.
+     *
+     * @param maximumBytes the maximum memory of the cached templates in bytes.
+     */
+    public ShapeTemplateCache(final long maximumBytes) {
+        this.maximumBytes = maximumBytes;
+    }
+
+    /**
+     * Get the template for a shape image file, creating it if it is not in the cache.
+     *
+     * @param imageFile  the shape image file.
+     * @param cellWidth  the width of a cell in pixels.
+     * @param cellHeight the height of a cell in pixels.
+     * @return the template.
+     * @throws IOException if the file cannot be read or is not a supported image.
+     */
+    public ShapeTemplate getTemplate(final Path imageFile, final int cellWidth, final int cellHeight)
+            throws IOException {
+        final byte[] imageBytes = Files.readAllBytes(imageFile);
+        final TemplateKey key = new TemplateKey(getContentHash(imageBytes), cellWidth, cellHeight);
+
+        synchronized (this) {
+            final ShapeTemplate template = templates.get(key);
+
+            if (template != null) {
+                hitCount++;
+                return template;
+            }
+
+            missCount++;
+        }
+
+        // The template is created outside the lock, so other shapes can be looked up in the meantime.
+        final BufferedImage shapeImage = ImageIO.read(new ByteArrayInputStream(imageBytes));
+        if (shapeImage == null)
+            throw new IOException("Unsupported shape image format: " + imageFile + ".");
+
+        final ShapeTemplate template = ShapeTemplate.create(shapeImage, cellWidth, cellHeight);
+
+        synchronized (this) {
+            final ShapeTemplate previousTemplate = templates.put(key, template);
+
+            if (previousTemplate != null)
+                cachedBytes -= previousTemplate.getSizeInBytes();
+
+            cachedBytes += template.getSizeInBytes();
+            evictTemplates();
+        }
+
+        return template;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int getTemplateCount() {
+        return templates.size();
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Remove all templates (the hit and miss counters are kept).
+     */
+    public synchronized void clear() {
+        templates.clear();
+        cachedBytes = 0;
+    }
+
+    private void evictTemplates() {
+        final Iterator<Map.Entry<TemplateKey, ShapeTemplate>> iterator = templates.entrySet().iterator();
+
+        while (cachedBytes > maximumBytes && iterator.hasNext()) {
+            cachedBytes -= iterator.next().getValue().getSizeInBytes();
+            iterator.remove();
+        }
+    }
+
+    private static byte[] getContentHash(final byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * Cache key: the content hash of the shape image and the cell size.
+     */
+    private static class TemplateKey {
+        private final byte[] contentHash;
+        private final int cellWidth;
+        private final int cellHeight;
+
+        TemplateKey(final byte[] contentHash, final int cellWidth, final int cellHeight) {
+            this.contentHash = contentHash;
+            this.cellWidth = cellWidth;
+            this.cellHeight = cellHeight;
+        }
+
+        @Override
+        public boolean equals(final Object object) {
+            if (!(object instanceof TemplateKey))
+                return false;
+
+            final TemplateKey other = (TemplateKey) object;
+
+            return cellWidth == other.cellWidth && cellHeight == other.cellHeight
+                   && Arrays.equals(contentHash, other.contentHash);
+        }
+
+        @Override
+        public int hashCode() {
+            return (Arrays.hashCode(contentHash) * 31 + cellWidth) * 31 + cellHeight;
+        }
+    }
+}
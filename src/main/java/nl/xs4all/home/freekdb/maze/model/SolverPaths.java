@@ -0,0 +1,49 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Helper methods for solvers that record for each reached cell the direction in which it was entered.
+ */
+final class SolverPaths {
+    /**
+     * Marker for the start cell in a came-from array (any value that is not 0 and not 1 + a direction).
+     */
+    static final byte START = 5;
+
+    private SolverPaths() {
+    }
+
+    /**
+     * Get the direction that points back.
+     *
+     * @param direction the direction.
+     * @return the opposite direction.
+     */
+    static int getOppositeDirection(final int direction) {
+        return (direction + 2) & 3;
+    }
+
+    /**
+     * Reconstruct a path by walking back from the end cell to the start cell.
+     *
+     * @param maze     the maze.
+     * @param cameFrom for each reached cell 1 + the direction in which it was entered, or START for the start cell.
+     * @param endCell  the index of the end cell.
+     * @return the cell indices of the path from the start cell to the end cell.
+     */
+    static int[] buildPath(final Maze maze, final byte[] cameFrom, final int endCell) {
+        int pathLength = 1;
+        for (int cell = endCell; cameFrom[cell] != START; pathLength++)
+            cell = maze.getNeighbour(cell, getOppositeDirection(cameFrom[cell] - 1));
+
+        final int[] path = new int[pathLength];
+        int cell = endCell;
+        for (int pathIndex = pathLength - 1; pathIndex >= 0; pathIndex--) {
+            path[pathIndex] = cell;
+
+            if (pathIndex > 0)
+                cell = maze.getNeighbour(cell, getOppositeDirection(cameFrom[cell] - 1));
+        }
+
+        return path;
+    }
+}
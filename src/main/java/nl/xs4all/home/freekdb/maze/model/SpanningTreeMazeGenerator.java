@@ -0,0 +1,175 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Base class for generators that carve a spanning tree of passages between the cells of a maze.
+ * <p>
+ * The shape of the maze is honoured: a cell is part of the maze if at least one of its corners is not filled, and the
+ * wall between two such cells can be carved if it was not drawn before generation (the walls on the border of the
+ * shape are kept). All carvable walls are closed first, then the subclass opens a subset of them that connects the
+ * cells of each part of the shape without loops. Finally all cross points are filled.
+ */
+abstract class SpanningTreeMazeGenerator implements MazeGenerator {
+    private Maze maze;
+    private int mazeWidth;
+
+    private BitGrid horizontalLines;
+    private BitGrid verticalLines;
+
+    /**
+     * The walls that can be carved between a cell and its right neighbour (indexed like the cells).
+     */
+    private BitGrid carvableRight;
+
+    /**
+     * The walls that can be carved between a cell and the neighbour below it (indexed like the cells).
+     */
+    private BitGrid carvableDown;
+
+    @Override
+    public void generate(final Maze maze, final RandomSource randomGenerator) {
+        this.maze = maze;
+        this.mazeWidth = maze.getMazeWidth();
+        this.horizontalLines = maze.getHorizontalLineGrid();
+        this.verticalLines = maze.getVerticalLineGrid();
+        this.carvableRight = maze.createWorkGrid(maze.getMazeHeight(), mazeWidth);
+        this.carvableDown = maze.createWorkGrid(maze.getMazeHeight(), mazeWidth);
+
+        try {
+            closeCarvableWalls();
+            carvePassages(maze, randomGenerator);
+            fillCrossPoints(maze.getCrossPointGrid());
+        } finally {
+            this.maze = null;
+            this.horizontalLines = null;
+            this.verticalLines = null;
+            this.carvableRight = null;
+            this.carvableDown = null;
+        }
+    }
+
+    /**
+     * Carve passages between the cells, using {@link #getCarvableDirections(int)} and {@link #carve(int, int)}.
+     *
+     * @param maze            the maze to generate the walls for.
+     * @param randomGenerator the random number generator to use.
+     */
+    abstract void carvePassages(Maze maze, RandomSource randomGenerator);
+
+    /**
+     * Get the directions in which the wall between a cell and its neighbour can be carved (whether it is carved
+     * already or not).
+     *
+     * @param cell the index of the cell.
+     * @return a bit mask with bit <code>1 &lt;&lt; direction</code> set for each carvable direction.
+     */
+    int getCarvableDirections(final int cell) {
+        final int x = cell % mazeWidth;
+        final int y = cell / mazeWidth;
+        int directions = 0;
+
+        if (x > 0 && carvableRight.get(y, x - 1))
+            directions |= 1 << Maze.LEFT;
+        if (carvableRight.get(y, x))
+            directions |= 1 << Maze.RIGHT;
+        if (y > 0 && carvableDown.get(y - 1, x))
+            directions |= 1 << Maze.UP;
+        if (carvableDown.get(y, x))
+            directions |= 1 << Maze.DOWN;
+
+        return directions;
+    }
+
+    /**
+     * Remove the wall between a cell and its neighbour.
+     *
+     * @param cell      the index of the cell.
+     * @param direction the direction of the neighbour, which must be carvable.
+     * @return the index of the neighbour.
+     */
+    int carve(final int cell, final int direction) {
+        final int x = cell % mazeWidth;
+        final int y = cell / mazeWidth;
+
+        switch (direction) {
+            case Maze.LEFT:
+                verticalLines.set(y, x, false);
+                break;
+
+            case Maze.RIGHT:
+                verticalLines.set(y, x + 1, false);
+                break;
+
+            case Maze.UP:
+                horizontalLines.set(y, x, false);
+                break;
+
+            default:
+                horizontalLines.set(y + 1, x, false);
+                break;
+        }
+
+        return maze.getNeighbour(cell, direction);
+    }
+
+    /**
+     * Pick one of the directions in a mask at random.
+     *
+     * @param directions      the bit mask of directions, which must not be empty.
+     * @param randomGenerator the random number generator to use.
+     * @return the direction.
+     */
+    static int pickDirection(final int directions, final RandomSource randomGenerator) {
+        final int count = Integer.bitCount(directions);
+        int remaining = directions;
+
+        // Drop a random number of the lowest directions; the lowest remaining one is picked.
+        if (count > 1)
+            for (int skip = randomGenerator.nextInt(count); skip > 0; skip--)
+                remaining &= remaining - 1;
+
+        return Integer.numberOfTrailingZeros(remaining);
+    }
+
+    private void closeCarvableWalls() {
+        final BitGrid crossPoints = maze.getCrossPointGrid();
+        final int mazeHeight = maze.getMazeHeight();
+
+        for (int y = 0; y < mazeHeight; y++)
+            for (int x = 0; x < mazeWidth; x++)
+                if (isInside(crossPoints, x, y)) {
+                    if (x + 1 < mazeWidth && isInside(crossPoints, x + 1, y) && !verticalLines.get(y, x + 1)) {
+                        carvableRight.set(y, x);
+                        verticalLines.set(y, x + 1);
+                    }
+
+                    if (y + 1 < mazeHeight && isInside(crossPoints, x, y + 1) && !horizontalLines.get(y + 1, x)) {
+                        carvableDown.set(y, x);
+                        horizontalLines.set(y + 1, x);
+                    }
+                }
+    }
+
+    /**
+     * Determine whether a cell is part of the maze shape, which is the case if at least one of its corners is not
+     * filled.
+     *
+     * @param crossPoints the cross points of the maze.
+     * @param x           the column of the cell.
+     * @param y           the row of the cell.
+     * @return whether the cell is inside the shape.
+     */
+    static boolean isInside(final BitGrid crossPoints, final int x, final int y) {
+        return !crossPoints.get(y, x) || !crossPoints.get(y, x + 1) || !crossPoints.get(y + 1, x)
+               || !crossPoints.get(y + 1, x + 1);
+    }
+
+    /**
+     * Fill all cross points, like the curly line generator does.
+     *
+     * @param crossPoints the cross points of the maze.
+     */
+    static void fillCrossPoints(final BitGrid crossPoints) {
+        for (int row = 0; row < crossPoints.getRowCount(); row++)
+            crossPoints.fillRow(row);
+    }
+}
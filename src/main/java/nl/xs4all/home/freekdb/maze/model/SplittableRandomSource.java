@@ -0,0 +1,25 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random source based on <code>java.util.SplittableRandom</code>, which is faster than <code>java.util.Random</code>
+ * because it does not synchronize its state.
+ */
+public class SplittableRandomSource implements RandomSource {
+    private final SplittableRandom random;
+
+    public SplittableRandomSource(final long randomSeed) {
+        this.random = new SplittableRandom(randomSeed);
+    }
+
+    @Override
+    public int nextInt(final int bound) {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return random.nextBoolean();
+    }
+}
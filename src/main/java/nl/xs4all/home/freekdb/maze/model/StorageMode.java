@@ -0,0 +1,16 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * The ways in which the layers of a maze (cross points, horizontal lines and vertical lines) can be stored.
+ */
+public enum StorageMode {
+    /**
+     * Store the layers in packed <code>long</code> arrays on the Java heap.
+     */
+    HEAP,
+
+    /**
+     * Store the layers in a memory-mapped file, so the operating system page cache holds the data instead of the heap.
+     */
+    MEMORY_MAPPED
+}
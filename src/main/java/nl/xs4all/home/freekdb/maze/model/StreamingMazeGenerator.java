@@ -0,0 +1,262 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.io.IOException;
+
+/**
+ * Generates a maze row by row with Eller's algorithm (see {@link EllerMazeGenerator}) and passes every finished row
+ * to a {@link MazeRowSink}, so the maze never has to be in memory as a whole. Only a sliding window of three rows of
+ * cross points, two rows of horizontal lines and one row of vertical lines is kept, which makes the memory use
+ * proportional to the maze width and independent of the maze height. This is meant for very long mazes, like mazes
+ * that are printed on a continuous roll.
+ * <p>
+ * The shape can be supplied one row of cross points at a time by a {@link ShapeRowSource}, which is read from the top
+ * to the bottom; its circumference is traced in the same way as by {@link Maze#limitMazeAreaToShape(ShapeMask)}. For
+ * a rectangular maze the result is the same as generating a <code>Maze</code> with the <code>EllerMazeGenerator</code>
+ * and the same random seed. With a shape, the sets that the <code>EllerMazeGenerator</code> joins afterwards when they
+ * got cut off cannot be joined that way here, because the rows above have already been written. Instead, the shape is
+ * read up to 258 rows ahead, to determine its connectivity in the 64 to 256 rows below each row (see
+ * {@link ShapeConnectivity}), and such sets are joined in their own row. Parts of the shape that only connect further
+ * down are treated as separate, so a set is sometimes joined in its row while it would have met the other set below;
+ * this opens a few more walls in the row, but never a cycle. Each part of the shape then gets a perfect maze, like
+ * with the <code>EllerMazeGenerator</code>, although the walls that are opened for this can differ. The memory use
+ * stays proportional to the maze width.
+ */
+public class StreamingMazeGenerator {
+    private static final int CROSS_POINT_WINDOW = 3;
+    private static final int HORIZONTAL_LINE_WINDOW = 2;
+    private static final int VERTICAL_LINE_WINDOW = 1;
+
+    /**
+     * The minimum number of rows below a row of cells that are used for its shape connectivity.
+     */
+    private static final int SHAPE_LOOKAHEAD_ROWS = 64;
+
+    /**
+     * The number of rows of cells of a pass that determines the shape connectivity: all but the last lookahead are
+     * kept, so every row is traced 4/3 times on average.
+     */
+    private static final int SHAPE_PASS_ROWS = 4 * SHAPE_LOOKAHEAD_ROWS;
+
+    /**
+     * The rows of the shape that are buffered: a pass reads up to two rows of cross points below its last row of
+     * cells, and starts at the row below the row of cells that is being generated.
+     */
+    private static final int SHAPE_BUFFER_WINDOW = SHAPE_PASS_ROWS + 2;
+
+    private final MazeParameters mazeParameters;
+    private final ShapeRowSource shapeRowSource;
+
+    /**
+     * Create a streaming maze generator.
+     *
+     * @param mazeParameters the parameters of the maze (the shape image is not used).
+     * @param shapeRowSource the source of the shape or null for a rectangular maze.
+     */
+    public StreamingMazeGenerator(final MazeParameters mazeParameters, final ShapeRowSource shapeRowSource) {
+        if (mazeParameters.getMazeWidth() < 1 || mazeParameters.getMazeHeight() < 1)
+            throw new IllegalArgumentException("Invalid maze size: " + mazeParameters.getMazeWidth() + " x "
+                                               + mazeParameters.getMazeHeight() + ".");
+
+        this.mazeParameters = mazeParameters;
+        this.shapeRowSource = shapeRowSource;
+    }
+
+    /**
+     * Generate the maze and write its rows to a sink.
+     *
+     * @param sink the sink to write the rows to.
+     * @throws IOException if the sink fails to write a row.
+     */
+    public void generate(final MazeRowSink sink) throws IOException {
+        final long randomSeed = mazeParameters.getRandomSeed() != 0
+                                ? mazeParameters.getRandomSeed()
+                                : System.currentTimeMillis();
+        final int mazeWidth = mazeParameters.getMazeWidth();
+        final int mazeHeight = mazeParameters.getMazeHeight();
+
+        final RowWindowBitGrid crossPoints = new RowWindowBitGrid(mazeHeight + 1, mazeWidth + 1, CROSS_POINT_WINDOW);
+        final RowWindowBitGrid horizontalLines = new RowWindowBitGrid(mazeHeight + 1, mazeWidth,
+                                                                      HORIZONTAL_LINE_WINDOW);
+        final RowWindowBitGrid verticalLines = new RowWindowBitGrid(mazeHeight, mazeWidth + 1, VERTICAL_LINE_WINDOW);
+
+        final long[] shapeWords = new long[crossPoints.getWordsPerRow()];
+        final long[] crossPointWords = new long[crossPoints.getWordsPerRow()];
+        final long[] horizontalLineWords = new long[horizontalLines.getWordsPerRow()];
+        final long[] verticalLineWords = new long[verticalLines.getWordsPerRow()];
+
+        final ShapeBorderTracer borderTracer = shapeRowSource != null ? new ShapeBorderTracer(mazeWidth) : null;
+        final ShapeLookahead shapeLookahead = borderTracer != null ? new ShapeLookahead(borderTracer) : null;
+        final EllerMazeGenerator rowGenerator = new EllerMazeGenerator();
+        rowGenerator.start(mazeWidth, mazeHeight, crossPoints, horizontalLines, verticalLines,
+                           mazeParameters.getRandomMode().createRandomSource(randomSeed),
+                           shapeLookahead != null ? shapeLookahead.shapeConnectivity : null);
+
+        sink.startMaze(mazeParameters.withRandomSeed(randomSeed));
+
+        try {
+            loadCrossPoints(crossPoints, 0, shapeLookahead, shapeWords);
+            loadCrossPoints(crossPoints, 1, shapeLookahead, shapeWords);
+            horizontalLines.fillRow(0);
+
+            for (int y = 0; y < mazeHeight; y++) {
+                if (y + 2 <= mazeHeight)
+                    loadCrossPoints(crossPoints, y + 2, shapeLookahead, shapeWords);
+
+                traceHorizontalLines(crossPoints, horizontalLines, y + 1, borderTracer);
+                traceVerticalLines(crossPoints, verticalLines, y, borderTracer);
+
+                if (shapeLookahead != null && y + 1 < mazeHeight)
+                    shapeLookahead.prepareRow(y + 1);
+
+                rowGenerator.generateRow(y);
+
+                crossPoints.getRowWords(y, crossPointWords);
+                horizontalLines.getRowWords(y, horizontalLineWords);
+                verticalLines.getRowWords(y, verticalLineWords);
+                sink.writeRow(y, crossPointWords, horizontalLineWords, verticalLineWords);
+            }
+
+            crossPoints.fillRow(mazeHeight);
+            crossPoints.getRowWords(mazeHeight, crossPointWords);
+            horizontalLines.getRowWords(mazeHeight, horizontalLineWords);
+            sink.writeRow(mazeHeight, crossPointWords, horizontalLineWords, null);
+        } finally {
+            rowGenerator.finish();
+        }
+
+        sink.finishMaze();
+    }
+
+    /**
+     * Load a row of cross points: the border and the points outside the shape are filled.
+     */
+    private void loadCrossPoints(final RowWindowBitGrid crossPoints, final int row, final ShapeRowSource shapeRows,
+                                 final long[] shapeWords) {
+        final int mazeWidth = mazeParameters.getMazeWidth();
+
+        if (row == 0 || row == mazeParameters.getMazeHeight())
+            crossPoints.fillRow(row);
+        else {
+            if (shapeRows != null)
+                shapeRows.getOutsidePoints(row, shapeWords);
+
+            crossPoints.setRowWords(row, shapeWords);
+            crossPoints.set(row, 0);
+            crossPoints.set(row, mazeWidth);
+        }
+    }
+
+    /**
+     * Draw the horizontal lines in a row that are on the circumference of the shape (see {@link ShapeBorderTracer}).
+     * The lines of the bottom border are all drawn.
+     */
+    private void traceHorizontalLines(final RowWindowBitGrid crossPoints, final RowWindowBitGrid horizontalLines,
+                                      final int row, final ShapeBorderTracer borderTracer) {
+        horizontalLines.clearRow(row);
+
+        if (row == mazeParameters.getMazeHeight())
+            horizontalLines.fillRow(row);
+        else if (borderTracer != null)
+            borderTracer.traceHorizontalLines(crossPoints, horizontalLines, row);
+    }
+
+    /**
+     * Draw the vertical lines in a row that are on the circumference of the shape or on the left or right border.
+     */
+    private void traceVerticalLines(final RowWindowBitGrid crossPoints, final RowWindowBitGrid verticalLines,
+                                    final int row, final ShapeBorderTracer borderTracer) {
+        verticalLines.clearRow(row);
+        verticalLines.set(row, 0);
+        verticalLines.set(row, mazeParameters.getMazeWidth());
+
+        if (borderTracer != null)
+            borderTracer.traceVerticalLines(crossPoints, verticalLines, row);
+    }
+
+    /**
+     * Reads the shape from the top to the bottom, buffering the rows that are read ahead, and determines the
+     * connectivity of the shape below the rows of cells in passes: every pass traces the rows of a window from the
+     * bottom to the top and keeps the connectivity of all but its last lookahead rows.
+     */
+    private class ShapeLookahead implements ShapeRowSource {
+        private final ShapeBorderTracer borderTracer;
+        private final ShapeConnectivity shapeConnectivity;
+
+        private final RowWindowBitGrid shapeBuffer;
+        private final long[] bufferWords;
+        private int nextSourceRow = 1;
+
+        /**
+         * The grids of a pass: the same window of rows as for generating the maze, but from the bottom to the top.
+         */
+        private final RowWindowBitGrid passCrossPoints;
+        private final RowWindowBitGrid passHorizontalLines;
+        private final RowWindowBitGrid passVerticalLines;
+        private final long[] passShapeWords;
+
+        /**
+         * The last row of cells of which the connectivity has been determined.
+         */
+        private int lastPreparedRow;
+
+        ShapeLookahead(final ShapeBorderTracer borderTracer) {
+            final int mazeWidth = mazeParameters.getMazeWidth();
+            final int mazeHeight = mazeParameters.getMazeHeight();
+
+            this.borderTracer = borderTracer;
+            this.shapeConnectivity = new ShapeConnectivity(mazeWidth, mazeHeight, SHAPE_PASS_ROWS);
+
+            this.shapeBuffer = new RowWindowBitGrid(mazeHeight + 1, mazeWidth + 1, SHAPE_BUFFER_WINDOW);
+            this.bufferWords = new long[shapeBuffer.getWordsPerRow()];
+
+            this.passCrossPoints = new RowWindowBitGrid(mazeHeight + 1, mazeWidth + 1, CROSS_POINT_WINDOW);
+            this.passHorizontalLines = new RowWindowBitGrid(mazeHeight + 1, mazeWidth, HORIZONTAL_LINE_WINDOW);
+            this.passVerticalLines = new RowWindowBitGrid(mazeHeight, mazeWidth + 1, VERTICAL_LINE_WINDOW);
+            this.passShapeWords = new long[passCrossPoints.getWordsPerRow()];
+        }
+
+        @Override
+        public void getOutsidePoints(final int row, final long[] words) {
+            while (nextSourceRow <= row) {
+                shapeRowSource.getOutsidePoints(nextSourceRow, bufferWords);
+                shapeBuffer.setRowWords(nextSourceRow, bufferWords);
+                nextSourceRow++;
+            }
+
+            if (row <= nextSourceRow - 1 - SHAPE_BUFFER_WINDOW)
+                throw new IllegalStateException("Shape row " + row + " is no longer buffered.");
+
+            shapeBuffer.getRowWords(row, words);
+        }
+
+        /**
+         * Make sure that the connectivity of a row of cells is available, which is used when the row above it is
+         * generated.
+         *
+         * @param row the row of cells, from one to the maze height (exclusive).
+         */
+        void prepareRow(final int row) {
+            if (row <= lastPreparedRow)
+                return;
+
+            final int mazeHeight = mazeParameters.getMazeHeight();
+            final int bottomRow = (int) Math.min((long) row + SHAPE_PASS_ROWS - 1, mazeHeight - 1);
+
+            shapeConnectivity.startPass();
+
+            for (int crossPointRow = Math.min(bottomRow + 2, mazeHeight); crossPointRow > bottomRow; crossPointRow--)
+                loadCrossPoints(passCrossPoints, crossPointRow, this, passShapeWords);
+
+            for (int y = bottomRow; y >= row; y--) {
+                loadCrossPoints(passCrossPoints, y, this, passShapeWords);
+
+                traceHorizontalLines(passCrossPoints, passHorizontalLines, y + 1, borderTracer);
+                traceVerticalLines(passCrossPoints, passVerticalLines, y, borderTracer);
+
+                shapeConnectivity.addRow(y, passCrossPoints, passHorizontalLines, passVerticalLines);
+            }
+
+            lastPreparedRow = (int) Math.min((long) row + SHAPE_PASS_ROWS - SHAPE_LOOKAHEAD_ROWS - 1, bottomRow);
+        }
+    }
+}
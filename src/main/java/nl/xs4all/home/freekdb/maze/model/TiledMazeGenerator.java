@@ -0,0 +1,203 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import nl.xs4all.home.freekdb.maze.utilities.IntUnionFind;
+
+/**
+ * Generates a maze in parallel by splitting it into tiles. The tiles are first closed off from each other with walls,
+ * then each tile is generated with its own curly line generator and a random seed derived from the maze seed and the
+ * tile index. Finally the tiles are stitched together: the walls between tiles are visited in a random (seeded) order
+ * and a wall is removed when the cells on both sides are not connected yet, so no loops are introduced between tiles.
+ * <p>
+ * The result only depends on the random seed and the tile size, not on the number of threads. Tiles are a multiple of
+ * 64 columns wide, so tiles never share a word of the bit grids and can be written concurrently.
+ */
+class TiledMazeGenerator {
+    private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+    private static final long STITCH_SEED_SALT = 0x5DEECE66DL;
+
+    private static final long HORIZONTAL_SEAM = 1L << 62;
+    private static final long ROW_MASK = 0x3FFFFFFFL;
+    private static final long COLUMN_MASK = 0xFFFFFFFFL;
+
+    private final Maze maze;
+    private final long randomSeed;
+    private final RandomMode randomMode;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final int tileColumnCount;
+    private final int tileRowCount;
+
+    private final BitGrid crossPoints;
+    private final BitGrid horizontalLines;
+    private final BitGrid verticalLines;
+
+    private IntUnionFind connectedCells;
+
+    /**
+     * Create a tiled maze generator.
+     *
+     * @param maze       the maze to generate the walls for.
+     * @param randomSeed the random seed of the maze.
+     * @param randomMode the random number generator to use for each tile.
+     * @param tileSize   the tile height in cells; the tile width is rounded up to a multiple of 64 cells.
+     */
+    TiledMazeGenerator(final Maze maze, final long randomSeed, final RandomMode randomMode, final int tileSize) {
+        if (tileSize < 2)
+            throw new IllegalArgumentException("The tile size should be at least 2: " + tileSize + ".");
+
+        this.maze = maze;
+        this.randomSeed = randomSeed;
+        this.randomMode = randomMode;
+        this.tileWidth = BitGrid.getWordsPerRow(tileSize) * BitGrid.BITS_PER_WORD;
+        this.tileHeight = tileSize;
+        this.tileColumnCount = (maze.getMazeWidth() + tileWidth - 1) / tileWidth;
+        this.tileRowCount = (maze.getMazeHeight() + tileHeight - 1) / tileHeight;
+        this.crossPoints = maze.getCrossPointGrid();
+        this.horizontalLines = maze.getHorizontalLineGrid();
+        this.verticalLines = maze.getVerticalLineGrid();
+    }
+
+    /**
+     * Generate the maze.
+     *
+     * @param pool the fork-join pool to generate the tiles in.
+     */
+    void generate(final ForkJoinPool pool) {
+        final long[] seams = closeTiles();
+
+        connectedCells = new IntUnionFind(maze.getCellCount());
+        pool.submit(() -> IntStream.range(0, tileColumnCount * tileRowCount).parallel().forEach(this::generateTile))
+                .join();
+
+        stitchTiles(seams);
+        connectedCells = null;
+    }
+
+    /**
+     * Draw walls between the tiles (only inside the maze shape) and fill the cross points on the tile borders.
+     *
+     * @return the wall segments between tiles that were added, which are the candidates for stitching.
+     */
+    private long[] closeTiles() {
+        final int mazeWidth = maze.getMazeWidth();
+        final int mazeHeight = maze.getMazeHeight();
+        final long[] seams = new long[(tileColumnCount - 1) * mazeHeight + (tileRowCount - 1) * mazeWidth];
+        int seamCount = 0;
+
+        // Determine the seams first: a segment is only part of the maze if its end points are not both filled yet.
+        for (int column = tileWidth; column < mazeWidth; column += tileWidth)
+            for (int row = 0; row < mazeHeight; row++)
+                if (!crossPoints.get(row, column) || !crossPoints.get(row + 1, column))
+                    seams[seamCount++] = ((long) row << 32) | column;
+
+        for (int row = tileHeight; row < mazeHeight; row += tileHeight)
+            for (int column = 0; column < mazeWidth; column++)
+                if (!crossPoints.get(row, column) || !crossPoints.get(row, column + 1))
+                    seams[seamCount++] = HORIZONTAL_SEAM | ((long) row << 32) | column;
+
+        for (int seamIndex = 0; seamIndex < seamCount; seamIndex++)
+            setSeamWall(seams[seamIndex], true);
+
+        for (int column = tileWidth; column < mazeWidth; column += tileWidth)
+            for (int row = 0; row <= mazeHeight; row++)
+                crossPoints.set(row, column);
+
+        for (int row = tileHeight; row < mazeHeight; row += tileHeight)
+            for (int column = 0; column <= mazeWidth; column++)
+                crossPoints.set(row, column);
+
+        final long[] result = new long[seamCount];
+        System.arraycopy(seams, 0, result, 0, seamCount);
+
+        return result;
+    }
+
+    /**
+     * Generate a single tile and register which of its cells are connected.
+     *
+     * @param tileIndex the index of the tile (row-major).
+     */
+    private void generateTile(final int tileIndex) {
+        final int left = (tileIndex % tileColumnCount) * tileWidth;
+        final int top = (tileIndex / tileColumnCount) * tileHeight;
+        final int right = Math.min(left + tileWidth, maze.getMazeWidth());
+        final int bottom = Math.min(top + tileHeight, maze.getMazeHeight());
+
+        if (right - left >= 2 && bottom - top >= 2) {
+            final RandomSource randomGenerator = randomMode.createRandomSource(getTileSeed(tileIndex));
+
+            new CurlyLineGenerator(maze, randomGenerator, randomMode.usesDirectionMask())
+                    .generateRegion(left, top, right, bottom);
+        }
+
+        for (int y = top; y < bottom; y++)
+            for (int x = left; x < right; x++) {
+                final int cell = maze.getCellIndex(x, y);
+
+                if (x + 1 < right && !verticalLines.get(y, x + 1))
+                    connectedCells.union(cell, cell + 1);
+
+                if (y + 1 < bottom && !horizontalLines.get(y + 1, x))
+                    connectedCells.union(cell, cell + maze.getMazeWidth());
+            }
+    }
+
+    /**
+     * Remove walls between tiles (in a random order) where they separate cells that are not connected yet.
+     *
+     * @param seams the wall segments between tiles.
+     */
+    private void stitchTiles(final long[] seams) {
+        final RandomSource randomGenerator = randomMode.createRandomSource(mix(randomSeed ^ STITCH_SEED_SALT));
+
+        for (int seamIndex = seams.length - 1; seamIndex > 0; seamIndex--) {
+            final int otherIndex = randomGenerator.nextInt(seamIndex + 1);
+            final long seam = seams[seamIndex];
+            seams[seamIndex] = seams[otherIndex];
+            seams[otherIndex] = seam;
+        }
+
+        for (final long seam : seams) {
+            final int row = (int) ((seam >>> 32) & ROW_MASK);
+            final int column = (int) (seam & COLUMN_MASK);
+            final boolean horizontal = (seam & HORIZONTAL_SEAM) != 0;
+            final int cell1 = horizontal ? maze.getCellIndex(column, row - 1) : maze.getCellIndex(column - 1, row);
+            final int cell2 = maze.getCellIndex(column, row);
+
+            if (connectedCells.union(cell1, cell2))
+                setSeamWall(seam, false);
+        }
+    }
+
+    private void setSeamWall(final long seam, final boolean wall) {
+        final int row = (int) ((seam >>> 32) & ROW_MASK);
+        final int column = (int) (seam & COLUMN_MASK);
+
+        if ((seam & HORIZONTAL_SEAM) != 0)
+            horizontalLines.set(row, column, wall);
+        else
+            verticalLines.set(row, column, wall);
+    }
+
+    private long getTileSeed(final int tileIndex) {
+        return mix(randomSeed + (tileIndex + 1) * SEED_INCREMENT);
+    }
+
+    /**
+     * Scramble a value with the SplitMix64 finalizer, so seeds of neighbouring tiles are unrelated.
+     *
+     * @param value the value to scramble.
+     * @return the scrambled value.
+     */
+    private static long mix(final long value) {
+        long result = value;
+
+        result = (result ^ (result >>> 30)) * 0xBF58476D1CE4E5B9L;
+        result = (result ^ (result >>> 27)) * 0x94D049BB133111EBL;
+
+        return result ^ (result >>> 31);
+    }
+}
@@ -0,0 +1,89 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.util.Arrays;
+
+/**
+ * Generator based on Wilson's algorithm, which picks each spanning tree of the cells with the same probability (a
+ * uniform spanning tree). Starting from a tree with a single cell, it repeatedly does a random walk from a cell that
+ * is not in the tree until the walk hits the tree, and adds the loop-erased walk to the tree. The first walks can be
+ * long, which makes this the slowest of the generators.
+ * <p>
+ * Memory: two bits per cell for the tree and the parts of the shape, a byte per cell for the walk directions and a
+ * stack of up to one index per cell to find the parts of the shape.
+ */
+public class WilsonMazeGenerator extends SpanningTreeMazeGenerator {
+    private static final int INITIAL_STACK_SIZE = 64;
+
+    @Override
+    void carvePassages(final Maze maze, final RandomSource randomGenerator) {
+        final BitGrid treeCells = maze.createWorkGrid(maze.getMazeHeight(), maze.getMazeWidth());
+
+        addRoots(maze, treeCells);
+
+        // The last direction taken from each cell during the current walk; following these from the start of the
+        // walk gives the walk with its loops erased.
+        final byte[] walkDirections = new byte[maze.getCellCount()];
+
+        for (int startCell = 0; startCell < maze.getCellCount(); startCell++)
+            if (!isMarked(maze, treeCells, startCell) && getCarvableDirections(startCell) != 0) {
+                int cell = startCell;
+
+                while (!isMarked(maze, treeCells, cell)) {
+                    final int direction = pickDirection(getCarvableDirections(cell), randomGenerator);
+
+                    walkDirections[cell] = (byte) direction;
+                    cell = maze.getNeighbour(cell, direction);
+                }
+
+                cell = startCell;
+
+                while (!isMarked(maze, treeCells, cell)) {
+                    treeCells.set(maze.getCellY(cell), maze.getCellX(cell));
+                    cell = carve(cell, walkDirections[cell]);
+                }
+            }
+    }
+
+    /**
+     * Add the first cell of every part of the shape to the tree, so every random walk ends in its own part.
+     *
+     * @param maze      the maze.
+     * @param treeCells the cells in the tree.
+     */
+    private void addRoots(final Maze maze, final BitGrid treeCells) {
+        final BitGrid reachedCells = maze.createWorkGrid(maze.getMazeHeight(), maze.getMazeWidth());
+        int[] stack = new int[INITIAL_STACK_SIZE];
+
+        for (int rootCell = 0; rootCell < maze.getCellCount(); rootCell++)
+            if (!isMarked(maze, reachedCells, rootCell) && getCarvableDirections(rootCell) != 0) {
+                int stackSize = 0;
+
+                treeCells.set(maze.getCellY(rootCell), maze.getCellX(rootCell));
+                reachedCells.set(maze.getCellY(rootCell), maze.getCellX(rootCell));
+                stack[stackSize++] = rootCell;
+
+                while (stackSize > 0) {
+                    final int cell = stack[--stackSize];
+                    final int directions = getCarvableDirections(cell);
+
+                    for (int direction = 0; direction < 4; direction++)
+                        if ((directions & (1 << direction)) != 0) {
+                            final int neighbour = maze.getNeighbour(cell, direction);
+
+                            if (!isMarked(maze, reachedCells, neighbour)) {
+                                reachedCells.set(maze.getCellY(neighbour), maze.getCellX(neighbour));
+
+                                if (stackSize == stack.length)
+                                    stack = Arrays.copyOf(stack, stack.length * 2);
+
+                                stack[stackSize++] = neighbour;
+                            }
+                        }
+                }
+            }
+    }
+
+    private static boolean isMarked(final Maze maze, final BitGrid cells, final int cell) {
+        return cells.get(maze.getCellY(cell), maze.getCellX(cell));
+    }
+}
@@ -0,0 +1,71 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+/**
+ * Random source based on the xoroshiro128++ generator by David Blackman and Sebastiano Vigna
+ * (see http://prng.di.unimi.it/). The state is initialized from the seed with the SplitMix64 generator.
+ */
+public class XoroshiroRandomSource implements RandomSource {
+    private long state0;
+    private long state1;
+
+    public XoroshiroRandomSource(final long randomSeed) {
+        long splitMixState = randomSeed;
+
+        splitMixState += 0x9E3779B97F4A7C15L;
+        this.state0 = mix(splitMixState);
+        splitMixState += 0x9E3779B97F4A7C15L;
+        this.state1 = mix(splitMixState);
+    }
+
+    private static long mix(final long value) {
+        long result = value;
+
+        result = (result ^ (result >>> 30)) * 0xBF58476D1CE4E5B9L;
+        result = (result ^ (result >>> 27)) * 0x94D049BB133111EBL;
+
+        return result ^ (result >>> 31);
+    }
+
+    /**
+     * Get the next 64 random bits.
+     *
+     * @return the random bits.
+     */
+    public long nextLong() {
+        final long s0 = state0;
+        long s1 = state1;
+        final long result = Long.rotateLeft(s0 + s1, 17) + s0;
+
+        s1 ^= s0;
+        state0 = Long.rotateLeft(s0, 49) ^ s1 ^ (s1 << 21);
+        state1 = Long.rotateLeft(s1, 28);
+
+        return result;
+    }
+
+    @Override
+    public int nextInt(final int bound) {
+        if (bound <= 0)
+            throw new IllegalArgumentException("The bound must be positive: " + bound + ".");
+
+        // Multiply-shift with rejection (Lemire), which maps 32 random bits onto the range without bias.
+        long product = (nextLong() >>> 32) * bound;
+        long low = product & 0xFFFFFFFFL;
+
+        if (low < bound) {
+            final long threshold = (0x100000000L - bound) % bound;
+
+            while (low < threshold) {
+                product = (nextLong() >>> 32) * bound;
+                low = product & 0xFFFFFFFFL;
+            }
+        }
+
+        return (int) (product >>> 32);
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+}
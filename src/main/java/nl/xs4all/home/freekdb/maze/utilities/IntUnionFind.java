@@ -0,0 +1,81 @@
+package nl.xs4all.home.freekdb.maze.utilities;
+
+/**
+ * Union-find (disjoint set) structure for the elements 0 until a given size, stored in primitive arrays. It uses union
+ * by rank and path halving, which makes a sequence of operations run in nearly linear time.
+ * <p>
+ * Operations on disjoint sets of elements can run concurrently, as long as no set is shared between threads.
+ */
+public class IntUnionFind {
+    /**
+     * The parent of each element; a root is its own parent.
+     */
+    private final int[] parents;
+
+    /**
+     * The rank (upper bound of the tree height) of each root.
+     */
+    private final byte[] ranks;
+
+    /**
+     * Create a union-find structure in which every element is in a set of its own.
+     *
+     * @param size the number of elements.
+     */
+    public IntUnionFind(final int size) {
+        this.parents = new int[size];
+        this.ranks = new byte[size];
+
+        for (int element = 0; element < size; element++)
+            parents[element] = element;
+    }
+
+    public int getSize() {
+        return parents.length;
+    }
+
+    /**
+     * Find the representative (root) of the set that contains an element.
+     *
+     * @param element the element.
+     * @return the root of the set.
+     */
+    public int find(final int element) {
+        int current = element;
+
+        while (parents[current] != current) {
+            // Path halving: let every other node on the path point to its grandparent.
+            parents[current] = parents[parents[current]];
+            current = parents[current];
+        }
+
+        return current;
+    }
+
+    /**
+     * Merge the sets that contain two elements.
+     *
+     * @param element1 the first element.
+     * @param element2 the second element.
+     * @return true if the elements were in different sets (which are now merged) and false if they were already in the
+     *         same set.
+     */
+    public boolean union(final int element1, final int element2) {
+        final int root1 = find(element1);
+        final int root2 = find(element2);
+
+        if (root1 == root2)
+            return false;
+
+        if (ranks[root1] < ranks[root2])
+            parents[root1] = root2;
+        else if (ranks[root1] > ranks[root2])
+            parents[root2] = root1;
+        else {
+            parents[root2] = root1;
+            ranks[root1]++;
+        }
+
+        return true;
+    }
+}
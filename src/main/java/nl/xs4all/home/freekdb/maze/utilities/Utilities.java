@@ -14,12 +14,15 @@ import javax.swing.JFrame;
  */
 public class Utilities {
     /**
-     * Converts an image into a buffered image.
+     * Converts an image into a buffered image. A buffered image is returned as it is (without conversion).
      *
      * @param image the image to be converted.
      * @return the converted buffered image.
      */
     public static BufferedImage toBufferedImage(final Image image) {
+        if (image instanceof BufferedImage)
+            return (BufferedImage) image;
+
         final BufferedImage bufferedImage = new BufferedImage(image.getWidth(null), image.getHeight(null),
                                                               BufferedImage.TYPE_INT_ARGB);
 
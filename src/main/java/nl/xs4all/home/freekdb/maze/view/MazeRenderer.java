@@ -0,0 +1,95 @@
+package nl.xs4all.home.freekdb.maze.view;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+
+import nl.xs4all.home.freekdb.maze.model.Maze;
+
+/**
+ * Draws the walls of a maze with <code>Graphics.drawLine</code>, both for the maze view and for headless export. The
+ * maze is drawn with a margin of one cell; the walls at the start point and the end point are left open.
+ */
+public class MazeRenderer {
+    /**
+     * The color of the walls.
+     */
+    public static final Color LINE_COLOR = Color.BLACK;
+
+    /**
+     * The color of the background.
+     */
+    public static final Color BACKGROUND_COLOR = Color.WHITE;
+
+    private MazeRenderer() {
+    }
+
+    /**
+     * Get the width of the rendered maze in pixels.
+     *
+     * @param maze the maze.
+     * @return the width in pixels.
+     */
+    public static int getImageWidth(final Maze maze) {
+        return maze.getCellWidth() * (maze.getMazeWidth() + 2);
+    }
+
+    /**
+     * Get the height of the rendered maze in pixels.
+     *
+     * @param maze the maze.
+     * @return the height in pixels.
+     */
+    public static int getImageHeight(final Maze maze) {
+        return maze.getCellHeight() * (maze.getMazeHeight() + 2);
+    }
+
+    /**
+     * Render a maze into a new black and white image.
+     *
+     * @param maze the maze to render.
+     * @return the new image.
+     */
+    public static BufferedImage createImage(final Maze maze) {
+        final BufferedImage image = new BufferedImage(getImageWidth(maze), getImageHeight(maze),
+                                                      BufferedImage.TYPE_BYTE_BINARY);
+        final Graphics2D graphics = image.createGraphics();
+
+        graphics.setColor(BACKGROUND_COLOR);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        drawLines(graphics, maze);
+        graphics.dispose();
+
+        return image;
+    }
+
+    /**
+     * Draw the walls of a maze.
+     *
+     * @param graphics the graphics to draw on.
+     * @param maze     the maze to draw.
+     */
+    public static void drawLines(final Graphics graphics, final Maze maze) {
+        final Point startPoint = maze.getStartPoint();
+        final Point endPoint = maze.getEndPoint();
+
+        graphics.setColor(LINE_COLOR);
+
+        for (int y = 0; y < (maze.getMazeHeight() + 1); y++)
+            for (int x = 0; x < (maze.getMazeWidth() + 1); x++) {
+                final boolean isStartPoint = startPoint != null && (x == startPoint.x) && (y == startPoint.y);
+                final boolean isEndPoint = endPoint != null && ((x - 1) == endPoint.x) && (y == endPoint.y);
+                final boolean regularPoint = !isStartPoint && !isEndPoint;
+
+                if (x < maze.getMazeWidth() && maze.hasHorizontalLine(y, x) && regularPoint)
+                    graphics.drawLine(maze.getCellWidth() * (x + 1), maze.getCellHeight() * (y + 1),
+                                      maze.getCellWidth() * (x + 2), maze.getCellHeight() * (y + 1));
+
+                if (y < maze.getMazeHeight() && maze.hasVerticalLine(y, x) && regularPoint)
+                    graphics.drawLine(maze.getCellWidth() * (x + 1), maze.getCellHeight() * (y + 1),
+                                      maze.getCellWidth() * (x + 1), maze.getCellHeight() * (y + 2));
+            }
+    }
+}
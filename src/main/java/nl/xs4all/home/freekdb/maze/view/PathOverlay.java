@@ -0,0 +1,209 @@
+package nl.xs4all.home.freekdb.maze.view;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import nl.xs4all.home.freekdb.maze.model.Maze;
+
+/**
+ * Persistent overlay layer with the current path of a solver. The path is updated incrementally: a pushed cell is
+ * painted with the connection to its predecessor and a popped (backtracked) cell is cleared or marked as a dead end,
+ * so each step only changes a few pixels and reports the rectangle that needs to be repainted.
+ * <p>
+ * The overlay is stored in tiles with two bits per pixel, which are only created where the path has been. It is not
+ * thread-safe: it is updated and painted on the event dispatch thread (see {@link SolverAnimation}).
+ */
+public class PathOverlay {
+    /**
+     * The color of the cells on the path.
+     */
+    public static final Color PATH_COLOR = Color.MAGENTA;
+
+    /**
+     * The color of the dead end cells.
+     */
+    public static final Color DEAD_END_COLOR = Color.RED;
+
+    private static final int TILE_SIZE = 256;
+
+    private static final int TRANSPARENT_INDEX = 0;
+    private static final int PATH_INDEX = 1;
+    private static final int DEAD_END_INDEX = 2;
+
+    private static final IndexColorModel COLOR_MODEL = createColorModel();
+
+    private final Maze maze;
+    private final boolean showDeadEnds;
+
+    private final int pointWidth;
+    private final int pointHeight;
+    private final int offsetWidth;
+    private final int offsetHeight;
+
+    /**
+     * The overlay tiles by key (row in the high and column in the low 32 bits).
+     */
+    private final Map<Long, BufferedImage> tiles = new HashMap<>();
+
+    private int[] path = new int[64];
+    private int pathLength;
+
+    /**
+     * Create an empty path overlay.
+     *
+     * @param maze         the maze that is solved.
+     * @param showDeadEnds whether to mark backtracked cells as dead ends (instead of clearing them).
+     */
+    public PathOverlay(final Maze maze, final boolean showDeadEnds) {
+        this.maze = maze;
+        this.showDeadEnds = showDeadEnds;
+
+        final boolean largeCells = maze.getCellWidth() > 6;
+        this.pointWidth = maze.getCellWidth() - (largeCells ? 5 : 1);
+        this.pointHeight = maze.getCellHeight() - (largeCells ? 5 : 1);
+        this.offsetWidth = largeCells ? 3 : 1;
+        this.offsetHeight = largeCells ? 3 : 1;
+    }
+
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    /**
+     * Add a cell to the end of the path.
+     *
+     * @param cellIndex the index of the cell.
+     * @return the rectangle that changed (in view coordinates).
+     */
+    public Rectangle push(final int cellIndex) {
+        if (pathLength == path.length)
+            path = Arrays.copyOf(path, path.length * 2);
+
+        path[pathLength++] = cellIndex;
+
+        final Rectangle changed = getConnectedBounds(pathLength - 1);
+        fillRectangle(changed, PATH_INDEX);
+
+        return changed;
+    }
+
+    /**
+     * Remove the last cell from the path (when the solver backtracks).
+     *
+     * @return the rectangle that changed (in view coordinates) or null if the path is empty.
+     */
+    public Rectangle pop() {
+        if (pathLength == 0)
+            return null;
+
+        final Rectangle changed = getConnectedBounds(pathLength - 1);
+        final int cellIndex = path[--pathLength];
+
+        fillRectangle(changed, TRANSPARENT_INDEX);
+
+        if (showDeadEnds)
+            fillRectangle(getCellBounds(cellIndex), DEAD_END_INDEX);
+
+        if (pathLength > 0)
+            fillRectangle(getCellBounds(path[pathLength - 1]), PATH_INDEX);
+
+        return changed;
+    }
+
+    /**
+     * Paint the overlay tiles that intersect a clip rectangle.
+     *
+     * @param graphics the graphics to paint on.
+     * @param clip     the clip rectangle.
+     */
+    public void paint(final Graphics graphics, final Rectangle clip) {
+        final int firstTileColumn = Math.max(0, clip.x / TILE_SIZE);
+        final int firstTileRow = Math.max(0, clip.y / TILE_SIZE);
+        final int lastTileColumn = (clip.x + clip.width - 1) / TILE_SIZE;
+        final int lastTileRow = (clip.y + clip.height - 1) / TILE_SIZE;
+
+        for (int tileRow = firstTileRow; tileRow <= lastTileRow; tileRow++)
+            for (int tileColumn = firstTileColumn; tileColumn <= lastTileColumn; tileColumn++) {
+                final BufferedImage tile = tiles.get(getTileKey(tileColumn, tileRow));
+
+                if (tile != null)
+                    graphics.drawImage(tile, tileColumn * TILE_SIZE, tileRow * TILE_SIZE, null);
+            }
+    }
+
+    /**
+     * Get the bounds of the cell at a path position, including the connection to the previous cell on the path if
+     * that cell is a neighbour.
+     */
+    private Rectangle getConnectedBounds(final int pathIndex) {
+        final Rectangle bounds = getCellBounds(path[pathIndex]);
+
+        if (pathIndex > 0 && isNeighbour(path[pathIndex - 1], path[pathIndex]))
+            bounds.add(getCellBounds(path[pathIndex - 1]));
+
+        return bounds;
+    }
+
+    private boolean isNeighbour(final int cellIndex1, final int cellIndex2) {
+        return Math.abs(maze.getCellX(cellIndex1) - maze.getCellX(cellIndex2))
+               + Math.abs(maze.getCellY(cellIndex1) - maze.getCellY(cellIndex2)) == 1;
+    }
+
+    private Rectangle getCellBounds(final int cellIndex) {
+        return new Rectangle(maze.getCellWidth() * (maze.getCellX(cellIndex) + 1) + offsetWidth,
+                             maze.getCellHeight() * (maze.getCellY(cellIndex) + 1) + offsetHeight,
+                             pointWidth, pointHeight);
+    }
+
+    private void fillRectangle(final Rectangle rectangle, final int colorIndex) {
+        final int lastX = rectangle.x + rectangle.width - 1;
+        final int lastY = rectangle.y + rectangle.height - 1;
+
+        for (int tileRow = rectangle.y / TILE_SIZE; tileRow <= lastY / TILE_SIZE; tileRow++)
+            for (int tileColumn = rectangle.x / TILE_SIZE; tileColumn <= lastX / TILE_SIZE; tileColumn++) {
+                final WritableRaster raster = getTile(tileColumn, tileRow).getRaster();
+                final int tileX = tileColumn * TILE_SIZE;
+                final int tileY = tileRow * TILE_SIZE;
+                final int firstPixelX = Math.max(rectangle.x, tileX) - tileX;
+                final int lastPixelX = Math.min(lastX, tileX + TILE_SIZE - 1) - tileX;
+                final int firstPixelY = Math.max(rectangle.y, tileY) - tileY;
+                final int lastPixelY = Math.min(lastY, tileY + TILE_SIZE - 1) - tileY;
+
+                for (int y = firstPixelY; y <= lastPixelY; y++)
+                    for (int x = firstPixelX; x <= lastPixelX; x++)
+                        raster.setSample(x, y, 0, colorIndex);
+            }
+    }
+
+    private BufferedImage getTile(final int tileColumn, final int tileRow) {
+        return tiles.computeIfAbsent(getTileKey(tileColumn, tileRow),
+                                     key -> new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_BYTE_BINARY,
+                                                              COLOR_MODEL));
+    }
+
+    private static long getTileKey(final int tileColumn, final int tileRow) {
+        return ((long) tileRow << 32) | tileColumn;
+    }
+
+    private static IndexColorModel createColorModel() {
+        final Color[] colors = {Color.WHITE, PATH_COLOR, DEAD_END_COLOR};
+        final byte[] reds = new byte[colors.length];
+        final byte[] greens = new byte[colors.length];
+        final byte[] blues = new byte[colors.length];
+
+        for (int index = 0; index < colors.length; index++) {
+            reds[index] = (byte) colors[index].getRed();
+            greens[index] = (byte) colors[index].getGreen();
+            blues[index] = (byte) colors[index].getBlue();
+        }
+
+        return new IndexColorModel(2, colors.length, reds, greens, blues, TRANSPARENT_INDEX);
+    }
+}
@@ -0,0 +1,346 @@
+package nl.xs4all.home.freekdb.maze.view;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+import nl.xs4all.home.freekdb.maze.model.BitGrid;
+import nl.xs4all.home.freekdb.maze.model.Maze;
+
+/**
+ * Renders the walls of a maze by writing pixels directly into the data buffer of an image, instead of calling
+ * <code>Graphics.drawLine</code> for every wall segment. The wall layers are scanned a word at a time and horizontal
+ * walls are written as spans per pixel row. The result is the same picture as {@link MazeRenderer#drawLines}.
+ * <p>
+ * Images with one integer per pixel (like <code>TYPE_INT_RGB</code> and <code>TYPE_INT_ARGB</code>) and images with
+ * one bit per pixel (<code>TYPE_BYTE_BINARY</code>) are written directly; other images are drawn with
+ * <code>Graphics.drawLine</code>.
+ */
+public class RasterMazeRenderer {
+    private RasterMazeRenderer() {
+    }
+
+    /**
+     * Render a maze into a new black and white image.
+     *
+     * @param maze the maze to render.
+     * @return the new image.
+     */
+    public static BufferedImage createImage(final Maze maze) {
+        final BufferedImage image = new BufferedImage(MazeRenderer.getImageWidth(maze),
+                                                      MazeRenderer.getImageHeight(maze),
+                                                      BufferedImage.TYPE_BYTE_BINARY);
+
+        // Index 1 of the default binary palette is white.
+        Arrays.fill(((DataBufferByte) image.getRaster().getDataBuffer()).getData(), (byte) 0xFF);
+        drawLines(image, maze);
+
+        return image;
+    }
+
+    /**
+     * Create a one bit per pixel image in which all pixels are transparent, which can be drawn on top of a background
+     * after walls are rendered into it.
+     *
+     * @param width  the width of the image.
+     * @param height the height of the image.
+     * @return the new transparent image.
+     */
+    public static BufferedImage createTransparentImage(final int width, final int height) {
+        final byte[] colors = {(byte) MazeRenderer.LINE_COLOR.getRed(), (byte) MazeRenderer.BACKGROUND_COLOR.getRed()};
+        final IndexColorModel colorModel = new IndexColorModel(1, 2, colors, colors, colors, 1);
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY, colorModel);
+
+        Arrays.fill(((DataBufferByte) image.getRaster().getDataBuffer()).getData(), (byte) 0xFF);
+
+        return image;
+    }
+
+    /**
+     * Draw the walls of a maze into an image, which must be at least as large as the rendered maze.
+     *
+     * @param image the image to draw in.
+     * @param maze  the maze to draw.
+     */
+    public static void drawLines(final BufferedImage image, final Maze maze) {
+        if (image.getWidth() < MazeRenderer.getImageWidth(maze)
+            || image.getHeight() < MazeRenderer.getImageHeight(maze))
+            throw new IllegalArgumentException("The image is smaller than the rendered maze.");
+
+        drawLines(image, maze, 0, 0);
+    }
+
+    /**
+     * Draw the part of the walls of a maze that falls inside an image whose top left corner is at the given position
+     * in the rendered maze. Only the rows and words of the wall layers that overlap the image are scanned, so the cost
+     * depends on the size of the image and not on the size of the maze.
+     *
+     * @param image   the image to draw in.
+     * @param maze    the maze to draw.
+     * @param originX the horizontal position of the image in the rendered maze (in pixels).
+     * @param originY the vertical position of the image in the rendered maze (in pixels).
+     */
+    public static void drawLines(final BufferedImage image, final Maze maze, final int originX, final int originY) {
+        final PixelWriter pixelWriter = createPixelWriter(image);
+
+        if (pixelWriter != null)
+            drawLines(new ClippingPixelWriter(pixelWriter, originX, originY, image.getWidth(), image.getHeight()),
+                      maze, originX, originY, image.getWidth(), image.getHeight());
+        else {
+            final Graphics2D graphics = image.createGraphics();
+            graphics.translate(-originX, -originY);
+            MazeRenderer.drawLines(graphics, maze);
+            graphics.dispose();
+        }
+    }
+
+    private static PixelWriter createPixelWriter(final BufferedImage image) {
+        final WritableRaster raster = image.getRaster();
+        final SampleModel sampleModel = raster.getSampleModel();
+        final DataBuffer dataBuffer = raster.getDataBuffer();
+        final Object lineElements = image.getColorModel().getDataElements(MazeRenderer.LINE_COLOR.getRGB(), null);
+
+        if (raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0
+            || dataBuffer.getNumBanks() != 1)
+            return null;
+
+        if (dataBuffer instanceof DataBufferInt && sampleModel instanceof SinglePixelPackedSampleModel)
+            return new IntPixelWriter(((DataBufferInt) dataBuffer).getData(), dataBuffer.getOffset(),
+                                      ((SinglePixelPackedSampleModel) sampleModel).getScanlineStride(),
+                                      ((int[]) lineElements)[0]);
+
+        if (dataBuffer instanceof DataBufferByte && sampleModel instanceof MultiPixelPackedSampleModel
+            && ((MultiPixelPackedSampleModel) sampleModel).getPixelBitStride() == 1
+            && ((MultiPixelPackedSampleModel) sampleModel).getDataBitOffset() == 0)
+            return new BitPixelWriter(((DataBufferByte) dataBuffer).getData(), dataBuffer.getOffset(),
+                                      ((MultiPixelPackedSampleModel) sampleModel).getScanlineStride(),
+                                      (((byte[]) lineElements)[0] & 1) != 0);
+
+        return null;
+    }
+
+    private static void drawLines(final PixelWriter pixelWriter, final Maze maze, final int originX,
+                                  final int originY, final int width, final int height) {
+        final int cellWidth = maze.getCellWidth();
+        final int cellHeight = maze.getCellHeight();
+        final int mazeHeight = maze.getMazeHeight();
+        final BitGrid horizontalLines = maze.getHorizontalLineGrid();
+        final BitGrid verticalLines = maze.getVerticalLineGrid();
+
+        // The walls at the start point and at the cross point to the right of the end point are left open.
+        final Point startPoint = maze.getStartPoint();
+        final Point endPoint = maze.getEndPoint();
+
+        // Cross point rows and columns whose walls can touch the visible area (walls start at a cross point and end
+        // at the next one).
+        final int firstY = Math.max(0, originY / cellHeight - 2);
+        final int lastY = Math.min(mazeHeight, (originY + height) / cellHeight);
+        final int firstWordIndex = Math.max(0, originX / cellWidth - 2) >> 6;
+        final int lastWordIndex = (originX + width) / cellWidth >> 6;
+
+        for (int y = firstY; y <= lastY; y++) {
+            final int pixelY = cellHeight * (y + 1);
+            final int startColumn = startPoint != null && startPoint.y == y ? startPoint.x : -1;
+            final int endColumn = endPoint != null && endPoint.y == y ? endPoint.x + 1 : -1;
+
+            // Horizontal walls: consecutive segments are merged into a single span.
+            int spanStart = -1;
+            int spanEnd = -1;
+            final long horizontalStart = (long) y * horizontalLines.getWordsPerRow();
+
+            final int lastHorizontalWordIndex = Math.min(lastWordIndex, horizontalLines.getWordsPerRow() - 1);
+
+            for (int wordIndex = firstWordIndex; wordIndex <= lastHorizontalWordIndex; wordIndex++) {
+                long word = getRowWord(horizontalLines, horizontalStart, wordIndex, startColumn, endColumn);
+
+                while (word != 0) {
+                    final int x = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+
+                    if (cellWidth * (x + 1) > spanEnd) {
+                        if (spanStart >= 0)
+                            pixelWriter.fillRow(pixelY, spanStart, spanEnd);
+
+                        spanStart = cellWidth * (x + 1);
+                    }
+
+                    spanEnd = cellWidth * (x + 2);
+                }
+            }
+
+            if (spanStart >= 0)
+                pixelWriter.fillRow(pixelY, spanStart, spanEnd);
+
+            // Vertical walls.
+            if (y < mazeHeight) {
+                final long verticalStart = (long) y * verticalLines.getWordsPerRow();
+
+                final int lastVerticalWordIndex = Math.min(lastWordIndex, verticalLines.getWordsPerRow() - 1);
+
+                for (int wordIndex = firstWordIndex; wordIndex <= lastVerticalWordIndex; wordIndex++) {
+                    long word = getRowWord(verticalLines, verticalStart, wordIndex, startColumn, endColumn);
+
+                    while (word != 0) {
+                        final int x = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+
+                        pixelWriter.fillColumn(cellWidth * (x + 1), pixelY, pixelY + cellHeight);
+                    }
+                }
+            }
+        }
+    }
+
+    private static long getRowWord(final BitGrid grid, final long rowStart, final int wordIndex, final int startColumn,
+                                   final int endColumn) {
+        long word = grid.getWord(rowStart + wordIndex);
+
+        if (startColumn >> 6 == wordIndex)
+            word &= ~(1L << startColumn);
+
+        if (endColumn >> 6 == wordIndex)
+            word &= ~(1L << endColumn);
+
+        return word;
+    }
+
+    /**
+     * Writes wall pixels into the data array of an image.
+     */
+    private interface PixelWriter {
+        /**
+         * Fill the pixels of a row from the first column to the last column (inclusive).
+         */
+        void fillRow(int y, int firstX, int lastX);
+
+        /**
+         * Fill the pixels of a column from the first row to the last row (inclusive).
+         */
+        void fillColumn(int x, int firstY, int lastY);
+    }
+
+    /**
+     * Translates pixels from the rendered maze to an image and drops the pixels that fall outside the image.
+     */
+    private static class ClippingPixelWriter implements PixelWriter {
+        private final PixelWriter pixelWriter;
+        private final int originX;
+        private final int originY;
+        private final int width;
+        private final int height;
+
+        ClippingPixelWriter(final PixelWriter pixelWriter, final int originX, final int originY, final int width,
+                            final int height) {
+            this.pixelWriter = pixelWriter;
+            this.originX = originX;
+            this.originY = originY;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public void fillRow(final int y, final int firstX, final int lastX) {
+            final int imageY = y - originY;
+            final int imageFirstX = Math.max(0, firstX - originX);
+            final int imageLastX = Math.min(width - 1, lastX - originX);
+
+            if (imageY >= 0 && imageY < height && imageFirstX <= imageLastX)
+                pixelWriter.fillRow(imageY, imageFirstX, imageLastX);
+        }
+
+        @Override
+        public void fillColumn(final int x, final int firstY, final int lastY) {
+            final int imageX = x - originX;
+            final int imageFirstY = Math.max(0, firstY - originY);
+            final int imageLastY = Math.min(height - 1, lastY - originY);
+
+            if (imageX >= 0 && imageX < width && imageFirstY <= imageLastY)
+                pixelWriter.fillColumn(imageX, imageFirstY, imageLastY);
+        }
+    }
+
+    private static class IntPixelWriter implements PixelWriter {
+        private final int[] data;
+        private final int offset;
+        private final int scanlineStride;
+        private final int lineValue;
+
+        IntPixelWriter(final int[] data, final int offset, final int scanlineStride, final int lineValue) {
+            this.data = data;
+            this.offset = offset;
+            this.scanlineStride = scanlineStride;
+            this.lineValue = lineValue;
+        }
+
+        @Override
+        public void fillRow(final int y, final int firstX, final int lastX) {
+            final int rowOffset = offset + y * scanlineStride;
+
+            Arrays.fill(data, rowOffset + firstX, rowOffset + lastX + 1, lineValue);
+        }
+
+        @Override
+        public void fillColumn(final int x, final int firstY, final int lastY) {
+            final int lastIndex = offset + lastY * scanlineStride + x;
+
+            for (int index = offset + firstY * scanlineStride + x; index <= lastIndex; index += scanlineStride)
+                data[index] = lineValue;
+        }
+    }
+
+    /**
+     * Writes pixels into a one bit per pixel image, in which the leftmost pixel is the most significant bit of a byte.
+     */
+    private static class BitPixelWriter implements PixelWriter {
+        private final byte[] data;
+        private final int offset;
+        private final int scanlineStride;
+        private final boolean lineBit;
+
+        BitPixelWriter(final byte[] data, final int offset, final int scanlineStride, final boolean lineBit) {
+            this.data = data;
+            this.offset = offset;
+            this.scanlineStride = scanlineStride;
+            this.lineBit = lineBit;
+        }
+
+        @Override
+        public void fillRow(final int y, final int firstX, final int lastX) {
+            final int rowOffset = offset + y * scanlineStride;
+            final int firstByte = firstX >> 3;
+            final int lastByte = lastX >> 3;
+            final int firstMask = 0xFF >>> (firstX & 7);
+            final int lastMask = 0xFF << (7 - (lastX & 7)) & 0xFF;
+
+            if (firstByte == lastByte)
+                fillByte(rowOffset + firstByte, firstMask & lastMask);
+            else {
+                fillByte(rowOffset + firstByte, firstMask);
+                Arrays.fill(data, rowOffset + firstByte + 1, rowOffset + lastByte, (byte) (lineBit ? 0xFF : 0));
+                fillByte(rowOffset + lastByte, lastMask);
+            }
+        }
+
+        @Override
+        public void fillColumn(final int x, final int firstY, final int lastY) {
+            final int mask = 0x80 >>> (x & 7);
+            final int lastIndex = offset + lastY * scanlineStride + (x >> 3);
+
+            for (int index = offset + firstY * scanlineStride + (x >> 3); index <= lastIndex; index += scanlineStride)
+                fillByte(index, mask);
+        }
+
+        private void fillByte(final int index, final int mask) {
+            data[index] = (byte) (lineBit ? data[index] | mask : data[index] & ~mask);
+        }
+    }
+}
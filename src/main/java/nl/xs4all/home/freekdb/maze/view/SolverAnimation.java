@@ -0,0 +1,143 @@
+package nl.xs4all.home.freekdb.maze.view;
+
+import java.awt.Rectangle;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.model.MazeSolver;
+import nl.xs4all.home.freekdb.maze.model.MazeSolverListener;
+import nl.xs4all.home.freekdb.maze.model.PathEventBuffer;
+
+/**
+ * Shows the progress of a solver in a maze view. The solver runs on a background thread and appends its events to a
+ * path event buffer; a Swing timer reads the new events on the event dispatch thread (without locking), applies them
+ * to the path overlay and repaints only the rectangle that changed.
+ */
+public class SolverAnimation {
+    private static final boolean SHOW_DEAD_END_PARTS = false;
+
+    private static final int REFRESH_INTERVAL_MILLISECONDS = 40;
+
+    private final Maze maze;
+    private final MazeView mazeView;
+    private final long stepDelayMilliseconds;
+    private final PathOverlay pathOverlay;
+    private final PathEventBuffer pathEventBuffer = new PathEventBuffer();
+
+    /**
+     * The number of events that have been applied to the path overlay (only used on the event dispatch thread).
+     */
+    private int appliedEventCount;
+
+    private Timer refreshTimer;
+
+    /**
+     * Create a solver animation.
+     *
+     * @param maze                  the maze to solve.
+     * @param mazeView              the view that shows the maze.
+     * @param stepDelayMilliseconds the delay after each entered cell to slow down the solver or 0 for full speed.
+     */
+    public SolverAnimation(final Maze maze, final MazeView mazeView, final long stepDelayMilliseconds) {
+        this.maze = maze;
+        this.mazeView = mazeView;
+        this.stepDelayMilliseconds = stepDelayMilliseconds;
+        this.pathOverlay = new PathOverlay(maze, SHOW_DEAD_END_PARTS);
+    }
+
+    /**
+     * Get the path overlay, which may only be used on the event dispatch thread.
+     *
+     * @return the path overlay.
+     */
+    public PathOverlay getPathOverlay() {
+        return pathOverlay;
+    }
+
+    public PathEventBuffer getPathEventBuffer() {
+        return pathEventBuffer;
+    }
+
+    /**
+     * Start solving the maze on a background thread and animating the progress.
+     *
+     * @param solver the solver to use.
+     * @return the solver thread.
+     */
+    public Thread start(final MazeSolver solver) {
+        SwingUtilities.invokeLater(() -> {
+            refreshTimer = new Timer(REFRESH_INTERVAL_MILLISECONDS, actionEvent -> applyEvents());
+            refreshTimer.start();
+        });
+
+        final Thread solverThread = new Thread(() -> {
+            try {
+                maze.solveMaze(solver, createSolverListener());
+            } finally {
+                pathEventBuffer.finish();
+            }
+        }, "maze-solver");
+
+        solverThread.setDaemon(true);
+        solverThread.start();
+
+        return solverThread;
+    }
+
+    private MazeSolverListener createSolverListener() {
+        return new MazeSolverListener() {
+            @Override
+            public void cellEntered(final int cellIndex) {
+                pathEventBuffer.cellEntered(cellIndex);
+
+                if (stepDelayMilliseconds > 0) {
+                    try {
+                        Thread.sleep(stepDelayMilliseconds);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            @Override
+            public void cellLeft(final int cellIndex) {
+                pathEventBuffer.cellLeft(cellIndex);
+            }
+        };
+    }
+
+    /**
+     * Apply the events that were published since the last refresh to the path overlay and repaint the rectangle that
+     * changed. This runs on the event dispatch thread.
+     */
+    private void applyEvents() {
+        // Read the finished flag before the length, so no events are missed when the timer is stopped.
+        final boolean finished = pathEventBuffer.isFinished();
+        final int eventCount = pathEventBuffer.getLength();
+        Rectangle dirtyRectangle = null;
+
+        for (int eventIndex = appliedEventCount; eventIndex < eventCount; eventIndex++) {
+            final int event = pathEventBuffer.get(eventIndex);
+            final Rectangle changedRectangle = PathEventBuffer.isCellEntered(event)
+                                               ? pathOverlay.push(PathEventBuffer.getCellIndex(event))
+                                               : pathOverlay.pop();
+
+            if (changedRectangle != null) {
+                if (dirtyRectangle == null)
+                    dirtyRectangle = changedRectangle;
+                else
+                    dirtyRectangle.add(changedRectangle);
+            }
+        }
+
+        appliedEventCount = eventCount;
+
+        if (dirtyRectangle != null)
+            mazeView.repaint(dirtyRectangle.x, dirtyRectangle.y, dirtyRectangle.width, dirtyRectangle.height);
+
+        if (finished)
+            refreshTimer.stop();
+    }
+}
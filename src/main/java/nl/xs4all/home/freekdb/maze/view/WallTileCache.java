@@ -0,0 +1,110 @@
+package nl.xs4all.home.freekdb.maze.view;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import nl.xs4all.home.freekdb.maze.model.Maze;
+
+/**
+ * Cache of fixed-size tiles with the rendered walls of a maze. The tiles are transparent one bit per pixel images. The
+ * least recently used tiles are discarded when the memory of the tiles exceeds the configured maximum.
+ */
+class WallTileCache {
+    /**
+     * The default width and height of a tile in pixels.
+     */
+    static final int DEFAULT_TILE_SIZE = 256;
+
+    /**
+     * The default maximum memory of the cached tiles in bytes.
+     */
+    static final long DEFAULT_MAXIMUM_BYTES = 32L * 1024 * 1024;
+
+    private final Maze maze;
+    private final int tileSize;
+    private final long maximumBytes;
+    private final int imageWidth;
+    private final int imageHeight;
+
+    /**
+     * The tiles by key (see {@link #getTileKey}), in access order.
+     */
+    private final LinkedHashMap<Long, BufferedImage> tiles = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long cachedBytes;
+
+    WallTileCache(final Maze maze, final int tileSize, final long maximumBytes) {
+        this.maze = maze;
+        this.tileSize = tileSize;
+        this.maximumBytes = maximumBytes;
+        this.imageWidth = MazeRenderer.getImageWidth(maze);
+        this.imageHeight = MazeRenderer.getImageHeight(maze);
+    }
+
+    int getTileSize() {
+        return tileSize;
+    }
+
+    int getTileCount() {
+        return tiles.size();
+    }
+
+    long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * Get a tile, rendering it when it is not in the cache.
+     *
+     * @param tileColumn the column of the tile.
+     * @param tileRow    the row of the tile.
+     * @return the tile, which is smaller than the tile size at the right and bottom edges of the maze.
+     */
+    BufferedImage getTile(final int tileColumn, final int tileRow) {
+        final long key = getTileKey(tileColumn, tileRow);
+        BufferedImage tile = tiles.get(key);
+
+        if (tile == null) {
+            final int originX = tileColumn * tileSize;
+            final int originY = tileRow * tileSize;
+
+            tile = RasterMazeRenderer.createTransparentImage(Math.min(tileSize, imageWidth - originX),
+                                                             Math.min(tileSize, imageHeight - originY));
+            RasterMazeRenderer.drawLines(tile, maze, originX, originY);
+
+            tiles.put(key, tile);
+            cachedBytes += getSizeInBytes(tile);
+            evictTiles();
+        }
+
+        return tile;
+    }
+
+    /**
+     * Discard all tiles (after the walls of the maze changed).
+     */
+    void clear() {
+        tiles.clear();
+        cachedBytes = 0;
+    }
+
+    private void evictTiles() {
+        final Iterator<Map.Entry<Long, BufferedImage>> iterator = tiles.entrySet().iterator();
+
+        // Keep at least the most recently used tile, even if it is larger than the maximum.
+        while (cachedBytes > maximumBytes && tiles.size() > 1) {
+            cachedBytes -= getSizeInBytes(iterator.next().getValue());
+            iterator.remove();
+        }
+    }
+
+    private static long getTileKey(final int tileColumn, final int tileRow) {
+        return ((long) tileRow << 32) | tileColumn;
+    }
+
+    private static long getSizeInBytes(final BufferedImage tile) {
+        return (long) ((tile.getWidth() + 7) / 8) * tile.getHeight();
+    }
+}
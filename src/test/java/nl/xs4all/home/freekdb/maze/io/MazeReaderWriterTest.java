@@ -0,0 +1,166 @@
+package nl.xs4all.home.freekdb.maze.io;
+
+import java.awt.Point;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import nl.xs4all.home.freekdb.maze.model.BitGrid;
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.model.MazeParameters;
+import nl.xs4all.home.freekdb.maze.model.RandomMode;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the <code>MazeWriter</code> and <code>MazeReader</code> classes.
+ */
+public class MazeReaderWriterTest {
+    private static final int DIMENSIONS_OFFSET = 8;
+    private static final int START_POINT_OFFSET = 24;
+    private static final int RANDOM_MODE_OFFSET = 48;
+
+    @Test
+    public void testRoundTripForAllCompressions() throws IOException {
+        final Maze maze = createMaze();
+        final int uncompressedSize = writeMaze(maze, MazeCompression.NONE).length;
+
+        for (final MazeCompression compression : MazeCompression.values()) {
+            final byte[] data = writeMaze(maze, compression);
+            final Maze readMaze = MazeReader.read(Channels.newChannel(new ByteArrayInputStream(data)));
+
+            assertEquals(maze.getMazeWidth(), readMaze.getMazeWidth());
+            assertEquals(maze.getMazeHeight(), readMaze.getMazeHeight());
+            assertEquals(maze.getCellWidth(), readMaze.getCellWidth());
+            assertEquals(maze.getCellHeight(), readMaze.getCellHeight());
+            assertEquals(maze.getStartPoint(), readMaze.getStartPoint());
+            assertNull(readMaze.getEndPoint());
+            assertEquals(maze.getRandomSeed(), readMaze.getRandomSeed());
+            assertEquals(maze.getRandomMode(), readMaze.getRandomMode());
+            assertGridEquals(maze.getCrossPointGrid(), readMaze.getCrossPointGrid());
+            assertGridEquals(maze.getHorizontalLineGrid(), readMaze.getHorizontalLineGrid());
+            assertGridEquals(maze.getVerticalLineGrid(), readMaze.getVerticalLineGrid());
+
+            if (compression != MazeCompression.NONE)
+                assertTrue(compression + " should be smaller", data.length < uncompressedSize);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherData() throws IOException {
+        final byte[] data = writeMaze(createMaze(), MazeCompression.NONE);
+        data[0] = 'X';
+
+        MazeReader.read(Channels.newChannel(new ByteArrayInputStream(data)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsTruncatedData() throws IOException {
+        final byte[] data = writeMaze(createMaze(), MazeCompression.RUN_LENGTH);
+        final byte[] truncatedData = new byte[data.length / 2];
+        System.arraycopy(data, 0, truncatedData, 0, truncatedData.length);
+
+        MazeReader.read(Channels.newChannel(new ByteArrayInputStream(truncatedData)));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsHugeDimensionsBeforeAllocating() throws IOException {
+        final byte[] data = writeMaze(createMaze(), MazeCompression.DEFLATE);
+        setDimensions(data, 1 << 30, 1 << 30);
+
+        MazeReader.read(Channels.newChannel(new ByteArrayInputStream(data)));
+    }
+
+    @Test
+    public void testRejectsFileTooShortForDimensions() throws IOException {
+        final byte[] data = writeMaze(createMaze(), MazeCompression.NONE);
+        setDimensions(data, 3000, 1500);
+
+        final Path path = Files.createTempFile("maze", ".maze");
+
+        try {
+            Files.write(path, data);
+            MazeReader.read(path);
+            fail("A file that is too short for its dimensions should be rejected.");
+        } catch (final IOException e) {
+            assertEquals("The maze file is too short for the dimensions in its header.", e.getMessage());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testRejectsPointsOutsideMaze() throws IOException {
+        // The maze is 300 cells wide and 150 cells high.
+        final int[][] invalidStartPoints = {{300, 0}, {0, 150}, {-1, 0}, {0, -1}};
+
+        for (final int[] startPoint : invalidStartPoints) {
+            final byte[] data = writeMaze(createMaze(), MazeCompression.NONE);
+            final ByteBuffer header = ByteBuffer.wrap(data);
+            header.putInt(START_POINT_OFFSET, startPoint[0]);
+            header.putInt(START_POINT_OFFSET + Integer.BYTES, startPoint[1]);
+
+            try {
+                MazeReader.read(Channels.newChannel(new ByteArrayInputStream(data)));
+                fail("The start point (" + startPoint[0] + "," + startPoint[1] + ") should be rejected.");
+            } catch (final IOException e) {
+                assertEquals("Invalid maze file header.", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testRandomModeIdsAreStable() throws IOException {
+        // These identifiers are stored in existing maze files, so they must never change.
+        assertEquals(0, RandomMode.LEGACY.getId());
+        assertEquals(1, RandomMode.SPLITTABLE.getId());
+        assertEquals(2, RandomMode.XOROSHIRO.getId());
+
+        final byte[] data = writeMaze(createMaze(), MazeCompression.NONE);
+        assertEquals(RandomMode.XOROSHIRO.getId(), data[RANDOM_MODE_OFFSET]);
+        data[RANDOM_MODE_OFFSET] = 3;
+
+        try {
+            MazeReader.read(Channels.newChannel(new ByteArrayInputStream(data)));
+            fail("An unknown random mode should be rejected.");
+        } catch (final IOException e) {
+            assertEquals("Invalid maze file header.", e.getMessage());
+        }
+    }
+
+    private static void setDimensions(final byte[] data, final int mazeWidth, final int mazeHeight) {
+        final ByteBuffer header = ByteBuffer.wrap(data);
+        header.putInt(DIMENSIONS_OFFSET, mazeWidth);
+        header.putInt(DIMENSIONS_OFFSET + Integer.BYTES, mazeHeight);
+    }
+
+    private static Maze createMaze() {
+        final MazeParameters mazeParameters = new MazeParameters(150, 300, 3, 3, new Point(0, 0), null, 123456)
+                .withRandomMode(RandomMode.XOROSHIRO);
+        final Maze maze = new Maze(mazeParameters);
+        maze.generateMaze();
+
+        return maze;
+    }
+
+    private static byte[] writeMaze(final Maze maze, final MazeCompression compression) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        MazeWriter.write(maze, Channels.newChannel(outputStream), compression);
+
+        return outputStream.toByteArray();
+    }
+
+    private static void assertGridEquals(final BitGrid expected, final BitGrid actual) {
+        assertArrayEquals(expected.toArray(), actual.toArray());
+    }
+}
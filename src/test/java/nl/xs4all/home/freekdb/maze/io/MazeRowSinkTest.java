@@ -0,0 +1,207 @@
+package nl.xs4all.home.freekdb.maze.io;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.InflaterInputStream;
+
+import javax.imageio.ImageIO;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import nl.xs4all.home.freekdb.maze.model.EllerMazeGenerator;
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.model.MazeParameters;
+import nl.xs4all.home.freekdb.maze.model.StreamingMazeGenerator;
+import nl.xs4all.home.freekdb.maze.view.RasterMazeRenderer;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the row sinks that write mazes while they are generated by the <code>StreamingMazeGenerator</code>
+ * (or from memory with <code>Maze.writeRows</code>).
+ */
+public class MazeRowSinkTest {
+    private static final Pattern SVG_LINE = Pattern.compile("M(\\d+) (\\d+)([HV])(\\d+)");
+    private static final Pattern PDF_OBJECT_OFFSET = Pattern.compile("(\\d{10}) 00000 n ");
+
+    private static final MazeParameters MAZE_PARAMETERS = new MazeParameters(40, 70, 3, 3, new Point(0, 5),
+                                                                             new Point(69, 30), 654321);
+
+    @Test
+    public void testMazeFileIsSameAsWrittenMaze() throws IOException {
+        final Path path = Files.createTempFile("maze", ".maze");
+
+        try {
+            new StreamingMazeGenerator(MAZE_PARAMETERS, null).generate(new MazeFileRowSink(path));
+
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            MazeWriter.write(createMaze(), Channels.newChannel(expected), MazeCompression.NONE);
+
+            assertArrayEquals(expected.toByteArray(), Files.readAllBytes(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testPngIsSameAsRenderedMaze() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new StreamingMazeGenerator(MAZE_PARAMETERS, null).generate(new PngRowSink(outputStream));
+
+        assertSameImage("streamed maze", RasterMazeRenderer.createImage(createMaze()),
+                        ImageIO.read(new ByteArrayInputStream(outputStream.toByteArray())));
+    }
+
+    @Test
+    public void testPngIsSameAsRenderedMazeForAllCellSizes() throws IOException {
+        // Cell widths from one to nine pixels put the walls at every position within the bytes of the scanlines.
+        for (int cellSize = 1; cellSize <= 9; cellSize++) {
+            final Maze maze = new Maze(new MazeParameters(13, 61 + cellSize, cellSize, cellSize + 1, new Point(0, 0),
+                                                          new Point(60, 12), 654321));
+            maze.generateMaze();
+
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            maze.writeRows(new PngRowSink(outputStream));
+
+            assertSameImage("cell size " + cellSize, RasterMazeRenderer.createImage(maze),
+                            ImageIO.read(new ByteArrayInputStream(outputStream.toByteArray())));
+        }
+    }
+
+    @Test
+    public void testSvgIsWellFormed() throws Exception {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new StreamingMazeGenerator(MAZE_PARAMETERS, null).generate(new SvgRowSink(outputStream));
+
+        final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(outputStream.toByteArray()));
+
+        assertEquals("216", document.getDocumentElement().getAttribute("width"));
+        assertEquals("126", document.getDocumentElement().getAttribute("height"));
+        assertTrue(document.getElementsByTagName("path").getLength() > 0);
+    }
+
+    @Test
+    public void testSvgLinesCoverRenderedWalls() throws Exception {
+        final Maze maze = new Maze(MAZE_PARAMETERS);
+        maze.generateMaze();
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        maze.writeRows(new SvgRowSink(outputStream));
+
+        final BufferedImage expectedImage = RasterMazeRenderer.createImage(maze);
+        final boolean[][] drawn = new boolean[expectedImage.getHeight()][expectedImage.getWidth()];
+        final NodeList paths = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(outputStream.toByteArray())).getElementsByTagName("path");
+        int lineCount = 0;
+
+        for (int pathIndex = 0; pathIndex < paths.getLength(); pathIndex++) {
+            final Matcher matcher = SVG_LINE.matcher(((Element) paths.item(pathIndex)).getAttribute("d"));
+
+            while (matcher.find()) {
+                final int x1 = Integer.parseInt(matcher.group(1));
+                final int y1 = Integer.parseInt(matcher.group(2));
+                final boolean horizontal = matcher.group(3).equals("H");
+                final int end = Integer.parseInt(matcher.group(4));
+
+                for (int position = horizontal ? x1 : y1; position <= end; position++)
+                    drawn[horizontal ? y1 : position][horizontal ? position : x1] = true;
+
+                lineCount++;
+            }
+        }
+
+        for (int y = 0; y < expectedImage.getHeight(); y++)
+            for (int x = 0; x < expectedImage.getWidth(); x++)
+                assertEquals("Pixel " + x + ", " + y, expectedImage.getRGB(x, y) == Color.BLACK.getRGB(), drawn[y][x]);
+
+        // The merged lines are fewer than the wall segments.
+        int wallCount = 0;
+        for (int y = 0; y <= maze.getMazeHeight(); y++)
+            for (int x = 0; x <= maze.getMazeWidth(); x++)
+                wallCount += (x < maze.getMazeWidth() && maze.hasHorizontalLine(y, x) ? 1 : 0)
+                             + (y < maze.getMazeHeight() && maze.hasVerticalLine(y, x) ? 1 : 0);
+
+        assertTrue(lineCount + " lines for " + wallCount + " walls", lineCount < wallCount);
+    }
+
+    @Test
+    public void testPdfHasValidCrossReferencesAndSameLinesAsSvg() throws IOException {
+        final Maze maze = createMaze();
+        final ByteArrayOutputStream pdfStream = new ByteArrayOutputStream();
+        final ByteArrayOutputStream svgStream = new ByteArrayOutputStream();
+        maze.writeRows(new PdfRowSink(pdfStream));
+        maze.writeRows(new SvgRowSink(svgStream));
+
+        final byte[] pdfBytes = pdfStream.toByteArray();
+        final String pdf = new String(pdfBytes, StandardCharsets.ISO_8859_1);
+        assertTrue(pdf.startsWith("%PDF-1.4\n"));
+        assertTrue(pdf.endsWith("%%EOF\n"));
+
+        final Matcher offsetMatcher = PDF_OBJECT_OFFSET.matcher(pdf);
+        int objectNumber = 1;
+        while (offsetMatcher.find())
+            assertTrue(pdf.startsWith(objectNumber++ + " 0 obj\n", Integer.parseInt(offsetMatcher.group(1))));
+        assertEquals(6, objectNumber);
+
+        final int startXrefIndex = pdf.lastIndexOf("startxref\n") + "startxref\n".length();
+        final int crossReferenceOffset = Integer.parseInt(pdf.substring(startXrefIndex, pdf.indexOf('\n', startXrefIndex)));
+        assertTrue(pdf.startsWith("xref\n", crossReferenceOffset));
+
+        final int contentStart = pdf.indexOf("stream\n") + "stream\n".length();
+        final int contentEnd = pdf.indexOf("\nendstream");
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        try (final InflaterInputStream inflaterStream = new InflaterInputStream(
+                new ByteArrayInputStream(pdfBytes, contentStart, contentEnd - contentStart))) {
+            final byte[] buffer = new byte[4096];
+            for (int count = inflaterStream.read(buffer); count > 0; count = inflaterStream.read(buffer))
+                content.write(buffer, 0, count);
+        }
+
+        assertEquals(countMatches(SVG_LINE, svgStream.toString("UTF-8")),
+                     countMatches(Pattern.compile(" m "), content.toString("US-ASCII")));
+    }
+
+    private static int countMatches(final Pattern pattern, final String text) {
+        final Matcher matcher = pattern.matcher(text);
+        int count = 0;
+
+        while (matcher.find())
+            count++;
+
+        return count;
+    }
+
+    private static void assertSameImage(final String message, final BufferedImage expectedImage,
+                                        final BufferedImage image) {
+        assertEquals(message, expectedImage.getWidth(), image.getWidth());
+        assertEquals(message, expectedImage.getHeight(), image.getHeight());
+
+        for (int y = 0; y < image.getHeight(); y++)
+            for (int x = 0; x < image.getWidth(); x++)
+                assertEquals(message + ", pixel " + x + ", " + y, expectedImage.getRGB(x, y), image.getRGB(x, y));
+    }
+
+    private static Maze createMaze() {
+        final Maze maze = new Maze(MAZE_PARAMETERS);
+        maze.generateMaze(new EllerMazeGenerator());
+
+        return maze;
+    }
+}
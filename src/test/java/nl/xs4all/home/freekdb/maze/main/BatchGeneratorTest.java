@@ -0,0 +1,171 @@
+package nl.xs4all.home.freekdb.maze.main;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+
+import nl.xs4all.home.freekdb.maze.io.MazeReader;
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.model.RandomMode;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the <code>BatchGenerator</code> class.
+ */
+public class BatchGeneratorTest {
+    @Test
+    public void testRejectsInvalidSeedRange() {
+        assertRejected("Invalid seed range: 5-3.", "--size", "20x10", "--seeds", "5-3");
+        assertRejected("Invalid seed range: 0-3.", "--size", "20x10", "--seeds", "0-3");
+        assertRejected("Invalid seed range: -2-2.", "--size", "20x10", "--seeds", "-2-2");
+    }
+
+    @Test
+    public void testGeneratesSeedRangeUpToLargestSeed() throws IOException, InterruptedException, ExecutionException {
+        final Path outputDirectory = Files.createTempDirectory("mazes");
+
+        try {
+            final String seeds = (Long.MAX_VALUE - 1) + "-" + Long.MAX_VALUE;
+            final BatchGenerator batchGenerator = new BatchGenerator();
+            batchGenerator.parseArguments(new String[]{"--size", "5x5", "--seeds", seeds, "--threads", "1",
+                                                       "--output", outputDirectory.toString()});
+            batchGenerator.generateMazes();
+
+            assertTrue(outputDirectory.resolve("maze-" + Long.MAX_VALUE + ".png").toFile().isFile());
+            assertEquals(2, countFiles(outputDirectory));
+        } finally {
+            deleteDirectory(outputDirectory);
+        }
+    }
+
+    @Test
+    public void testRejectsPointsOutsideMaze() throws IOException, InterruptedException, ExecutionException {
+        assertRejected("The point for option --start (20,0) lies outside the maze of 20x10 cells.",
+                       "--size", "20x10", "--start", "20,0");
+        assertRejected("The point for option --end (0,10) lies outside the maze of 20x10 cells.",
+                       "--size", "20x10", "--start", "19,9", "--end", "0,10");
+
+        final Path outputDirectory = Files.createTempDirectory("mazes");
+
+        try {
+            final BatchGenerator batchGenerator = new BatchGenerator();
+            batchGenerator.parseArguments(new String[]{"--shape", "etc/unit-test.png", "--start", "6,18",
+                                                       "--end", "230,57", "--output", outputDirectory.toString()});
+
+            try {
+                batchGenerator.generateMazes();
+                fail("The end point should be rejected.");
+            } catch (final IllegalArgumentException e) {
+                assertEquals("The point for option --end (230,57) lies outside the maze of 247x57 cells.",
+                             e.getMessage());
+            }
+
+            assertEquals(0, countFiles(outputDirectory));
+        } finally {
+            deleteDirectory(outputDirectory);
+        }
+    }
+
+    @Test
+    public void testRejectsMinimumSolutionLengthWhenStreaming() {
+        assertRejected("The solution length cannot be determined for streamed mazes.",
+                       "--size", "20x10", "--start", "0,0", "--end", "19,9", "--min-solution-length", "30",
+                       "--stream", "PNG");
+    }
+
+    @Test
+    public void testRejectsMissingShapeAndSize() {
+        assertRejected("Either a shape image or a maze size is required.", "--seeds", "1-3");
+    }
+
+    @Test
+    public void testRejectsUnknownOption() {
+        assertRejected("Unknown option --colour.", "--size", "20x10", "--colour", "red");
+        assertRejected("Missing value for option --size.", "--size");
+    }
+
+    @Test
+    public void testGeneratesMazesIntoDirectory() throws IOException, InterruptedException, ExecutionException {
+        final Path outputDirectory = Files.createTempDirectory("mazes");
+
+        try {
+            final BatchGenerator batchGenerator = new BatchGenerator();
+            batchGenerator.parseArguments(new String[]{"--shape", "etc/unit-test.png", "--start", "6,18",
+                                                       "--end", "230,45", "--seeds", "1-4", "--threads", "2",
+                                                       "--random-mode", "XOROSHIRO", "--algorithm", "KRUSKAL",
+                                                       "--compression", "DEFLATE",
+                                                       "--output", outputDirectory.toString()});
+            batchGenerator.generateMazes();
+
+            for (int seed = 1; seed <= 4; seed++) {
+                final Maze maze = MazeReader.read(outputDirectory.resolve("maze-" + seed + ".maze"));
+
+                assertEquals(seed, maze.getRandomSeed());
+                assertEquals(RandomMode.XOROSHIRO, maze.getRandomMode());
+                assertEquals(247, maze.getMazeWidth());
+                assertEquals(57, maze.getMazeHeight());
+            }
+
+            assertEquals(4, countFiles(outputDirectory));
+        } finally {
+            deleteDirectory(outputDirectory);
+        }
+    }
+
+    @Test
+    public void testStopsOnFirstFailure() throws IOException, InterruptedException {
+        final Path outputDirectory = Files.createTempDirectory("mazes");
+
+        try {
+            // A directory with the name of the first maze makes writing that maze fail.
+            Files.createDirectory(outputDirectory.resolve("maze-1.png"));
+
+            final BatchGenerator batchGenerator = new BatchGenerator();
+            batchGenerator.parseArguments(new String[]{"--size", "10x10", "--seeds", "1-1000", "--threads", "1",
+                                                       "--output", outputDirectory.toString()});
+
+            try {
+                batchGenerator.generateMazes();
+                fail("The batch should fail when a maze cannot be written.");
+            } catch (final ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+
+            assertTrue("The batch should stop after the failure", countFiles(outputDirectory) < 100);
+        } finally {
+            deleteDirectory(outputDirectory);
+        }
+    }
+
+    private static void assertRejected(final String expectedMessage, final String... arguments) {
+        try {
+            new BatchGenerator().parseArguments(arguments);
+            fail("The arguments should be rejected: " + String.join(" ", arguments));
+        } catch (final IllegalArgumentException e) {
+            assertEquals(expectedMessage, e.getMessage());
+        }
+    }
+
+    private static int countFiles(final Path directory) {
+        final String[] names = directory.toFile().list();
+
+        return names != null ? names.length : 0;
+    }
+
+    private static void deleteDirectory(final Path directory) throws IOException {
+        final File[] files = directory.toFile().listFiles();
+
+        if (files != null)
+            for (final File file : files)
+                Files.delete(file.toPath());
+
+        Files.delete(directory);
+    }
+}
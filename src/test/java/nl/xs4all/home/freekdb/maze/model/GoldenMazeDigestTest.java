@@ -0,0 +1,158 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import nl.xs4all.home.freekdb.maze.utilities.Utilities;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Regression suite that generates mazes for a matrix of random seeds, sizes, shapes and algorithms (in legacy random
+ * mode) and compares the digests of their wall layers with the golden digests in
+ * <code>src/test/resources/golden-maze-digests.txt</code>. An optimized generator or another storage mode has to
+ * produce exactly the same mazes.
+ * <p>
+ * When a change of the generated mazes is intended, print the new golden digests with: <code>java -cp
+ * target/classes:target/test-classes nl.xs4all.home.freekdb.maze.model.GoldenMazeDigestTest &gt;
+ * src/test/resources/golden-maze-digests.txt</code>
+ */
+public class GoldenMazeDigestTest {
+    private static final String GOLDEN_DIGESTS_RESOURCE = "/golden-maze-digests.txt";
+    private static final String SHAPE_PATH = "etc/unit-test.png";
+
+    private static final long[] RANDOM_SEEDS = {654321, 1, 42};
+    private static final int[] SHAPE_CELL_SIZES = {2, 3, 6};
+    private static final int[][] MAZE_SIZES = {{2, 2}, {7, 5}, {64, 64}, {130, 70}};
+
+    @Test
+    public void testGeneratedMazesMatchGoldenDigests() throws IOException {
+        assertSameDigests(readGoldenDigests(), computeDigests(UnaryOperator.identity(), true));
+    }
+
+    @Test
+    public void testMemoryMappedMazesMatchGoldenDigests() throws IOException {
+        final Map<String, String> digests = computeDigests(parameters -> parameters.withStorage(
+                StorageMode.MEMORY_MAPPED, null), false);
+        final Map<String, String> goldenDigests = readGoldenDigests();
+        goldenDigests.keySet().retainAll(digests.keySet());
+
+        assertSameDigests(goldenDigests, digests);
+    }
+
+    @Test
+    public void testStreamedMazesMatchGoldenEllerDigests() throws IOException {
+        final Map<String, String> goldenDigests = readGoldenDigests();
+
+        for (final int[] mazeSize : MAZE_SIZES)
+            for (final long randomSeed : RANDOM_SEEDS) {
+                final MazeDigest mazeDigest = new MazeDigest();
+                new StreamingMazeGenerator(createParameters(mazeSize, randomSeed), null).generate(mazeDigest);
+
+                final String key = getKey(mazeSize, randomSeed, MazeAlgorithm.ELLER);
+                assertEquals(key, goldenDigests.get(key), mazeDigest.getDigest());
+            }
+    }
+
+    /**
+     * Print the golden digests for the current generators.
+     *
+     * @param arguments the command-line arguments (not used).
+     */
+    public static void main(final String[] arguments) {
+        System.out.println("# Digests of the wall layers of generated mazes (see GoldenMazeDigestTest).");
+
+        for (final Map.Entry<String, String> entry : computeDigests(UnaryOperator.identity(), true).entrySet())
+            System.out.println(entry.getKey() + " " + entry.getValue());
+    }
+
+    /**
+     * Generate the mazes of the matrix and compute their digests.
+     *
+     * @param parametersModifier the modification of the maze parameters (like another storage mode).
+     * @param includeShapes      whether to include the mazes with a shape.
+     * @return the digests by key.
+     */
+    private static Map<String, String> computeDigests(final UnaryOperator<MazeParameters> parametersModifier,
+                                                      final boolean includeShapes) {
+        final Map<String, String> digests = new LinkedHashMap<>();
+
+        for (final MazeAlgorithm algorithm : MazeAlgorithm.values())
+            for (final long randomSeed : RANDOM_SEEDS) {
+                if (includeShapes)
+                    for (final int cellSize : SHAPE_CELL_SIZES) {
+                        final MazeParameters parameters = new MazeParameters(SHAPE_PATH, cellSize, cellSize, null,
+                                                                             null, randomSeed);
+                        final Maze maze = new Maze(parametersModifier.apply(parameters));
+                        maze.limitMazeAreaToShape(Utilities.toBufferedImage(parameters.getShapeImage()));
+                        maze.generateMaze(algorithm.createGenerator());
+
+                        digests.put("unit-test.png/cell-" + cellSize + "/seed-" + randomSeed + "/" + algorithm,
+                                    MazeDigest.digest(maze));
+                    }
+
+                for (final int[] mazeSize : MAZE_SIZES) {
+                    final Maze maze = new Maze(parametersModifier.apply(createParameters(mazeSize, randomSeed)));
+                    maze.generateMaze(algorithm.createGenerator());
+
+                    digests.put(getKey(mazeSize, randomSeed, algorithm), MazeDigest.digest(maze));
+                }
+            }
+
+        return digests;
+    }
+
+    private static MazeParameters createParameters(final int[] mazeSize, final long randomSeed) {
+        return new MazeParameters(mazeSize[1], mazeSize[0], 2, 2, null, null, randomSeed);
+    }
+
+    private static String getKey(final int[] mazeSize, final long randomSeed, final MazeAlgorithm algorithm) {
+        return mazeSize[0] + "x" + mazeSize[1] + "/seed-" + randomSeed + "/" + algorithm;
+    }
+
+    private static Map<String, String> readGoldenDigests() throws IOException {
+        final Map<String, String> goldenDigests = new LinkedHashMap<>();
+
+        try (final InputStream inputStream = GoldenMazeDigestTest.class.getResourceAsStream(GOLDEN_DIGESTS_RESOURCE);
+             final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream,
+                                                                                    StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null)
+                if (!line.trim().isEmpty() && !line.startsWith("#")) {
+                    final String[] keyAndDigest = line.trim().split(" ");
+                    goldenDigests.put(keyAndDigest[0], keyAndDigest[1]);
+                }
+        }
+
+        return goldenDigests;
+    }
+
+    /**
+     * Check that all digests match, reporting all differences at once.
+     */
+    private static void assertSameDigests(final Map<String, String> goldenDigests, final Map<String, String> digests) {
+        final List<String> differences = new ArrayList<>();
+
+        for (final Map.Entry<String, String> entry : digests.entrySet())
+            if (!entry.getValue().equals(goldenDigests.get(entry.getKey())))
+                differences.add(entry.getKey() + ": expected " + goldenDigests.get(entry.getKey()) + ", but got "
+                                + entry.getValue());
+
+        for (final String key : goldenDigests.keySet())
+            if (!digests.containsKey(key))
+                differences.add(key + ": no longer generated");
+
+        assertTrue(differences.size() + " mazes differ:\n" + String.join("\n", differences), differences.isEmpty());
+    }
+}
@@ -0,0 +1,58 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the <code>MappedBitGrid</code> and <code>MappedGridStorage</code> classes.
+ */
+public class MappedBitGridTest {
+    @Test
+    public void testGridsDoNotOverlap() throws IOException {
+        try (final MappedGridStorage storage = new MappedGridStorage(null)) {
+            final BitGrid first = storage.createGrid(4, 70);
+            final BitGrid second = storage.createGrid(3, 5);
+
+            first.set(3, 69);
+            second.set(0, 0);
+
+            assertTrue(first.get(3, 69));
+            assertFalse(first.get(0, 0));
+            assertTrue(second.get(0, 0));
+            assertEquals(first.getSizeInBytes() + second.getSizeInBytes(), storage.getFile().length());
+        }
+    }
+
+    @Test
+    public void testTemporaryFileIsDeleted() throws IOException {
+        final MappedGridStorage storage = new MappedGridStorage(null);
+        final File file = storage.getFile();
+        final BitGrid grid = storage.createGrid(2, 2);
+
+        storage.close();
+        grid.set(1, 1);
+
+        assertFalse(file.exists());
+        assertTrue(grid.get(1, 1));
+    }
+
+    @Test
+    public void testMappedMazeMatchesHeapMaze() {
+        final MazeParameters parameters = new MazeParameters(40, 60, 4, 4, null, null, 654321);
+        final Maze heapMaze = new Maze(parameters);
+        final Maze mappedMaze = new Maze(parameters.withStorage(StorageMode.MEMORY_MAPPED, null));
+
+        heapMaze.generateMaze();
+        mappedMaze.generateMaze();
+
+        assertArrayEquals(heapMaze.getHorizontalLines(), mappedMaze.getHorizontalLines());
+        assertArrayEquals(heapMaze.getVerticalLines(), mappedMaze.getVerticalLines());
+    }
+}
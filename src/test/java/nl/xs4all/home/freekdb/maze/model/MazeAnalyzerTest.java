@@ -0,0 +1,138 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the <code>MazeAnalyzer</code> class, which compare it with counting cell by cell.
+ */
+public class MazeAnalyzerTest {
+    private static final long RANDOM_SEED = 654321;
+
+    @Test
+    public void testSameStatisticsAsCellByCellCountingForAllAlgorithms() {
+        final MazeParameters mazeParameters = new MazeParameters(67, 150, 2, 2, new Point(0, 0), new Point(149, 66),
+                                                                 RANDOM_SEED);
+
+        for (final MazeAlgorithm algorithm : MazeAlgorithm.values()) {
+            final Maze maze = new Maze(mazeParameters);
+            maze.generateMaze(algorithm.createGenerator());
+
+            final MazeStatistics statistics = MazeAnalyzer.analyze(maze, null);
+
+            assertSameStatistics(algorithm.name(), maze, new Maze(mazeParameters), statistics);
+            assertEquals(algorithm.name(), statistics.getCellCount() - 1, statistics.getPassageCount());
+            assertEquals(algorithm.name(), maze.solveMaze(null).length, statistics.getSolutionLength());
+        }
+    }
+
+    @Test
+    public void testSameStatisticsAsCellByCellCountingForShapedMaze() throws IOException {
+        final ShapeMask shapeMask = ShapeMask.sample(ShapeMask.readImage(new File("etc/unit-test.png")), 2, 2,
+                                                     247, 58);
+        final MazeParameters mazeParameters = new MazeParameters(58, 247, 2, 2, null, null, RANDOM_SEED);
+        final Maze maze = new Maze(mazeParameters);
+        maze.limitMazeAreaToShape(shapeMask);
+        maze.generateMaze(new KruskalMazeGenerator());
+
+        final Maze emptyMaze = new Maze(mazeParameters);
+        emptyMaze.limitMazeAreaToShape(shapeMask);
+
+        final MazeStatistics statistics = MazeAnalyzer.analyze(maze, shapeMask);
+
+        assertSameStatistics("shaped maze", maze, emptyMaze, statistics);
+        assertEquals(-1, statistics.getSolutionLength());
+    }
+
+    @Test
+    public void testStreamedMazeHasSameStatisticsAsMazeInMemory() throws IOException {
+        final MazeParameters mazeParameters = new MazeParameters(120, 150, 2, 2, null, null, RANDOM_SEED);
+        final Maze maze = new Maze(mazeParameters);
+        maze.generateMaze(new EllerMazeGenerator());
+
+        final MazeAnalyzer analyzer = new MazeAnalyzer(null);
+        new StreamingMazeGenerator(mazeParameters, null).generate(analyzer);
+
+        assertEquals(MazeAnalyzer.analyze(maze, null).toString(), analyzer.getStatistics().toString());
+    }
+
+    /**
+     * Compare the statistics with counting the passages of every cell inside the shape.
+     *
+     * @param message    the message for failed assertions.
+     * @param maze       the generated maze.
+     * @param emptyMaze  the maze before generation, with the cross points outside the shape filled.
+     * @param statistics the statistics determined by the analyzer.
+     */
+    private static void assertSameStatistics(final String message, final Maze maze, final Maze emptyMaze,
+                                             final MazeStatistics statistics) {
+        final long[] degreeCounts = new long[5];
+        final long[] straightRunCounts = new long[MazeStatistics.MAXIMUM_STRAIGHT_RUN_LENGTH + 1];
+        long cellCount = 0;
+        long turnCount = 0;
+
+        for (int y = 0; y < maze.getMazeHeight(); y++)
+            for (int x = 0; x < maze.getMazeWidth(); x++)
+                if (isInside(emptyMaze, x, y)) {
+                    final int passages = getPassages(maze, emptyMaze, x, y);
+                    final int degree = Integer.bitCount(passages);
+
+                    cellCount++;
+                    degreeCounts[degree]++;
+                    if (degree == 2 && passages != (1 << Maze.LEFT | 1 << Maze.RIGHT)
+                        && passages != (1 << Maze.UP | 1 << Maze.DOWN))
+                        turnCount++;
+
+                    // A straight run starts at a cell with a passage in a direction but not in the opposite one.
+                    for (final int direction : new int[]{Maze.RIGHT, Maze.DOWN}) {
+                        final int opposite = SolverPaths.getOppositeDirection(direction);
+                        if ((passages & 1 << direction) != 0 && (passages & 1 << opposite) == 0) {
+                            int length = 0;
+                            int cellX = x;
+                            int cellY = y;
+
+                            while ((getPassages(maze, emptyMaze, cellX, cellY) & 1 << direction) != 0) {
+                                length++;
+                                cellX += direction == Maze.RIGHT ? 1 : 0;
+                                cellY += direction == Maze.DOWN ? 1 : 0;
+                            }
+
+                            straightRunCounts[Math.min(length, MazeStatistics.MAXIMUM_STRAIGHT_RUN_LENGTH)]++;
+                        }
+                    }
+                }
+
+        assertEquals(message, cellCount, statistics.getCellCount());
+        for (int degree = 0; degree <= 4; degree++)
+            assertEquals(message + ", degree " + degree, degreeCounts[degree], statistics.getDegreeCount(degree));
+        assertEquals(message, turnCount, statistics.getTurnCount());
+        for (int length = 1; length <= MazeStatistics.MAXIMUM_STRAIGHT_RUN_LENGTH; length++)
+            assertEquals(message + ", straight run length " + length, straightRunCounts[length],
+                         statistics.getStraightRunCount(length));
+    }
+
+    private static int getPassages(final Maze maze, final Maze emptyMaze, final int x, final int y) {
+        final int cellIndex = maze.getCellIndex(x, y);
+        final int passages = maze.getPassages(cellIndex);
+        int insidePassages = 0;
+
+        for (int direction = 0; direction < 4; direction++)
+            if ((passages & 1 << direction) != 0) {
+                final int neighbour = maze.getNeighbour(cellIndex, direction);
+
+                if (isInside(emptyMaze, maze.getCellX(neighbour), maze.getCellY(neighbour)))
+                    insidePassages |= 1 << direction;
+            }
+
+        return insidePassages;
+    }
+
+    private static boolean isInside(final Maze emptyMaze, final int x, final int y) {
+        return SpanningTreeMazeGenerator.isInside(emptyMaze.getCrossPointGrid(), x, y);
+    }
+}
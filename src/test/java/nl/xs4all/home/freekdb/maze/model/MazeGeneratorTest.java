@@ -0,0 +1,153 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.io.File;
+import java.io.IOException;
+
+import nl.xs4all.home.freekdb.maze.utilities.IntUnionFind;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the <code>MazeGenerator</code> implementations.
+ */
+public class MazeGeneratorTest {
+    private static final long RANDOM_SEED = 654321;
+
+    @Test
+    public void testRectangularMazesArePerfect() {
+        for (final MazeGenerator generator : createGenerators()) {
+            final Maze maze = new Maze(new MazeParameters(90, 130, 2, 2, null, null, RANDOM_SEED));
+
+            checkPerfectInShape(maze, generator);
+        }
+    }
+
+    @Test
+    public void testShapedMazesArePerfectInEachPart() throws IOException {
+        final ShapeMask shapeMask = ShapeMask.sample(ShapeMask.readImage(new File("etc/unit-test.png")), 2, 2,
+                                                     247, 58);
+
+        // The curly line generator does not draw walls between filled cross points, so it can leave loops there.
+        for (final MazeGenerator generator : createSpanningTreeGenerators()) {
+            final Maze maze = new Maze(new MazeParameters(58, 247, 2, 2, null, null, RANDOM_SEED));
+            maze.limitMazeAreaToShape(shapeMask);
+
+            checkPerfectInShape(maze, generator);
+        }
+    }
+
+    @Test
+    public void testSameSeedGivesSameMaze() {
+        for (final MazeGenerator generator : createGenerators()) {
+            final Maze maze1 = new Maze(new MazeParameters(40, 70, 2, 2, null, null, RANDOM_SEED));
+            final Maze maze2 = new Maze(new MazeParameters(40, 70, 2, 2, null, null, RANDOM_SEED));
+            maze1.generateMaze(generator);
+            maze2.generateMaze(generator);
+
+            assertArrayEquals(maze1.getHorizontalLines(), maze2.getHorizontalLines());
+            assertArrayEquals(maze1.getVerticalLines(), maze2.getVerticalLines());
+        }
+    }
+
+    @Test
+    public void testPassagesInBothDirections() {
+        for (final MazeGenerator generator : createGenerators()) {
+            final Maze maze = new Maze(new MazeParameters(100, 100, 2, 2, null, null, RANDOM_SEED));
+            maze.generateMaze(generator);
+
+            int horizontalPassageCount = 0;
+            int verticalPassageCount = 0;
+            for (int cell = 0; cell < maze.getCellCount(); cell++) {
+                final int passages = maze.getPassages(cell);
+                horizontalPassageCount += (passages >> Maze.RIGHT) & 1;
+                verticalPassageCount += (passages >> Maze.DOWN) & 1;
+            }
+
+            // A perfect maze has one passage less than cells; neither direction should dominate.
+            final String name = generator.getClass().getSimpleName();
+            assertTrue(name + ": " + horizontalPassageCount, horizontalPassageCount > maze.getCellCount() / 4);
+            assertTrue(name + ": " + verticalPassageCount, verticalPassageCount > maze.getCellCount() / 4);
+        }
+    }
+
+    private static MazeGenerator[] createGenerators() {
+        return new MazeGenerator[]{new CurlyLineMazeGenerator(), new RecursiveBacktrackerMazeGenerator(),
+                                   new KruskalMazeGenerator(), new WilsonMazeGenerator(), new EllerMazeGenerator()};
+    }
+
+    private static MazeGenerator[] createSpanningTreeGenerators() {
+        return new MazeGenerator[]{new RecursiveBacktrackerMazeGenerator(), new KruskalMazeGenerator(),
+                                   new WilsonMazeGenerator(), new EllerMazeGenerator()};
+    }
+
+    /**
+     * Generate a maze and check that the cells of each part of the shape are connected without loops, that the walls
+     * which were drawn before generation are kept and that all cross points are filled.
+     */
+    private static void checkPerfectInShape(final Maze maze, final MazeGenerator generator) {
+        final int mazeWidth = maze.getMazeWidth();
+        final int mazeHeight = maze.getMazeHeight();
+        final boolean[][] initialCrossPoints = maze.getCrossPoints();
+        final boolean[][] initialHorizontalLines = maze.getHorizontalLines();
+        final boolean[][] initialVerticalLines = maze.getVerticalLines();
+
+        maze.generateMaze(generator);
+
+        final String name = generator.getClass().getSimpleName();
+        final IntUnionFind parts = new IntUnionFind(maze.getCellCount());
+        final IntUnionFind connectedCells = new IntUnionFind(maze.getCellCount());
+        int insideCellCount = 0;
+        int partCount = 0;
+        int passageCount = 0;
+
+        for (int y = 0; y < mazeHeight; y++)
+            for (int x = 0; x < mazeWidth; x++) {
+                final int cell = maze.getCellIndex(x, y);
+                final boolean inside = isInside(initialCrossPoints, x, y);
+
+                insideCellCount += inside ? 1 : 0;
+                partCount += inside ? 1 : 0;
+
+                if (inside && x + 1 < mazeWidth && isInside(initialCrossPoints, x + 1, y)
+                    && !initialVerticalLines[y][x + 1]) {
+                    partCount -= parts.union(cell, cell + 1) ? 1 : 0;
+
+                    if (!maze.hasVerticalLine(y, x + 1)) {
+                        passageCount++;
+                        assertTrue(name + " has a loop", connectedCells.union(cell, cell + 1));
+                    }
+                }
+
+                if (inside && y + 1 < mazeHeight && isInside(initialCrossPoints, x, y + 1)
+                    && !initialHorizontalLines[y + 1][x]) {
+                    partCount -= parts.union(cell, cell + mazeWidth) ? 1 : 0;
+
+                    if (!maze.hasHorizontalLine(y + 1, x)) {
+                        passageCount++;
+                        assertTrue(name + " has a loop", connectedCells.union(cell, cell + mazeWidth));
+                    }
+                }
+
+                if (initialHorizontalLines[y][x])
+                    assertTrue(name, maze.hasHorizontalLine(y, x));
+                if (initialVerticalLines[y][x])
+                    assertTrue(name, maze.hasVerticalLine(y, x));
+            }
+
+        // Without loops, the passages form a forest; it has one tree per part if it has one passage less than cells
+        // per part.
+        assertEquals(name, insideCellCount - partCount, passageCount);
+
+        for (final boolean[] row : maze.getCrossPoints())
+            for (final boolean crossPoint : row)
+                assertTrue(name, crossPoint);
+    }
+
+    private static boolean isInside(final boolean[][] crossPoints, final int x, final int y) {
+        return !crossPoints[y][x] || !crossPoints[y][x + 1] || !crossPoints[y + 1][x] || !crossPoints[y + 1][x + 1];
+    }
+}
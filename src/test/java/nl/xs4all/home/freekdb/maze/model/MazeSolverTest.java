@@ -0,0 +1,85 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.awt.Point;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the <code>MazeSolver</code> implementations.
+ */
+public class MazeSolverTest {
+    private static final int MAZE_HEIGHT = 30;
+    private static final int MAZE_WIDTH = 40;
+
+    @Test
+    public void testSolversFindTheUniquePathInAPerfectMaze() {
+        final Maze maze = createMaze();
+        final int[] depthFirstPath = maze.solveMaze(null);
+
+        assertNotNull(depthFirstPath);
+        assertEquals(maze.getCellIndex(0, 0), depthFirstPath[0]);
+        assertEquals(maze.getCellIndex(MAZE_WIDTH - 1, MAZE_HEIGHT - 1), depthFirstPath[depthFirstPath.length - 1]);
+        assertArrayEquals(depthFirstPath, maze.solveMaze(new BreadthFirstSolver(), null));
+        assertArrayEquals(depthFirstPath, maze.solveMaze(new AStarSolver(), null));
+        assertArrayEquals(depthFirstPath, maze.solveMaze(new DeadEndFillingSolver(), null));
+    }
+
+    @Test
+    public void testShortestPathSolversInAnOpenMaze() {
+        // Without any inner walls, the shortest path has the Manhattan distance between the corners.
+        final Maze maze = new Maze(new MazeParameters(MAZE_HEIGHT, MAZE_WIDTH, 4, 4, new Point(0, 0),
+                                                      new Point(MAZE_WIDTH - 1, MAZE_HEIGHT - 1), 654321));
+        final int expectedLength = MAZE_HEIGHT + MAZE_WIDTH - 1;
+
+        assertEquals(expectedLength, maze.solveMaze(new BreadthFirstSolver(), null).length);
+        assertEquals(expectedLength, maze.solveMaze(new AStarSolver(), null).length);
+    }
+
+    @Test
+    public void testCellIndicesUpToIntegerMaximum() {
+        Maze.checkCellIndices(46340, 46340);
+        Maze.checkCellIndices(Integer.MAX_VALUE, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyCellsForCellIndices() {
+        // 46341 x 46341 cells is just over Integer.MAX_VALUE, so the int cell count and indices would overflow.
+        Maze.checkCellIndices(46341, 46341);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMissingEndPoint() {
+        final Maze maze = new Maze(new MazeParameters(MAZE_HEIGHT, MAZE_WIDTH, 4, 4, new Point(0, 0), null, 654321));
+        maze.generateMaze();
+
+        maze.solveMaze(new BreadthFirstSolver(), null);
+    }
+
+    @Test
+    public void testPointOutsideMaze() {
+        // The end point (MAZE_WIDTH, 0) would otherwise be the first cell of the second row.
+        final Maze maze = new Maze(new MazeParameters(MAZE_HEIGHT, MAZE_WIDTH, 4, 4, new Point(0, 0),
+                                                      new Point(MAZE_WIDTH, 0), 654321));
+        maze.generateMaze();
+
+        try {
+            maze.solveMaze(null);
+            fail("The end point outside the maze should be rejected.");
+        } catch (final IllegalArgumentException e) {
+            assertEquals("The end point (40,0) lies outside the maze of 40x30 cells.", e.getMessage());
+        }
+    }
+
+    private static Maze createMaze() {
+        final Maze maze = new Maze(new MazeParameters(MAZE_HEIGHT, MAZE_WIDTH, 4, 4, new Point(0, 0),
+                                                      new Point(MAZE_WIDTH - 1, MAZE_HEIGHT - 1), 654321));
+        maze.generateMaze();
+
+        return maze;
+    }
+}
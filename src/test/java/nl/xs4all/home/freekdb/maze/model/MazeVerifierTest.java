@@ -0,0 +1,178 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+
+import nl.xs4all.home.freekdb.maze.utilities.IntUnionFind;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the <code>MazeVerifier</code> class.
+ */
+public class MazeVerifierTest {
+    private static final long RANDOM_SEED = 654321;
+
+    private static final MazeParameters MAZE_PARAMETERS = new MazeParameters(67, 150, 2, 2, new Point(3, 60),
+                                                                             new Point(140, 2), RANDOM_SEED);
+
+    @Test
+    public void testGeneratedRectangularMazesArePerfect() {
+        for (final MazeAlgorithm algorithm : MazeAlgorithm.values()) {
+            final Maze maze = new Maze(MAZE_PARAMETERS);
+            maze.generateMaze(algorithm.createGenerator());
+
+            final MazeVerification verification = MazeVerifier.verify(maze, null, false);
+
+            assertTrue(algorithm + ": " + verification, verification.isPerfect());
+            assertTrue(algorithm.name(), verification.isStartConnectedToEnd());
+            assertEquals(algorithm.name(), maze.getCellCount(), verification.getCellCount());
+            assertEquals(algorithm.name(), maze.getCellCount() - 1, verification.getPassageCount());
+        }
+    }
+
+    @Test
+    public void testSameResultAsUnionFindOverAllCellsForShapedMazes() throws IOException {
+        final ShapeMask shapeMask = ShapeMask.sample(ShapeMask.readImage(new File("etc/unit-test.png")), 2, 2,
+                                                     247, 58);
+        final MazeParameters mazeParameters = new MazeParameters(58, 247, 2, 2, new Point(6, 18), new Point(230, 45),
+                                                                 RANDOM_SEED);
+
+        for (final MazeAlgorithm algorithm : MazeAlgorithm.values()) {
+            final Maze maze = new Maze(mazeParameters);
+            maze.limitMazeAreaToShape(shapeMask);
+            maze.generateMaze(algorithm.createGenerator());
+
+            final Maze emptyMaze = new Maze(mazeParameters);
+            emptyMaze.limitMazeAreaToShape(shapeMask);
+
+            assertSameResult(algorithm.name(), maze, emptyMaze, MazeVerifier.verify(maze, shapeMask, false));
+        }
+    }
+
+    @Test
+    public void testOpenedWallGivesCycle() {
+        final Maze maze = new Maze(MAZE_PARAMETERS);
+        maze.generateMaze(new KruskalMazeGenerator());
+        openFirstClosedWall(maze, 30);
+
+        final MazeVerification verification = MazeVerifier.verify(maze, null, false);
+
+        assertFalse(verification.isPerfect());
+        assertEquals(1, verification.getCycleCount());
+        assertEquals(1, verification.getComponentCount());
+        assertSameResult("opened wall", maze, new Maze(MAZE_PARAMETERS), verification);
+    }
+
+    @Test
+    public void testClosedPassageGivesSecondComponent() {
+        final Maze maze = new Maze(MAZE_PARAMETERS);
+        maze.generateMaze(new KruskalMazeGenerator());
+        closeFirstPassage(maze, 30);
+
+        final MazeVerification verification = MazeVerifier.verify(maze, null, false);
+
+        assertFalse(verification.isPerfect());
+        assertEquals(0, verification.getCycleCount());
+        assertEquals(2, verification.getComponentCount());
+        assertSameResult("closed passage", maze, new Maze(MAZE_PARAMETERS), verification);
+    }
+
+    @Test
+    public void testFailFastStopsAtFirstDefect() {
+        final Maze maze = new Maze(MAZE_PARAMETERS);
+        maze.generateMaze(new WilsonMazeGenerator());
+        openFirstClosedWall(maze, 20);
+
+        final MazeVerification verification = MazeVerifier.verify(maze, null, true);
+
+        assertFalse(verification.isComplete());
+        assertFalse(verification.isPerfect());
+        assertEquals(1, verification.getCycleCount());
+        assertTrue(verification.getCellCount() < maze.getCellCount());
+
+        final Maze perfectMaze = new Maze(MAZE_PARAMETERS);
+        perfectMaze.generateMaze(new WilsonMazeGenerator());
+        assertTrue(MazeVerifier.verify(perfectMaze, null, true).isPerfect());
+    }
+
+    @Test
+    public void testStreamedMazeIsPerfect() throws IOException {
+        final MazeVerifier verifier = new MazeVerifier(null, true);
+        new StreamingMazeGenerator(MAZE_PARAMETERS, null).generate(verifier);
+
+        final MazeVerification verification = verifier.getVerification();
+        assertTrue(verification.toString(), verification.isPerfect());
+        assertTrue(verification.isStartConnectedToEnd());
+    }
+
+    private static void openFirstClosedWall(final Maze maze, final int y) {
+        for (int x = 1; x < maze.getMazeWidth(); x++)
+            if (maze.hasVerticalLine(y, x)) {
+                maze.getVerticalLineGrid().set(y, x, false);
+                return;
+            }
+    }
+
+    private static void closeFirstPassage(final Maze maze, final int y) {
+        for (int x = 1; x < maze.getMazeWidth(); x++)
+            if (!maze.hasVerticalLine(y, x)) {
+                maze.getVerticalLineGrid().set(y, x);
+                return;
+            }
+    }
+
+    /**
+     * Compare the result with a union-find over all cells inside the shape.
+     *
+     * @param message      the message for failed assertions.
+     * @param maze         the generated maze.
+     * @param emptyMaze    the maze before generation, with the cross points outside the shape filled.
+     * @param verification the result of the verifier.
+     */
+    private static void assertSameResult(final String message, final Maze maze, final Maze emptyMaze,
+                                         final MazeVerification verification) {
+        final IntUnionFind connectedCells = new IntUnionFind(maze.getCellCount());
+        long cellCount = 0;
+        long componentCount = 0;
+        long cycleCount = 0;
+
+        for (int cell = 0; cell < maze.getCellCount(); cell++)
+            if (isInside(emptyMaze, cell)) {
+                cellCount++;
+                componentCount++;
+
+                final int passages = maze.getPassages(cell);
+                for (final int direction : new int[]{Maze.RIGHT, Maze.DOWN}) {
+                    final int neighbour = maze.getNeighbour(cell, direction);
+
+                    if ((passages & 1 << direction) != 0 && isInside(emptyMaze, neighbour)) {
+                        if (connectedCells.union(cell, neighbour))
+                            componentCount--;
+                        else
+                            cycleCount++;
+                    }
+                }
+            }
+
+        final boolean startConnectedToEnd = isInside(emptyMaze, maze.getStartCell())
+                                            && isInside(emptyMaze, maze.getEndCell())
+                                            && connectedCells.find(maze.getStartCell())
+                                               == connectedCells.find(maze.getEndCell());
+
+        assertEquals(message, cellCount, verification.getCellCount());
+        assertEquals(message, componentCount, verification.getComponentCount());
+        assertEquals(message, cycleCount, verification.getCycleCount());
+        assertEquals(message, startConnectedToEnd, verification.isStartConnectedToEnd());
+    }
+
+    private static boolean isInside(final Maze emptyMaze, final int cell) {
+        return SpanningTreeMazeGenerator.isInside(emptyMaze.getCrossPointGrid(), emptyMaze.getCellX(cell),
+                                                  emptyMaze.getCellY(cell));
+    }
+}
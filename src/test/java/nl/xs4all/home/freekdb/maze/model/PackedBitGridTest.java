@@ -0,0 +1,56 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the <code>PackedBitGrid</code> class.
+ */
+public class PackedBitGridTest {
+    @Test
+    public void testSetAndGet() {
+        final PackedBitGrid grid = new PackedBitGrid(3, 130);
+
+        grid.set(0, 0);
+        grid.set(1, 63);
+        grid.set(1, 64);
+        grid.set(2, 129);
+        grid.set(2, 129, false);
+        grid.set(2, 128, true);
+
+        assertTrue(grid.get(0, 0));
+        assertTrue(grid.get(1, 63));
+        assertTrue(grid.get(1, 64));
+        assertTrue(grid.get(2, 128));
+        assertFalse(grid.get(2, 129));
+        assertFalse(grid.get(0, 1));
+    }
+
+    @Test
+    public void testRowsStartAtWordBoundary() {
+        final PackedBitGrid grid = new PackedBitGrid(2, 65);
+
+        grid.set(1, 0);
+
+        assertEquals(2, grid.getWordsPerRow());
+        assertEquals(4, grid.getWordCount());
+        assertEquals(1L, grid.getWord(2));
+        assertEquals(32, grid.getSizeInBytes());
+    }
+
+    @Test
+    public void testToArray() {
+        final PackedBitGrid grid = new PackedBitGrid(2, 3);
+
+        grid.set(1, 2);
+
+        final boolean[][] array = grid.toArray();
+        assertEquals(2, array.length);
+        assertEquals(3, array[0].length);
+        assertTrue(array[1][2]);
+        assertFalse(array[0][2]);
+    }
+}
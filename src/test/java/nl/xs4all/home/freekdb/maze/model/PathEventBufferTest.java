@@ -0,0 +1,57 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the <code>PathEventBuffer</code> class.
+ */
+public class PathEventBufferTest {
+    @Test
+    public void testEvents() {
+        final PathEventBuffer pathEventBuffer = new PathEventBuffer();
+
+        pathEventBuffer.cellEntered(0);
+        pathEventBuffer.cellEntered(7);
+        pathEventBuffer.cellLeft(7);
+
+        assertEquals(3, pathEventBuffer.getLength());
+        assertTrue(PathEventBuffer.isCellEntered(pathEventBuffer.get(0)));
+        assertEquals(0, PathEventBuffer.getCellIndex(pathEventBuffer.get(0)));
+        assertTrue(PathEventBuffer.isCellEntered(pathEventBuffer.get(1)));
+        assertFalse(PathEventBuffer.isCellEntered(pathEventBuffer.get(2)));
+        assertEquals(7, PathEventBuffer.getCellIndex(pathEventBuffer.get(2)));
+        assertFalse(pathEventBuffer.isFinished());
+    }
+
+    @Test
+    public void testConcurrentReader() throws InterruptedException {
+        final PathEventBuffer pathEventBuffer = new PathEventBuffer();
+        final int eventCount = 1_000_000;
+
+        final Thread writer = new Thread(() -> {
+            for (int cellIndex = 0; cellIndex < eventCount; cellIndex++)
+                pathEventBuffer.cellEntered(cellIndex);
+
+            pathEventBuffer.finish();
+        });
+        writer.start();
+
+        int readCount = 0;
+        boolean finished = false;
+
+        while (!finished) {
+            finished = pathEventBuffer.isFinished();
+            final int length = pathEventBuffer.getLength();
+
+            for (; readCount < length; readCount++)
+                assertEquals(readCount, pathEventBuffer.get(readCount));
+        }
+
+        writer.join();
+        assertEquals(eventCount, readCount);
+    }
+}
@@ -0,0 +1,89 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.awt.Point;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the <code>PresetRegistry</code> class.
+ */
+public class PresetRegistryTest {
+    private static final String PRESETS = "preset.Small.image = etc/unit-test.png\n"
+                                          + "preset.Small.cellSize = 2\n"
+                                          + "preset.Small.start = 6,18\n"
+                                          + "preset.Small.end = 230,45\n"
+                                          + "preset.Small.seed = 654321\n"
+                                          + "preset.Wide.image = etc/unit-test.png\n"
+                                          + "preset.Wide.cellWidth = 4\n"
+                                          + "preset.Wide.cellHeight = 2\n"
+                                          + "preset.Broken.image = etc/unit-test.png\n"
+                                          + "preset.Broken.cellSize = two\n";
+
+    @Test
+    public void testPresetNames() throws IOException {
+        assertEquals(new HashSet<>(Arrays.asList("Broken", "Small", "Wide")), createRegistry().getPresetNames());
+    }
+
+    @Test
+    public void testParameters() throws IOException {
+        final MazeParameters parameters = createRegistry().getParameters("Small");
+
+        assertNotNull(parameters);
+        assertEquals(2, parameters.getCellWidth());
+        assertEquals(2, parameters.getCellHeight());
+        assertEquals(247, parameters.getMazeWidth());
+        assertEquals(new Point(6, 18), parameters.getStartPoint());
+        assertEquals(new Point(230, 45), parameters.getEndPoint());
+        assertEquals(654321, parameters.getRandomSeed());
+    }
+
+    @Test
+    public void testSeparateCellDimensions() throws IOException {
+        final MazeParameters parameters = createRegistry().getParameters("Wide");
+
+        assertEquals(4, parameters.getCellWidth());
+        assertEquals(2, parameters.getCellHeight());
+        assertNull(parameters.getStartPoint());
+    }
+
+    @Test
+    public void testParametersAreCached() throws IOException {
+        final PresetRegistry registry = createRegistry();
+
+        assertSame(registry.getParameters("Small"), registry.getParameters("Small"));
+    }
+
+    @Test
+    public void testUnknownPreset() throws IOException {
+        assertNull(createRegistry().getParameters("Unknown"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPreset() throws IOException {
+        createRegistry().getParameters("Broken");
+    }
+
+    @Test
+    public void testDefaultRegistry() {
+        assertEquals(MazeParameters.getPreconfiguredParameters("Test").getMazeWidth(),
+                     createDefaultParameters().getMazeWidth());
+    }
+
+    private static MazeParameters createDefaultParameters() {
+        return new MazeParameters("etc/unit-test.png", 2, 2, new Point(6, 18), new Point(230, 45), 654321);
+    }
+
+    private static PresetRegistry createRegistry() throws IOException {
+        return PresetRegistry.load(new ByteArrayInputStream(PRESETS.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+}
@@ -0,0 +1,48 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the <code>RandomSource</code> implementations and the random modes used for maze generation.
+ */
+public class RandomSourceTest {
+    @Test
+    public void testXoroshiroIsDeterministicAndInRange() {
+        final XoroshiroRandomSource first = new XoroshiroRandomSource(654321);
+        final XoroshiroRandomSource second = new XoroshiroRandomSource(654321);
+        final int[] counts = new int[3];
+
+        for (int drawIndex = 0; drawIndex < 3000; drawIndex++) {
+            final int value = first.nextInt(3);
+
+            assertEquals(value, second.nextInt(3));
+            assertTrue(value >= 0 && value < 3);
+            counts[value]++;
+        }
+
+        for (final int count : counts)
+            assertTrue(count > 800);
+    }
+
+    @Test
+    public void testRandomModesGenerateReproducibleMazes() {
+        for (final RandomMode randomMode : RandomMode.values()) {
+            final Maze first = createMaze(randomMode);
+            final Maze second = createMaze(randomMode);
+
+            assertArrayEquals(first.getHorizontalLines(), second.getHorizontalLines());
+            assertArrayEquals(first.getVerticalLines(), second.getVerticalLines());
+        }
+    }
+
+    private static Maze createMaze(final RandomMode randomMode) {
+        final Maze maze = new Maze(new MazeParameters(20, 30, 4, 4, null, null, 654321).withRandomMode(randomMode));
+        maze.generateMaze();
+
+        return maze;
+    }
+}
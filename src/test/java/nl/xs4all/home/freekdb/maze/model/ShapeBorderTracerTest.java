@@ -0,0 +1,121 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the <code>ShapeBorderTracer</code> class, which compare it with the original line by line tracing.
+ */
+public class ShapeBorderTracerTest {
+    @Test
+    public void testSameBorderAsScalarTracingForUnitTestShape() throws IOException {
+        final BufferedImage image = ShapeMask.readImage(new File("etc/unit-test.png"));
+
+        for (final int cellSize : new int[]{2, 3, 6}) {
+            final MazeParameters mazeParameters = new MazeParameters("etc/unit-test.png", cellSize, cellSize, null,
+                                                                     null, 654321);
+            final Maze maze = new Maze(mazeParameters);
+            final Maze expectedMaze = new Maze(mazeParameters);
+            final ShapeMask shapeMask = ShapeMask.sample(image, cellSize, cellSize, maze.getMazeWidth(),
+                                                         maze.getMazeHeight());
+
+            maze.limitMazeAreaToShape(shapeMask);
+            fillOutsidePoints(expectedMaze, shapeMask.getOutsidePoints());
+            traceBorderScalar(expectedMaze);
+
+            assertSameLines("cell size " + cellSize, expectedMaze, maze);
+        }
+    }
+
+    @Test
+    public void testSameBorderAsScalarTracingForRandomShapes() {
+        final Random random = new Random(20201018);
+        final int[] mazeWidths = {1, 2, 62, 63, 64, 65, 127, 128, 129, 200};
+
+        for (final int mazeWidth : mazeWidths)
+            for (final double fillRatio : new double[]{0.1, 0.5, 0.9}) {
+                final int mazeHeight = 1 + random.nextInt(40);
+                final MazeParameters mazeParameters = new MazeParameters(mazeHeight, mazeWidth, 2, 2, null, null, 1);
+                final Maze maze = new Maze(mazeParameters);
+                final Maze expectedMaze = new Maze(mazeParameters);
+                final BitGrid outsidePoints = new PackedBitGrid(mazeHeight + 1, mazeWidth + 1);
+
+                for (int y = 0; y < mazeHeight + 1; y++)
+                    for (int x = 0; x < mazeWidth + 1; x++)
+                        if (random.nextDouble() < fillRatio)
+                            outsidePoints.set(y, x);
+
+                fillOutsidePoints(maze, outsidePoints);
+                new ShapeBorderTracer(mazeWidth).traceBorder(maze.getCrossPointGrid(), maze.getHorizontalLineGrid(),
+                                                             maze.getVerticalLineGrid());
+                fillOutsidePoints(expectedMaze, outsidePoints);
+                traceBorderScalar(expectedMaze);
+
+                assertSameLines("maze " + mazeWidth + " x " + mazeHeight + ", fill ratio " + fillRatio,
+                                expectedMaze, maze);
+            }
+    }
+
+    private static void fillOutsidePoints(final Maze maze, final BitGrid outsidePoints) {
+        final BitGrid crossPoints = maze.getCrossPointGrid();
+
+        for (long wordIndex = 0; wordIndex < crossPoints.getWordCount(); wordIndex++)
+            crossPoints.setWord(wordIndex, crossPoints.getWord(wordIndex) | outsidePoints.getWord(wordIndex));
+    }
+
+    /**
+     * The original tracing of the circumference in <code>Maze.limitMazeAreaToShape</code>, one line at a time.
+     */
+    private static void traceBorderScalar(final Maze maze) {
+        final BitGrid crossPoints = maze.getCrossPointGrid();
+        final BitGrid horizontalLines = maze.getHorizontalLineGrid();
+        final BitGrid verticalLines = maze.getVerticalLineGrid();
+
+        for (int x = 0; x < maze.getMazeWidth(); x++) {
+            boolean previousLineOutsideShape = true;
+
+            for (int y = 1; y < (maze.getMazeHeight() + 1); y++) {
+                final boolean lineOutsideShape = crossPoints.get(y, x) && crossPoints.get(y, x + 1);
+
+                if (previousLineOutsideShape && !lineOutsideShape)
+                    horizontalLines.set(y - 1, x);
+                else if (!previousLineOutsideShape && lineOutsideShape)
+                    horizontalLines.set(y, x);
+
+                previousLineOutsideShape = lineOutsideShape;
+            }
+        }
+
+        for (int y = 0; y < maze.getMazeHeight(); y++) {
+            boolean previousLineOutsideShape = true;
+
+            for (int x = 1; x < (maze.getMazeWidth() + 1); x++) {
+                final boolean lineOutsideShape = crossPoints.get(y, x) && crossPoints.get(y + 1, x);
+
+                if (previousLineOutsideShape && !lineOutsideShape)
+                    verticalLines.set(y, x - 1);
+                else if (!previousLineOutsideShape && lineOutsideShape)
+                    verticalLines.set(y, x);
+
+                previousLineOutsideShape = lineOutsideShape;
+            }
+        }
+    }
+
+    private static void assertSameLines(final String message, final Maze expectedMaze, final Maze maze) {
+        assertSameWords(message + ", horizontal lines", expectedMaze.getHorizontalLineGrid(),
+                        maze.getHorizontalLineGrid());
+        assertSameWords(message + ", vertical lines", expectedMaze.getVerticalLineGrid(), maze.getVerticalLineGrid());
+    }
+
+    private static void assertSameWords(final String message, final BitGrid expected, final BitGrid actual) {
+        for (long wordIndex = 0; wordIndex < expected.getWordCount(); wordIndex++)
+            assertEquals(message + ", word " + wordIndex, expected.getWord(wordIndex), actual.getWord(wordIndex));
+    }
+}
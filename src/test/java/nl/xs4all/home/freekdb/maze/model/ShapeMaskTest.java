@@ -0,0 +1,106 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the <code>ShapeMask</code> class.
+ */
+public class ShapeMaskTest {
+    private static final int CELL_SIZE = 3;
+    private static final int MAZE_WIDTH = 70;
+    private static final int MAZE_HEIGHT = 20;
+
+    @Test
+    public void testSameMaskForAllImageTypes() {
+        final int[] imageTypes = {BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+                                  BufferedImage.TYPE_BYTE_BINARY, BufferedImage.TYPE_BYTE_INDEXED,
+                                  BufferedImage.TYPE_BYTE_GRAY, BufferedImage.TYPE_3BYTE_BGR};
+        final BufferedImage referenceImage = createShapeImage(BufferedImage.TYPE_INT_ARGB);
+
+        for (final int imageType : imageTypes) {
+            final BufferedImage image = createShapeImage(imageType);
+            final ShapeMask shapeMask = ShapeMask.sample(image, CELL_SIZE, CELL_SIZE, MAZE_WIDTH, MAZE_HEIGHT);
+
+            for (int y = 0; y < MAZE_HEIGHT + 1; y++)
+                for (int x = 0; x < MAZE_WIDTH + 1; x++) {
+                    final int pixelX = CELL_SIZE * (x + 1);
+                    final int pixelY = CELL_SIZE * (y + 1);
+                    final boolean expectedOutside = pixelX >= image.getWidth() || pixelY >= image.getHeight()
+                                                    || referenceImage.getRGB(pixelX, pixelY) != Color.BLACK.getRGB();
+
+                    assertEquals("type " + imageType + ", point (" + x + ", " + y + ")", expectedOutside,
+                                 shapeMask.isOutside(y, x));
+                }
+        }
+    }
+
+    @Test
+    public void testSamplesOutsideImageAreOutsideShape() {
+        final BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_BYTE_BINARY);
+        final ShapeMask shapeMask = ShapeMask.sample(image, 3, 3, 3, 3);
+
+        assertFalse(shapeMask.isOutside(0, 0));
+        assertFalse(shapeMask.isOutside(2, 2));
+        assertTrue(shapeMask.isOutside(3, 0));
+        assertTrue(shapeMask.isOutside(0, 3));
+    }
+
+    @Test
+    public void testSameMazeAsImageSampling() throws IOException {
+        final MazeParameters mazeParameters = new MazeParameters("etc/unit-test.png", 6, 6, null, null, 654321);
+        final BufferedImage image = ShapeMask.readImage(new File("etc/unit-test.png"));
+        final Maze maze = new Maze(mazeParameters);
+        maze.limitMazeAreaToShape(image);
+
+        for (int y = 0; y < maze.getMazeHeight() + 1; y++)
+            for (int x = 0; x < maze.getMazeWidth() + 1; x++) {
+                final int pixelX = 6 * (x + 1);
+                final int pixelY = 6 * (y + 1);
+
+                if (pixelX < image.getWidth() && pixelY < image.getHeight()
+                    && image.getRGB(pixelX, pixelY) != Color.BLACK.getRGB())
+                    assertTrue(maze.hasCrossPoint(y, x));
+            }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingImage() {
+        ShapeMask.sample(null, CELL_SIZE, CELL_SIZE, MAZE_WIDTH, MAZE_HEIGHT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedMaze() {
+        final ShapeMask shapeMask = ShapeMask.sample(createShapeImage(BufferedImage.TYPE_INT_RGB), CELL_SIZE,
+                                                     CELL_SIZE, MAZE_WIDTH, MAZE_HEIGHT);
+
+        new Maze(new MazeParameters(MAZE_HEIGHT, MAZE_WIDTH + 1, CELL_SIZE, CELL_SIZE, null, null, 1))
+                .limitMazeAreaToShape(shapeMask);
+    }
+
+    private static BufferedImage createShapeImage(final int imageType) {
+        // The image is smaller than the maze needs, so the last column and row of cross points are outside the image.
+        final BufferedImage image = new BufferedImage(CELL_SIZE * (MAZE_WIDTH + 1) - 1,
+                                                      CELL_SIZE * (MAZE_HEIGHT + 1) - 1, imageType);
+        final Graphics2D graphics = image.createGraphics();
+
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.setColor(Color.BLACK);
+        graphics.fillOval(10, 5, image.getWidth() - 30, image.getHeight() - 10);
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(image.getWidth() / 2, 20, 17, 11);
+        graphics.dispose();
+
+        return image;
+    }
+}
@@ -0,0 +1,85 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the <code>ShapeTemplateCache</code> and <code>ShapeTemplate</code> classes.
+ */
+public class ShapeTemplateCacheTest {
+    private static final Path SHAPE_PATH = Paths.get("etc/unit-test.png");
+
+    @Test
+    public void testTemplateGivesSameMaze() throws IOException {
+        final ShapeTemplate template = new ShapeTemplateCache(Long.MAX_VALUE).getTemplate(SHAPE_PATH, 2, 2);
+
+        final MazeParameters shapeParameters = new MazeParameters(SHAPE_PATH.toString(), 2, 2, null, null, 654321);
+        final Maze expectedMaze = new Maze(shapeParameters);
+        expectedMaze.limitMazeAreaToShape(ShapeMask.readImage(SHAPE_PATH.toFile()));
+        expectedMaze.generateMaze();
+
+        final Maze maze = new Maze(new MazeParameters(template.getMazeHeight(), template.getMazeWidth(), 2, 2, null,
+                                                      null, 654321));
+        maze.applyShapeTemplate(template);
+        maze.generateMaze();
+
+        assertArrayEquals(expectedMaze.getCrossPoints(), maze.getCrossPoints());
+        assertArrayEquals(expectedMaze.getHorizontalLines(), maze.getHorizontalLines());
+        assertArrayEquals(expectedMaze.getVerticalLines(), maze.getVerticalLines());
+    }
+
+    @Test
+    public void testHitsAndMissesByContentAndCellSize() throws IOException {
+        final ShapeTemplateCache cache = new ShapeTemplateCache(Long.MAX_VALUE);
+        final File copyFile = File.createTempFile("shape", ".png");
+        copyFile.deleteOnExit();
+        Files.copy(SHAPE_PATH, copyFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        final ShapeTemplate template = cache.getTemplate(SHAPE_PATH, 2, 2);
+        assertSame(template, cache.getTemplate(copyFile.toPath(), 2, 2));
+        assertNotSame(template, cache.getTemplate(SHAPE_PATH, 3, 3));
+
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.getTemplateCount());
+    }
+
+    @Test
+    public void testEvictionBySize() throws IOException {
+        final long templateBytes = new ShapeTemplateCache(Long.MAX_VALUE).getTemplate(SHAPE_PATH, 3, 3)
+                .getSizeInBytes();
+        final ShapeTemplateCache cache = new ShapeTemplateCache(templateBytes);
+
+        cache.getTemplate(SHAPE_PATH, 3, 3);
+        assertEquals(templateBytes, cache.getCachedBytes());
+
+        // The template for cell size 2 is larger than the maximum, so both templates are evicted.
+        cache.getTemplate(SHAPE_PATH, 2, 2);
+        assertEquals(0, cache.getTemplateCount());
+        assertEquals(0, cache.getCachedBytes());
+
+        cache.getTemplate(SHAPE_PATH, 6, 6);
+        cache.getTemplate(SHAPE_PATH, 6, 6);
+        assertEquals(1, cache.getTemplateCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedMaze() throws IOException {
+        final ShapeTemplate template = new ShapeTemplateCache(Long.MAX_VALUE).getTemplate(SHAPE_PATH, 2, 2);
+
+        new Maze(new MazeParameters(10, 10, 2, 2, null, null, 1)).applyShapeTemplate(template);
+    }
+}
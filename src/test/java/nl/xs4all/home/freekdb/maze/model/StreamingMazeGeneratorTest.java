@@ -0,0 +1,224 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the <code>StreamingMazeGenerator</code> class.
+ */
+public class StreamingMazeGeneratorTest {
+    private static final long RANDOM_SEED = 654321;
+    private static final String SHAPE_PATH = "etc/unit-test.png";
+
+    @Test
+    public void testRectangularMazeIsSameAsEllerMaze() throws IOException {
+        final MazeParameters mazeParameters = new MazeParameters(120, 150, 2, 2, null, null, RANDOM_SEED);
+        final Maze maze = new Maze(mazeParameters);
+        maze.generateMaze(new EllerMazeGenerator());
+
+        final CollectingSink sink = new CollectingSink();
+        new StreamingMazeGenerator(mazeParameters, null).generate(sink);
+
+        assertEquals(121, sink.rowCount);
+        assertTrue(sink.finished);
+        assertGridEquals(maze.getCrossPointGrid(), sink.maze.getCrossPointGrid());
+        assertGridEquals(maze.getHorizontalLineGrid(), sink.maze.getHorizontalLineGrid());
+        assertGridEquals(maze.getVerticalLineGrid(), sink.maze.getVerticalLineGrid());
+    }
+
+    @Test
+    public void testShapedMazesArePerfect() throws IOException {
+        final BufferedImage shapeImage = ShapeMask.readImage(new File(SHAPE_PATH));
+
+        for (final int cellSize : new int[]{2, 3}) {
+            final MazeParameters shapeParameters = new MazeParameters(SHAPE_PATH, cellSize, cellSize, null, null,
+                                                                      RANDOM_SEED);
+            final int mazeWidth = shapeParameters.getMazeWidth();
+            final int mazeHeight = shapeParameters.getMazeHeight();
+            final ShapeMask shapeMask = ShapeMask.sample(shapeImage, cellSize, cellSize, mazeWidth, mazeHeight);
+
+            for (long randomSeed = 1; randomSeed <= 20; randomSeed++) {
+                final MazeParameters mazeParameters = new MazeParameters(mazeHeight, mazeWidth, cellSize, cellSize,
+                                                                         null, null, randomSeed);
+                final MazeVerifier verifier = new MazeVerifier(shapeMask, false);
+                new StreamingMazeGenerator(mazeParameters, shapeMask).generate(verifier);
+
+                final MazeVerification verification = verifier.getVerification();
+                assertTrue("Cell size " + cellSize + ", seed " + randomSeed + ": " + verification,
+                           verification.isPerfect());
+            }
+        }
+    }
+
+    @Test
+    public void testShapedMazeConnectsStartToEnd() throws IOException {
+        final ShapeMask shapeMask = ShapeMask.sample(ShapeMask.readImage(new File(SHAPE_PATH)), 2, 2, 247, 58);
+        final MazeParameters mazeParameters = new MazeParameters(58, 247, 2, 2, new Point(6, 18), new Point(230, 45),
+                                                                 RANDOM_SEED);
+        final CollectingSink sink = new CollectingSink();
+        new StreamingMazeGenerator(mazeParameters, shapeMask).generate(sink);
+
+        final MazeVerification verification = MazeVerifier.verify(sink.maze, shapeMask, false);
+        assertTrue(verification.toString(), verification.isPerfect());
+        assertTrue(verification.isStartConnectedToEnd());
+    }
+
+    @Test
+    public void testTallShapedMazesArePerfect() throws IOException {
+        final ShapeMask shapeMask = ShapeMask.sample(ShapeMask.readImage(new File(SHAPE_PATH)), 2, 2, 247, 58);
+        final int mazeHeight = 1000;
+
+        // A roll of the shape and a comb whose teeth only meet in the last rows, far below the shape lookahead.
+        final ShapeRowSource[] shapes = {
+            (row, words) -> shapeMask.getOutsidePoints(1 + (row - 1) % 57, words),
+            (row, words) -> {
+                Arrays.fill(words, 0);
+
+                if (row < mazeHeight - 3)
+                    for (int x = 20; x < 247; x += 20)
+                        words[x >>> 6] |= 1L << x;
+            }
+        };
+
+        for (final ShapeRowSource shape : shapes)
+            for (long randomSeed = 1; randomSeed <= 5; randomSeed++) {
+                final MazeParameters mazeParameters = new MazeParameters(mazeHeight, 247, 2, 2, null, null,
+                                                                         randomSeed);
+                final MazeVerifier verifier = new MazeVerifier(shape, false);
+                new StreamingMazeGenerator(mazeParameters, new ForwardShapeRowSource(shape)).generate(verifier);
+
+                // The roll has several parts: each part should get a perfect maze, like in a maze in memory.
+                final MazeVerification expected = MazeVerifier.verify(createShapedMaze(mazeParameters, shape), shape,
+                                                                      false);
+                final MazeVerification verification = verifier.getVerification();
+                assertEquals("Seed " + randomSeed + ": " + verification, 0, verification.getCycleCount());
+                assertEquals(expected.getCellCount(), verification.getCellCount());
+                assertEquals(expected.getComponentCount(), verification.getComponentCount());
+            }
+    }
+
+    @Test
+    public void testShapedMazeMemoryDoesNotDependOnHeight() throws IOException {
+        // All rows of this maze would need 48 GB, so it can only be generated with a window of rows.
+        final int mazeHeight = 1_000_000_000;
+        final int rowLimit = 5_000;
+        final ShapeMask shapeMask = ShapeMask.sample(ShapeMask.readImage(new File(SHAPE_PATH)), 2, 2, 247, 58);
+        final MazeParameters mazeParameters = new MazeParameters(mazeHeight, 247, 2, 2, null, null, RANDOM_SEED);
+        final ShapeRowSource shape = new ForwardShapeRowSource(
+                (row, words) -> shapeMask.getOutsidePoints(1 + (row - 1) % 57, words));
+        final int[] rowCount = new int[1];
+
+        try {
+            new StreamingMazeGenerator(mazeParameters, shape).generate(new MazeRowSink() {
+                @Override
+                public void startMaze(final MazeParameters mazeParameters) {
+                }
+
+                @Override
+                public void writeRow(final int row, final long[] crossPoints, final long[] horizontalLines,
+                                     final long[] verticalLines) throws IOException {
+                    assertEquals(rowCount[0]++, row);
+
+                    if (rowCount[0] == rowLimit)
+                        throw new IOException("Row limit reached.");
+                }
+
+                @Override
+                public void finishMaze() {
+                }
+            });
+            fail("The row limit should stop the generation.");
+        } catch (final IOException e) {
+            assertEquals("Row limit reached.", e.getMessage());
+        }
+
+        assertEquals(rowLimit, rowCount[0]);
+    }
+
+    private static Maze createShapedMaze(final MazeParameters mazeParameters, final ShapeRowSource shape) {
+        final Maze maze = new Maze(mazeParameters);
+        final BitGrid crossPoints = maze.getCrossPointGrid();
+        final long[] words = new long[crossPoints.getWordsPerRow()];
+
+        for (int row = 1; row < maze.getMazeHeight(); row++) {
+            shape.getOutsidePoints(row, words);
+            crossPoints.setRowWords(row, words);
+            crossPoints.set(row, 0);
+            crossPoints.set(row, maze.getMazeWidth());
+        }
+
+        new ShapeBorderTracer(maze.getMazeWidth()).traceBorder(crossPoints, maze.getHorizontalLineGrid(),
+                                                               maze.getVerticalLineGrid());
+        maze.generateMaze(new EllerMazeGenerator());
+
+        return maze;
+    }
+
+    private static void assertGridEquals(final BitGrid expected, final BitGrid actual) {
+        assertEquals(expected.getWordCount(), actual.getWordCount());
+
+        for (long wordIndex = 0; wordIndex < expected.getWordCount(); wordIndex++)
+            assertEquals("Word " + wordIndex, expected.getWord(wordIndex), actual.getWord(wordIndex));
+    }
+
+    /**
+     * Shape source that checks that the rows are requested from the top to the bottom, each row once.
+     */
+    private static class ForwardShapeRowSource implements ShapeRowSource {
+        private final ShapeRowSource shape;
+        private int nextRow = 1;
+
+        ForwardShapeRowSource(final ShapeRowSource shape) {
+            this.shape = shape;
+        }
+
+        @Override
+        public void getOutsidePoints(final int row, final long[] words) {
+            assertEquals(nextRow++, row);
+
+            shape.getOutsidePoints(row, words);
+        }
+    }
+
+    /**
+     * Sink that collects the rows in a maze.
+     */
+    private static class CollectingSink implements MazeRowSink {
+        private Maze maze;
+        private int rowCount;
+        private boolean finished;
+
+        @Override
+        public void startMaze(final MazeParameters mazeParameters) {
+            maze = new Maze(mazeParameters);
+        }
+
+        @Override
+        public void writeRow(final int row, final long[] crossPoints, final long[] horizontalLines,
+                             final long[] verticalLines) {
+            assertEquals(rowCount++, row);
+
+            maze.getCrossPointGrid().setRowWords(row, crossPoints);
+            maze.getHorizontalLineGrid().setRowWords(row, horizontalLines);
+
+            if (verticalLines != null)
+                maze.getVerticalLineGrid().setRowWords(row, verticalLines);
+            else
+                assertEquals(maze.getMazeHeight(), row);
+        }
+
+        @Override
+        public void finishMaze() {
+            finished = true;
+        }
+    }
+}
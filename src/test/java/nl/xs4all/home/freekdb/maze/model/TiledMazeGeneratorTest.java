@@ -0,0 +1,68 @@
+package nl.xs4all.home.freekdb.maze.model;
+
+import java.util.concurrent.ForkJoinPool;
+
+import nl.xs4all.home.freekdb.maze.utilities.IntUnionFind;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for tiled (parallel) maze generation.
+ */
+public class TiledMazeGeneratorTest {
+    private static final int MAZE_HEIGHT = 150;
+    private static final int MAZE_WIDTH = 200;
+    private static final int TILE_SIZE = 40;
+
+    @Test
+    public void testResultDoesNotDependOnThreadCount() {
+        final Maze singleThreadMaze = generateMaze(1);
+        final Maze multiThreadMaze = generateMaze(4);
+
+        assertArrayEquals(singleThreadMaze.getHorizontalLines(), multiThreadMaze.getHorizontalLines());
+        assertArrayEquals(singleThreadMaze.getVerticalLines(), multiThreadMaze.getVerticalLines());
+    }
+
+    @Test
+    public void testTiledMazeIsPerfect() {
+        final Maze maze = generateMaze(2);
+        final IntUnionFind components = new IntUnionFind(maze.getCellCount());
+        int passageCount = 0;
+        int componentCount = maze.getCellCount();
+
+        for (int y = 0; y < MAZE_HEIGHT; y++)
+            for (int x = 0; x < MAZE_WIDTH; x++) {
+                final int cell = maze.getCellIndex(x, y);
+
+                if (x + 1 < MAZE_WIDTH && !maze.hasVerticalLine(y, x + 1)) {
+                    passageCount++;
+                    componentCount -= components.union(cell, cell + 1) ? 1 : 0;
+                }
+
+                if (y + 1 < MAZE_HEIGHT && !maze.hasHorizontalLine(y + 1, x)) {
+                    passageCount++;
+                    componentCount -= components.union(cell, cell + MAZE_WIDTH) ? 1 : 0;
+                }
+            }
+
+        // A perfect maze is a spanning tree of the cells: connected and without loops.
+        assertEquals(1, componentCount);
+        assertEquals(maze.getCellCount() - 1, passageCount);
+    }
+
+    private static Maze generateMaze(final int threadCount) {
+        final Maze maze = new Maze(new MazeParameters(MAZE_HEIGHT, MAZE_WIDTH, 2, 2, null, null, 654321));
+        final ForkJoinPool pool = new ForkJoinPool(threadCount);
+
+        try {
+            maze.generateMazeTiled(TILE_SIZE, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        return maze;
+    }
+}
@@ -0,0 +1,78 @@
+package nl.xs4all.home.freekdb.maze.view;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.model.MazeParameters;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the <code>PathOverlay</code> class.
+ */
+public class PathOverlayTest {
+    private static final int CELL_SIZE = 10;
+    private static final int BACKGROUND = 0xFFFFFFFF;
+    private static final int PATH = PathOverlay.PATH_COLOR.getRGB();
+    private static final int DEAD_END = PathOverlay.DEAD_END_COLOR.getRGB();
+
+    private final Maze maze = new Maze(new MazeParameters(40, 40, CELL_SIZE, CELL_SIZE, null, null, 1));
+
+    @Test
+    public void testPushAndPop() {
+        final PathOverlay pathOverlay = new PathOverlay(maze, false);
+
+        assertEquals(new Rectangle(13, 13, 5, 5), pathOverlay.push(maze.getCellIndex(0, 0)));
+        assertEquals(new Rectangle(13, 13, 15, 5), pathOverlay.push(maze.getCellIndex(1, 0)));
+        assertEquals(new Rectangle(23, 13, 5, 15), pathOverlay.push(maze.getCellIndex(1, 1)));
+
+        final BufferedImage pushedImage = paint(pathOverlay);
+        assertEquals(PATH, pushedImage.getRGB(15, 15));
+        assertEquals(PATH, pushedImage.getRGB(20, 15));
+        assertEquals(PATH, pushedImage.getRGB(25, 20));
+        assertEquals(PATH, pushedImage.getRGB(25, 25));
+        assertEquals(BACKGROUND, pushedImage.getRGB(15, 25));
+
+        assertEquals(new Rectangle(23, 13, 5, 15), pathOverlay.pop());
+        assertEquals(2, pathOverlay.getPathLength());
+
+        final BufferedImage poppedImage = paint(pathOverlay);
+        assertEquals(PATH, poppedImage.getRGB(20, 15));
+        assertEquals(PATH, poppedImage.getRGB(25, 15));
+        assertEquals(BACKGROUND, poppedImage.getRGB(25, 20));
+        assertEquals(BACKGROUND, poppedImage.getRGB(25, 25));
+    }
+
+    @Test
+    public void testDeadEnds() {
+        final PathOverlay pathOverlay = new PathOverlay(maze, true);
+
+        pathOverlay.push(maze.getCellIndex(0, 0));
+        pathOverlay.push(maze.getCellIndex(0, 1));
+        pathOverlay.pop();
+        pathOverlay.pop();
+
+        final BufferedImage image = paint(pathOverlay);
+        assertEquals(DEAD_END, image.getRGB(15, 15));
+        assertEquals(DEAD_END, image.getRGB(15, 25));
+        assertEquals(BACKGROUND, image.getRGB(15, 20));
+        assertNull(pathOverlay.pop());
+    }
+
+    private BufferedImage paint(final PathOverlay pathOverlay) {
+        final BufferedImage image = new BufferedImage(MazeRenderer.getImageWidth(maze),
+                                                      MazeRenderer.getImageHeight(maze), BufferedImage.TYPE_INT_RGB);
+        final Graphics2D graphics = image.createGraphics();
+        graphics.setColor(MazeRenderer.BACKGROUND_COLOR);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        pathOverlay.paint(graphics, new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+        graphics.dispose();
+
+        return image;
+    }
+}
@@ -0,0 +1,118 @@
+package nl.xs4all.home.freekdb.maze.view;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+
+import nl.xs4all.home.freekdb.maze.model.Maze;
+import nl.xs4all.home.freekdb.maze.model.MazeParameters;
+import nl.xs4all.home.freekdb.maze.utilities.Utilities;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the <code>RasterMazeRenderer</code> class.
+ */
+public class RasterMazeRendererTest {
+    @Test
+    public void testSamePictureAsDrawLines() {
+        for (final int cellSize : new int[]{1, 2, 3, 6}) {
+            final Maze maze = createMaze(cellSize);
+
+            for (final int imageType : new int[]{BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_BYTE_BINARY}) {
+                final BufferedImage expectedImage = createImage(maze, imageType);
+                final Graphics2D graphics = expectedImage.createGraphics();
+                MazeRenderer.drawLines(graphics, maze);
+                graphics.dispose();
+
+                final BufferedImage actualImage = createImage(maze, imageType);
+                RasterMazeRenderer.drawLines(actualImage, maze);
+
+                assertSameImage(expectedImage, actualImage);
+            }
+        }
+    }
+
+    @Test
+    public void testCreateImage() {
+        final Maze maze = createMaze(2);
+
+        assertSameImage(MazeRenderer.createImage(maze), RasterMazeRenderer.createImage(maze));
+    }
+
+    @Test
+    public void testTilesMatchFullImage() {
+        final Maze maze = createMaze(3);
+        final BufferedImage fullImage = RasterMazeRenderer.createImage(maze);
+        final int tileSize = 37;
+
+        for (int originY = 0; originY < fullImage.getHeight(); originY += tileSize)
+            for (int originX = 0; originX < fullImage.getWidth(); originX += tileSize) {
+                final int width = Math.min(tileSize, fullImage.getWidth() - originX);
+                final int height = Math.min(tileSize, fullImage.getHeight() - originY);
+                final BufferedImage tile = createImage(width, height, BufferedImage.TYPE_INT_RGB);
+                RasterMazeRenderer.drawLines(tile, maze, originX, originY);
+
+                assertSameImage(fullImage.getSubimage(originX, originY, width, height), tile);
+            }
+    }
+
+    @Test
+    public void testTileCacheEvictsLeastRecentlyUsedTiles() {
+        final Maze maze = createMaze(6);
+        final int tileSize = 64;
+        final long tileBytes = tileSize / 8 * tileSize;
+        final WallTileCache wallTileCache = new WallTileCache(maze, tileSize, 3 * tileBytes);
+
+        final BufferedImage firstTile = wallTileCache.getTile(0, 0);
+        wallTileCache.getTile(1, 0);
+        wallTileCache.getTile(2, 0);
+        assertSame(firstTile, wallTileCache.getTile(0, 0));
+
+        wallTileCache.getTile(3, 0);
+        assertEquals(3, wallTileCache.getTileCount());
+        assertEquals(3 * tileBytes, wallTileCache.getCachedBytes());
+        assertSame(firstTile, wallTileCache.getTile(0, 0));
+
+        wallTileCache.clear();
+        assertEquals(0, wallTileCache.getTileCount());
+        assertNotSame(firstTile, wallTileCache.getTile(0, 0));
+    }
+
+    private static Maze createMaze(final int cellSize) {
+        final MazeParameters mazeParameters = new MazeParameters("etc/unit-test.png", cellSize, cellSize,
+                                                                 new Point(6, 18), new Point(130, 45), 654321);
+        final Maze maze = new Maze(mazeParameters);
+        maze.limitMazeAreaToShape(Utilities.toBufferedImage(mazeParameters.getShapeImage()));
+        maze.generateMaze();
+
+        return maze;
+    }
+
+    private static BufferedImage createImage(final Maze maze, final int imageType) {
+        return createImage(MazeRenderer.getImageWidth(maze), MazeRenderer.getImageHeight(maze), imageType);
+    }
+
+    private static BufferedImage createImage(final int width, final int height, final int imageType) {
+        final BufferedImage image = new BufferedImage(width, height, imageType);
+        final Graphics2D graphics = image.createGraphics();
+        graphics.setColor(MazeRenderer.BACKGROUND_COLOR);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.dispose();
+
+        return image;
+    }
+
+    private static void assertSameImage(final BufferedImage expectedImage, final BufferedImage actualImage) {
+        assertEquals(expectedImage.getWidth(), actualImage.getWidth());
+        assertEquals(expectedImage.getHeight(), actualImage.getHeight());
+
+        for (int y = 0; y < expectedImage.getHeight(); y++)
+            for (int x = 0; x < expectedImage.getWidth(); x++)
+                assertEquals("pixel (" + x + ", " + y + ")", expectedImage.getRGB(x, y), actualImage.getRGB(x, y));
+    }
+}